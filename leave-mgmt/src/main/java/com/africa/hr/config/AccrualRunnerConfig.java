@@ -0,0 +1,31 @@
+package com.africa.hr.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Worker pool for chunked accrual runs.
+ * The pool is bounded by {@code accrual.runner.worker-threads}; when all
+ * workers are busy and the queue is full the submitting thread runs the chunk
+ * itself, which throttles submission instead of rejecting work.
+ */
+@Configuration
+public class AccrualRunnerConfig {
+
+    @Bean(name = "accrualRunnerExecutor")
+    public ThreadPoolTaskExecutor accrualRunnerExecutor(AccrualRunnerConfigProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkerThreads());
+        executor.setMaxPoolSize(properties.getWorkerThreads());
+        executor.setQueueCapacity(properties.getWorkerThreads() * 2);
+        executor.setThreadNamePrefix("accrual-runner-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,38 @@
+package com.africa.hr.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Worker pool for background jobs.
+ * Kept small and separate from the request threads so that batch work can
+ * never hold more than {@code jobs.worker-threads} database connections.
+ * A single scheduler thread renews the leases of the running jobs every
+ * {@code jobs.heartbeat-interval}.
+ */
+@Configuration
+public class BackgroundJobConfig {
+
+    @Bean(name = "backgroundJobExecutor")
+    public ThreadPoolTaskExecutor backgroundJobExecutor(BackgroundJobConfigProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkerThreads());
+        executor.setMaxPoolSize(properties.getWorkerThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("background-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "backgroundJobLeaseScheduler")
+    public ThreadPoolTaskScheduler backgroundJobLeaseScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("background-job-lease-");
+        scheduler.initialize();
+        return scheduler;
+    }
+}
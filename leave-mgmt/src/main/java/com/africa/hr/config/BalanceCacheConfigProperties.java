@@ -0,0 +1,18 @@
+package com.africa.hr.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "balances.cache")
+public class BalanceCacheConfigProperties {
+    private int maxEmployees = 10000;
+
+    public int getMaxEmployees() {
+        return maxEmployees;
+    }
+
+    public void setMaxEmployees(int maxEmployees) {
+        this.maxEmployees = maxEmployees;
+    }
+}
@@ -0,0 +1,31 @@
+package com.africa.hr.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Worker pool for balance reconciliation partitions.
+ * Bounded by {@code balances.reconciliation.worker-threads} and throttled like
+ * the accrual runner pool: when it is saturated the submitting thread runs the
+ * partition itself.
+ */
+@Configuration
+public class BalanceReconciliationConfig {
+
+    @Bean(name = "balanceReconciliationExecutor")
+    public ThreadPoolTaskExecutor balanceReconciliationExecutor(BalanceReconciliationConfigProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkerThreads());
+        executor.setMaxPoolSize(properties.getWorkerThreads());
+        executor.setQueueCapacity(properties.getWorkerThreads() * 2);
+        executor.setThreadNamePrefix("balance-reconciliation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+}
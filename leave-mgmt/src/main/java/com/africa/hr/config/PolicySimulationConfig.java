@@ -0,0 +1,31 @@
+package com.africa.hr.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Worker pool for leave policy simulation partitions.
+ * Bounded by {@code policies.simulation.worker-threads}, so simulations never
+ * compete with request handling for the common fork-join pool. When the pool
+ * is saturated the submitting thread replays the partition itself.
+ */
+@Configuration
+public class PolicySimulationConfig {
+
+    @Bean(name = "policySimulationExecutor")
+    public ThreadPoolTaskExecutor policySimulationExecutor(PolicySimulationConfigProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkerThreads());
+        executor.setMaxPoolSize(properties.getWorkerThreads());
+        executor.setQueueCapacity(properties.getWorkerThreads() * 2);
+        executor.setThreadNamePrefix("policy-simulation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,55 @@
+package com.africa.hr.controller;
+
+import com.africa.hr.dto.BackgroundJobDTO;
+import com.africa.hr.dto.BackgroundJobResultPageDTO;
+import com.africa.hr.service.BackgroundJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Background Jobs", description = "APIs for polling long-running admin operations")
+public class BackgroundJobController {
+
+        private final BackgroundJobService backgroundJobService;
+
+        @GetMapping("/{jobId}")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Get a background job", description = "Retrieves the status and progress counters of a background job. "
+                        + "Only administrators can access this endpoint.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Job retrieved successfully"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+                        @ApiResponse(responseCode = "404", description = "Job not found")
+        })
+        public ResponseEntity<BackgroundJobDTO> getJob(
+                        @Parameter(description = "ID of the job", required = true) @PathVariable Long jobId) {
+                return ResponseEntity.ok(backgroundJobService.getJob(jobId));
+        }
+
+        @GetMapping("/{jobId}/results")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Get background job results", description = "Retrieves a page of the results produced by a background job. "
+                        + "Results are available while the job is still running.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Results retrieved successfully"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+                        @ApiResponse(responseCode = "404", description = "Job not found")
+        })
+        public ResponseEntity<BackgroundJobResultPageDTO> getJobResults(
+                        @Parameter(description = "ID of the job", required = true) @PathVariable Long jobId,
+                        @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+                        @Parameter(description = "Page size") @RequestParam(defaultValue = "50") int size) {
+                return ResponseEntity.ok(backgroundJobService.getResults(jobId, page, size));
+        }
+}
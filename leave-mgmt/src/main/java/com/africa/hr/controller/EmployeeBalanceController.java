@@ -1,12 +1,20 @@
 package com.africa.hr.controller;
 
+import com.africa.hr.dto.BackgroundJobDTO;
+import com.africa.hr.dto.BalanceAsOfDTO;
+import com.africa.hr.dto.BalanceCacheStatsDTO;
+import com.africa.hr.dto.EmployeeBalanceSnapshotDTO;
 import com.africa.hr.dto.LeaveTypeStatsDTO;
-import com.africa.hr.model.EmployeeBalance;
-import com.africa.hr.model.LeaveRequest;
 import com.africa.hr.model.User;
+import com.africa.hr.service.BackgroundJobService;
+import com.africa.hr.service.BalanceLedgerService;
+import com.africa.hr.service.EmployeeBalanceCache;
 import com.africa.hr.service.EmployeeBalanceService;
-import com.africa.hr.service.LeaveRequestService;
 import com.africa.hr.service.UserService;
+import com.africa.hr.service.job.BalanceReconciliationJobHandler;
+import com.africa.hr.service.job.BalanceRequestDaysRebuildJobHandler;
+import com.africa.hr.service.job.BalanceSnapshotJobHandler;
+import com.africa.hr.service.job.BalanceUsageBackfillJobHandler;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,12 +23,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -34,7 +44,9 @@ public class EmployeeBalanceController {
 
         private final EmployeeBalanceService employeeBalanceService;
         private final UserService userService;
-        private final LeaveRequestService leaveRequestService;
+        private final BackgroundJobService backgroundJobService;
+        private final EmployeeBalanceCache employeeBalanceCache;
+        private final BalanceLedgerService balanceLedgerService;
 
         /**
          * Get detailed leave balance statistics for the authenticated employee.
@@ -46,7 +58,7 @@ public class EmployeeBalanceController {
          */
         @GetMapping("/stats")
         @PreAuthorize("hasAnyRole('STAFF', 'MANAGER')")
-        @Operation(summary = "Get detailed leave balance statistics", description = "Retrieves detailed leave balance statistics including used, total and remaining days for each leave type")
+        @Operation(summary = "Get detailed leave balance statistics", description = "Retrieves detailed leave balance statistics including used, pending, total and remaining days for each leave type")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
                         @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
@@ -56,50 +68,17 @@ public class EmployeeBalanceController {
                         @Parameter(hidden = true) @AuthenticationPrincipal User employee) {
                 log.info("Getting detailed leave balance statistics for employee {}", employee.getId());
 
-                List<EmployeeBalance> balances = employeeBalanceService.findByEmployee(employee);
-
-                List<LeaveTypeStatsDTO> stats = balances.stream()
-                                .map(balance -> {
+                List<LeaveTypeStatsDTO> stats = employeeBalanceService.getLeaveTypeUsage(employee.getId()).stream()
+                                .map(usage -> {
                                         LeaveTypeStatsDTO dto = new LeaveTypeStatsDTO();
-                                        dto.setType(balance.getLeaveType().getName());
-                                        dto.setTotal(balance.getTotalAllowance().doubleValue());
-
-                                        // Calculate used days correctly - get used leave from leave requests
-                                        BigDecimal totalAllowance = balance.getTotalAllowance();
-                                        BigDecimal currentBalance = balance.getCurrentBalance();
-
-                                        // Used days = days allocated minus days left
-                                        // This calculation is only valid when the employee has already been allocated
-                                        // their full leave allowance, which is the case for new employees with 0
-                                        // balance
-                                        BigDecimal used;
-
-                                        // If current balance is zero but total allowance is also zero, there's nothing
-                                        // to use
-                                        if (totalAllowance.equals(BigDecimal.ZERO)) {
-                                                used = BigDecimal.ZERO;
-                                        } else {
-                                                // Calculate actual used days from leave requests for this employee and
-                                                // leave type
-                                                List<LeaveRequest> approvedLeaves = leaveRequestService
-                                                                .getApprovedLeaveRequestsByEmployeeAndLeaveType(
-                                                                                balance.getEmployee(),
-                                                                                balance.getLeaveType());
-
-                                                if (approvedLeaves.isEmpty()) {
-                                                        // If no approved leave requests, used days should be zero
-                                                        used = BigDecimal.ZERO;
-                                                } else {
-                                                        // Sum up the days from all approved leave requests
-                                                        used = approvedLeaves.stream()
-                                                                        .map(LeaveRequest::getTotalDaysRequested)
-                                                                        .map(BigDecimal::valueOf)
-                                                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                                                }
-                                        }
-
-                                        dto.setUsed(used.doubleValue());
-                                        dto.setDaysLeft(balance.getCurrentBalance().doubleValue());
+                                        dto.setType(usage.getLeaveTypeName());
+                                        dto.setTotal(usage.getTotalAllowance().doubleValue());
+
+                                        // If the total allowance is zero, there's nothing to use
+                                        dto.setUsed(usage.getTotalAllowance().signum() == 0 ? 0.0
+                                                        : usage.getUsedDays().doubleValue());
+                                        dto.setPending(usage.getPendingDays().doubleValue());
+                                        dto.setDaysLeft(usage.getCurrentBalance().doubleValue());
                                         return dto;
                                 })
                                 .collect(Collectors.toList());
@@ -108,7 +87,7 @@ public class EmployeeBalanceController {
         }
 
         /**
-         * Get all leave balances for a specific employee.
+         * Get all leave balances for a specific employee, from the balance cache.
          *
          * @param employeeId the ID of the employee
          * @return list of employee balances
@@ -124,19 +103,21 @@ public class EmployeeBalanceController {
                         @ApiResponse(responseCode = "403", description = "Forbidden - User does not have required role"),
                         @ApiResponse(responseCode = "500", description = "Internal server error")
         })
-        public ResponseEntity<List<EmployeeBalance>> getEmployeeBalances(
+        public ResponseEntity<List<EmployeeBalanceSnapshotDTO>> getEmployeeBalances(
                         @Parameter(description = "ID of the employee") @PathVariable @NotNull Long employeeId) {
                 log.info("Getting balances for employee {}", employeeId);
 
-                User employee = userService.findById(employeeId)
-                                .orElseThrow(() -> new IllegalArgumentException("Employee not found: " + employeeId));
+                List<EmployeeBalanceSnapshotDTO> balances = employeeBalanceService.getEmployeeBalances(employeeId);
 
-                List<EmployeeBalance> balances = employeeBalanceService.findByEmployee(employee);
+                // Only an employee without balances needs to be looked up
+                if (balances.isEmpty() && userService.findById(employeeId).isEmpty()) {
+                        throw new IllegalArgumentException("Employee not found: " + employeeId);
+                }
                 return ResponseEntity.ok(balances);
         }
 
         /**
-         * Get a specific leave balance for an employee.
+         * Get a specific leave balance for an employee, from the balance cache.
          *
          * @param employeeId  the ID of the employee
          * @param leaveTypeId the ID of the leave type
@@ -153,12 +134,160 @@ public class EmployeeBalanceController {
                         @ApiResponse(responseCode = "403", description = "Forbidden - User does not have required role"),
                         @ApiResponse(responseCode = "500", description = "Internal server error")
         })
-        public ResponseEntity<EmployeeBalance> getEmployeeBalance(
+        public ResponseEntity<EmployeeBalanceSnapshotDTO> getEmployeeBalance(
                         @Parameter(description = "ID of the employee") @PathVariable @NotNull Long employeeId,
                         @Parameter(description = "ID of the leave type") @PathVariable @NotNull Long leaveTypeId) {
                 log.info("Getting balance for employee {} and leave type {}", employeeId, leaveTypeId);
 
-                EmployeeBalance balance = employeeBalanceService.getBalance(employeeId, leaveTypeId);
+                EmployeeBalanceSnapshotDTO balance = employeeBalanceService.getBalance(employeeId, leaveTypeId);
                 return ResponseEntity.ok(balance);
         }
-}
\ No newline at end of file
+
+        /**
+         * Get an employee's leave balances as they were at the end of a past day.
+         *
+         * @param employeeId the ID of the employee
+         * @param date       the day
+         * @return the balance of each leave type on that day
+         */
+        @GetMapping("/employees/{employeeId}/asOf")
+        @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+        @Operation(summary = "Get an employee's balances on a past day", description = "Retrieves an employee's leave balances at the end of a day, from the latest month-end snapshot and the balance movements since. "
+                        + "Only administrators and managers can access this endpoint.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Balances retrieved successfully"),
+                        @ApiResponse(responseCode = "400", description = "Date is in the future"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have required role")
+        })
+        public ResponseEntity<List<BalanceAsOfDTO>> getEmployeeBalancesAsOf(
+                        @Parameter(description = "ID of the employee") @PathVariable @NotNull Long employeeId,
+                        @Parameter(description = "Day to get the balances at the end of (yyyy-MM-dd)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+                log.info("Getting balances for employee {} as of {}", employeeId, date);
+                return ResponseEntity.ok(balanceLedgerService.getBalancesAsOf(employeeId, date));
+        }
+
+        /**
+         * Snapshot every balance at the end of a month. Defaults to the previous
+         * month.
+         *
+         * @param month the month to snapshot (yyyy-MM)
+         * @return the submitted job
+         */
+        @PostMapping("/snapshots")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Take month-end balance snapshots", description = "Submits a background job that snapshots every balance at the end of a month, so past balances can be read quickly. "
+                        + "Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Snapshot job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+        })
+        public ResponseEntity<BackgroundJobDTO> takeSnapshots(
+                        @Parameter(description = "Month to snapshot (yyyy-MM); defaults to the previous month") @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                YearMonth snapshotMonth = month != null ? month : YearMonth.now().minusMonths(1);
+                BackgroundJobDTO job = backgroundJobService.submit(BalanceSnapshotJobHandler.JOB_TYPE,
+                                Map.of(BalanceSnapshotJobHandler.PARAM_MONTH, snapshotMonth.toString()),
+                                admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} to snapshot balances for {}", job.getId(), snapshotMonth);
+                return ResponseEntity.accepted().body(job);
+        }
+
+        /**
+         * Rebuild the used and pending days of every balance from the leave
+         * requests. The counters are maintained on every request change; this is
+         * only needed after requests were changed outside the application.
+         *
+         * @return the submitted job
+         */
+        @PostMapping("/requestDays/rebuild")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Rebuild used and pending days", description = "Submits a background job that recomputes the used and pending days of every balance from the leave requests. "
+                        + "Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Rebuild job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+        })
+        public ResponseEntity<BackgroundJobDTO> rebuildRequestDays(
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                BackgroundJobDTO job = backgroundJobService.submit(BalanceRequestDaysRebuildJobHandler.JOB_TYPE,
+                                Map.of(), admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} to rebuild balance request days", job.getId());
+                return ResponseEntity.accepted().body(job);
+        }
+
+        /**
+         * Take the days of leave requests approved before approvals were
+         * recorded in the balance ledger off their balances. Run once, before
+         * the first reconciliation, so that those days are not reported as
+         * drift.
+         *
+         * @return the submitted job
+         */
+        @PostMapping("/usage/backfill")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Backfill approved leave usage", description = "Submits a background job that takes the days of previously approved leave requests off their balances "
+                        + "and records them in the balance ledger. Requests already recorded are skipped. Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Backfill job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+        })
+        public ResponseEntity<BackgroundJobDTO> backfillApprovedUsage(
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                BackgroundJobDTO job = backgroundJobService.submit(BalanceUsageBackfillJobHandler.JOB_TYPE,
+                                Map.of(), admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} to backfill approved leave usage", job.getId());
+                return ResponseEntity.accepted().body(job);
+        }
+
+        /**
+         * Reconcile every balance against its accruals, forfeits and approved
+         * leave, optionally repairing the balances that drifted.
+         *
+         * @param repair whether drifted balances should be corrected
+         * @return the submitted job
+         */
+        @PostMapping("/reconciliation")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Reconcile balances", description = "Submits a background job that recomputes every balance from its accruals, forfeited carry-forwards and approved leave, "
+                        + "reports the balances that drifted and, if requested, corrects them. Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Reconciliation job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+        })
+        public ResponseEntity<BackgroundJobDTO> reconcileBalances(
+                        @Parameter(description = "Whether drifted balances should be corrected") @RequestParam(defaultValue = "false") boolean repair,
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                BackgroundJobDTO job = backgroundJobService.submit(BalanceReconciliationJobHandler.JOB_TYPE,
+                                Map.of(BalanceReconciliationJobHandler.PARAM_REPAIR, String.valueOf(repair)),
+                                admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} to reconcile balances (repair: {})", job.getId(), repair);
+                return ResponseEntity.accepted().body(job);
+        }
+
+        /**
+         * Get the hit, miss and eviction counters of the balance cache.
+         *
+         * @return the cache counters
+         */
+        @GetMapping("/cache/stats")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Get balance cache statistics", description = "Retrieves the hits, misses, evictions and invalidations of the employee balance cache since startup. "
+                        + "Only administrators can access this endpoint.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Statistics retrieved successfully"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+        })
+        public ResponseEntity<BalanceCacheStatsDTO> getCacheStats() {
+                return ResponseEntity.ok(employeeBalanceCache.getStats());
+        }
+}
@@ -1,13 +1,23 @@
 package com.africa.hr.controller;
 
+import com.africa.hr.dto.AccrualRunDTO;
+import com.africa.hr.dto.BackgroundJobDTO;
+import com.africa.hr.dto.LeaveAccrualCatchUpResultDTO;
+import com.africa.hr.dto.LeaveAccrualHistoryPageDTO;
 import com.africa.hr.dto.LeaveAccrualResponseDTO;
 import com.africa.hr.dto.LeaveAccrualSummaryDTO;
 import com.africa.hr.model.EmployeeBalance;
 import com.africa.hr.model.LeaveAccrual;
 import com.africa.hr.model.User;
+import com.africa.hr.service.AccrualRunService;
+import com.africa.hr.service.BackgroundJobService;
+import com.africa.hr.service.BulkLeaveAccrualService;
 import com.africa.hr.service.EmployeeBalanceService;
 import com.africa.hr.service.LeaveAccrualService;
 import com.africa.hr.service.UserService;
+import com.africa.hr.service.job.AccrualSummaryRebuildJobHandler;
+import com.africa.hr.service.job.MonthlyAccrualJobHandler;
+import com.africa.hr.service.job.YearlyAccrualJobHandler;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -17,13 +27,17 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -34,6 +48,9 @@ import java.util.stream.Collectors;
 public class LeaveAccrualController {
 
         private final LeaveAccrualService leaveAccrualService;
+        private final AccrualRunService accrualRunService;
+        private final BulkLeaveAccrualService bulkLeaveAccrualService;
+        private final BackgroundJobService backgroundJobService;
         private final EmployeeBalanceService employeeBalanceService;
         private final UserService userService;
 
@@ -91,27 +108,20 @@ public class LeaveAccrualController {
                         throw new IllegalArgumentException("Employee has no leave balances configured: " + employeeId);
                 }
 
-                // Check if employee has any accruals already processed for the month
-                boolean hasProcessedAccruals = balances.stream()
-                                .anyMatch(balance -> !leaveAccrualService.findByEmployeeBalanceAndYearAndMonth(
-                                                balance,
-                                                processMonth.getYear(),
-                                                processMonth.getMonthValue())
-                                                .isEmpty());
-
-                if (hasProcessedAccruals) {
-                        throw new IllegalStateException(
-                                        "Accruals have already been processed for employee " + employeeId +
-                                                        " for " + processMonth);
-                }
-
                 try {
-                        // Process accruals for each balance
+                        // Process accruals for each balance; months already in the ledger are skipped
                         List<LeaveAccrual> processedAccruals = balances.stream()
                                         .map(balance -> leaveAccrualService.processAccrualForBalance(balance,
                                                         processMonth))
+                                        .flatMap(Optional::stream)
                                         .toList();
 
+                        if (processedAccruals.isEmpty()) {
+                                throw new IllegalStateException(
+                                                "Accruals have already been processed for employee " + employeeId +
+                                                                " for " + processMonth);
+                        }
+
                         // Convert to DTOs
                         List<LeaveAccrualResponseDTO> responseDTOs = processedAccruals.stream()
                                         .map(accrual -> {
@@ -159,7 +169,12 @@ public class LeaveAccrualController {
          * - Accrual date is set to May 1st, 2024
          * - Processes April 2024 accruals for all employees
          *
-         * @return list of processed accruals for all employees
+         * The accruals run as a background job; poll /jobs/{jobId} for progress.
+         * The work is split into chunks that are committed independently. If an
+         * earlier run for the same month did not finish, it is resumed instead of
+         * starting over.
+         *
+         * @return the submitted job
          */
         @PostMapping("/processMonthlyAccruals")
         @PreAuthorize("hasRole('ADMIN')")
@@ -167,13 +182,14 @@ public class LeaveAccrualController {
                         +
                         "Only administrators can trigger this process.")
         @ApiResponses(value = {
-                        @ApiResponse(responseCode = "200", description = "Accruals processed successfully"),
+                        @ApiResponse(responseCode = "202", description = "Accrual job submitted"),
                         @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
                         @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
                         @ApiResponse(responseCode = "500", description = "Internal server error during processing")
         })
-        public ResponseEntity<List<LeaveAccrualResponseDTO>> processAllEmployeesMonthlyAccruals() {
-                log.info("Processing monthly accruals for all employees");
+        public ResponseEntity<BackgroundJobDTO> processAllEmployeesMonthlyAccruals(
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                log.info("Submitting monthly accruals for all employees");
 
                 // Set accrual date to 1st of current month
                 LocalDate accrualDate = LocalDate.now().withDayOfMonth(1);
@@ -181,75 +197,82 @@ public class LeaveAccrualController {
                 // Get previous month for processing
                 YearMonth processMonth = YearMonth.from(accrualDate).minusMonths(1);
 
-                try {
-                        // Get all employees
-                        List<User> allEmployees = userService.findAllEmployees();
-
-                        // Process accruals for each employee's eligible balances
-                        List<LeaveAccrual> processedAccruals = allEmployees.stream()
-                                        .flatMap(employee -> {
-                                                List<EmployeeBalance> balances = employeeBalanceService
-                                                                .findByEmployee(employee);
-                                                return balances.stream()
-                                                                .filter(EmployeeBalance::isEligibleForAccrual)
-                                                                .filter(balance -> leaveAccrualService
-                                                                                .findByEmployeeBalanceAndYearAndMonth(
-                                                                                                balance,
-                                                                                                processMonth.getYear(),
-                                                                                                processMonth.getMonthValue())
-                                                                                .isEmpty())
-                                                                .map(balance -> leaveAccrualService
-                                                                                .processAccrualForBalance(balance,
-                                                                                                processMonth));
-                                        })
-                                        .toList();
+                BackgroundJobDTO job = backgroundJobService.submit(MonthlyAccrualJobHandler.JOB_TYPE,
+                                Map.of(MonthlyAccrualJobHandler.PARAM_ACCRUAL_PERIOD, processMonth.toString(),
+                                                MonthlyAccrualJobHandler.PARAM_ACCRUAL_DATE, accrualDate.toString()),
+                                admin != null ? admin.getEmail() : null);
 
-                        // Convert to DTOs
-                        List<LeaveAccrualResponseDTO> responseDTOs = processedAccruals.stream()
-                                        .map(accrual -> {
-                                                LeaveAccrualResponseDTO dto = new LeaveAccrualResponseDTO();
-                                                dto.setId(accrual.getId());
-                                                dto.setEmployeeBalanceId(accrual.getEmployeeBalance().getId());
-                                                dto.setEmployeeId(accrual.getEmployeeBalance().getEmployee().getId());
-                                                dto.setEmployeeName(accrual.getEmployeeBalance().getEmployee()
-                                                                .getFirstName() + " " +
-                                                                accrual.getEmployeeBalance().getEmployee()
-                                                                                .getLastName());
-                                                dto.setLeaveTypeId(accrual.getEmployeeBalance().getLeaveType().getId());
-                                                dto.setLeaveTypeName(
-                                                                accrual.getEmployeeBalance().getLeaveType().getName());
-                                                dto.setAccrualDate(accrual.getAccrualDate());
-                                                dto.setAccrualPeriod(accrual.getYearMonth());
-                                                dto.setAmount(accrual.getAmount());
-                                                dto.setIsProrated(accrual.getIsProrated());
-                                                dto.setCreatedAt(accrual.getCreatedAt());
-                                                return dto;
-                                        })
-                                        .collect(Collectors.toList());
+                log.info("Submitted job {} for monthly accruals for all employees for month: {} (Accrual date: {})",
+                                job.getId(), processMonth, accrualDate);
 
-                        log.info("Successfully processed {} accruals for all employees for month: {} (Accrual date: {})",
-                                        processedAccruals.size(), processMonth, accrualDate);
+                return ResponseEntity.accepted().body(job);
+        }
 
-                        return ResponseEntity.ok(responseDTOs);
+        /**
+         * Get the state of an accrual run and its chunks.
+         *
+         * @param runId the ID of the accrual run
+         * @return the accrual run
+         */
+        @GetMapping("/accrualRuns/{runId}")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Get an accrual run", description = "Retrieves the status and per-chunk checkpoints of a monthly accrual run. "
+                        + "Only administrators can access this endpoint.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Accrual run retrieved successfully"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+                        @ApiResponse(responseCode = "404", description = "Accrual run not found")
+        })
+        public ResponseEntity<AccrualRunDTO> getAccrualRun(
+                        @Parameter(description = "ID of the accrual run", required = true) @PathVariable Long runId) {
+                return ResponseEntity.ok(accrualRunService.getRun(runId));
+        }
 
-                } catch (Exception e) {
-                        log.error("Error processing accruals for all employees for month {} (Accrual date: {}): {}",
-                                        processMonth, accrualDate, e.getMessage(), e);
-                        throw e;
-                }
+        /**
+         * Resume an accrual run that did not finish. Only chunks that have not
+         * been completed are processed again, as a background job.
+         *
+         * @param runId the ID of the accrual run
+         * @return the submitted job
+         */
+        @PostMapping("/accrualRuns/{runId}/resume")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Resume an accrual run", description = "Processes the remaining chunks of an unfinished monthly accrual run. "
+                        + "Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Resume job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+                        @ApiResponse(responseCode = "404", description = "Accrual run not found"),
+                        @ApiResponse(responseCode = "500", description = "Accrual run is already completed")
+        })
+        public ResponseEntity<BackgroundJobDTO> resumeAccrualRun(
+                        @Parameter(description = "ID of the accrual run", required = true) @PathVariable Long runId,
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                AccrualRunDTO run = accrualRunService.getResumableRun(runId);
+
+                BackgroundJobDTO job = backgroundJobService.submit(MonthlyAccrualJobHandler.JOB_TYPE,
+                                Map.of(MonthlyAccrualJobHandler.PARAM_RUN_ID, runId.toString()),
+                                admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} to resume accrual run {} for {}", job.getId(), runId,
+                                run.getAccrualPeriod());
+                return ResponseEntity.accepted().body(job);
         }
 
         /**
          * Process accruals for a specific employee for the current year.
-         * This endpoint processes monthly accruals for all eligible leave balances.
+         * Every month of the year that is missing from the ledger is accrued in a
+         * single pass; months already processed are skipped.
          *
          * @param employeeId the ID of the employee to process
-         * @return list of processed accruals for the employee
+         * @return a summary of the accruals written for the employee
          */
         @PostMapping("/processYearlyAccruals/employees/{employeeId}")
         @PreAuthorize("hasRole('ADMIN')")
         @Operation(summary = "Process leave accruals for a specific employee for the current year", description = "Processes monthly accruals for all eligible leave balances for the current year. "
-                        + "Only administrators can trigger this process.")
+                        + "Months that have already been accrued are skipped. Only administrators can trigger this process.")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Accruals processed successfully"),
                         @ApiResponse(responseCode = "400", description = "Employee not found or not eligible for accrual"),
@@ -257,7 +280,7 @@ public class LeaveAccrualController {
                         @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
                         @ApiResponse(responseCode = "500", description = "Internal server error during processing")
         })
-        public ResponseEntity<List<LeaveAccrualResponseDTO>> processEmployeeAccrualsForCurrentYear(
+        public ResponseEntity<LeaveAccrualCatchUpResultDTO> processEmployeeAccrualsForCurrentYear(
                         @Parameter(description = "ID of the employee to process") @PathVariable @NotNull Long employeeId) {
 
                 int currentYear = LocalDate.now().getYear();
@@ -274,166 +297,76 @@ public class LeaveAccrualController {
                         throw new IllegalArgumentException("Employee has no leave balances configured: " + employeeId);
                 }
 
-                // Process accruals for each eligible balance for each month
-                List<LeaveAccrual> processedAccruals = balances.stream()
-                                .filter(balance -> balance.isEligibleForAccrual())
-                                .flatMap(balance -> {
-                                        // Process each month of the year
-                                        return List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12).stream()
-                                                        .map(month -> {
-                                                                YearMonth yearMonth = YearMonth.of(currentYear, month);
-                                                                return leaveAccrualService.processAccrualForBalance(
-                                                                                balance, yearMonth);
-                                                        });
-                                })
-                                .toList();
-
-                if (processedAccruals.isEmpty()) {
-                        log.info("No accruals processed for employee {} - No eligible balances", employeeId);
-                        return ResponseEntity.ok(List.of());
-                }
-
-                // Convert to DTOs
-                List<LeaveAccrualResponseDTO> responseDTOs = processedAccruals.stream()
-                                .map(accrual -> {
-                                        LeaveAccrualResponseDTO dto = new LeaveAccrualResponseDTO();
-                                        dto.setId(accrual.getId());
-                                        dto.setEmployeeBalanceId(accrual.getEmployeeBalance().getId());
-                                        dto.setEmployeeId(accrual.getEmployeeBalance().getEmployee().getId());
-                                        dto.setEmployeeName(accrual.getEmployeeBalance().getEmployee().getFirstName()
-                                                        + " " +
-                                                        accrual.getEmployeeBalance().getEmployee().getLastName());
-                                        dto.setLeaveTypeId(accrual.getEmployeeBalance().getLeaveType().getId());
-                                        dto.setLeaveTypeName(accrual.getEmployeeBalance().getLeaveType().getName());
-                                        dto.setYearMonth(accrual.getYearMonth());
-                                        dto.setAmount(accrual.getAmount());
-                                        dto.setIsProrated(accrual.getIsProrated());
-                                        dto.setCreatedAt(accrual.getCreatedAt());
-                                        return dto;
-                                })
-                                .collect(Collectors.toList());
+                LeaveAccrualCatchUpResultDTO result = bulkLeaveAccrualService.processCatchUpAccrualsForEmployee(
+                                employeeId, YearMonth.of(currentYear, 1), YearMonth.of(currentYear, 12),
+                                LocalDate.now());
 
                 log.info("Successfully processed {} accruals for employee {} for current year {}",
-                                processedAccruals.size(), employeeId, currentYear);
+                                result.getAccrualsWritten(), employeeId, currentYear);
 
-                return ResponseEntity.ok(responseDTOs);
+                return ResponseEntity.ok(result);
         }
 
         /**
          * Process leave accruals for all employees for the current year.
+         * The accruals run as a background job; poll /jobs/{jobId} for progress.
          *
-         * @return list of processed accruals
+         * @return the submitted job
          */
         @PostMapping("/employees/processYearlyAccruals")
         @PreAuthorize("hasRole('ADMIN')")
         @Operation(summary = "Process leave accruals for all employees", description = "Processes leave accruals for all employees for the current year")
         @ApiResponses(value = {
-                        @ApiResponse(responseCode = "200", description = "Accruals processed successfully"),
+                        @ApiResponse(responseCode = "202", description = "Accrual job submitted"),
                         @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
                         @ApiResponse(responseCode = "403", description = "Forbidden - User does not have required role"),
                         @ApiResponse(responseCode = "500", description = "Internal server error")
         })
-        public ResponseEntity<List<LeaveAccrualResponseDTO>> processAllEmployeeAccrualsForYear() {
+        public ResponseEntity<BackgroundJobDTO> processAllEmployeeAccrualsForYear(
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
                 int currentYear = LocalDate.now().getYear();
-                log.info("Processing leave accruals for all employees for current year {}", currentYear);
+                log.info("Submitting leave accruals for all employees for current year {}", currentYear);
 
-                // Get all employees
-                List<User> employees = userService.findAllEmployees();
+                BackgroundJobDTO job = backgroundJobService.submit(YearlyAccrualJobHandler.JOB_TYPE,
+                                Map.of(YearlyAccrualJobHandler.PARAM_YEAR, String.valueOf(currentYear)),
+                                admin != null ? admin.getEmail() : null);
 
-                if (employees.isEmpty()) {
-                        log.info("No employees found to process accruals");
-                        return ResponseEntity.ok(List.of());
-                }
-
-                // Process accruals for each employee
-                List<LeaveAccrual> processedAccruals = employees.stream()
-                                .flatMap(employee -> {
-                                        List<EmployeeBalance> balances = employeeBalanceService
-                                                        .findByEmployee(employee);
-
-                                        return balances.stream()
-                                                        .filter(EmployeeBalance::isEligibleForAccrual)
-                                                        .flatMap(balance -> {
-                                                                // Process each month of the year
-                                                                return List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12)
-                                                                                .stream()
-                                                                                .map(month -> {
-                                                                                        YearMonth yearMonth = YearMonth
-                                                                                                        .of(currentYear, month);
-                                                                                        return leaveAccrualService
-                                                                                                        .processAccrualForBalance(
-                                                                                                                        balance,
-                                                                                                                        yearMonth);
-                                                                                });
-                                                        });
-                                })
-                                .toList();
-
-                if (processedAccruals.isEmpty()) {
-                        log.info("No accruals processed for any employees for current year {}", currentYear);
-                        return ResponseEntity.ok(List.of());
-                }
+                log.info("Submitted job {} for leave accruals for all employees for current year {}",
+                                job.getId(), currentYear);
 
-                // Convert to DTOs
-                List<LeaveAccrualResponseDTO> responseDTOs = processedAccruals.stream()
-                                .map(accrual -> {
-                                        LeaveAccrualResponseDTO dto = new LeaveAccrualResponseDTO();
-                                        dto.setId(accrual.getId());
-                                        dto.setEmployeeBalanceId(accrual.getEmployeeBalance().getId());
-                                        dto.setEmployeeId(accrual.getEmployeeBalance().getEmployee().getId());
-                                        dto.setEmployeeName(accrual.getEmployeeBalance().getEmployee().getFirstName()
-                                                        + " " +
-                                                        accrual.getEmployeeBalance().getEmployee().getLastName());
-                                        dto.setLeaveTypeId(accrual.getEmployeeBalance().getLeaveType().getId());
-                                        dto.setLeaveTypeName(accrual.getEmployeeBalance().getLeaveType().getName());
-                                        dto.setYearMonth(accrual.getYearMonth());
-                                        dto.setAmount(accrual.getAmount());
-                                        dto.setIsProrated(accrual.getIsProrated());
-                                        dto.setCreatedAt(accrual.getCreatedAt());
-                                        return dto;
-                                })
-                                .collect(Collectors.toList());
-
-                log.info("Successfully processed {} accruals across all employees for current year {}",
-                                processedAccruals.size(), currentYear);
-
-                return ResponseEntity.ok(responseDTOs);
+                return ResponseEntity.accepted().body(job);
         }
 
         /**
-         * Get accrual history for all employees.
-         * This endpoint returns all accrual records, ordered by date descending.
+         * Get accrual history for all employees, newest first, one page at a time.
+         * Pass the returned nextCursor back as cursor to fetch the next page.
          *
-         * @return list of accrual records
+         * @param period      optional accrual period filter (yyyy-MM)
+         * @param employeeId  optional employee filter
+         * @param leaveTypeId optional leave type filter
+         * @param cursor      the cursor of the page to fetch, or empty for the first page
+         * @param limit       the page size
+         * @return the page of accrual records
          */
         @GetMapping("/leaveAccruals/history")
-        public ResponseEntity<List<LeaveAccrualResponseDTO>> getAccrualHistory() {
-                log.info("Fetching accrual history for all employees");
-
-                List<LeaveAccrual> accruals = leaveAccrualService.findAllAccruals();
-
-                List<LeaveAccrualResponseDTO> response = accruals.stream()
-                                .map(accrual -> {
-                                        LeaveAccrualResponseDTO dto = new LeaveAccrualResponseDTO();
-                                        dto.setId(accrual.getId());
-                                        dto.setEmployeeBalanceId(accrual.getEmployeeBalance().getId());
-                                        dto.setEmployeeId(accrual.getEmployeeBalance().getEmployee().getId());
-                                        dto.setEmployeeName(accrual.getEmployeeBalance().getEmployee().getFirstName()
-                                                        + " " +
-                                                        accrual.getEmployeeBalance().getEmployee().getLastName());
-                                        dto.setLeaveTypeId(accrual.getEmployeeBalance().getLeaveType().getId());
-                                        dto.setLeaveTypeName(accrual.getEmployeeBalance().getLeaveType().getName());
-                                        dto.setYearMonth(accrual.getYearMonth());
-                                        dto.setAmount(accrual.getAmount());
-                                        dto.setIsProrated(accrual.getIsProrated());
-                                        dto.setCreatedAt(accrual.getCreatedAt());
-                                        dto.setAccrualDate(accrual.getAccrualDate());
-                                        dto.setAccrualPeriod(accrual.getYearMonth());
-                                        return dto;
-                                })
-                                .toList();
-
-                return ResponseEntity.ok(response);
+        @Operation(summary = "Get accrual history", description = "Retrieves accrual records ordered by accrual date descending, "
+                        + "using cursor pagination. Results can be filtered by period, employee and leave type.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Successfully retrieved accrual history"),
+                        @ApiResponse(responseCode = "400", description = "Invalid cursor or filter"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated")
+        })
+        public ResponseEntity<LeaveAccrualHistoryPageDTO> getAccrualHistory(
+                        @Parameter(description = "Accrual period (yyyy-MM)") @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth period,
+                        @Parameter(description = "Employee ID") @RequestParam(required = false) Long employeeId,
+                        @Parameter(description = "Leave type ID") @RequestParam(required = false) Long leaveTypeId,
+                        @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String cursor,
+                        @Parameter(description = "Page size") @RequestParam(defaultValue = "50") int limit) {
+                log.info("Fetching accrual history (period: {}, employee: {}, leave type: {})",
+                                period, employeeId, leaveTypeId);
+
+                return ResponseEntity.ok(leaveAccrualService.getAccrualHistory(
+                                period, employeeId, leaveTypeId, cursor, limit));
         }
 
         /**
@@ -457,7 +390,7 @@ public class LeaveAccrualController {
         /**
          * Get detailed accrual records for a specific period.
          *
-         * @param periodId the ID of the accrual period
+         * @param periodId the ID of the accrual period summary
          * @return list of accrual details
          */
         @GetMapping("/leaveAccruals/history/{periodId}/details")
@@ -471,29 +404,31 @@ public class LeaveAccrualController {
                         @Parameter(description = "ID of the accrual period") @PathVariable Long periodId) {
                 log.info("Fetching accrual details for period ID: {}", periodId);
 
-                List<LeaveAccrual> accruals = leaveAccrualService.getAccrualDetails(periodId);
-
-                List<LeaveAccrualResponseDTO> response = accruals.stream()
-                                .map(accrual -> {
-                                        LeaveAccrualResponseDTO dto = new LeaveAccrualResponseDTO();
-                                        dto.setId(accrual.getId());
-                                        dto.setEmployeeBalanceId(accrual.getEmployeeBalance().getId());
-                                        dto.setEmployeeId(accrual.getEmployeeBalance().getEmployee().getId());
-                                        dto.setEmployeeName(accrual.getEmployeeBalance().getEmployee().getFirstName()
-                                                        + " " +
-                                                        accrual.getEmployeeBalance().getEmployee().getLastName());
-                                        dto.setLeaveTypeId(accrual.getEmployeeBalance().getLeaveType().getId());
-                                        dto.setLeaveTypeName(accrual.getEmployeeBalance().getLeaveType().getName());
-                                        dto.setYearMonth(accrual.getYearMonth());
-                                        dto.setAmount(accrual.getAmount());
-                                        dto.setIsProrated(accrual.getIsProrated());
-                                        dto.setCreatedAt(accrual.getCreatedAt());
-                                        dto.setAccrualDate(accrual.getAccrualDate());
-                                        dto.setAccrualPeriod(accrual.getYearMonth());
-                                        return dto;
-                                })
-                                .toList();
-
-                return ResponseEntity.ok(response);
+                return ResponseEntity.ok(leaveAccrualService.getAccrualDetails(periodId));
+        }
+
+        /**
+         * Rebuild the accrual history summaries from the accrual ledger.
+         * The summaries are maintained on every accrual write; this is only
+         * needed after the ledger was changed outside the application.
+         *
+         * @return the submitted job
+         */
+        @PostMapping("/leaveAccruals/history/summary/rebuild")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Rebuild accrual history summaries", description = "Submits a background job that recomputes the per-period accrual summaries from the accrual ledger. "
+                        + "Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Rebuild job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+        })
+        public ResponseEntity<BackgroundJobDTO> rebuildAccrualHistorySummary(
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                BackgroundJobDTO job = backgroundJobService.submit(AccrualSummaryRebuildJobHandler.JOB_TYPE,
+                                Map.of(), admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} to rebuild accrual history summaries", job.getId());
+                return ResponseEntity.accepted().body(job);
         }
 }
\ No newline at end of file
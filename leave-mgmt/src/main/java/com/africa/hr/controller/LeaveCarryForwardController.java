@@ -1,13 +1,19 @@
 package com.africa.hr.controller;
 
+import com.africa.hr.dto.BackgroundJobDTO;
 import com.africa.hr.dto.LeaveCarryForwardResponseDTO;
+import com.africa.hr.dto.YearEndCloseDTO;
 import com.africa.hr.model.EmployeeBalance;
 import com.africa.hr.model.LeaveCarryForward;
 import com.africa.hr.model.User;
+import com.africa.hr.service.BackgroundJobService;
+import com.africa.hr.service.BulkLeaveAccrualService;
 import com.africa.hr.service.EmployeeBalanceService;
-import com.africa.hr.service.LeaveAccrualService;
 import com.africa.hr.service.LeaveCarryForwardService;
 import com.africa.hr.service.UserService;
+import com.africa.hr.service.YearEndCloseService;
+import com.africa.hr.service.job.AnnualCarryForwardJobHandler;
+import com.africa.hr.service.job.YearEndCloseJobHandler;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,6 +24,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
@@ -25,6 +32,7 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -36,14 +44,17 @@ import java.util.stream.Collectors;
 public class LeaveCarryForwardController {
 
         private final LeaveCarryForwardService carryForwardService;
-        private final LeaveAccrualService accrualService;
+        private final BulkLeaveAccrualService bulkLeaveAccrualService;
         private final EmployeeBalanceService employeeBalanceService;
         private final UserService userService;
+        private final BackgroundJobService backgroundJobService;
+        private final YearEndCloseService yearEndCloseService;
 
         /**
          * Process carry-forward for a specific employee.
          * This endpoint:
-         * 1. First processes all accruals for the current year
+         * 1. First processes all accruals for the current year, including the
+         * remaining months of the year in advance
          * 2. Then processes carry-forward from current year to next year
          *
          * @param employeeId the ID of the employee to process
@@ -103,34 +114,18 @@ public class LeaveCarryForwardController {
                                                         " from " + fromYear + " to " + toYear);
                 }
 
-                // Step 1: Process accruals for the current year up to today
-                log.info("Processing accruals for employee {} for year {} up to {}", employeeId, fromYear, today);
-                balances.stream()
-                                .filter(balance -> balance.isEligibleForAccrual())
-                                .forEach(balance -> {
-                                        // Process each month of the current year up to today
-                                        for (int month = 1; month <= today.getMonthValue(); month++) {
-                                                YearMonth yearMonth = YearMonth.of(fromYear, month);
-                                                accrualService.processAccrualForBalance(balance, yearMonth);
-                                        }
-                                });
-
-                // Step 1.5: Add projected accruals for remaining months of the year
-                log.info("Adding projected accruals for employee {} for remaining months of {}", employeeId, fromYear);
-                balances.stream()
-                                .filter(balance -> balance.isEligibleForAccrual())
-                                .forEach(balance -> {
-                                        // Process remaining months of the current year
-                                        for (int month = today.getMonthValue() + 1; month <= 12; month++) {
-                                                YearMonth yearMonth = YearMonth.of(fromYear, month);
-                                                BigDecimal projectedAccrual = balance.getLeaveType().getAccrualRate();
-                                                balance.setCurrentBalance(
-                                                                balance.getCurrentBalance().add(projectedAccrual));
-                                        }
-                                });
+                // Step 1: Catch up the accruals of the current year up to today, and accrue the
+                // remaining months in advance, in one pass that records every month in the ledger
+                log.info("Processing accruals for employee {} for year {} up to {} and projected to December",
+                                employeeId, fromYear, today);
+                bulkLeaveAccrualService.processCatchUpAccrualsForEmployee(
+                                employeeId, YearMonth.of(fromYear, 1), YearMonth.of(fromYear, 12), today);
+
+                // Reload the balances so the carry-forward sees the accrued amounts
+                List<EmployeeBalance> accruedBalances = employeeBalanceService.findByEmployee(employee);
 
                 // Step 2: Process carry-forward to next year
-                List<LeaveCarryForward> carryForwards = balances.stream()
+                List<LeaveCarryForward> carryForwards = accruedBalances.stream()
                                 .filter(balance -> balance.getLeaveType().getIsCarryForwardEnabled())
                                 .map(balance -> carryForwardService.processCarryForward(balance, fromYear, toYear))
                                 .filter(Optional::isPresent)
@@ -242,4 +237,127 @@ public class LeaveCarryForwardController {
 
                 return ResponseEntity.ok(responseDTOs);
         }
-}
\ No newline at end of file
+
+        /**
+         * Process the annual carry-forward for all employees, from the current year
+         * to the next year. The carry-forward runs as a background job; poll
+         * /jobs/{jobId} for progress and /jobs/{jobId}/results for the records
+         * created.
+         *
+         * @return the submitted job
+         */
+        @PostMapping("/processAnnualCarryForward")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Process leave carry-forward for all employees", description = "Submits a background job that carries forward all eligible balances from the current year to the next year. "
+                        + "Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Carry-forward job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+        })
+        public ResponseEntity<BackgroundJobDTO> processAnnualCarryForward(
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                int fromYear = LocalDate.now().getYear();
+                int toYear = fromYear + 1;
+
+                BackgroundJobDTO job = backgroundJobService.submit(AnnualCarryForwardJobHandler.JOB_TYPE,
+                                Map.of(AnnualCarryForwardJobHandler.PARAM_FROM_YEAR, String.valueOf(fromYear),
+                                                AnnualCarryForwardJobHandler.PARAM_TO_YEAR, String.valueOf(toYear)),
+                                admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} for annual carry-forward from {} to {}", job.getId(), fromYear, toYear);
+                return ResponseEntity.accepted().body(job);
+        }
+
+        /**
+         * Close the current year for all employees as a staged background job:
+         * accrue the missing months of the year, accrue the remaining months in
+         * advance, cap the balances at the carry-forward cap and open the next
+         * year. Each stage is checkpointed per chunk of employees. A dry run rolls
+         * all changes back and reports, as job results, the change it would have
+         * made to each balance.
+         *
+         * @param dryRun whether to report the changes instead of making them
+         * @return the submitted job
+         */
+        @PostMapping("/yearEndCloses")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Close the current year for all employees", description = "Submits a background job that runs the staged year-end close "
+                        + "(accrue, project, carry forward, open the new year) over chunks of employees. "
+                        + "With dryRun, the changes are rolled back and reported as job results instead. "
+                        + "Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Year-end close job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+        })
+        public ResponseEntity<BackgroundJobDTO> closeYear(
+                        @Parameter(description = "Report the changes without making them") @RequestParam(defaultValue = "false") boolean dryRun,
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                LocalDate closeDate = LocalDate.now();
+                int fromYear = closeDate.getYear();
+
+                BackgroundJobDTO job = backgroundJobService.submit(YearEndCloseJobHandler.JOB_TYPE,
+                                Map.of(YearEndCloseJobHandler.PARAM_FROM_YEAR, String.valueOf(fromYear),
+                                                YearEndCloseJobHandler.PARAM_CLOSE_DATE, closeDate.toString(),
+                                                YearEndCloseJobHandler.PARAM_DRY_RUN, String.valueOf(dryRun)),
+                                admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} for {}year-end close of {}", job.getId(), dryRun ? "dry-run " : "",
+                                fromYear);
+                return ResponseEntity.accepted().body(job);
+        }
+
+        /**
+         * Get the state of a year-end close and its checkpoints.
+         *
+         * @param closeId the ID of the year-end close
+         * @return the year-end close
+         */
+        @GetMapping("/yearEndCloses/{closeId}")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Get a year-end close", description = "Retrieves the status and per-stage, per-chunk checkpoints of a year-end close. "
+                        + "Only administrators can access this endpoint.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Year-end close retrieved successfully"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+                        @ApiResponse(responseCode = "404", description = "Year-end close not found")
+        })
+        public ResponseEntity<YearEndCloseDTO> getYearEndClose(
+                        @Parameter(description = "ID of the year-end close", required = true) @PathVariable Long closeId) {
+                return ResponseEntity.ok(yearEndCloseService.getClose(closeId));
+        }
+
+        /**
+         * Resume a year-end close that did not finish. Only the stages that have
+         * not been completed are processed again, as a background job.
+         *
+         * @param closeId the ID of the year-end close
+         * @return the submitted job
+         */
+        @PostMapping("/yearEndCloses/{closeId}/resume")
+        @PreAuthorize("hasRole('ADMIN')")
+        @Operation(summary = "Resume a year-end close", description = "Processes the remaining stages of an unfinished year-end close. "
+                        + "Only administrators can trigger this process.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "202", description = "Resume job submitted"),
+                        @ApiResponse(responseCode = "401", description = "Unauthorized - User is not authenticated"),
+                        @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+                        @ApiResponse(responseCode = "404", description = "Year-end close not found"),
+                        @ApiResponse(responseCode = "500", description = "Year-end close is already completed")
+        })
+        public ResponseEntity<BackgroundJobDTO> resumeYearEndClose(
+                        @Parameter(description = "ID of the year-end close", required = true) @PathVariable Long closeId,
+                        @Parameter(hidden = true) @AuthenticationPrincipal User admin) {
+                YearEndCloseDTO close = yearEndCloseService.getResumableClose(closeId);
+
+                BackgroundJobDTO job = backgroundJobService.submit(YearEndCloseJobHandler.JOB_TYPE,
+                                Map.of(YearEndCloseJobHandler.PARAM_CLOSE_ID, closeId.toString()),
+                                admin != null ? admin.getEmail() : null);
+
+                log.info("Submitted job {} to resume year-end close {} of {}", job.getId(), closeId,
+                                close.getFromYear());
+                return ResponseEntity.accepted().body(job);
+        }
+}
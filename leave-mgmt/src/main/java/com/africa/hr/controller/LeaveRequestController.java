@@ -1,29 +1,40 @@
 package com.africa.hr.controller;
 
+import com.africa.hr.dto.BackgroundJobDTO;
 import com.africa.hr.dto.LeaveRequestDTO;
 import com.africa.hr.dto.LeaveRequestApprovalDTO;
 import com.africa.hr.dto.LeaveRequestResponseDTO;
 import com.africa.hr.dto.LeaveRequestListResponseDTO;
 import com.africa.hr.dto.CompanyCalendarDTO;
 import com.africa.hr.dto.PublicHolidayDTO;
+import com.africa.hr.dto.TeamCoverageDTO;
 import com.africa.hr.model.LeaveRequest;
 import com.africa.hr.model.LeaveRequestStatus;
 import com.africa.hr.model.User;
 import com.africa.hr.model.PublicHoliday;
 import com.africa.hr.model.Document;
 import com.africa.hr.dto.DocumentDTO;
+import com.africa.hr.service.BackgroundJobService;
+import com.africa.hr.service.BusinessCalendar;
+import com.africa.hr.service.CompanyCalendarCache;
 import com.africa.hr.service.LeaveRequestService;
+import com.africa.hr.service.TeamCoverageService;
+import com.africa.hr.service.job.DepartmentAbsenceRebuildJobHandler;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +48,9 @@ import java.time.LocalDate;
 public class LeaveRequestController {
 
     private final LeaveRequestService leaveRequestService;
+    private final BusinessCalendar businessCalendar;
+    private final TeamCoverageService teamCoverageService;
+    private final BackgroundJobService backgroundJobService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('STAFF', 'MANAGER', 'ADMIN')")
@@ -51,6 +65,12 @@ public class LeaveRequestController {
         }
     }
 
+    /**
+     * Approve or reject a pending leave request. An approval takes the request's
+     * days off the employee's balance. Answered with 409 Conflict when the
+     * request is no longer pending, or when the balance is too low for the
+     * approved days.
+     */
     @PutMapping("/{requestId}/approve")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
     public ResponseEntity<LeaveRequestResponseDTO> approveLeaveRequest(
@@ -73,11 +93,16 @@ public class LeaveRequestController {
         return ResponseEntity.ok(responseDTOs);
     }
 
-    @GetMapping("/company-calendar")
+    /**
+     * Get the company calendar: approved leave of all employees, public holidays
+     * and departments, in the shape of {@link CompanyCalendarDTO}. Responses carry
+     * a strong ETag and are answered with 304 when it matches If-None-Match.
+     */
+    @GetMapping(value = "/company-calendar", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN', 'STAFF')")
-    public ResponseEntity<CompanyCalendarDTO> getCompanyCalendar(
+    public ResponseEntity<byte[]> getCompanyCalendar(
             @RequestParam(required = false) Integer year,
-            @RequestParam(required = false) Integer month) {
+            @RequestParam(required = false) Integer month) throws IOException {
 
         // Use current year if not provided
         LocalDate now = LocalDate.now();
@@ -85,12 +110,21 @@ public class LeaveRequestController {
 
         // Month is optional - if not provided, return data for the entire year
         Integer targetMonth = month;
+        if (targetMonth != null && (targetMonth < 1 || targetMonth > 12)) {
+            throw new IllegalArgumentException("Month must be between 1 and 12");
+        }
 
         // Get all employee leave records and public holidays for the specified year and
         // month/entire year
-        CompanyCalendarDTO response = leaveRequestService.getCompanyCalendarData(targetYear, targetMonth);
-
-        return ResponseEntity.ok(response);
+        CompanyCalendarCache.RenderedCalendar calendar = leaveRequestService.getCompanyCalendar(targetYear,
+                targetMonth);
+
+        // A matching If-None-Match is answered with 304 by Spring MVC
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(calendar.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(calendar.json());
     }
 
     @GetMapping
@@ -113,27 +147,8 @@ public class LeaveRequestController {
                     dto.setStartDate(request.getStartDate());
                     dto.setEndDate(request.getEndDate());
 
-                    // Calculate days excluding weekends
-                    LocalDate startDate = request.getStartDate();
-                    LocalDate endDate = request.getEndDate();
-                    double days = 0;
-
-                    for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-                        // Skip weekends (Saturday = 6, Sunday = 7 in DayOfWeek enum)
-                        if (date.getDayOfWeek().getValue() < 6) {
-                            days += 1.0;
-                        }
-                    }
-
-                    // Adjust for half days
-                    if (Boolean.TRUE.equals(request.getHalfDayStart()) && startDate.getDayOfWeek().getValue() < 6) {
-                        days -= 0.5;
-                    }
-                    if (Boolean.TRUE.equals(request.getHalfDayEnd()) && endDate.getDayOfWeek().getValue() < 6) {
-                        days -= 0.5;
-                    }
-
-                    dto.setDays(days);
+                    // Count working days on the business calendar
+                    dto.setDays(businessCalendar.countLeaveDays(request).toBigDecimal().doubleValue());
 
                     dto.setStatus(request.getStatus().name());
                     dto.setEmployeeId(request.getEmployee().getId().toString());
@@ -213,6 +228,73 @@ public class LeaveRequestController {
         return ResponseEntity.ok(summary);
     }
 
+    /**
+     * Get who is out on a date or during a date range, in a department or, when
+     * no department is given, in the whole company. Only approved leave counts
+     * unless pending requests are included.
+     */
+    @GetMapping("/out")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN', 'STAFF')")
+    public ResponseEntity<List<LeaveRequestResponseDTO>> getLeaveRequestsOut(
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean includePending) {
+        // Default to who is out today
+        LocalDate from = startDate != null ? startDate : LocalDate.now();
+        LocalDate to = endDate != null ? endDate : from;
+
+        List<LeaveRequestResponseDTO> responseDTOs = leaveRequestService
+                .getLeaveRequestsOut(departmentId, from, to, includePending).stream()
+                .map(LeaveRequestResponseDTO::fromEntity)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(responseDTOs);
+    }
+
+    /**
+     * Get how many members of a department are absent on each day of a date
+     * range, the current quarter or the three months from the start date by
+     * default. Managers get their own
+     * department; admins may pick any department.
+     */
+    @GetMapping("/coverage")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<TeamCoverageDTO> getTeamCoverage(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean includePending) {
+        boolean isAdmin = user.getRole() != null && "ROLE_ADMIN".equals(user.getRole().getName());
+        Long targetDepartmentId = isAdmin && departmentId != null ? departmentId
+                : user.getDepartment() != null ? user.getDepartment().getId() : null;
+        if (targetDepartmentId == null) {
+            throw new IllegalArgumentException("A department is required");
+        }
+
+        // Default to the current quarter
+        LocalDate now = LocalDate.now();
+        LocalDate quarterStart = now.withMonth((now.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1);
+        LocalDate from = startDate != null ? startDate : quarterStart;
+        LocalDate to = endDate != null ? endDate : from.plusMonths(3).minusDays(1);
+
+        return ResponseEntity.ok(teamCoverageService.getCoverage(targetDepartmentId, from, to, includePending));
+    }
+
+    /**
+     * Rebuild the per-department, per-day absence counts behind the department
+     * absence caps from the leave requests. The counts are maintained on every
+     * request transition; this is only needed after requests or departments
+     * were changed outside the application.
+     */
+    @PostMapping("/absence-days/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BackgroundJobDTO> rebuildDepartmentAbsenceDays(@AuthenticationPrincipal User admin) {
+        BackgroundJobDTO job = backgroundJobService.submit(DepartmentAbsenceRebuildJobHandler.JOB_TYPE, Map.of(),
+                admin != null ? admin.getEmail() : null);
+        return ResponseEntity.accepted().body(job);
+    }
+
     @GetMapping("/{requestId}")
     @PreAuthorize("hasAnyRole('STAFF', 'MANAGER')")
     public ResponseEntity<LeaveRequestResponseDTO> getLeaveRequest(@PathVariable Long requestId) {
@@ -1,7 +1,10 @@
 package com.africa.hr.controller;
 
+import com.africa.hr.dto.LeavePolicySimulationRequestDTO;
+import com.africa.hr.dto.LeavePolicySimulationResultDTO;
 import com.africa.hr.dto.LeaveTypeDTO;
 import com.africa.hr.dto.LeaveTypeUpdateDTO;
+import com.africa.hr.service.LeavePolicySimulationService;
 import com.africa.hr.service.LeaveTypeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -21,9 +24,12 @@ import java.util.List;
 public class LeaveTypeController {
 
     private final LeaveTypeService leaveTypeService;
+    private final LeavePolicySimulationService leavePolicySimulationService;
 
-    public LeaveTypeController(LeaveTypeService leaveTypeService) {
+    public LeaveTypeController(LeaveTypeService leaveTypeService,
+            LeavePolicySimulationService leavePolicySimulationService) {
         this.leaveTypeService = leaveTypeService;
+        this.leavePolicySimulationService = leavePolicySimulationService;
     }
 
     @GetMapping
@@ -76,4 +82,19 @@ public class LeaveTypeController {
         leaveTypeService.deleteLeaveType(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    @PostMapping("/policySimulations")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Simulate a leave policy change", description = "Replays the given number of months of accrual, "
+            + "followed by a carry-forward, for all active balances under the current and the proposed accrual rates "
+            + "and carry-forward settings. Returns days granted, days forfeited and outstanding balance per leave type "
+            + "and department. Nothing is saved.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Simulation completed"),
+            @ApiResponse(responseCode = "400", description = "Invalid policy or unknown leave type")
+    })
+    public ResponseEntity<LeavePolicySimulationResultDTO> simulatePolicy(
+            @Valid @RequestBody LeavePolicySimulationRequestDTO request) {
+        return ResponseEntity.ok(leavePolicySimulationService.simulate(request));
+    }
+}
@@ -0,0 +1,49 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+@Data
+public class AccrualRunDTO {
+    private Long id;
+
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth accrualPeriod;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate accrualDate;
+
+    private String status; // PENDING, RUNNING, COMPLETED, FAILED
+    private Integer totalChunks;
+    private Integer completedChunks;
+    private Integer balancesProcessed;
+    private Integer accrualsWritten;
+    private String errorMessage;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime completedAt;
+
+    private List<ChunkDTO> chunks;
+
+    @Data
+    public static class ChunkDTO {
+        private Integer chunkIndex;
+        private Long firstEmployeeId;
+        private Long lastEmployeeId;
+        private Integer balanceCount;
+        private String status;
+        private Integer accrualsWritten;
+        private Long elapsedMillis;
+        private BigDecimal balancesPerSecond;
+        private String errorMessage;
+    }
+}
@@ -0,0 +1,29 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+public class BackgroundJobDTO {
+    private Long id;
+    private String jobType;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED
+    private Map<String, String> parameters;
+    private String submittedBy;
+    private Integer totalItems;
+    private Integer processedItems;
+    private Integer resultCount;
+    private String errorMessage;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime completedAt;
+}
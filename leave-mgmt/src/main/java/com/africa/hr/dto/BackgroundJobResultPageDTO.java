@@ -0,0 +1,14 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BackgroundJobResultPageDTO {
+    private Long jobId;
+    private String status;
+    private List<JsonNode> results;
+    private LeaveRequestListResponseDTO.PaginationDTO pagination;
+}
@@ -0,0 +1,32 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO for the balance of one leave type at the end of a past day.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceAsOfDTO {
+    private Long employeeBalanceId;
+    private Long leaveTypeId;
+    private String leaveTypeName;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate date;
+
+    private BigDecimal balance;
+
+    /** Month-end snapshot the balance was computed from, or null if none was taken yet. */
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate snapshotDate;
+}
@@ -0,0 +1,22 @@
+package com.africa.hr.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * A balance whose current amount differs from what its history implies.
+ */
+@Data
+public class BalanceDriftDTO {
+    private Long employeeBalanceId;
+    private Long employeeId;
+    private Long leaveTypeId;
+    private BigDecimal currentBalance;
+    private BigDecimal accrued;
+    private BigDecimal forfeited;
+    private BigDecimal used;
+    private BigDecimal expectedBalance;
+    private BigDecimal drift;
+    private boolean repaired;
+}
@@ -0,0 +1,23 @@
+package com.africa.hr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the outcome of a balance reconciliation.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceReconciliationDTO {
+    private boolean repair;
+    private int partitions;
+    private int failedPartitions;
+    private int balancesChecked;
+    private int driftedBalances;
+    private int repairedBalances;
+    private long elapsedMillis;
+}
@@ -11,6 +11,7 @@ public class DepartmentDTO {
     private Long id;
     private String name;
     private String description;
+    private Integer maxConcurrentAbsences;
 
     /**
      * Convert Department entity to DTO
@@ -25,6 +26,7 @@ public class DepartmentDTO {
         dto.setId(department.getId());
         dto.setName(department.getName());
         dto.setDescription(department.getDescription());
+        dto.setMaxConcurrentAbsences(department.getMaxConcurrentAbsences());
         return dto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.africa.hr.dto;
+
+import com.africa.hr.model.EmployeeBalance;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of an employee balance, safe to cache and share between
+ * requests.
+ */
+@Value
+@Builder
+public class EmployeeBalanceSnapshotDTO {
+    Long id;
+    Long employeeId;
+    Long leaveTypeId;
+    String leaveTypeName;
+    BigDecimal currentBalance;
+    BigDecimal maxBalance;
+    BigDecimal usedDays;
+    BigDecimal pendingDays;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    LocalDate lastAccrualDate;
+
+    Boolean isEligibleForAccrual;
+    LocalDateTime updatedAt;
+
+    /**
+     * Copy a balance whose leave type is loaded.
+     *
+     * @param balance    the balance
+     * @param employeeId the id of the balance's employee
+     * @return the snapshot
+     */
+    public static EmployeeBalanceSnapshotDTO fromEntity(EmployeeBalance balance, Long employeeId) {
+        return EmployeeBalanceSnapshotDTO.builder()
+                .id(balance.getId())
+                .employeeId(employeeId)
+                .leaveTypeId(balance.getLeaveType().getId())
+                .leaveTypeName(balance.getLeaveType().getName())
+                .currentBalance(balance.getCurrentBalance())
+                .maxBalance(balance.getMaxBalance())
+                .usedDays(balance.getUsedDays())
+                .pendingDays(balance.getPendingDays())
+                .lastAccrualDate(balance.getLastAccrualDate())
+                .isEligibleForAccrual(balance.getIsEligibleForAccrual())
+                .updatedAt(balance.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Summary of a multi-month catch-up accrual.
+ */
+@Data
+public class LeaveAccrualCatchUpResultDTO {
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth fromPeriod;
+
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth toPeriod;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate accrualDate;
+
+    private Integer balancesProcessed;
+    private Integer accrualsWritten;
+    private Integer skippedMonths;
+    private Integer proratedAccruals;
+    private BigDecimal totalDaysAccrued;
+    private Long elapsedMillis;
+}
@@ -0,0 +1,12 @@
+package com.africa.hr.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LeaveAccrualHistoryPageDTO {
+    private List<LeaveAccrualResponseDTO> accruals;
+    private String nextCursor; // Pass back as "cursor" to fetch the next page; null on the last page
+    private Boolean hasMore;
+}
@@ -0,0 +1,27 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Summary of a bulk accrual run.
+ */
+@Data
+public class LeaveAccrualRunResultDTO {
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth accrualPeriod;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate accrualDate;
+
+    private Integer eligibleBalances;
+    private Integer accrualsWritten;
+    private Integer skippedBalances;
+    private Integer proratedAccruals;
+    private BigDecimal totalDaysAccrued;
+    private Long elapsedMillis;
+}
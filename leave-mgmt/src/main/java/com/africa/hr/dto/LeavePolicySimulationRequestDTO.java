@@ -0,0 +1,53 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A proposed accrual and carry-forward policy to simulate against the current
+ * balances. Leave types that aren't listed keep their current policy, as do
+ * fields left null.
+ */
+@Data
+public class LeavePolicySimulationRequestDTO {
+    @NotNull(message = "Number of months is required")
+    @Min(value = 1, message = "At least one month must be simulated")
+    @Max(value = 60, message = "At most 60 months can be simulated")
+    private Integer months;
+
+    // Defaults to the month after the current one
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth startPeriod;
+
+    // Apply a carry-forward after the last simulated month
+    private Boolean includeCarryForward = true;
+
+    @Valid
+    private List<LeaveTypePolicyDTO> policies = new ArrayList<>();
+
+    @Data
+    public static class LeaveTypePolicyDTO {
+        @NotNull(message = "Leave type ID is required")
+        private Long leaveTypeId;
+
+        @DecimalMin(value = "0.0", message = "Accrual rate must be greater than or equal to 0")
+        @DecimalMax(value = "31.0", message = "Accrual rate must be at most 31")
+        private BigDecimal accrualRate;
+
+        private Boolean isCarryForwardEnabled;
+
+        @DecimalMin(value = "0.0", message = "Carry-forward cap must be greater than or equal to 0")
+        private BigDecimal carryForwardCap;
+    }
+}
@@ -0,0 +1,54 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Outcome of a policy simulation: the days granted, days forfeited at
+ * carry-forward and the outstanding balance (liability) under the current and
+ * the proposed policy, per leave type and department.
+ */
+@Data
+public class LeavePolicySimulationResultDTO {
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth startPeriod;
+
+    @JsonFormat(pattern = "yyyy-MM")
+    private YearMonth endPeriod;
+
+    private Integer months;
+    private Boolean includeCarryForward;
+    private Integer balancesSimulated;
+    private Long elapsedMillis;
+
+    // One entry per leave type, across all departments
+    private List<GroupDTO> leaveTypeTotals;
+
+    // One entry per leave type and department that has balances
+    private List<GroupDTO> groups;
+
+    @Data
+    public static class GroupDTO {
+        private Long leaveTypeId;
+        private String leaveTypeName;
+        private Long departmentId; // null for leave type totals and employees without a department
+        private String departmentName;
+        private Integer balances;
+
+        private BigDecimal currentDaysGranted;
+        private BigDecimal proposedDaysGranted;
+        private BigDecimal daysGrantedDelta;
+
+        private BigDecimal currentDaysForfeited;
+        private BigDecimal proposedDaysForfeited;
+        private BigDecimal daysForfeitedDelta;
+
+        private BigDecimal currentLiability;
+        private BigDecimal proposedLiability;
+        private BigDecimal liabilityDelta;
+    }
+}
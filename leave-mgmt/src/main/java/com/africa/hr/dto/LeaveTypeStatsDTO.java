@@ -7,5 +7,6 @@ public class LeaveTypeStatsDTO {
     private String type;
     private Double total;
     private Double used;
+    private Double pending;
     private Double daysLeft;
 }
\ No newline at end of file
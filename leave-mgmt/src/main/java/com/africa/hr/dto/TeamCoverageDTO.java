@@ -0,0 +1,41 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for the absences of a department over a date range, as one entry per
+ * day starting at {@code startDate}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamCoverageDTO {
+    private Long departmentId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate startDate;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate endDate;
+
+    /** Members of the department who have not left. */
+    private int teamSize;
+
+    /** Whether pending requests were counted as absences. */
+    private boolean includesPending;
+
+    /** Employees absent on each day. */
+    private int[] absent;
+
+    /** Whole percentage of the team absent on each day, rounded half up. */
+    private int[] percentAbsent;
+
+    private int peakAbsent;
+}
@@ -0,0 +1,45 @@
+package com.africa.hr.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class YearEndCloseDTO {
+    private Long id;
+    private Integer fromYear;
+    private Integer toYear;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate closeDate;
+
+    private Boolean dryRun;
+    private String status; // PENDING, RUNNING, COMPLETED, FAILED
+    private Integer totalChunks;
+    private Integer completedChunks;
+    private String errorMessage;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime completedAt;
+
+    private List<CheckpointDTO> checkpoints;
+
+    @Data
+    public static class CheckpointDTO {
+        private String stage; // ACCRUE, PROJECT, CARRY_FORWARD, OPEN_YEAR
+        private Integer chunkIndex;
+        private Long firstEmployeeId;
+        private Long lastEmployeeId;
+        private Integer balanceCount;
+        private String status;
+        private Integer itemsWritten;
+        private Long elapsedMillis;
+        private String errorMessage;
+    }
+}
@@ -0,0 +1,20 @@
+package com.africa.hr.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * What a dry-run year-end close would change on one balance.
+ */
+@Data
+public class YearEndCloseDiffDTO {
+    private Long employeeBalanceId;
+    private Long employeeId;
+    private Long leaveTypeId;
+    private BigDecimal balanceBefore;
+    private BigDecimal accrued;
+    private BigDecimal projected;
+    private BigDecimal forfeited;
+    private BigDecimal balanceAfter;
+}
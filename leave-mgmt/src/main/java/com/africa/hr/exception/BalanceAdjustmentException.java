@@ -0,0 +1,27 @@
+package com.africa.hr.exception;
+
+import com.africa.hr.model.BalanceAdjustmentOutcome;
+
+/**
+ * Exception thrown when an atomic balance adjustment is rejected.
+ * This exception is mapped to HTTP 409 (Conflict) status code.
+ */
+public class BalanceAdjustmentException extends IllegalStateException {
+
+    private final Long balanceId;
+    private final BalanceAdjustmentOutcome outcome;
+
+    public BalanceAdjustmentException(Long balanceId, BalanceAdjustmentOutcome outcome, String message) {
+        super(message);
+        this.balanceId = balanceId;
+        this.outcome = outcome;
+    }
+
+    public Long getBalanceId() {
+        return balanceId;
+    }
+
+    public BalanceAdjustmentOutcome getOutcome() {
+        return outcome;
+    }
+}
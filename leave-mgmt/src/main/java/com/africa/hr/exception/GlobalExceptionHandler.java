@@ -2,6 +2,7 @@ package com.africa.hr.exception;
 
 import com.africa.hr.dto.ErrorResponseDTO;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -36,6 +37,39 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
 
+        @ExceptionHandler(BalanceAdjustmentException.class)
+        public ResponseEntity<ErrorResponseDTO> handleBalanceAdjustmentException(BalanceAdjustmentException ex,
+                        HttpServletRequest request) {
+                ErrorResponseDTO error = new ErrorResponseDTO(
+                                HttpStatus.CONFLICT.value(),
+                                "Conflict",
+                                ex.getMessage(),
+                                request.getRequestURI());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+
+        @ExceptionHandler(LeaveRequestConflictException.class)
+        public ResponseEntity<ErrorResponseDTO> handleLeaveRequestConflictException(LeaveRequestConflictException ex,
+                        HttpServletRequest request) {
+                ErrorResponseDTO error = new ErrorResponseDTO(
+                                HttpStatus.CONFLICT.value(),
+                                "Conflict",
+                                ex.getMessage(),
+                                request.getRequestURI());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+
+        @ExceptionHandler(ConcurrencyFailureException.class)
+        public ResponseEntity<ErrorResponseDTO> handleConcurrencyFailureException(ConcurrencyFailureException ex,
+                        HttpServletRequest request) {
+                ErrorResponseDTO error = new ErrorResponseDTO(
+                                HttpStatus.CONFLICT.value(),
+                                "Conflict",
+                                "The resource was changed concurrently, please retry",
+                                request.getRequestURI());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+
         @ExceptionHandler(MethodArgumentNotValidException.class)
         public ResponseEntity<ErrorResponseDTO> handleValidationException(MethodArgumentNotValidException ex,
                         HttpServletRequest request) {
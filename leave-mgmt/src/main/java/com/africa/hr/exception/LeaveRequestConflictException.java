@@ -0,0 +1,20 @@
+package com.africa.hr.exception;
+
+/**
+ * Exception thrown when a leave request can no longer make a status
+ * transition because its status was changed concurrently.
+ * This exception is mapped to HTTP 409 (Conflict) status code.
+ */
+public class LeaveRequestConflictException extends IllegalStateException {
+
+    private final Long requestId;
+
+    public LeaveRequestConflictException(Long requestId, String message) {
+        super(message);
+        this.requestId = requestId;
+    }
+
+    public Long getRequestId() {
+        return requestId;
+    }
+}
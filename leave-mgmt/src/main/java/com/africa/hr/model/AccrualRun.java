@@ -0,0 +1,65 @@
+package com.africa.hr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Entity representing a chunked accrual run for one accrual period.
+ * The work of a run is split into {@link AccrualRunChunk}s, each of which is
+ * committed in its own transaction, so an interrupted run can be resumed.
+ */
+@Entity
+@Table(name = "accrual_runs")
+@Data
+@NoArgsConstructor
+public class AccrualRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "accrual_period", nullable = false)
+    @Convert(converter = LeaveAccrual.YearMonthConverter.class)
+    private YearMonth yearMonth;
+
+    @Column(name = "accrual_date", nullable = false)
+    private LocalDate accrualDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AccrualRunStatus status = AccrualRunStatus.PENDING;
+
+    @Column(name = "total_chunks", nullable = false)
+    private Integer totalChunks = 0;
+
+    @Column(name = "completed_chunks", nullable = false)
+    private Integer completedChunks = 0;
+
+    @Column(name = "balances_processed", nullable = false)
+    private Integer balancesProcessed = 0;
+
+    @Column(name = "accruals_written", nullable = false)
+    private Integer accrualsWritten = 0;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,62 @@
+package com.africa.hr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing one chunk of an {@link AccrualRun}.
+ * A chunk covers a contiguous range of employee ids, so all balances of an
+ * employee are always in the same chunk. It acts as the checkpoint of the run:
+ * it is marked completed in the same transaction that writes its accruals.
+ */
+@Entity
+@Table(name = "accrual_run_chunks")
+@Data
+@NoArgsConstructor
+public class AccrualRunChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "run_id", nullable = false)
+    private AccrualRun run;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    @Column(name = "first_employee_id", nullable = false)
+    private Long firstEmployeeId;
+
+    @Column(name = "last_employee_id", nullable = false)
+    private Long lastEmployeeId;
+
+    @Column(name = "balance_count", nullable = false)
+    private Integer balanceCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AccrualRunStatus status = AccrualRunStatus.PENDING;
+
+    @Column(name = "accruals_written", nullable = false)
+    private Integer accrualsWritten = 0;
+
+    @Column(name = "elapsed_ms")
+    private Long elapsedMillis;
+
+    @Column(name = "balances_per_second", precision = 12, scale = 2)
+    private BigDecimal balancesPerSecond;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,8 @@
+package com.africa.hr.model;
+
+public enum AccrualRunStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
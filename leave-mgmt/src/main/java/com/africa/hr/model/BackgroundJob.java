@@ -0,0 +1,70 @@
+package com.africa.hr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a long-running admin operation executed on the
+ * background job workers. Progress counters are updated while the job runs and
+ * its output is stored as {@link BackgroundJobResult} rows. A running job is
+ * leased to the instance that claimed it, which renews the lease with a
+ * heartbeat.
+ */
+@Entity
+@Table(name = "background_jobs")
+@Data
+@NoArgsConstructor
+public class BackgroundJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_type", nullable = false, length = 50)
+    private String jobType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private BackgroundJobStatus status = BackgroundJobStatus.QUEUED;
+
+    @Column(length = 2000)
+    private String parameters;
+
+    @Column(name = "submitted_by", length = 100)
+    private String submittedBy;
+
+    @Column(name = "total_items", nullable = false)
+    private Integer totalItems = 0;
+
+    @Column(name = "processed_items", nullable = false)
+    private Integer processedItems = 0;
+
+    @Column(name = "result_count", nullable = false)
+    private Integer resultCount = 0;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(length = 100)
+    private String owner;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,29 @@
+package com.africa.hr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single result document produced by a {@link BackgroundJob}, stored as JSON
+ * and read back a page at a time.
+ */
+@Entity
+@Table(name = "background_job_results")
+@Data
+@NoArgsConstructor
+public class BackgroundJobResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "sequence_number", nullable = false)
+    private Integer sequenceNumber;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+}
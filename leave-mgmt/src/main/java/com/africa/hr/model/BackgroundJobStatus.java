@@ -0,0 +1,8 @@
+package com.africa.hr.model;
+
+public enum BackgroundJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,15 @@
+package com.africa.hr.model;
+
+/**
+ * Result of an atomic adjustment of an {@link EmployeeBalance}.
+ */
+public enum BalanceAdjustmentOutcome {
+    /** The delta was added to the balance. */
+    APPLIED,
+    /** The balance doesn't exist. */
+    NOT_FOUND,
+    /** The balance would have become negative. */
+    INSUFFICIENT_BALANCE,
+    /** The balance would have exceeded its maximum. */
+    EXCEEDS_MAX_BALANCE
+}
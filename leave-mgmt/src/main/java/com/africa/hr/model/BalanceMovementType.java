@@ -0,0 +1,20 @@
+package com.africa.hr.model;
+
+/**
+ * Kind of change recorded in the balance movement ledger.
+ */
+public enum BalanceMovementType {
+    /** Days credited by a monthly accrual. */
+    ACCRUAL,
+    /** Days taken by an approved leave request, or given back when it is withdrawn. */
+    USAGE,
+    /**
+     * Marks the year-end carry-forward of a balance. Its amount is zero: the
+     * carried amount stays on the balance and only the forfeited part moves.
+     */
+    CARRY_FORWARD,
+    /** Days lost at year end above the carry-forward cap. */
+    FORFEIT,
+    /** Manual change made by an administrator. */
+    ADJUSTMENT
+}
@@ -23,4 +23,8 @@ public class Department {
 
     @Column(length = 500)
     private String description;
+
+    /** Most members with leave held on the same day, or null for no cap. */
+    @Column(name = "max_concurrent_absences")
+    private Integer maxConcurrentAbsences;
 }
\ No newline at end of file
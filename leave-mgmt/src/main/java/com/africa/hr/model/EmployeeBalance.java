@@ -54,6 +54,19 @@ public class EmployeeBalance {
     @Column(name = "is_eligible_for_accrual", nullable = false)
     private Boolean isEligibleForAccrual = true;
 
+    /**
+     * Days taken by approved requests. Maintained with delta updates by the leave
+     * request workflow, so it is never written through the entity.
+     */
+    @Column(name = "used_days", nullable = false, precision = 5, scale = 2, insertable = false, updatable = false)
+    private BigDecimal usedDays = BigDecimal.ZERO;
+
+    /**
+     * Days tied up in pending requests. Maintained like {@link #usedDays}.
+     */
+    @Column(name = "pending_days", nullable = false, precision = 5, scale = 2, insertable = false, updatable = false)
+    private BigDecimal pendingDays = BigDecimal.ZERO;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private java.time.LocalDateTime createdAt;
 
@@ -133,9 +146,7 @@ public class EmployeeBalance {
         long totalDays = monthEnd.toEpochDay() - monthStart.toEpochDay() + 1;
         long workedDays = monthEnd.toEpochDay() - employee.getJoinedDate().toEpochDay() + 1;
 
-        return leaveType.getAccrualRate()
-                .multiply(BigDecimal.valueOf(workedDays))
-                .divide(BigDecimal.valueOf(totalDays), 2, BigDecimal.ROUND_HALF_UP);
+        return LeaveDays.of(leaveType.getAccrualRate()).prorate(workedDays, totalDays).toBigDecimal();
     }
 
     /**
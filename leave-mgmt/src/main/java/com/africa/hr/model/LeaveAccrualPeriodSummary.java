@@ -0,0 +1,50 @@
+package com.africa.hr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Pre-aggregated totals of the accruals written for one accrual period.
+ * Updated incrementally by every code path that writes {@link LeaveAccrual}
+ * rows and can be rebuilt from the ledger.
+ */
+@Entity
+@Table(name = "leave_accrual_period_summaries")
+@Data
+@NoArgsConstructor
+public class LeaveAccrualPeriodSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "accrual_period", nullable = false, unique = true)
+    @Convert(converter = LeaveAccrual.YearMonthConverter.class)
+    private YearMonth yearMonth;
+
+    @Column(name = "employee_count", nullable = false)
+    private Integer employeeCount = 0;
+
+    @Column(name = "accrual_count", nullable = false)
+    private Integer accrualCount = 0;
+
+    @Column(name = "total_days", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalDays = BigDecimal.ZERO;
+
+    @Column(name = "prorated_count", nullable = false)
+    private Integer proratedCount = 0;
+
+    @Column(name = "zero_amount_count", nullable = false)
+    private Integer zeroAmountCount = 0;
+
+    @Column(name = "first_processed_at")
+    private LocalDateTime firstProcessedAt;
+
+    @Column(name = "last_processed_at")
+    private LocalDateTime lastProcessedAt;
+}
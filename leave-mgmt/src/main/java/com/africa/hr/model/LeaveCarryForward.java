@@ -61,6 +61,9 @@ public class LeaveCarryForward {
     @Digits(integer = 2, fraction = 2, message = "Forfeited amount must have at most 2 decimal places")
     private BigDecimal forfeitedAmount;
 
+    @Column(name = "applied_at")
+    private java.time.LocalDateTime appliedAt;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private java.time.LocalDateTime createdAt;
 
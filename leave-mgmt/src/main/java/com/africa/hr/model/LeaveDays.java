@@ -0,0 +1,144 @@
+package com.africa.hr.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount of leave, in hundredths of a day, backed by a {@code long}.
+ * Day amounts are stored as DECIMAL(5,2), so every stored amount is exact in
+ * this form. Hot paths that handle many amounts can also work on the raw
+ * hundredths through the static helpers, and convert to {@link BigDecimal}
+ * only when reading from or writing to JPA, JDBC or JSON.
+ * <p>
+ * Arithmetic is exact and fails with {@link ArithmeticException} on overflow.
+ * Prorating rounds half up, away from zero, like {@link RoundingMode#HALF_UP}.
+ */
+public final class LeaveDays implements Comparable<LeaveDays> {
+
+    /** No leave. */
+    public static final LeaveDays ZERO = new LeaveDays(0);
+
+    private static final int SCALE = 2;
+
+    private final long hundredths;
+
+    private LeaveDays(long hundredths) {
+        this.hundredths = hundredths;
+    }
+
+    /**
+     * @param hundredths the amount in hundredths of a day
+     * @return the amount
+     */
+    public static LeaveDays ofHundredths(long hundredths) {
+        return hundredths == 0 ? ZERO : new LeaveDays(hundredths);
+    }
+
+    /**
+     * @param days the amount in days, rounded half up to hundredths; null is zero
+     * @return the amount
+     */
+    public static LeaveDays of(BigDecimal days) {
+        return ofHundredths(toHundredths(days));
+    }
+
+    /**
+     * Convert a day amount to hundredths of a day.
+     *
+     * @param days the amount in days, rounded half up to hundredths; null is zero
+     * @return the amount in hundredths of a day
+     */
+    public static long toHundredths(BigDecimal days) {
+        return days == null ? 0 : days.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert hundredths of a day to a day amount with a scale of 2.
+     *
+     * @param hundredths the amount in hundredths of a day
+     * @return the amount in days
+     */
+    public static BigDecimal toDays(long hundredths) {
+        return BigDecimal.valueOf(hundredths, SCALE);
+    }
+
+    /**
+     * Prorate an amount by {@code numerator / denominator}, rounding half up to
+     * the nearest hundredth.
+     *
+     * @param hundredths  the amount in hundredths of a day
+     * @param numerator   the numerator, not negative
+     * @param denominator the denominator, greater than zero
+     * @return the prorated amount in hundredths of a day
+     * @throws IllegalArgumentException if the fraction is invalid
+     */
+    public static long prorate(long hundredths, long numerator, long denominator) {
+        if (numerator < 0 || denominator <= 0) {
+            throw new IllegalArgumentException("Invalid proration " + numerator + "/" + denominator);
+        }
+        long scaled = Math.multiplyExact(Math.abs(hundredths), numerator);
+        long rounded = Math.addExact(Math.multiplyExact(scaled, 2), denominator) / Math.multiplyExact(denominator, 2);
+        return hundredths < 0 ? -rounded : rounded;
+    }
+
+    /**
+     * @return the amount in hundredths of a day
+     */
+    public long hundredths() {
+        return hundredths;
+    }
+
+    /**
+     * @return the amount in days, with a scale of 2
+     */
+    public BigDecimal toBigDecimal() {
+        return toDays(hundredths);
+    }
+
+    public LeaveDays plus(LeaveDays other) {
+        return ofHundredths(Math.addExact(hundredths, other.hundredths));
+    }
+
+    public LeaveDays minus(LeaveDays other) {
+        return ofHundredths(Math.subtractExact(hundredths, other.hundredths));
+    }
+
+    public LeaveDays min(LeaveDays other) {
+        return hundredths <= other.hundredths ? this : other;
+    }
+
+    public LeaveDays max(LeaveDays other) {
+        return hundredths >= other.hundredths ? this : other;
+    }
+
+    /**
+     * @see #prorate(long, long, long)
+     */
+    public LeaveDays prorate(long numerator, long denominator) {
+        return ofHundredths(prorate(hundredths, numerator, denominator));
+    }
+
+    public int signum() {
+        return Long.signum(hundredths);
+    }
+
+    @Override
+    public int compareTo(LeaveDays other) {
+        return Long.compare(hundredths, other.hundredths);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof LeaveDays days && days.hundredths == hundredths;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hundredths);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -56,6 +57,14 @@ public class LeaveRequest {
     @Column(name = "rejection_reason", length = 1000)
     private String rejectionReason;
 
+    /**
+     * Working days charged for the request, counted on the business calendar
+     * when it was submitted. Null for requests submitted before working days
+     * were recorded.
+     */
+    @Column(name = "working_days", precision = 5, scale = 2)
+    private BigDecimal workingDays;
+
     @OneToMany(mappedBy = "leaveRequest", cascade = CascadeType.ALL, orphanRemoval = true)
     private java.util.List<Document> documents = new java.util.ArrayList<>();
 
@@ -72,6 +81,15 @@ public class LeaveRequest {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Optimistic lock. Status transitions are conditional updates that also
+     * bump the version, so a stale copy of the request can never be saved
+     * over a decision.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "primary_document_id")
     private Document primaryDocument;
@@ -88,12 +106,18 @@ public class LeaveRequest {
     }
 
     /**
-     * Calculates the total number of days requested, taking into account half days.
-     * The calculation includes both start and end dates.
+     * Gets the total number of days requested: the working days recorded when the
+     * request was submitted. Requests submitted before working days were recorded
+     * keep being counted in calendar days, taking into account half days, so they
+     * are released exactly as they were charged.
      * 
      * @return the total number of days requested
      */
     public double getTotalDaysRequested() {
+        if (workingDays != null) {
+            return workingDays.doubleValue();
+        }
+
         // Calculate base days (including both start and end dates)
         long baseDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
 
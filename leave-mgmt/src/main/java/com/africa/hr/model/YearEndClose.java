@@ -0,0 +1,65 @@
+package com.africa.hr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a company-wide year-end close.
+ * The close runs every {@link YearEndCloseStage} over chunks of contiguous
+ * employee ids and records a {@link YearEndCloseCheckpoint} per stage and
+ * chunk, so an interrupted close can be resumed. A dry-run close computes the
+ * same changes but rolls them back.
+ */
+@Entity
+@Table(name = "year_end_closes")
+@Data
+@NoArgsConstructor
+public class YearEndClose {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "from_year", nullable = false)
+    private Integer fromYear;
+
+    @Column(name = "to_year", nullable = false)
+    private Integer toYear;
+
+    @Column(name = "close_date", nullable = false)
+    private LocalDate closeDate;
+
+    @Column(name = "dry_run", nullable = false)
+    private Boolean dryRun = false;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AccrualRunStatus status = AccrualRunStatus.PENDING;
+
+    @Column(name = "total_chunks", nullable = false)
+    private Integer totalChunks = 0;
+
+    @Column(name = "completed_chunks", nullable = false)
+    private Integer completedChunks = 0;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
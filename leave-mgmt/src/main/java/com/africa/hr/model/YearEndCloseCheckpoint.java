@@ -0,0 +1,61 @@
+package com.africa.hr.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing one stage of one chunk of a {@link YearEndClose}.
+ * It is marked completed in the same transaction that writes the stage's
+ * changes for the chunk.
+ */
+@Entity
+@Table(name = "year_end_close_checkpoints")
+@Data
+@NoArgsConstructor
+public class YearEndCloseCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "close_id", nullable = false)
+    private YearEndClose close;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private YearEndCloseStage stage;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    @Column(name = "first_employee_id", nullable = false)
+    private Long firstEmployeeId;
+
+    @Column(name = "last_employee_id", nullable = false)
+    private Long lastEmployeeId;
+
+    @Column(name = "balance_count", nullable = false)
+    private Integer balanceCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AccrualRunStatus status = AccrualRunStatus.PENDING;
+
+    @Column(name = "items_written", nullable = false)
+    private Integer itemsWritten = 0;
+
+    @Column(name = "elapsed_ms")
+    private Long elapsedMillis;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
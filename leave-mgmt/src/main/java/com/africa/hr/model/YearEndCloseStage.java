@@ -0,0 +1,15 @@
+package com.africa.hr.model;
+
+/**
+ * Stages of a {@link YearEndClose}, in the order they run for each chunk.
+ */
+public enum YearEndCloseStage {
+    /** Accrue every missing month of the closing year up to the close date. */
+    ACCRUE,
+    /** Accrue the remaining months of the closing year in advance. */
+    PROJECT,
+    /** Record the carried forward and forfeited amount of each balance. */
+    CARRY_FORWARD,
+    /** Take the forfeited amounts off the balances to open the new year. */
+    OPEN_YEAR
+}
@@ -0,0 +1,40 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.AccrualRunChunk;
+import com.africa.hr.model.AccrualRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AccrualRunChunkRepository extends JpaRepository<AccrualRunChunk, Long> {
+
+    /**
+     * Find all chunks of a run, ordered by chunk index.
+     *
+     * @param runId the run id
+     * @return list of chunks
+     */
+    List<AccrualRunChunk> findByRunIdOrderByChunkIndex(Long runId);
+
+    /**
+     * Find the chunks of a run that are not in the given state, ordered by chunk
+     * index.
+     *
+     * @param runId  the run id
+     * @param status the state to exclude
+     * @return list of chunks
+     */
+    List<AccrualRunChunk> findByRunIdAndStatusNotOrderByChunkIndex(Long runId, AccrualRunStatus status);
+
+    /**
+     * Count the chunks of a run in a specific state.
+     *
+     * @param runId  the run id
+     * @param status the state to count
+     * @return the number of chunks
+     */
+    long countByRunIdAndStatus(Long runId, AccrualRunStatus status);
+
+}
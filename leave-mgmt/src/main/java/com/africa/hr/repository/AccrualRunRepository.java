@@ -0,0 +1,24 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.AccrualRun;
+import com.africa.hr.model.AccrualRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface AccrualRunRepository extends JpaRepository<AccrualRun, Long> {
+
+    /**
+     * Find the most recent run for an accrual period in one of the given states.
+     *
+     * @param yearMonth the accrual period
+     * @param statuses  the accepted run states
+     * @return optional containing the run if found
+     */
+    Optional<AccrualRun> findFirstByYearMonthAndStatusInOrderByIdDesc(
+            YearMonth yearMonth, Collection<AccrualRunStatus> statuses);
+}
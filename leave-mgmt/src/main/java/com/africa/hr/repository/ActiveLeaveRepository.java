@@ -0,0 +1,133 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.LeaveRequestStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * JDBC reader of the leave requests that still hold their dates, that is
+ * pending or approved requests, as flat rows. Reads only the columns the
+ * in-memory views need.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ActiveLeaveRepository {
+
+    private static final String FIND_ACTIVE_SQL = "SELECT lr.id, lr.employee_id, e.department_id, " +
+            "lr.start_date, lr.end_date, lr.status, lr.version " +
+            "FROM leave_requests lr " +
+            "JOIN users e ON e.id = lr.employee_id " +
+            "WHERE lr.status IN ('PENDING', 'APPROVED')";
+
+    private static final String FIND_CLOSED_SINCE_SQL = "SELECT id, version FROM leave_requests " +
+            "WHERE status NOT IN ('PENDING', 'APPROVED') AND updated_at >= ?";
+
+    // Overlap predicate kept sargable for idx_leave_requests_status_dates
+    private static final String FIND_DEPARTMENT_ABSENCES_SQL = "SELECT lr.employee_id, lr.start_date, lr.end_date " +
+            "FROM leave_requests lr " +
+            "JOIN users e ON e.id = lr.employee_id " +
+            "WHERE e.department_id = ? AND lr.status IN (%s) AND lr.start_date <= ? AND lr.end_date >= ? " +
+            "ORDER BY lr.employee_id, lr.start_date";
+
+    private static final String COUNT_DEPARTMENT_MEMBERS_SQL = "SELECT COUNT(*) FROM users " +
+            "WHERE department_id = ? AND status <> 'TERMINATED'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A pending or approved leave request.
+     *
+     * @param requestId    the leave request id
+     * @param employeeId   the employee id
+     * @param departmentId the department of the employee, or null
+     * @param startDate    the first date of the request
+     * @param endDate      the last date of the request
+     * @param status       PENDING or APPROVED
+     * @param version      the version of the request
+     */
+    public record ActiveLeave(long requestId, long employeeId, Long departmentId, LocalDate startDate,
+            LocalDate endDate, LeaveRequestStatus status, long version) {
+    }
+
+    /**
+     * The dates of a leave request of an employee.
+     *
+     * @param employeeId the employee id
+     * @param startDate  the first date of the request
+     * @param endDate    the last date of the request
+     */
+    public record Absence(long employeeId, LocalDate startDate, LocalDate endDate) {
+    }
+
+    /**
+     * Read the approved, and optionally pending, leave of the members of a
+     * department overlapping an inclusive date range, one row at a time,
+     * ordered by employee and start date.
+     *
+     * @param departmentId   the department id
+     * @param firstDay       the first date of the range
+     * @param lastDay        the last date of the range
+     * @param includePending whether to read pending requests too
+     * @param action         called with each absence as it is read
+     */
+    public void forEachDepartmentAbsence(Long departmentId, LocalDate firstDay, LocalDate lastDay,
+            boolean includePending, Consumer<Absence> action) {
+        String statuses = includePending ? "'PENDING', 'APPROVED'" : "'APPROVED'";
+        jdbcTemplate.query(String.format(FIND_DEPARTMENT_ABSENCES_SQL, statuses), rs -> {
+            action.accept(new Absence(
+                    rs.getLong(1),
+                    rs.getDate(2).toLocalDate(),
+                    rs.getDate(3).toLocalDate()));
+        }, departmentId, Date.valueOf(lastDay), Date.valueOf(firstDay));
+    }
+
+    /**
+     * @param departmentId the department id
+     * @return the number of members of the department who have not left
+     */
+    public int countDepartmentMembers(Long departmentId) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_DEPARTMENT_MEMBERS_SQL, Integer.class, departmentId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Read every pending or approved leave request, one row at a time.
+     *
+     * @param action called with each request as it is read
+     */
+    public void forEachActiveLeave(Consumer<ActiveLeave> action) {
+        jdbcTemplate.query(FIND_ACTIVE_SQL, rs -> {
+            long departmentId = rs.getLong(3);
+            boolean hasDepartment = !rs.wasNull();
+            action.accept(new ActiveLeave(
+                    rs.getLong(1),
+                    rs.getLong(2),
+                    hasDepartment ? departmentId : null,
+                    rs.getDate(4).toLocalDate(),
+                    rs.getDate(5).toLocalDate(),
+                    LeaveRequestStatus.valueOf(rs.getString(6)),
+                    rs.getLong(7)));
+        });
+    }
+
+    /**
+     * Read the version of every request that stopped holding its dates since a
+     * point in time.
+     *
+     * @param since  the earliest update time
+     * @param action called with the id and version of each request
+     */
+    public void forEachClosedSince(LocalDateTime since, BiConsumer<Long, Long> action) {
+        jdbcTemplate.query(FIND_CLOSED_SINCE_SQL, rs -> {
+            action.accept(rs.getLong(1), rs.getLong(2));
+        }, Timestamp.valueOf(since));
+    }
+}
@@ -0,0 +1,104 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.BackgroundJob;
+import com.africa.hr.model.BackgroundJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BackgroundJobRepository extends JpaRepository<BackgroundJob, Long> {
+
+    /**
+     * Find all jobs in a specific state, oldest first.
+     *
+     * @param status the job state
+     * @return list of jobs
+     */
+    List<BackgroundJob> findByStatusOrderById(BackgroundJobStatus status);
+
+    /**
+     * Move a queued job to running and lease it to an instance. Only one worker
+     * can claim a job.
+     *
+     * @param id        the job id
+     * @param owner     the instance claiming the job
+     * @param startedAt the time the job started
+     * @return 1 if the job was claimed, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackgroundJob j SET j.status = 'RUNNING', j.owner = :owner, j.startedAt = :startedAt, " +
+            "j.heartbeatAt = :startedAt WHERE j.id = :id AND j.status = 'QUEUED'")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("startedAt") LocalDateTime startedAt);
+
+    /**
+     * Renew the lease on every job an instance is running.
+     *
+     * @param owner       the instance
+     * @param heartbeatAt the time of the heartbeat
+     * @return the number of renewed jobs
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackgroundJob j SET j.heartbeatAt = :heartbeatAt " +
+            "WHERE j.owner = :owner AND j.status = 'RUNNING'")
+    int heartbeat(@Param("owner") String owner, @Param("heartbeatAt") LocalDateTime heartbeatAt);
+
+    /**
+     * Put running jobs whose lease expired, because the instance running them
+     * stopped, back in the queue. Jobs claimed before leases were recorded
+     * expire from their start time.
+     *
+     * @param expiredBefore jobs not renewed since this time are requeued
+     * @return the number of requeued jobs
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackgroundJob j SET j.status = 'QUEUED', j.owner = NULL, j.heartbeatAt = NULL, " +
+            "j.processedItems = 0, j.resultCount = 0 " +
+            "WHERE j.status = 'RUNNING' AND COALESCE(j.heartbeatAt, j.startedAt) < :expiredBefore")
+    int requeueExpired(@Param("expiredBefore") LocalDateTime expiredBefore);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackgroundJob j SET j.totalItems = :totalItems WHERE j.id = :id")
+    int updateTotalItems(@Param("id") Long id, @Param("totalItems") int totalItems);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackgroundJob j SET j.processedItems = j.processedItems + :count WHERE j.id = :id")
+    int incrementProcessedItems(@Param("id") Long id, @Param("count") int count);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackgroundJob j SET j.resultCount = j.resultCount + :count WHERE j.id = :id")
+    int incrementResultCount(@Param("id") Long id, @Param("count") int count);
+
+    /**
+     * Record the final state of a running job, unless its lease expired and it
+     * was requeued or claimed by another instance in the meantime.
+     *
+     * @param id           the job id
+     * @param owner        the instance that ran the job
+     * @param status       the final state
+     * @param errorMessage the failure reason, or null
+     * @param completedAt  the time the job finished
+     * @return 1 if the job was still leased to the owner, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE BackgroundJob j SET j.status = :status, j.errorMessage = :errorMessage, " +
+            "j.completedAt = :completedAt WHERE j.id = :id AND j.owner = :owner AND j.status = 'RUNNING'")
+    int finishOwned(@Param("id") Long id,
+            @Param("owner") String owner,
+            @Param("status") BackgroundJobStatus status,
+            @Param("errorMessage") String errorMessage,
+            @Param("completedAt") LocalDateTime completedAt);
+}
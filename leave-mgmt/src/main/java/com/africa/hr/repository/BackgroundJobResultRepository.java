@@ -0,0 +1,35 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.BackgroundJobResult;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface BackgroundJobResultRepository extends JpaRepository<BackgroundJobResult, Long> {
+
+    /**
+     * Find a page of results of a job in the order they were produced.
+     *
+     * @param jobId    the job id
+     * @param pageable the page to read
+     * @return page of results
+     */
+    Page<BackgroundJobResult> findByJobIdOrderBySequenceNumber(Long jobId, Pageable pageable);
+
+    /**
+     * Delete all results of a job, e.g. before it is executed again.
+     *
+     * @param jobId the job id
+     * @return the number of deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BackgroundJobResult r WHERE r.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") Long jobId);
+}
@@ -0,0 +1,188 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.BalanceMovementType;
+import com.africa.hr.model.LeaveDays;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * JDBC access to the append-only balance movement ledger and its month-end
+ * snapshots. Movements are dated with the database's current date when they
+ * are written, so a snapshot taken after its date never misses a movement.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceMovementRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO balance_movements " +
+            "(employee_balance_id, movement_type, amount, effective_date, reference_id) " +
+            "VALUES (?, ?, ?, CURRENT_DATE, ?)";
+
+    private static final String SUM_MOVEMENTS_SQL = "COALESCE((SELECT SUM(m.amount) FROM balance_movements m " +
+            "WHERE m.employee_balance_id = eb.id AND ";
+
+    // The balance at the end of a day is the current balance without the movements made after it
+    private static final String TAKE_SNAPSHOTS_SQL = "INSERT IGNORE INTO balance_snapshots " +
+            "(employee_balance_id, snapshot_date, balance) " +
+            "SELECT eb.id, ?, eb.current_balance - " + SUM_MOVEMENTS_SQL + "m.effective_date > ?), 0) " +
+            "FROM employee_balance eb " +
+            "WHERE eb.created_at < ?";
+
+    // Rolls the latest snapshot on or before the date forward; without one, rolls the live balance back
+    private static final String FIND_BALANCES_AS_OF_SQL = "SELECT eb.id, eb.leave_type_id, lt.name, " +
+            "s.snapshot_date, CASE WHEN s.snapshot_date IS NULL " +
+            "THEN eb.current_balance - " + SUM_MOVEMENTS_SQL + "m.effective_date > ?), 0) " +
+            "ELSE s.balance + " + SUM_MOVEMENTS_SQL + "m.effective_date > s.snapshot_date " +
+            "AND m.effective_date <= ?), 0) END " +
+            "FROM employee_balance eb " +
+            "JOIN leave_types lt ON lt.id = eb.leave_type_id " +
+            "LEFT JOIN balance_snapshots s ON s.employee_balance_id = eb.id " +
+            "AND s.snapshot_date = (SELECT MAX(s2.snapshot_date) FROM balance_snapshots s2 " +
+            "WHERE s2.employee_balance_id = eb.id AND s2.snapshot_date <= ?) " +
+            "WHERE eb.employee_id = ? AND eb.created_at < ? " +
+            "ORDER BY eb.leave_type_id";
+
+    // Request days are counted like LeaveRequest.getTotalDaysRequested()
+    private static final String FIND_UNRECORDED_USAGE_SQL = "SELECT lr.id, eb.id, COALESCE(lr.working_days, " +
+            "TIMESTAMPDIFF(DAY, lr.start_date, lr.end_date) + 1 - lr.half_day_start - lr.half_day_end) " +
+            "FROM leave_requests lr " +
+            "JOIN employee_balance eb ON eb.employee_id = lr.employee_id AND eb.leave_type_id = lr.leave_type_id " +
+            "WHERE lr.status = 'APPROVED' AND NOT EXISTS (SELECT 1 FROM balance_movements m " +
+            "WHERE m.movement_type = 'USAGE' AND m.reference_id = lr.id) " +
+            "ORDER BY eb.id, lr.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The balance of one leave type at the end of a day.
+     *
+     * @param employeeBalanceId the employee balance id
+     * @param leaveTypeId       the leave type id
+     * @param leaveTypeName     the leave type name
+     * @param snapshotDate      the date of the snapshot the balance was rolled forward from, or null
+     * @param balance           the balance at the end of the day
+     */
+    public record BalanceAsOf(Long employeeBalanceId, Long leaveTypeId, String leaveTypeName,
+            LocalDate snapshotDate, BigDecimal balance) {
+    }
+
+    /**
+     * An approved leave request without a usage movement in the ledger.
+     *
+     * @param leaveRequestId    the leave request id
+     * @param employeeBalanceId the employee balance the request was taken from
+     * @param days              the days of the request, in hundredths of a day
+     */
+    public record UnrecordedUsage(long leaveRequestId, long employeeBalanceId, long days) {
+    }
+
+    /**
+     * Append a movement to the ledger.
+     *
+     * @param balanceId   the employee balance id
+     * @param type        the kind of movement
+     * @param amount      the change to the balance, in hundredths of a day
+     * @param referenceId the leave request or carry-forward behind the movement, or null
+     */
+    public void record(long balanceId, BalanceMovementType type, long amount, Long referenceId) {
+        jdbcTemplate.update(INSERT_SQL, balanceId, type.name(), LeaveDays.toDays(amount), referenceId);
+    }
+
+    /**
+     * Append one movement of the same kind per balance, in JDBC batches. Zero
+     * amounts are skipped.
+     *
+     * @param balanceIds the employee balance ids
+     * @param amounts    the change to each balance, in hundredths of a day
+     * @param count      the number of entries of the arrays to record
+     * @param type       the kind of movement
+     * @return the number of movements recorded
+     */
+    public int recordAll(long[] balanceIds, long[] amounts, int count, BalanceMovementType type) {
+        int[] nonZero = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (amounts[i] != 0) {
+                nonZero[size++] = i;
+            }
+        }
+
+        for (int start = 0; start < size; start += BATCH_SIZE) {
+            int offset = start;
+            int batchSize = Math.min(BATCH_SIZE, size - start);
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int index = nonZero[offset + i];
+                    ps.setLong(1, balanceIds[index]);
+                    ps.setString(2, type.name());
+                    ps.setBigDecimal(3, LeaveDays.toDays(amounts[index]));
+                    ps.setNull(4, Types.BIGINT);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batchSize;
+                }
+            });
+        }
+        return size;
+    }
+
+    /**
+     * Snapshot the balance of every balance that existed at the end of a day.
+     * Balances that already have a snapshot for the day are skipped.
+     *
+     * @param snapshotDate the day, which must be over
+     * @return the number of snapshots taken
+     */
+    public int takeSnapshots(LocalDate snapshotDate) {
+        Date sqlDate = Date.valueOf(snapshotDate);
+        return jdbcTemplate.update(TAKE_SNAPSHOTS_SQL, sqlDate, sqlDate, endOfDay(snapshotDate));
+    }
+
+    /**
+     * Find the balances of an employee at the end of a day, from the latest
+     * snapshot on or before the day plus the movements between the two.
+     *
+     * @param employeeId the employee id
+     * @param date       the day
+     * @return the balances that existed at the end of the day, by leave type
+     */
+    public List<BalanceAsOf> findBalancesAsOf(Long employeeId, LocalDate date) {
+        Date sqlDate = Date.valueOf(date);
+        return jdbcTemplate.query(FIND_BALANCES_AS_OF_SQL, (rs, rowNum) -> {
+            Date snapshotDate = rs.getDate(4);
+            return new BalanceAsOf(rs.getLong(1), rs.getLong(2), rs.getString(3),
+                    snapshotDate != null ? snapshotDate.toLocalDate() : null, rs.getBigDecimal(5));
+        }, sqlDate, sqlDate, sqlDate, employeeId, endOfDay(date));
+    }
+
+    /**
+     * Find the approved leave requests that have no usage movement, ordered by
+     * balance. These were approved before approvals were recorded in the ledger.
+     *
+     * @return the unrecorded usage of each request
+     */
+    public List<UnrecordedUsage> findUnrecordedUsage() {
+        return jdbcTemplate.query(FIND_UNRECORDED_USAGE_SQL, (rs, rowNum) -> new UnrecordedUsage(rs.getLong(1),
+                rs.getLong(2), LeaveDays.toHundredths(rs.getBigDecimal(3))));
+    }
+
+    private static Timestamp endOfDay(LocalDate date) {
+        return Timestamp.valueOf(date.plusDays(1).atStartOfDay());
+    }
+}
@@ -0,0 +1,153 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.LeaveDays;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC reader and writer for balance reconciliation. Recomputes balances from
+ * their history with one grouped aggregate query per range of balance ids.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BalanceReconciliationRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String FIND_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM employee_balance";
+
+    // Request days are counted like LeaveRequest.getTotalDaysRequested(). Forfeits are read from the
+    // ledger, which records the amount actually taken off a balance rather than the amount planned
+    private static final String FIND_IN_RANGE_SQL = "SELECT eb.id, eb.employee_id, eb.leave_type_id, " +
+            "eb.current_balance, eb.max_balance, " +
+            "COALESCE(a.total, 0), COALESCE(f.total, 0), COALESCE(u.total, 0) " +
+            "FROM employee_balance eb " +
+            "LEFT JOIN (SELECT employee_balance_id, SUM(amount) AS total FROM leave_accruals " +
+            "WHERE employee_balance_id BETWEEN ? AND ? GROUP BY employee_balance_id) a " +
+            "ON a.employee_balance_id = eb.id " +
+            "LEFT JOIN (SELECT employee_balance_id, -SUM(amount) AS total FROM balance_movements " +
+            "WHERE movement_type = 'FORFEIT' AND employee_balance_id BETWEEN ? AND ? " +
+            "GROUP BY employee_balance_id) f " +
+            "ON f.employee_balance_id = eb.id " +
+            "LEFT JOIN (SELECT b.id AS employee_balance_id, " +
+            "SUM(COALESCE(lr.working_days, " +
+            "DATEDIFF(lr.end_date, lr.start_date) + 1 - lr.half_day_start - lr.half_day_end)) AS total " +
+            "FROM employee_balance b " +
+            "JOIN leave_requests lr ON lr.employee_id = b.employee_id AND lr.leave_type_id = b.leave_type_id " +
+            "WHERE lr.status = 'APPROVED' AND b.id BETWEEN ? AND ? GROUP BY b.id) u " +
+            "ON u.employee_balance_id = eb.id " +
+            "WHERE eb.id BETWEEN ? AND ?";
+
+    private static final String REPAIR_SQL = "UPDATE employee_balance " +
+            "SET current_balance = ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND current_balance = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * An inclusive range of employee balance ids.
+     *
+     * @param firstId the first employee balance id
+     * @param lastId  the last employee balance id
+     */
+    public record IdRange(long firstId, long lastId) {
+    }
+
+    /**
+     * A balance with the totals of its history. Amounts are in hundredths of a
+     * day.
+     *
+     * @param employeeBalanceId the employee balance id
+     * @param employeeId        the employee id
+     * @param leaveTypeId       the leave type id
+     * @param currentBalance    the current balance
+     * @param maxBalance        the maximum balance, or -1 if uncapped
+     * @param accrued           the total of the balance's accruals
+     * @param forfeited         the total taken off by carry-forward forfeits
+     * @param used              the total days of approved leave requests
+     */
+    public record BalanceHistory(long employeeBalanceId, long employeeId, long leaveTypeId, long currentBalance,
+            long maxBalance, long accrued, long forfeited, long used) {
+
+        /**
+         * @return the balance implied by the history, in hundredths of a day
+         */
+        public long expectedBalance() {
+            return accrued - forfeited - used;
+        }
+    }
+
+    /**
+     * @return the lowest and highest employee balance id, or empty if there are no balances
+     */
+    public Optional<IdRange> findIdRange() {
+        return jdbcTemplate.query(FIND_ID_RANGE_SQL, rs -> {
+            rs.next();
+            long firstId = rs.getLong(1);
+            return rs.wasNull() ? Optional.<IdRange>empty() : Optional.of(new IdRange(firstId, rs.getLong(2)));
+        });
+    }
+
+    /**
+     * Read the balances within an inclusive id range with the totals of their
+     * history, in one statement.
+     *
+     * @param range the employee balance id range
+     * @return the balances and their history
+     */
+    public List<BalanceHistory> findInRange(IdRange range) {
+        long first = range.firstId();
+        long last = range.lastId();
+        return jdbcTemplate.query(FIND_IN_RANGE_SQL, (rs, rowNum) -> {
+            BigDecimal maxBalance = rs.getBigDecimal(5);
+            return new BalanceHistory(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                    LeaveDays.toHundredths(rs.getBigDecimal(4)),
+                    maxBalance != null ? LeaveDays.toHundredths(maxBalance) : -1,
+                    LeaveDays.toHundredths(rs.getBigDecimal(6)),
+                    LeaveDays.toHundredths(rs.getBigDecimal(7)),
+                    LeaveDays.toHundredths(rs.getBigDecimal(8)));
+        }, first, last, first, last, first, last, first, last);
+    }
+
+    /**
+     * Set balances to corrected amounts in JDBC batches. A balance is only
+     * updated if it still holds the amount it was reconciled from, so changes
+     * made since are never overwritten.
+     *
+     * @param balanceIds      the employee balance ids
+     * @param currentBalances the amount each balance was reconciled from, in hundredths of a day
+     * @param targets         the corrected amount of each balance, in hundredths of a day
+     * @param count           the number of entries of the arrays to apply
+     * @return the update count of each entry: 0 if the balance changed since it was read
+     */
+    public int[] repair(long[] balanceIds, long[] currentBalances, long[] targets, int count) {
+        int[] updated = new int[count];
+        for (int start = 0; start < count; start += BATCH_SIZE) {
+            int offset = start;
+            int size = Math.min(BATCH_SIZE, count - start);
+            int[] batch = jdbcTemplate.batchUpdate(REPAIR_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setBigDecimal(1, LeaveDays.toDays(targets[offset + i]));
+                    ps.setLong(2, balanceIds[offset + i]);
+                    ps.setBigDecimal(3, LeaveDays.toDays(currentBalances[offset + i]));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+            System.arraycopy(batch, 0, updated, offset, size);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,80 @@
+package com.africa.hr.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * JDBC reader for the company calendar. Reads approved leave as flat rows
+ * instead of entities with their associations.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CompanyCalendarRepository {
+
+    // Overlap predicate kept sargable for idx_leave_requests_status_dates
+    private static final String FIND_APPROVED_SQL = "SELECT lr.employee_id, e.first_name, e.last_name, d.name, " +
+            "lr.start_date, lr.end_date, lt.name, lr.working_days, lr.half_day_start, lr.half_day_end, " +
+            "lr.manager_id, m.first_name, m.last_name " +
+            "FROM leave_requests lr " +
+            "JOIN users e ON e.id = lr.employee_id " +
+            "LEFT JOIN departments d ON d.id = e.department_id " +
+            "JOIN leave_types lt ON lt.id = lr.leave_type_id " +
+            "LEFT JOIN users m ON m.id = lr.manager_id " +
+            "WHERE lr.status = 'APPROVED' AND lr.start_date <= ? AND lr.end_date >= ? " +
+            "ORDER BY lr.start_date, lr.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * An approved absence with the names shown on the calendar.
+     *
+     * @param employeeId     the employee id
+     * @param employeeName   the employee's full name
+     * @param departmentName the employee's department, or null
+     * @param startDate      the first date of the absence
+     * @param endDate        the last date of the absence
+     * @param leaveType      the leave type name
+     * @param workingDays    the working days charged, or null for requests that predate it
+     * @param halfDayStart   whether only the second half of the first date is taken
+     * @param halfDayEnd     whether only the first half of the last date is taken
+     * @param approverId     the approver id, or null
+     * @param approverName   the approver's full name, or null
+     */
+    public record ApprovedLeave(long employeeId, String employeeName, String departmentName, LocalDate startDate,
+            LocalDate endDate, String leaveType, BigDecimal workingDays, boolean halfDayStart, boolean halfDayEnd,
+            Long approverId, String approverName) {
+    }
+
+    /**
+     * Read the approved leave overlapping an inclusive date range, one row at a
+     * time, ordered by start date.
+     *
+     * @param firstDay the first date of the range
+     * @param lastDay  the last date of the range
+     * @param action   called with each absence as it is read
+     */
+    public void forEachApprovedLeave(LocalDate firstDay, LocalDate lastDay, Consumer<ApprovedLeave> action) {
+        jdbcTemplate.query(FIND_APPROVED_SQL, rs -> {
+            long approverId = rs.getLong(11);
+            boolean hasApprover = !rs.wasNull();
+            action.accept(new ApprovedLeave(
+                    rs.getLong(1),
+                    rs.getString(2) + " " + rs.getString(3),
+                    rs.getString(4),
+                    rs.getDate(5).toLocalDate(),
+                    rs.getDate(6).toLocalDate(),
+                    rs.getString(7),
+                    rs.getBigDecimal(8),
+                    rs.getBoolean(9),
+                    rs.getBoolean(10),
+                    hasApprover ? approverId : null,
+                    hasApprover ? rs.getString(12) + " " + rs.getString(13) : null));
+        }, Date.valueOf(lastDay), Date.valueOf(firstDay));
+    }
+}
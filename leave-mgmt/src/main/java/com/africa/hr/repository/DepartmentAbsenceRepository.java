@@ -0,0 +1,120 @@
+package com.africa.hr.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * JDBC writer of the per-department, per-day counts of members with pending or
+ * approved leave. Writers hold or release the days of a request with one
+ * conditional update per day, sent as a JDBC batch, so maintaining the counts
+ * costs a round trip or two per request transition.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DepartmentAbsenceRepository {
+
+    private static final String ENSURE_DAY_SQL = "INSERT INTO department_absence_days " +
+            "(department_id, absence_date, absent_count) VALUES (?, ?, 0) " +
+            "ON DUPLICATE KEY UPDATE absent_count = absent_count";
+
+    private static final String HOLD_SQL = "UPDATE department_absence_days SET absent_count = absent_count + 1 " +
+            "WHERE department_id = ? AND absence_date = ? AND absent_count < ?";
+
+    private static final String RELEASE_SQL = "UPDATE department_absence_days SET absent_count = absent_count - 1 " +
+            "WHERE department_id = ? AND absence_date = ? AND absent_count > 0";
+
+    private static final String FIND_FULL_DAYS_SQL = "SELECT absence_date FROM department_absence_days " +
+            "WHERE department_id = ? AND absence_date BETWEEN ? AND ? AND absent_count >= ? " +
+            "ORDER BY absence_date";
+
+    private static final String DELETE_ALL_SQL = "DELETE FROM department_absence_days";
+
+    private static final String INSERT_SQL = "INSERT INTO department_absence_days " +
+            "(department_id, absence_date, absent_count) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE absent_count = VALUES(absent_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The number of members of a department with leave held on a day.
+     *
+     * @param departmentId the department id
+     * @param date         the day
+     * @param absentCount  the number of members
+     */
+    public record AbsenceDay(long departmentId, LocalDate date, int absentCount) {
+    }
+
+    /**
+     * Count one more member on each of the given days, unless a day already
+     * reached the cap. Days that reached the cap are left unchanged, so callers
+     * must roll back when fewer days than requested were counted.
+     *
+     * @param departmentId the department id
+     * @param days         the days to count
+     * @param cap          the most members allowed on a day
+     * @return the number of days counted
+     */
+    public int hold(Long departmentId, List<LocalDate> days, int cap) {
+        jdbcTemplate.batchUpdate(ENSURE_DAY_SQL, days.stream()
+                .map(day -> new Object[] { departmentId, Date.valueOf(day) })
+                .toList());
+        int[] updated = jdbcTemplate.batchUpdate(HOLD_SQL, days.stream()
+                .map(day -> new Object[] { departmentId, Date.valueOf(day), cap })
+                .toList());
+
+        // Rewritten batches may report SUCCESS_NO_INFO; only a count of 0 is a full day
+        int held = 0;
+        for (int count : updated) {
+            if (count != 0) {
+                held++;
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Count one member less on each of the given days.
+     *
+     * @param departmentId the department id
+     * @param days         the days to release
+     */
+    public void release(Long departmentId, List<LocalDate> days) {
+        jdbcTemplate.batchUpdate(RELEASE_SQL, days.stream()
+                .map(day -> new Object[] { departmentId, Date.valueOf(day) })
+                .toList());
+    }
+
+    /**
+     * Find the days of an inclusive date range that reached a cap.
+     *
+     * @param departmentId the department id
+     * @param firstDay     the first date of the range
+     * @param lastDay      the last date of the range
+     * @param cap          the most members allowed on a day
+     * @return the full days, in date order
+     */
+    public List<LocalDate> findFullDays(Long departmentId, LocalDate firstDay, LocalDate lastDay, int cap) {
+        return jdbcTemplate.query(FIND_FULL_DAYS_SQL, (rs, rowNum) -> rs.getDate(1).toLocalDate(),
+                departmentId, Date.valueOf(firstDay), Date.valueOf(lastDay), cap);
+    }
+
+    /**
+     * Replace every count.
+     *
+     * @param days the counts of the days with leave held
+     * @return the number of days written
+     */
+    public int replaceAll(List<AbsenceDay> days) {
+        jdbcTemplate.update(DELETE_ALL_SQL);
+        jdbcTemplate.batchUpdate(INSERT_SQL, days.stream()
+                .map(day -> new Object[] { day.departmentId(), Date.valueOf(day.date()), day.absentCount() })
+                .toList());
+        return days.size();
+    }
+}
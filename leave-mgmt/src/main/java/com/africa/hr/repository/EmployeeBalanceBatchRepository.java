@@ -0,0 +1,258 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.BalanceAdjustmentOutcome;
+import com.africa.hr.model.LeaveDays;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC batch writer for employee balances.
+ * Applies many balance deltas in a few round trips instead of loading and saving
+ * each {@code EmployeeBalance} entity.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EmployeeBalanceBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String APPLY_ACCRUAL_SQL = "UPDATE employee_balance " +
+            "SET current_balance = current_balance + ?, last_accrual_date = ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ?";
+
+    // Only credits are held to the maximum, so a balance above it can still be drawn down.
+    // 999.99 is the largest amount a DECIMAL(5,2) balance can hold
+    private static final String ADJUST_SQL = "UPDATE employee_balance " +
+            "SET current_balance = current_balance + ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND current_balance + ? >= 0 " +
+            "AND (? <= 0 OR current_balance + ? <= COALESCE(max_balance, 999.99))";
+
+    private static final String FIND_AMOUNT_SQL = "SELECT current_balance FROM employee_balance WHERE id = ?";
+
+    private static final String FIND_ID_SQL = "SELECT id FROM employee_balance " +
+            "WHERE employee_id = ? AND leave_type_id = ?";
+
+    private static final String ADJUST_REQUEST_DAYS_SQL = "UPDATE employee_balance " +
+            "SET used_days = used_days + ?, pending_days = pending_days + ? " +
+            "WHERE employee_id = ? AND leave_type_id = ?";
+
+    // Days are counted like LeaveRequest.getTotalDaysRequested()
+    private static final String SUM_REQUEST_DAYS_SQL = "SELECT COALESCE(SUM(COALESCE(lr.working_days, " +
+            "DATEDIFF(lr.end_date, lr.start_date) + 1 - lr.half_day_start - lr.half_day_end)), 0) " +
+            "FROM leave_requests lr " +
+            "WHERE lr.employee_id = eb.employee_id AND lr.leave_type_id = eb.leave_type_id AND lr.status = ";
+
+    private static final String REBUILD_REQUEST_DAYS_SQL = "UPDATE employee_balance eb " +
+            "SET used_days = (" + SUM_REQUEST_DAYS_SQL + "'APPROVED'), " +
+            "pending_days = (" + SUM_REQUEST_DAYS_SQL + "'PENDING')";
+
+    private static final String LOCK_EMPLOYEE_RANGE_SQL = "SELECT id FROM employee_balance " +
+            "WHERE employee_id BETWEEN ? AND ? FOR UPDATE";
+
+    private static final String FIND_EMPLOYEE_RANGE_SQL = "SELECT id, employee_id, leave_type_id, current_balance " +
+            "FROM employee_balance WHERE employee_id BETWEEN ? AND ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The current amount of a balance.
+     *
+     * @param employeeBalanceId the employee balance id
+     * @param employeeId        the employee id
+     * @param leaveTypeId       the leave type id
+     * @param currentBalance    the current balance
+     */
+    public record BalanceAmount(Long employeeBalanceId, Long employeeId, Long leaveTypeId,
+            BigDecimal currentBalance) {
+    }
+
+    /**
+     * Lock the balances of the employees within an inclusive employee id range
+     * until the current transaction ends. Accrual writers take this lock before
+     * reading the ledger, so overlapping runs over the same employees apply their
+     * deltas one after the other instead of crediting the same period twice.
+     *
+     * @param firstId the first employee id of the range
+     * @param lastId  the last employee id of the range
+     * @return the number of balances locked
+     */
+    public int lockEmployeeRange(Long firstId, Long lastId) {
+        return jdbcTemplate.queryForList(LOCK_EMPLOYEE_RANGE_SQL, Long.class, firstId, lastId).size();
+    }
+
+    /**
+     * Read the current amount of every balance of the employees within an
+     * inclusive employee id range.
+     *
+     * @param firstId the first employee id of the range
+     * @param lastId  the last employee id of the range
+     * @return the balance amounts, keyed by employee balance id, in id order
+     */
+    public Map<Long, BalanceAmount> findAmountsInRange(Long firstId, Long lastId) {
+        Map<Long, BalanceAmount> amounts = new LinkedHashMap<>();
+        jdbcTemplate.query(FIND_EMPLOYEE_RANGE_SQL, rs -> {
+            BalanceAmount amount = new BalanceAmount(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                    rs.getBigDecimal(4));
+            amounts.put(amount.employeeBalanceId(), amount);
+        }, firstId, lastId);
+        return amounts;
+    }
+
+    /**
+     * Add accrued amounts to balances and stamp the last accrual date. The
+     * amounts are passed as parallel arrays, so a balance may appear more than
+     * once; each of its deltas is added.
+     *
+     * @param balanceIds      the employee balance ids
+     * @param deltas          the amount to add to each balance, in hundredths of a day
+     * @param count           the number of entries of the arrays to apply
+     * @param lastAccrualDate the date to record as the last accrual date
+     * @return the number of deltas applied
+     */
+    public int applyAccruals(long[] balanceIds, long[] deltas, int count, LocalDate lastAccrualDate) {
+        Date sqlAccrualDate = Date.valueOf(lastAccrualDate);
+        for (int start = 0; start < count; start += BATCH_SIZE) {
+            int offset = start;
+            int size = Math.min(BATCH_SIZE, count - start);
+            jdbcTemplate.batchUpdate(APPLY_ACCRUAL_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setBigDecimal(1, LeaveDays.toDays(deltas[offset + i]));
+                    ps.setDate(2, sqlAccrualDate);
+                    ps.setLong(3, balanceIds[offset + i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+        return count;
+    }
+
+    /**
+     * Add a delta to a balance in a single guarded statement. A deduction is
+     * only applied if the balance stays at or above zero, and a credit only if
+     * it stays at or below its maximum, so concurrent adjustments can neither
+     * lose an update nor overdraw the balance.
+     *
+     * @param balanceId the employee balance id
+     * @param delta     the amount to add, in hundredths of a day; negative to deduct
+     * @return the number of balances updated: 1 if applied, 0 if rejected
+     */
+    public int adjust(long balanceId, long delta) {
+        BigDecimal days = LeaveDays.toDays(delta);
+        return jdbcTemplate.update(ADJUST_SQL, days, balanceId, days, days, days);
+    }
+
+    /**
+     * Add deltas to many balances with the same guard as {@link #adjust}, in one
+     * round trip per JDBC batch. Each delta is applied or rejected on its own.
+     *
+     * @param balanceIds the employee balance ids
+     * @param deltas     the amount to add to each balance, in hundredths of a day
+     * @param count      the number of entries of the arrays to apply
+     * @return the update count of each entry: 0 if it was rejected
+     */
+    public int[] adjustAll(long[] balanceIds, long[] deltas, int count) {
+        int[] updated = new int[count];
+        for (int start = 0; start < count; start += BATCH_SIZE) {
+            int offset = start;
+            int size = Math.min(BATCH_SIZE, count - start);
+            int[] batch = jdbcTemplate.batchUpdate(ADJUST_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    BigDecimal days = LeaveDays.toDays(deltas[offset + i]);
+                    ps.setBigDecimal(1, days);
+                    ps.setLong(2, balanceIds[offset + i]);
+                    ps.setBigDecimal(3, days);
+                    ps.setBigDecimal(4, days);
+                    ps.setBigDecimal(5, days);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+            System.arraycopy(batch, 0, updated, offset, size);
+        }
+        return updated;
+    }
+
+    /**
+     * Explain why an adjustment was rejected by {@link #adjust} or
+     * {@link #adjustAll}, from the balance's current amount.
+     *
+     * @param balanceId the employee balance id
+     * @param delta     the rejected delta, in hundredths of a day
+     * @return the reason the adjustment was rejected
+     */
+    public BalanceAdjustmentOutcome explainRejection(long balanceId, long delta) {
+        return findAmount(balanceId)
+                .map(amount -> LeaveDays.toHundredths(amount) + delta < 0
+                        ? BalanceAdjustmentOutcome.INSUFFICIENT_BALANCE
+                        : BalanceAdjustmentOutcome.EXCEEDS_MAX_BALANCE)
+                .orElse(BalanceAdjustmentOutcome.NOT_FOUND);
+    }
+
+    /**
+     * Read the stored amount of a balance, bypassing any managed copy.
+     *
+     * @param balanceId the employee balance id
+     * @return the current balance, or empty if the balance is not found
+     */
+    public Optional<BigDecimal> findAmount(long balanceId) {
+        return jdbcTemplate.query(FIND_AMOUNT_SQL, (rs, rowNum) -> rs.getBigDecimal(1), balanceId).stream()
+                .findFirst();
+    }
+
+    /**
+     * Find the id of an employee's balance for a leave type, without loading it.
+     *
+     * @param employeeId  the employee id
+     * @param leaveTypeId the leave type id
+     * @return the employee balance id, or empty if the employee has no balance for the leave type
+     */
+    public Optional<Long> findId(Long employeeId, Long leaveTypeId) {
+        return jdbcTemplate.queryForList(FIND_ID_SQL, Long.class, employeeId, leaveTypeId).stream().findFirst();
+    }
+
+    /**
+     * Add deltas to the used and pending day counters of an employee's balance
+     * for a leave type.
+     *
+     * @param employeeId   the employee id
+     * @param leaveTypeId  the leave type id
+     * @param usedDelta    the days to add to the used days, in hundredths of a day
+     * @param pendingDelta the days to add to the pending days, in hundredths of a day
+     * @return the number of balances updated: 0 if the employee has no balance for the leave type
+     */
+    public int adjustRequestDays(Long employeeId, Long leaveTypeId, long usedDelta, long pendingDelta) {
+        return jdbcTemplate.update(ADJUST_REQUEST_DAYS_SQL, LeaveDays.toDays(usedDelta),
+                LeaveDays.toDays(pendingDelta), employeeId, leaveTypeId);
+    }
+
+    /**
+     * Recompute the used and pending day counters of every balance from the
+     * approved and pending leave requests.
+     *
+     * @return the number of balances updated
+     */
+    public int rebuildRequestDays() {
+        return jdbcTemplate.update(REBUILD_REQUEST_DAYS_SQL);
+    }
+}
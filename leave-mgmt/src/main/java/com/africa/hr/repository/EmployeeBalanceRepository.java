@@ -3,8 +3,11 @@ package com.africa.hr.repository;
 import com.africa.hr.model.EmployeeBalance;
 import com.africa.hr.model.LeaveType;
 import com.africa.hr.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -24,6 +27,16 @@ public interface EmployeeBalanceRepository extends JpaRepository<EmployeeBalance
      */
     List<EmployeeBalance> findByEmployee(User employee);
 
+    /**
+     * Find all balances for an employee, with their leave types, read-only.
+     *
+     * @param employeeId the employee ID
+     * @return list of employee balances
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT eb FROM EmployeeBalance eb JOIN FETCH eb.leaveType WHERE eb.employee.id = :employeeId")
+    List<EmployeeBalance> findWithLeaveTypeByEmployeeId(@Param("employeeId") Long employeeId);
+
     /**
      * Find a specific balance for an employee and leave type.
      *
@@ -36,17 +49,120 @@ public interface EmployeeBalanceRepository extends JpaRepository<EmployeeBalance
     /**
      * Find all balances that are eligible for accrual and haven't been updated
      * since a specific date.
+     * The employee and leave type are fetched in the same statement and the
+     * results are loaded read-only, so bulk accrual runs can compute amounts in
+     * memory without lazy loads or dirty checking.
      *
      * @param date the date to check against
      * @return list of eligible balances
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT eb FROM EmployeeBalance eb " +
+            "JOIN FETCH eb.employee e " +
+            "JOIN FETCH eb.leaveType lt " +
             "WHERE eb.isEligibleForAccrual = true " +
             "AND (eb.lastAccrualDate IS NULL OR eb.lastAccrualDate < :date) " +
-            "AND eb.employee.status = 'ACTIVE' " +
-            "AND eb.leaveType.accrualBased = true")
+            "AND e.status = 'ACTIVE' " +
+            "AND lt.accrualBased = true")
     List<EmployeeBalance> findEligibleForAccrual(@Param("date") LocalDate date);
 
+    /**
+     * Number of balances per employee that match a balance query.
+     */
+    interface EligibleBalanceCount {
+        Long getEmployeeId();
+
+        Long getBalanceCount();
+    }
+
+    /**
+     * Count the balances eligible for accrual per employee, in ascending employee
+     * id order. Used to split an accrual run into chunks of contiguous employee
+     * ids.
+     *
+     * @param date the date to check against
+     * @return list of per-employee counts
+     */
+    @Query("SELECT eb.employee.id AS employeeId, COUNT(eb) AS balanceCount FROM EmployeeBalance eb " +
+            "WHERE eb.isEligibleForAccrual = true " +
+            "AND (eb.lastAccrualDate IS NULL OR eb.lastAccrualDate < :date) " +
+            "AND eb.employee.status = 'ACTIVE' " +
+            "AND eb.leaveType.accrualBased = true " +
+            "GROUP BY eb.employee.id " +
+            "ORDER BY eb.employee.id")
+    List<EligibleBalanceCount> countEligibleForAccrualByEmployee(@Param("date") LocalDate date);
+
+    /**
+     * Find the balances eligible for accrual of the employees within an inclusive
+     * employee id range. Same criteria and fetch plan as
+     * {@link #findEligibleForAccrual(LocalDate)}.
+     *
+     * @param date    the date to check against
+     * @param firstId the first employee id of the range
+     * @param lastId  the last employee id of the range
+     * @return list of eligible balances
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT eb FROM EmployeeBalance eb " +
+            "JOIN FETCH eb.employee e " +
+            "JOIN FETCH eb.leaveType lt " +
+            "WHERE e.id BETWEEN :firstId AND :lastId " +
+            "AND eb.isEligibleForAccrual = true " +
+            "AND (eb.lastAccrualDate IS NULL OR eb.lastAccrualDate < :date) " +
+            "AND e.status = 'ACTIVE' " +
+            "AND lt.accrualBased = true")
+    List<EmployeeBalance> findEligibleForAccrualInRange(
+            @Param("date") LocalDate date,
+            @Param("firstId") Long firstId,
+            @Param("lastId") Long lastId);
+
+    /**
+     * Count the accrual-based balances of active employees per employee, in
+     * ascending employee id order, regardless of when they were last accrued.
+     * Used to split a multi-month catch-up into chunks of contiguous employee ids.
+     *
+     * @return list of per-employee counts
+     */
+    @Query("SELECT eb.employee.id AS employeeId, COUNT(eb) AS balanceCount FROM EmployeeBalance eb " +
+            "WHERE eb.isEligibleForAccrual = true " +
+            "AND eb.employee.status = 'ACTIVE' " +
+            "AND eb.leaveType.accrualBased = true " +
+            "GROUP BY eb.employee.id " +
+            "ORDER BY eb.employee.id")
+    List<EligibleBalanceCount> countAccrualBasedByEmployee();
+
+    /**
+     * Count all balances per employee, in ascending employee id order. Used to
+     * split a year-end close into chunks of contiguous employee ids.
+     *
+     * @return list of per-employee counts
+     */
+    @Query("SELECT eb.employee.id AS employeeId, COUNT(eb) AS balanceCount FROM EmployeeBalance eb " +
+            "GROUP BY eb.employee.id " +
+            "ORDER BY eb.employee.id")
+    List<EligibleBalanceCount> countByEmployee();
+
+    /**
+     * Find the accrual-based balances of the active employees within an inclusive
+     * employee id range, regardless of when they were last accrued. The catch-up
+     * engine decides per month from the ledger what is still missing.
+     *
+     * @param firstId the first employee id of the range
+     * @param lastId  the last employee id of the range
+     * @return list of accrual-based balances
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT eb FROM EmployeeBalance eb " +
+            "JOIN FETCH eb.employee e " +
+            "JOIN FETCH eb.leaveType lt " +
+            "WHERE e.id BETWEEN :firstId AND :lastId " +
+            "AND eb.isEligibleForAccrual = true " +
+            "AND e.status = 'ACTIVE' " +
+            "AND lt.accrualBased = true")
+    List<EmployeeBalance> findAccrualBasedInRange(
+            @Param("firstId") Long firstId,
+            @Param("lastId") Long lastId);
+
     /**
      * Find all balances that are eligible for carry-forward processing.
      *
@@ -95,4 +211,39 @@ public interface EmployeeBalanceRepository extends JpaRepository<EmployeeBalance
      * @return list of employee balances
      */
     List<EmployeeBalance> findByLeaveTypeIn(List<LeaveType> leaveTypes);
-}
\ No newline at end of file
+
+    /**
+     * Allowance and usage of one of an employee's balances.
+     */
+    interface LeaveTypeUsage {
+        String getLeaveTypeName();
+
+        BigDecimal getTotalAllowance();
+
+        BigDecimal getUsedDays();
+
+        BigDecimal getPendingDays();
+
+        BigDecimal getCurrentBalance();
+    }
+
+    /**
+     * Get the allowance, used days, pending days and current amount of every
+     * balance of an employee in a single statement. The allowance follows
+     * {@link EmployeeBalance#getTotalAllowance()}; the used and pending days are
+     * the counters maintained by the leave request workflow.
+     *
+     * @param employeeId the employee id
+     * @return the usage of each balance, in balance id order
+     */
+    @Query(value = "SELECT lt.name AS leaveTypeName, " +
+            "COALESCE(lt.max_duration, eb.max_balance, 0) AS totalAllowance, " +
+            "eb.used_days AS usedDays, " +
+            "eb.pending_days AS pendingDays, " +
+            "eb.current_balance AS currentBalance " +
+            "FROM employee_balance eb " +
+            "JOIN leave_types lt ON lt.id = eb.leave_type_id " +
+            "WHERE eb.employee_id = :employeeId " +
+            "ORDER BY eb.id", nativeQuery = true)
+    List<LeaveTypeUsage> findLeaveTypeUsageByEmployeeId(@Param("employeeId") Long employeeId);
+}
@@ -0,0 +1,99 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.LeaveDays;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch writer for the leave accrual ledger.
+ * Used by the bulk accrual engine, where saving one {@code LeaveAccrual} entity
+ * at a time would cost a round trip per row. Rows are written with insert-ignore
+ * semantics against the unique (employee balance, accrual period) key, so a
+ * period that has already been accrued for a balance is never written twice.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeaveAccrualBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_ACCRUAL_SQL = "INSERT IGNORE INTO leave_accruals " +
+            "(employee_balance_id, accrual_date, amount, accrual_period, is_prorated, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A single accrual ledger row to be written.
+     *
+     * @param employeeBalanceId the employee balance the accrual belongs to
+     * @param yearMonth         the accrual period
+     * @param amount            the accrued amount, in hundredths of a day
+     * @param prorated          whether the amount was prorated
+     */
+    public record AccrualRow(Long employeeBalanceId, YearMonth yearMonth, long amount, boolean prorated) {
+    }
+
+    /**
+     * Insert accrual rows in JDBC batches, skipping rows whose balance and period
+     * are already in the ledger.
+     * Rows reported with an update count of 0 were skipped. The MySQL driver
+     * reports {@code SUCCESS_NO_INFO} for rewritten multi-row batches; such rows
+     * are treated as inserted, so callers that may race must serialize on the
+     * balances first (see {@link EmployeeBalanceBatchRepository#lockEmployeeRange}).
+     *
+     * @param rows        the rows to insert
+     * @param accrualDate the date the accruals are recorded on
+     * @return the rows that were inserted
+     */
+    public List<AccrualRow> insertAll(List<AccrualRow> rows, LocalDate accrualDate) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Date sqlAccrualDate = Date.valueOf(accrualDate);
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_ACCRUAL_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setLong(1, row.employeeBalanceId());
+            ps.setDate(2, sqlAccrualDate);
+            ps.setBigDecimal(3, LeaveDays.toDays(row.amount()));
+            ps.setDate(4, Date.valueOf(row.yearMonth().atDay(1)));
+            ps.setBoolean(5, row.prorated());
+        });
+
+        List<AccrualRow> inserted = new ArrayList<>(rows.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    inserted.add(rows.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Insert a single accrual row, unless its balance and period are already in
+     * the ledger.
+     *
+     * @param row         the row to insert
+     * @param accrualDate the date the accrual is recorded on
+     * @return true if the row was inserted
+     */
+    public boolean insert(AccrualRow row, LocalDate accrualDate) {
+        return jdbcTemplate.update(INSERT_ACCRUAL_SQL,
+                row.employeeBalanceId(),
+                Date.valueOf(accrualDate),
+                LeaveDays.toDays(row.amount()),
+                Date.valueOf(row.yearMonth().atDay(1)),
+                row.prorated()) > 0;
+    }
+}
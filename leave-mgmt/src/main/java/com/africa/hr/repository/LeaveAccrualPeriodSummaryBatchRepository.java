@@ -0,0 +1,104 @@
+package com.africa.hr.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.YearMonth;
+
+/**
+ * JDBC writer for the accrual period summaries.
+ * Writers add their deltas with a single upsert instead of recounting the
+ * ledger, so maintaining the summary costs one statement per batch of accruals.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeaveAccrualPeriodSummaryBatchRepository {
+
+    private static final String UPSERT_DELTA_SQL = "INSERT INTO leave_accrual_period_summaries " +
+            "(accrual_period, employee_count, accrual_count, total_days, prorated_count, zero_amount_count, " +
+            "first_processed_at, last_processed_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "employee_count = employee_count + VALUES(employee_count), " +
+            "accrual_count = accrual_count + VALUES(accrual_count), " +
+            "total_days = total_days + VALUES(total_days), " +
+            "prorated_count = prorated_count + VALUES(prorated_count), " +
+            "zero_amount_count = zero_amount_count + VALUES(zero_amount_count), " +
+            "last_processed_at = CURRENT_TIMESTAMP";
+
+    private static final String REBUILD_SQL = "INSERT INTO leave_accrual_period_summaries " +
+            "(accrual_period, employee_count, accrual_count, total_days, prorated_count, zero_amount_count, " +
+            "first_processed_at, last_processed_at) " +
+            "SELECT la.accrual_period, COUNT(DISTINCT eb.employee_id), COUNT(*), SUM(la.amount), " +
+            "SUM(CASE WHEN la.is_prorated = 1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN la.amount = 0 THEN 1 ELSE 0 END), " +
+            "MIN(la.created_at), MAX(la.created_at) " +
+            "FROM leave_accruals la " +
+            "JOIN employee_balance eb ON eb.id = la.employee_balance_id " +
+            "GROUP BY la.accrual_period " +
+            "ON DUPLICATE KEY UPDATE " +
+            "employee_count = VALUES(employee_count), " +
+            "accrual_count = VALUES(accrual_count), " +
+            "total_days = VALUES(total_days), " +
+            "prorated_count = VALUES(prorated_count), " +
+            "zero_amount_count = VALUES(zero_amount_count), " +
+            "first_processed_at = VALUES(first_processed_at), " +
+            "last_processed_at = VALUES(last_processed_at)";
+
+    private static final String DELETE_ORPHANS_SQL = "DELETE FROM leave_accrual_period_summaries " +
+            "WHERE accrual_period NOT IN (SELECT DISTINCT accrual_period FROM leave_accruals)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Totals of a batch of newly written accruals for one period.
+     *
+     * @param newEmployees    employees that had no accrual for the period before this batch
+     * @param accruals        the number of accruals written
+     * @param totalDays       the sum of the accrued amounts
+     * @param proratedCount   the number of prorated accruals
+     * @param zeroAmountCount the number of accruals with a zero amount
+     */
+    public record SummaryDelta(int newEmployees, int accruals, BigDecimal totalDays,
+            int proratedCount, int zeroAmountCount) {
+    }
+
+    /**
+     * Add a batch of accruals to the summary of its period, creating the summary
+     * if needed.
+     *
+     * @param yearMonth the accrual period
+     * @param delta     the totals to add
+     */
+    public void applyDelta(YearMonth yearMonth, SummaryDelta delta) {
+        if (delta.accruals() == 0) {
+            return;
+        }
+
+        jdbcTemplate.update(UPSERT_DELTA_SQL,
+                Date.valueOf(yearMonth.atDay(1)),
+                delta.newEmployees(),
+                delta.accruals(),
+                delta.totalDays(),
+                delta.proratedCount(),
+                delta.zeroAmountCount());
+    }
+
+    /**
+     * Recompute every period summary from the accrual ledger and remove
+     * summaries of periods that no longer have accruals. Summary ids of existing
+     * periods are preserved.
+     *
+     * @return the number of periods in the ledger
+     */
+    public int rebuildAll() {
+        jdbcTemplate.update(REBUILD_SQL);
+        jdbcTemplate.update(DELETE_ORPHANS_SQL);
+        Integer periods = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM leave_accrual_period_summaries", Integer.class);
+        return periods != null ? periods : 0;
+    }
+}
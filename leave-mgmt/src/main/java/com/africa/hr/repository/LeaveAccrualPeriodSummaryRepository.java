@@ -0,0 +1,18 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.LeaveAccrualPeriodSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LeaveAccrualPeriodSummaryRepository extends JpaRepository<LeaveAccrualPeriodSummary, Long> {
+
+    /**
+     * Find all period summaries, latest period first.
+     *
+     * @return list of period summaries
+     */
+    List<LeaveAccrualPeriodSummary> findAllByOrderByYearMonthDesc();
+}
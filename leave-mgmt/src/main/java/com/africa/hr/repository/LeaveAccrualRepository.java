@@ -9,10 +9,12 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface LeaveAccrualRepository extends JpaRepository<LeaveAccrual, Long> {
+public interface LeaveAccrualRepository extends JpaRepository<LeaveAccrual, Long>, LeaveAccrualRepositoryCustom {
 
         /**
          * Find all accruals for an employee balance, ordered by accrual date
@@ -32,78 +34,155 @@ public interface LeaveAccrualRepository extends JpaRepository<LeaveAccrual, Long
         List<LeaveAccrual> findByYearMonth(YearMonth yearMonth);
 
         /**
-         * Find all accruals for an employee balance in a specific year.
+         * Find the ids of all employee balances that already have an accrual for a
+         * specific year and month.
          *
-         * @param employeeBalance the employee balance
-         * @param year            the year
-         * @return list of accruals
+         * @param yearMonth the year and month
+         * @return list of employee balance ids
          */
-        @Query("SELECT la FROM LeaveAccrual la " +
-                        "WHERE la.employeeBalance = :employeeBalance " +
-                        "AND FUNCTION('YEAR', la.accrualDate) = :year " +
-                        "ORDER BY FUNCTION('MONTH', la.accrualDate) ASC")
-        List<LeaveAccrual> findByEmployeeBalanceAndYearMonthYear(
-                        @Param("employeeBalance") EmployeeBalance employeeBalance,
-                        @Param("year") int year);
+        @Query("SELECT la.employeeBalance.id FROM LeaveAccrual la WHERE la.yearMonth = :yearMonth")
+        List<Long> findEmployeeBalanceIdsByYearMonth(@Param("yearMonth") YearMonth yearMonth);
 
         /**
-         * Get the total accrued amount for an employee balance in a specific year.
+         * Find the ids of the balances of employees within an inclusive employee id
+         * range that already have an accrual for a specific year and month.
          *
-         * @param employeeBalance the employee balance
-         * @param year            the year
-         * @return the total accrued amount
+         * @param yearMonth the year and month
+         * @param firstId   the first employee id of the range
+         * @param lastId    the last employee id of the range
+         * @return list of employee balance ids
          */
-        @Query("SELECT SUM(la.amount) FROM LeaveAccrual la " +
-                        "WHERE la.employeeBalance = :employeeBalance " +
-                        "AND FUNCTION('YEAR', la.accrualDate) = :year")
-        BigDecimal getTotalAccruedForYear(
-                        @Param("employeeBalance") EmployeeBalance employeeBalance,
-                        @Param("year") int year);
+        @Query("SELECT la.employeeBalance.id FROM LeaveAccrual la " +
+                        "WHERE la.yearMonth = :yearMonth " +
+                        "AND la.employeeBalance.employee.id BETWEEN :firstId AND :lastId")
+        List<Long> findEmployeeBalanceIdsByYearMonthInRange(
+                        @Param("yearMonth") YearMonth yearMonth,
+                        @Param("firstId") Long firstId,
+                        @Param("lastId") Long lastId);
 
         /**
-         * Find accruals for an employee balance in a specific year, ordered by month
-         * descending.
+         * Find the ids of the employees that already have an accrual for a specific
+         * year and month.
+         *
+         * @param yearMonth the year and month
+         * @return list of employee ids
+         */
+        @Query("SELECT DISTINCT la.employeeBalance.employee.id FROM LeaveAccrual la " +
+                        "WHERE la.yearMonth = :yearMonth")
+        List<Long> findEmployeeIdsByYearMonth(@Param("yearMonth") YearMonth yearMonth);
+
+        /**
+         * Find the ids of the employees within an inclusive employee id range that
+         * already have an accrual for a specific year and month.
+         *
+         * @param yearMonth the year and month
+         * @param firstId   the first employee id of the range
+         * @param lastId    the last employee id of the range
+         * @return list of employee ids
+         */
+        @Query("SELECT DISTINCT la.employeeBalance.employee.id FROM LeaveAccrual la " +
+                        "WHERE la.yearMonth = :yearMonth " +
+                        "AND la.employeeBalance.employee.id BETWEEN :firstId AND :lastId")
+        List<Long> findEmployeeIdsByYearMonthInRange(
+                        @Param("yearMonth") YearMonth yearMonth,
+                        @Param("firstId") Long firstId,
+                        @Param("lastId") Long lastId);
+
+        /**
+         * An accrual period already present in the ledger for an employee balance.
+         */
+        interface AccruedPeriod {
+                Long getEmployeeBalanceId();
+
+                Long getEmployeeId();
+
+                YearMonth getYearMonth();
+        }
+
+        /**
+         * Find the accrual periods in the half-open range {@code [from, to)} that are
+         * already present for any balance of a set of employees.
+         *
+         * @param employeeIds the employee ids
+         * @param from        the first accrual period, inclusive
+         * @param to          the end of the range, exclusive
+         * @return list of accrued periods
+         */
+        @Query("SELECT la.employeeBalance.id AS employeeBalanceId, " +
+                        "la.employeeBalance.employee.id AS employeeId, " +
+                        "la.yearMonth AS yearMonth FROM LeaveAccrual la " +
+                        "WHERE la.employeeBalance.employee.id IN :employeeIds " +
+                        "AND la.yearMonth >= :from AND la.yearMonth < :to")
+        List<AccruedPeriod> findAccruedPeriodsForEmployees(
+                        @Param("employeeIds") Collection<Long> employeeIds,
+                        @Param("from") YearMonth from,
+                        @Param("to") YearMonth to);
+
+        /**
+         * Check whether an employee already has any accrual for a specific year and
+         * month. Stops at the first matching row.
+         *
+         * @param yearMonth  the year and month
+         * @param employeeId the employee id
+         * @return true if an accrual exists
+         */
+        boolean existsByYearMonthAndEmployeeBalanceEmployeeId(YearMonth yearMonth, Long employeeId);
+
+        /**
+         * Check whether any accrual exists for a specific year and month. Stops at the
+         * first matching row.
+         *
+         * @param yearMonth the year and month
+         * @return true if an accrual exists
+         */
+        boolean existsByYearMonth(YearMonth yearMonth);
+
+        /**
+         * Find the accruals of an employee balance for the accrual periods in the
+         * half-open range {@code [from, to)}, latest period first.
+         * The bare column comparison lets the lookup seek on
+         * {@code uk_leave_accrual_balance_period}.
          *
          * @param employeeBalance the employee balance
-         * @param year            the year to find accruals for
+         * @param from            the first accrual period, inclusive
+         * @param to              the end of the range, exclusive
          * @return list of accruals
          */
         @Query("SELECT la FROM LeaveAccrual la " +
                         "WHERE la.employeeBalance = :employeeBalance " +
-                        "AND FUNCTION('YEAR', la.accrualDate) = :year " +
-                        "ORDER BY FUNCTION('MONTH', la.accrualDate) DESC")
-        List<LeaveAccrual> findByEmployeeBalanceAndAccrualYearOrderByAccrualMonthDesc(
+                        "AND la.yearMonth >= :from AND la.yearMonth < :to " +
+                        "ORDER BY la.yearMonth DESC")
+        List<LeaveAccrual> findByEmployeeBalanceAndPeriodRange(
                         @Param("employeeBalance") EmployeeBalance employeeBalance,
-                        @Param("year") Integer year);
+                        @Param("from") YearMonth from,
+                        @Param("to") YearMonth to);
 
         /**
-         * Find accruals for an employee balance in a specific year and month.
+         * Get the total accrued amount of an employee balance for the accrual periods
+         * in the half-open range {@code [from, to)}.
          *
          * @param employeeBalance the employee balance
-         * @param year            the year to find accruals for
-         * @param month           the month to find accruals for
-         * @return list of accruals
+         * @param from            the first accrual period, inclusive
+         * @param to              the end of the range, exclusive
+         * @return the total accrued amount, or null if there are no accruals
          */
-        @Query("SELECT la FROM LeaveAccrual la " +
+        @Query("SELECT SUM(la.amount) FROM LeaveAccrual la " +
                         "WHERE la.employeeBalance = :employeeBalance " +
-                        "AND FUNCTION('YEAR', la.accrualDate) = :year " +
-                        "AND FUNCTION('MONTH', la.accrualDate) = :month")
-        List<LeaveAccrual> findByEmployeeBalanceAndAccrualYearAndAccrualMonth(
+                        "AND la.yearMonth >= :from AND la.yearMonth < :to")
+        BigDecimal getTotalAccruedForPeriodRange(
                         @Param("employeeBalance") EmployeeBalance employeeBalance,
-                        @Param("year") Integer year,
-                        @Param("month") Integer month);
+                        @Param("from") YearMonth from,
+                        @Param("to") YearMonth to);
 
         /**
-         * Find all accruals for a specific year and month.
+         * Find the accrual of an employee balance for a specific year and month.
+         * Accrual periods are stored as the first day of the month, so the month's
+         * half-open range reduces to an equality seek on
+         * {@code uk_leave_accrual_balance_period}.
          *
-         * @param year  the year to find accruals for
-         * @param month the month to find accruals for
-         * @return list of accruals
+         * @param employeeBalance the employee balance
+         * @param yearMonth       the year and month
+         * @return the accrual, if the period has been accrued
          */
-        @Query("SELECT la FROM LeaveAccrual la " +
-                        "WHERE FUNCTION('YEAR', la.accrualDate) = :year " +
-                        "AND FUNCTION('MONTH', la.accrualDate) = :month")
-        List<LeaveAccrual> findByAccrualYearAndAccrualMonth(
-                        @Param("year") Integer year,
-                        @Param("month") Integer month);
-}
\ No newline at end of file
+        Optional<LeaveAccrual> findByEmployeeBalanceAndYearMonth(EmployeeBalance employeeBalance, YearMonth yearMonth);
+}
@@ -0,0 +1,29 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.dto.LeaveAccrualResponseDTO;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Hand-written queries for {@link LeaveAccrualRepository}.
+ */
+public interface LeaveAccrualRepositoryCustom {
+
+    /**
+     * Find one page of accrual history, newest first, using keyset pagination on
+     * (accrual date, id). Employee and leave type names are joined in the same
+     * statement and returned as DTOs, so no entities are loaded.
+     *
+     * @param period           optional accrual period filter
+     * @param employeeId       optional employee filter
+     * @param leaveTypeId      optional leave type filter
+     * @param afterAccrualDate accrual date of the last row of the previous page, or null for the first page
+     * @param afterId          id of the last row of the previous page, or null for the first page
+     * @param limit            the maximum number of rows to return
+     * @return list of accrual history rows
+     */
+    List<LeaveAccrualResponseDTO> findHistoryPage(YearMonth period, Long employeeId, Long leaveTypeId,
+            LocalDate afterAccrualDate, Long afterId, int limit);
+}
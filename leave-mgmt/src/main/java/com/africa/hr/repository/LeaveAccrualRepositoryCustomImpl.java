@@ -0,0 +1,83 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.dto.LeaveAccrualResponseDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LeaveAccrualRepositoryCustomImpl implements LeaveAccrualRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<LeaveAccrualResponseDTO> findHistoryPage(YearMonth period, Long employeeId, Long leaveTypeId,
+            LocalDate afterAccrualDate, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT la.id AS id, eb.id AS employeeBalanceId, " +
+                "e.id AS employeeId, e.firstName AS firstName, e.lastName AS lastName, " +
+                "lt.id AS leaveTypeId, lt.name AS leaveTypeName, la.yearMonth AS yearMonth, " +
+                "la.accrualDate AS accrualDate, la.amount AS amount, la.isProrated AS isProrated, " +
+                "la.createdAt AS createdAt " +
+                "FROM LeaveAccrual la " +
+                "JOIN la.employeeBalance eb " +
+                "JOIN eb.employee e " +
+                "JOIN eb.leaveType lt " +
+                "WHERE 1 = 1");
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (period != null) {
+            jpql.append(" AND la.yearMonth = :period");
+            parameters.put("period", period);
+        }
+        if (employeeId != null) {
+            jpql.append(" AND e.id = :employeeId");
+            parameters.put("employeeId", employeeId);
+        }
+        if (leaveTypeId != null) {
+            jpql.append(" AND lt.id = :leaveTypeId");
+            parameters.put("leaveTypeId", leaveTypeId);
+        }
+        if (afterAccrualDate != null && afterId != null) {
+            // Seek past the last row of the previous page
+            jpql.append(" AND (la.accrualDate < :afterAccrualDate " +
+                    "OR (la.accrualDate = :afterAccrualDate AND la.id < :afterId))");
+            parameters.put("afterAccrualDate", afterAccrualDate);
+            parameters.put("afterId", afterId);
+        }
+        jpql.append(" ORDER BY la.accrualDate DESC, la.id DESC");
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        parameters.forEach(query::setParameter);
+        query.setMaxResults(limit);
+
+        return query.getResultList().stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    private LeaveAccrualResponseDTO toDTO(Tuple row) {
+        LeaveAccrualResponseDTO dto = new LeaveAccrualResponseDTO();
+        dto.setId(row.get("id", Long.class));
+        dto.setEmployeeBalanceId(row.get("employeeBalanceId", Long.class));
+        dto.setEmployeeId(row.get("employeeId", Long.class));
+        dto.setEmployeeName(row.get("firstName", String.class) + " " + row.get("lastName", String.class));
+        dto.setLeaveTypeId(row.get("leaveTypeId", Long.class));
+        dto.setLeaveTypeName(row.get("leaveTypeName", String.class));
+        dto.setYearMonth(row.get("yearMonth", YearMonth.class));
+        dto.setAccrualPeriod(row.get("yearMonth", YearMonth.class));
+        dto.setAccrualDate(row.get("accrualDate", LocalDate.class));
+        dto.setAmount(row.get("amount", BigDecimal.class));
+        dto.setIsProrated(row.get("isProrated", Boolean.class));
+        dto.setCreatedAt(row.get("createdAt", LocalDateTime.class));
+        return dto;
+    }
+}
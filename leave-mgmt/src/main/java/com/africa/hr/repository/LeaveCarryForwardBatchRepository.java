@@ -0,0 +1,137 @@
+package com.africa.hr.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Set-based writer for the year-end carry-forward.
+ * Carries forward many balances in a handful of statements: the ledger rows are
+ * inserted straight from {@code employee_balance} as pending, then the
+ * forfeited amounts of the pending rows are taken off the balances and the rows
+ * are marked applied. The unique {@code (employee_balance_id, from_year, to_year)}
+ * key makes a repeated run skip the balances that were already carried forward,
+ * and the applied marker makes sure a forfeit is only taken off once.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeaveCarryForwardBatchRepository {
+
+    private static final String LOCK_LEAVE_TYPE_SQL = "SELECT id FROM employee_balance " +
+            "WHERE leave_type_id = ? FOR UPDATE";
+
+    private static final String MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM leave_carry_forwards";
+
+    // A NULL cap carries the whole balance forward
+    private static final String INSERT_PENDING_SQL = "INSERT IGNORE INTO leave_carry_forwards " +
+            "(employee_balance_id, from_year, to_year, original_balance, carried_forward_amount, " +
+            "forfeited_amount, carry_forward_date, created_at) " +
+            "SELECT eb.id, ?, ?, eb.current_balance, " +
+            "LEAST(eb.current_balance, COALESCE(?, eb.current_balance)), " +
+            "eb.current_balance - LEAST(eb.current_balance, COALESCE(?, eb.current_balance)), " +
+            "?, CURRENT_TIMESTAMP " +
+            "FROM employee_balance eb " +
+            "WHERE eb.leave_type_id = ? AND eb.employee_id BETWEEN ? AND ?";
+
+    private static final String PENDING_FOR_RANGE_SQL = "FROM employee_balance eb " +
+            "JOIN leave_carry_forwards cf ON cf.employee_balance_id = eb.id " +
+            "WHERE cf.from_year = ? AND cf.to_year = ? AND cf.applied_at IS NULL " +
+            "AND eb.employee_id BETWEEN ? AND ?";
+
+    // Written before the forfeits are applied; the forfeit is capped like the update below
+    private static final String RECORD_FORFEITS_SQL = "INSERT INTO balance_movements " +
+            "(employee_balance_id, movement_type, amount, effective_date, reference_id) " +
+            "SELECT eb.id, 'FORFEIT', -LEAST(cf.forfeited_amount, eb.current_balance), CURRENT_DATE, cf.id " +
+            PENDING_FOR_RANGE_SQL + " AND LEAST(cf.forfeited_amount, eb.current_balance) > 0";
+
+    private static final String RECORD_CARRY_FORWARDS_SQL = "INSERT INTO balance_movements " +
+            "(employee_balance_id, movement_type, amount, effective_date, reference_id) " +
+            "SELECT eb.id, 'CARRY_FORWARD', 0, CURRENT_DATE, cf.id " +
+            PENDING_FOR_RANGE_SQL;
+
+    private static final String APPLY_FORFEITS_SQL = "UPDATE employee_balance eb " +
+            "SET current_balance = GREATEST(eb.current_balance - (SELECT cf.forfeited_amount " +
+            "FROM leave_carry_forwards cf " +
+            "WHERE cf.employee_balance_id = eb.id AND cf.from_year = ? AND cf.to_year = ?), 0), " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "WHERE eb.employee_id BETWEEN ? AND ? " +
+            "AND EXISTS (SELECT 1 FROM leave_carry_forwards cf " +
+            "WHERE cf.employee_balance_id = eb.id AND cf.from_year = ? AND cf.to_year = ? " +
+            "AND cf.applied_at IS NULL)";
+
+    private static final String MARK_APPLIED_SQL = "UPDATE leave_carry_forwards " +
+            "SET applied_at = CURRENT_TIMESTAMP " +
+            "WHERE from_year = ? AND to_year = ? AND applied_at IS NULL " +
+            "AND employee_balance_id IN (SELECT id FROM employee_balance WHERE employee_id BETWEEN ? AND ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lock the balances of a leave type until the current transaction ends, so
+     * that concurrent year-end runs over the same leave type close it one after
+     * the other.
+     *
+     * @param leaveTypeId the leave type id
+     * @return the number of balances locked
+     */
+    public int lockLeaveType(Long leaveTypeId) {
+        return jdbcTemplate.queryForList(LOCK_LEAVE_TYPE_SQL, Long.class, leaveTypeId).size();
+    }
+
+    /**
+     * Get the highest carry-forward id written so far. Rows inserted afterwards
+     * have a greater id.
+     *
+     * @return the highest carry-forward id, or 0 if there is none
+     */
+    public long findMaxId() {
+        Long maxId = jdbcTemplate.queryForObject(MAX_ID_SQL, Long.class);
+        return maxId != null ? maxId : 0L;
+    }
+
+    /**
+     * Insert a pending carry-forward row for every balance of a leave type, of
+     * the employees within an inclusive employee id range, that has none for the
+     * year transition yet. The balances themselves are left unchanged.
+     *
+     * @param leaveTypeId      the leave type id
+     * @param carryForwardCap  the carry-forward cap, or null to carry everything
+     * @param fromYear         the year to carry forward from
+     * @param toYear           the year to carry forward to
+     * @param carryForwardDate the date to record on the rows
+     * @param firstId          the first employee id of the range
+     * @param lastId           the last employee id of the range
+     * @return the number of rows inserted
+     */
+    public int insertPending(Long leaveTypeId, BigDecimal carryForwardCap, Integer fromYear, Integer toYear,
+            LocalDate carryForwardDate, Long firstId, Long lastId) {
+        return jdbcTemplate.update(INSERT_PENDING_SQL, fromYear, toYear, carryForwardCap, carryForwardCap,
+                Date.valueOf(carryForwardDate), leaveTypeId, firstId, lastId);
+    }
+
+    /**
+     * Take the forfeited amount of every pending carry-forward row of a year
+     * transition off its balance, for the employees within an inclusive employee
+     * id range, and mark the rows applied. The forfeit is applied as a delta, so
+     * changes made to a balance after its row was recorded are kept. A
+     * carry-forward and a forfeit movement are written to the balance ledger for
+     * each row.
+     *
+     * @param fromYear the year to carry forward from
+     * @param toYear   the year to carry forward to
+     * @param firstId  the first employee id of the range
+     * @param lastId   the last employee id of the range
+     * @return the number of balances updated
+     */
+    public int applyPending(Integer fromYear, Integer toYear, Long firstId, Long lastId) {
+        jdbcTemplate.update(RECORD_CARRY_FORWARDS_SQL, fromYear, toYear, firstId, lastId);
+        jdbcTemplate.update(RECORD_FORFEITS_SQL, fromYear, toYear, firstId, lastId);
+        int updated = jdbcTemplate.update(APPLY_FORFEITS_SQL, fromYear, toYear, firstId, lastId, fromYear, toYear);
+        jdbcTemplate.update(MARK_APPLIED_SQL, fromYear, toYear, firstId, lastId);
+        return updated;
+    }
+}
@@ -54,6 +54,28 @@ public interface LeaveCarryForwardRepository extends JpaRepository<LeaveCarryFor
          */
         List<LeaveCarryForward> findByFromYearAndToYear(Integer fromYear, Integer toYear);
 
+        /**
+         * Find the carry-forwards of a year transition written after a given id,
+         * with their balance, employee and leave type fetched.
+         *
+         * @param fromYear the year to carry forward from
+         * @param toYear   the year to carry forward to
+         * @param afterId  the id after which to look
+         * @return list of carry-forwards ordered by id
+         */
+        @Query("SELECT lcf FROM LeaveCarryForward lcf " +
+                        "JOIN FETCH lcf.employeeBalance eb " +
+                        "JOIN FETCH eb.employee " +
+                        "JOIN FETCH eb.leaveType " +
+                        "WHERE lcf.fromYear = :fromYear " +
+                        "AND lcf.toYear = :toYear " +
+                        "AND lcf.id > :afterId " +
+                        "ORDER BY lcf.id")
+        List<LeaveCarryForward> findByYearTransitionAfterId(
+                        @Param("fromYear") Integer fromYear,
+                        @Param("toYear") Integer toYear,
+                        @Param("afterId") Long afterId);
+
         /**
          * Get the total carried forward amount for an employee balance in a specific
          * year transition.
@@ -4,15 +4,20 @@ import com.africa.hr.model.LeaveRequest;
 import com.africa.hr.model.LeaveRequestStatus;
 import com.africa.hr.model.LeaveType;
 import com.africa.hr.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +49,29 @@ public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long
         @Query("SELECT u FROM User u LEFT JOIN FETCH u.manager WHERE u.id = :employeeId")
         Optional<User> findEmployeeWithManager(@Param("employeeId") Long employeeId);
 
+        /**
+         * Lock the row of an employee until the current transaction ends, so
+         * the submissions of one employee are checked for overlaps one at a
+         * time, whichever instance handles them.
+         */
+        @Query(value = "SELECT id FROM users WHERE id = :employeeId FOR UPDATE", nativeQuery = true)
+        Long lockEmployee(@Param("employeeId") Long employeeId);
+
+        /**
+         * Find the pending and approved requests of an employee overlapping an
+         * inclusive date range with a locking read, which sees the latest
+         * committed requests rather than the transaction's snapshot.
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT lr FROM LeaveRequest lr WHERE lr.employee.id = :employeeId " +
+                        "AND lr.status IN (com.africa.hr.model.LeaveRequestStatus.PENDING, " +
+                        "com.africa.hr.model.LeaveRequestStatus.APPROVED) " +
+                        "AND lr.startDate <= :endDate AND lr.endDate >= :startDate " +
+                        "ORDER BY lr.startDate, lr.id")
+        List<LeaveRequest> findHeldOverlappingForUpdate(@Param("employeeId") Long employeeId,
+                        @Param("startDate") LocalDate startDate,
+                        @Param("endDate") LocalDate endDate);
+
         @EntityGraph(attributePaths = { "employee", "employee.department", "employee.manager", "leaveType",
                         "manager" })
         Page<LeaveRequest> findByEmployee(User employee, Pageable pageable);
@@ -139,6 +167,11 @@ public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long
         @Query("SELECT lr FROM LeaveRequest lr WHERE lr.id = :id")
         Optional<LeaveRequest> findWithDetailsById(@Param("id") Long id);
 
+        @EntityGraph(attributePaths = { "employee", "employee.department", "employee.manager", "leaveType",
+                        "manager" })
+        @Query("SELECT lr FROM LeaveRequest lr WHERE lr.id IN :ids ORDER BY lr.startDate, lr.id")
+        List<LeaveRequest> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
         @EntityGraph(attributePaths = { "employee", "employee.department", "leaveType", "manager" })
         @Query("SELECT lr FROM LeaveRequest lr WHERE lr.manager.id = :managerId")
         Page<LeaveRequest> findByManagerId(@Param("managerId") Long managerId, Pageable pageable);
@@ -147,4 +180,36 @@ public interface LeaveRequestRepository extends JpaRepository<LeaveRequest, Long
         @Query("SELECT lr FROM LeaveRequest lr WHERE lr.manager.id = :managerId AND lr.status = :status")
         Page<LeaveRequest> findByManagerIdAndStatus(@Param("managerId") Long managerId,
                         @Param("status") LeaveRequestStatus status, Pageable pageable);
-}
\ No newline at end of file
+
+        /**
+         * Decide a pending request in one conditional write. The update only
+         * applies while the request is still pending, and bumps its version.
+         *
+         * @return 1 if the request was decided, 0 if it was no longer pending
+         */
+        @Modifying
+        @Query("UPDATE LeaveRequest lr SET lr.status = :status, lr.manager = :manager, lr.approvedAt = :decidedAt, " +
+                        "lr.rejectionReason = :rejectionReason, lr.updatedAt = :decidedAt, lr.version = lr.version + 1 " +
+                        "WHERE lr.id = :id AND lr.status = com.africa.hr.model.LeaveRequestStatus.PENDING")
+        int decidePending(@Param("id") Long id,
+                        @Param("status") LeaveRequestStatus status,
+                        @Param("manager") User manager,
+                        @Param("rejectionReason") String rejectionReason,
+                        @Param("decidedAt") LocalDateTime decidedAt);
+
+        /**
+         * Cancel a pending request of an employee in one conditional write. The
+         * update only applies while the request is still pending, and bumps its
+         * version.
+         *
+         * @return 1 if the request was cancelled, 0 if it was no longer pending
+         */
+        @Modifying
+        @Query("UPDATE LeaveRequest lr SET lr.status = com.africa.hr.model.LeaveRequestStatus.CANCELLED, " +
+                        "lr.updatedAt = :cancelledAt, lr.version = lr.version + 1 " +
+                        "WHERE lr.id = :id AND lr.employee.id = :employeeId " +
+                        "AND lr.status = com.africa.hr.model.LeaveRequestStatus.PENDING")
+        int cancelPending(@Param("id") Long id,
+                        @Param("employeeId") Long employeeId,
+                        @Param("cancelledAt") LocalDateTime cancelledAt);
+}
@@ -0,0 +1,31 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.AccrualRunStatus;
+import com.africa.hr.model.YearEndCloseCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface YearEndCloseCheckpointRepository extends JpaRepository<YearEndCloseCheckpoint, Long> {
+
+    /**
+     * Find all checkpoints of a close, ordered by chunk index.
+     *
+     * @param closeId the close id
+     * @return list of checkpoints
+     */
+    List<YearEndCloseCheckpoint> findByCloseIdOrderByChunkIndex(Long closeId);
+
+    /**
+     * Find the checkpoints of a close that are not in the given state, ordered by
+     * chunk index.
+     *
+     * @param closeId the close id
+     * @param status  the state to exclude
+     * @return list of checkpoints
+     */
+    List<YearEndCloseCheckpoint> findByCloseIdAndStatusNotOrderByChunkIndex(
+            Long closeId, AccrualRunStatus status);
+}
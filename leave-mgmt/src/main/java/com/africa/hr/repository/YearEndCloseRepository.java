@@ -0,0 +1,25 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.AccrualRunStatus;
+import com.africa.hr.model.YearEndClose;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface YearEndCloseRepository extends JpaRepository<YearEndClose, Long> {
+
+    /**
+     * Find the most recent close of a year, of the given kind, in one of the
+     * given states.
+     *
+     * @param fromYear the year being closed
+     * @param dryRun   whether to look for a dry-run close
+     * @param statuses the accepted close states
+     * @return optional containing the close if found
+     */
+    Optional<YearEndClose> findFirstByFromYearAndDryRunAndStatusInOrderByIdDesc(
+            Integer fromYear, Boolean dryRun, Collection<AccrualRunStatus> statuses);
+}
@@ -0,0 +1,363 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.AccrualRunnerConfigProperties;
+import com.africa.hr.dto.AccrualRunDTO;
+import com.africa.hr.dto.LeaveAccrualRunResultDTO;
+import com.africa.hr.model.AccrualRun;
+import com.africa.hr.model.AccrualRunChunk;
+import com.africa.hr.model.AccrualRunStatus;
+import com.africa.hr.repository.AccrualRunChunkRepository;
+import com.africa.hr.repository.AccrualRunRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository.EligibleBalanceCount;
+import com.africa.hr.service.BulkLeaveAccrualService.EmployeeRange;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Chunked, restartable accrual runner.
+ * Eligible balances are split into chunks of contiguous employee ids holding
+ * up to a fixed number of balances each, which are processed on a bounded
+ * worker pool, one transaction per chunk. Each chunk is marked
+ * completed in the same transaction that writes its accruals, so a run that
+ * stops part-way can be resumed and only redoes the unfinished chunks.
+ */
+@Slf4j
+@Service
+public class AccrualRunService {
+
+    private static final Set<AccrualRunStatus> RESUMABLE_STATUSES = EnumSet.of(
+            AccrualRunStatus.PENDING, AccrualRunStatus.RUNNING, AccrualRunStatus.FAILED);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final AccrualRunRepository accrualRunRepository;
+    private final AccrualRunChunkRepository accrualRunChunkRepository;
+    private final EmployeeBalanceRepository employeeBalanceRepository;
+    private final BulkLeaveAccrualService bulkLeaveAccrualService;
+    private final AccrualRunnerConfigProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor accrualRunnerExecutor;
+
+    /**
+     * Callback notified each time a chunk of a run commits.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onChunkCompleted(AccrualRunChunk chunk, int totalChunks);
+    }
+
+    /** Accrual periods with a run executing in this instance. */
+    private final Set<YearMonth> activePeriods = ConcurrentHashMap.newKeySet();
+
+    public AccrualRunService(AccrualRunRepository accrualRunRepository,
+            AccrualRunChunkRepository accrualRunChunkRepository,
+            EmployeeBalanceRepository employeeBalanceRepository,
+            BulkLeaveAccrualService bulkLeaveAccrualService,
+            AccrualRunnerConfigProperties properties,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("accrualRunnerExecutor") Executor accrualRunnerExecutor) {
+        this.accrualRunRepository = accrualRunRepository;
+        this.accrualRunChunkRepository = accrualRunChunkRepository;
+        this.employeeBalanceRepository = employeeBalanceRepository;
+        this.bulkLeaveAccrualService = bulkLeaveAccrualService;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.accrualRunnerExecutor = accrualRunnerExecutor;
+    }
+
+    /**
+     * Run monthly accruals for a period.
+     * If an unfinished run exists for the period it is resumed, otherwise a new
+     * run is planned.
+     *
+     * @param yearMonth   the year and month to accrue for
+     * @param accrualDate the date the accruals are recorded on (used for new runs only)
+     * @return the state of the run once all its chunks have been attempted
+     * @throws IllegalStateException if a run for the period is already executing
+     */
+    public AccrualRunDTO runMonthlyAccruals(YearMonth yearMonth, LocalDate accrualDate) {
+        return runMonthlyAccruals(yearMonth, accrualDate, (chunk, totalChunks) -> {
+        });
+    }
+
+    /**
+     * Run monthly accruals for a period, reporting each committed chunk.
+     *
+     * @param yearMonth   the year and month to accrue for
+     * @param accrualDate the date the accruals are recorded on (used for new runs only)
+     * @param listener    notified after each chunk commits
+     * @return the state of the run once all its chunks have been attempted
+     * @throws IllegalStateException if a run for the period is already executing
+     */
+    public AccrualRunDTO runMonthlyAccruals(YearMonth yearMonth, LocalDate accrualDate, ProgressListener listener) {
+        claimPeriod(yearMonth);
+        try {
+            AccrualRun run = accrualRunRepository
+                    .findFirstByYearMonthAndStatusInOrderByIdDesc(yearMonth, RESUMABLE_STATUSES)
+                    .orElseGet(() -> planRun(yearMonth, accrualDate));
+            return execute(run, listener);
+        } finally {
+            activePeriods.remove(yearMonth);
+        }
+    }
+
+    /**
+     * Resume an unfinished run, processing only the chunks that have not been
+     * completed.
+     *
+     * @param runId    the run to resume
+     * @param listener notified after each chunk commits
+     * @return the state of the run once all its chunks have been attempted
+     * @throws EntityNotFoundException if the run doesn't exist
+     * @throws IllegalStateException   if the run is already completed or executing
+     */
+    public AccrualRunDTO resumeRun(Long runId, ProgressListener listener) {
+        AccrualRun run = findResumableRun(runId);
+
+        claimPeriod(run.getYearMonth());
+        try {
+            return execute(run, listener);
+        } finally {
+            activePeriods.remove(run.getYearMonth());
+        }
+    }
+
+    /**
+     * Get the current state of a run and its chunks.
+     *
+     * @param runId the run id
+     * @return the run
+     * @throws EntityNotFoundException if the run doesn't exist
+     */
+    public AccrualRunDTO getRun(Long runId) {
+        AccrualRun run = accrualRunRepository.findById(runId)
+                .orElseThrow(() -> new EntityNotFoundException("Accrual run not found with ID: " + runId));
+        return convertToDTO(run, accrualRunChunkRepository.findByRunIdOrderByChunkIndex(runId));
+    }
+
+    /**
+     * Check that a run exists and can be resumed.
+     *
+     * @param runId the run id
+     * @return the run
+     * @throws EntityNotFoundException if the run doesn't exist
+     * @throws IllegalStateException   if the run is already completed
+     */
+    public AccrualRunDTO getResumableRun(Long runId) {
+        return convertToDTO(findResumableRun(runId), List.of());
+    }
+
+    private AccrualRun findResumableRun(Long runId) {
+        AccrualRun run = accrualRunRepository.findById(runId)
+                .orElseThrow(() -> new EntityNotFoundException("Accrual run not found with ID: " + runId));
+        if (run.getStatus() == AccrualRunStatus.COMPLETED) {
+            throw new IllegalStateException("Accrual run " + runId + " is already completed");
+        }
+        return run;
+    }
+
+    private void claimPeriod(YearMonth yearMonth) {
+        if (!activePeriods.add(yearMonth)) {
+            throw new IllegalStateException("An accrual run for " + yearMonth + " is already in progress");
+        }
+    }
+
+    /**
+     * Split the eligible balances into chunks of contiguous employee ids and
+     * persist the run together with its chunk checkpoints. An employee's
+     * balances are never split across chunks, so chunks never write the same
+     * employee's data concurrently.
+     */
+    private AccrualRun planRun(YearMonth yearMonth, LocalDate accrualDate) {
+        return transactionTemplate.execute(status -> {
+            List<EligibleBalanceCount> counts = employeeBalanceRepository
+                    .countEligibleForAccrualByEmployee(accrualDate);
+            int chunkSize = Math.max(1, properties.getChunkSize());
+            List<EmployeeRange> ranges = EmployeeRange.split(counts, chunkSize);
+
+            AccrualRun run = new AccrualRun();
+            run.setYearMonth(yearMonth);
+            run.setAccrualDate(accrualDate);
+            AccrualRun savedRun = accrualRunRepository.save(run);
+
+            List<AccrualRunChunk> chunks = new ArrayList<>();
+            int totalBalances = 0;
+            for (EmployeeRange range : ranges) {
+                AccrualRunChunk chunk = new AccrualRunChunk();
+                chunk.setRun(savedRun);
+                chunk.setChunkIndex(chunks.size());
+                chunk.setFirstEmployeeId(range.firstEmployeeId());
+                chunk.setLastEmployeeId(range.lastEmployeeId());
+                chunk.setBalanceCount(range.balanceCount());
+                chunks.add(chunk);
+                totalBalances += range.balanceCount();
+            }
+            accrualRunChunkRepository.saveAll(chunks);
+            savedRun.setTotalChunks(chunks.size());
+
+            log.info("Planned accrual run {} for {}: {} balances of {} employees in {} chunks of up to {}",
+                    savedRun.getId(), yearMonth, totalBalances, counts.size(), chunks.size(), chunkSize);
+            return accrualRunRepository.save(savedRun);
+        });
+    }
+
+    private AccrualRunDTO execute(AccrualRun run, ProgressListener listener) {
+        transactionTemplate.executeWithoutResult(status -> {
+            run.setStatus(AccrualRunStatus.RUNNING);
+            run.setErrorMessage(null);
+            if (run.getStartedAt() == null) {
+                run.setStartedAt(LocalDateTime.now());
+            }
+            accrualRunRepository.save(run);
+        });
+
+        List<AccrualRunChunk> pendingChunks = accrualRunChunkRepository
+                .findByRunIdAndStatusNotOrderByChunkIndex(run.getId(), AccrualRunStatus.COMPLETED);
+        if (pendingChunks.size() < run.getTotalChunks()) {
+            log.info("Resuming accrual run {} for {}: {} of {} chunks left",
+                    run.getId(), run.getYearMonth(), pendingChunks.size(), run.getTotalChunks());
+        }
+
+        CompletableFuture.allOf(pendingChunks.stream()
+                .map(chunk -> CompletableFuture.runAsync(() -> processChunk(run, chunk, listener),
+                        accrualRunnerExecutor))
+                .toArray(CompletableFuture[]::new))
+                .join();
+
+        return finishRun(run.getId());
+    }
+
+    /**
+     * Process one chunk in its own transaction. The accruals and the chunk
+     * checkpoint are committed together; on failure both are rolled back and
+     * the chunk is marked failed in a separate transaction.
+     */
+    private void processChunk(AccrualRun run, AccrualRunChunk chunk, ProgressListener listener) {
+        long startedAt = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LeaveAccrualRunResultDTO result = bulkLeaveAccrualService.processMonthlyAccrualsInRange(
+                        run.getYearMonth(), run.getAccrualDate(),
+                        chunk.getFirstEmployeeId(), chunk.getLastEmployeeId());
+
+                long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+                chunk.setStatus(AccrualRunStatus.COMPLETED);
+                chunk.setAccrualsWritten(result.getAccrualsWritten());
+                chunk.setElapsedMillis(elapsedMillis);
+                chunk.setBalancesPerSecond(throughput(chunk.getBalanceCount(), elapsedMillis));
+                chunk.setErrorMessage(null);
+                chunk.setCompletedAt(LocalDateTime.now());
+                accrualRunChunkRepository.save(chunk);
+            });
+
+            log.info("Accrual run {} chunk {} (employees {}-{}): {} balances, {} accruals in {} ms ({} balances/s)",
+                    run.getId(), chunk.getChunkIndex(), chunk.getFirstEmployeeId(), chunk.getLastEmployeeId(),
+                    chunk.getBalanceCount(), chunk.getAccrualsWritten(), chunk.getElapsedMillis(),
+                    chunk.getBalancesPerSecond());
+        } catch (RuntimeException e) {
+            log.error("Accrual run {} chunk {} failed: {}", run.getId(), chunk.getChunkIndex(), e.getMessage(), e);
+            transactionTemplate.executeWithoutResult(status -> {
+                chunk.setStatus(AccrualRunStatus.FAILED);
+                chunk.setAccrualsWritten(0);
+                chunk.setElapsedMillis((System.nanoTime() - startedAt) / 1_000_000);
+                chunk.setBalancesPerSecond(null);
+                chunk.setErrorMessage(truncate(e.getMessage()));
+                chunk.setCompletedAt(null);
+                accrualRunChunkRepository.save(chunk);
+            });
+            return;
+        }
+
+        listener.onChunkCompleted(chunk, run.getTotalChunks());
+    }
+
+    private AccrualRunDTO finishRun(Long runId) {
+        return transactionTemplate.execute(status -> {
+            AccrualRun run = accrualRunRepository.findById(runId)
+                    .orElseThrow(() -> new EntityNotFoundException("Accrual run not found with ID: " + runId));
+            List<AccrualRunChunk> chunks = accrualRunChunkRepository.findByRunIdOrderByChunkIndex(runId);
+
+            List<AccrualRunChunk> completed = chunks.stream()
+                    .filter(chunk -> chunk.getStatus() == AccrualRunStatus.COMPLETED)
+                    .toList();
+            run.setCompletedChunks(completed.size());
+            run.setBalancesProcessed(completed.stream().mapToInt(AccrualRunChunk::getBalanceCount).sum());
+            run.setAccrualsWritten(completed.stream().mapToInt(AccrualRunChunk::getAccrualsWritten).sum());
+
+            int failedChunks = chunks.size() - completed.size();
+            if (failedChunks == 0) {
+                run.setStatus(AccrualRunStatus.COMPLETED);
+                run.setErrorMessage(null);
+                run.setCompletedAt(LocalDateTime.now());
+            } else {
+                run.setStatus(AccrualRunStatus.FAILED);
+                run.setErrorMessage(failedChunks + " of " + chunks.size()
+                        + " chunks failed; resume the run to retry them");
+            }
+            AccrualRun savedRun = accrualRunRepository.save(run);
+
+            log.info("Accrual run {} for {} finished with status {}: {}/{} chunks, {} balances, {} accruals",
+                    runId, run.getYearMonth(), run.getStatus(), run.getCompletedChunks(), run.getTotalChunks(),
+                    run.getBalancesProcessed(), run.getAccrualsWritten());
+            return convertToDTO(savedRun, chunks);
+        });
+    }
+
+    private static BigDecimal throughput(int balances, long elapsedMillis) {
+        return BigDecimal.valueOf(balances * 1000L)
+                .divide(BigDecimal.valueOf(Math.max(1L, elapsedMillis)), 2, RoundingMode.HALF_UP);
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private AccrualRunDTO convertToDTO(AccrualRun run, List<AccrualRunChunk> chunks) {
+        AccrualRunDTO dto = new AccrualRunDTO();
+        dto.setId(run.getId());
+        dto.setAccrualPeriod(run.getYearMonth());
+        dto.setAccrualDate(run.getAccrualDate());
+        dto.setStatus(run.getStatus().name());
+        dto.setTotalChunks(run.getTotalChunks());
+        dto.setCompletedChunks(run.getCompletedChunks());
+        dto.setBalancesProcessed(run.getBalancesProcessed());
+        dto.setAccrualsWritten(run.getAccrualsWritten());
+        dto.setErrorMessage(run.getErrorMessage());
+        dto.setStartedAt(run.getStartedAt());
+        dto.setCompletedAt(run.getCompletedAt());
+        dto.setChunks(chunks.stream().map(chunk -> {
+            AccrualRunDTO.ChunkDTO chunkDTO = new AccrualRunDTO.ChunkDTO();
+            chunkDTO.setChunkIndex(chunk.getChunkIndex());
+            chunkDTO.setFirstEmployeeId(chunk.getFirstEmployeeId());
+            chunkDTO.setLastEmployeeId(chunk.getLastEmployeeId());
+            chunkDTO.setBalanceCount(chunk.getBalanceCount());
+            chunkDTO.setStatus(chunk.getStatus().name());
+            chunkDTO.setAccrualsWritten(chunk.getAccrualsWritten());
+            chunkDTO.setElapsedMillis(chunk.getElapsedMillis());
+            chunkDTO.setBalancesPerSecond(chunk.getBalancesPerSecond());
+            chunkDTO.setErrorMessage(chunk.getErrorMessage());
+            return chunkDTO;
+        }).toList());
+        return dto;
+    }
+}
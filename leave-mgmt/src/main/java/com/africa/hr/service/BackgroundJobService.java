@@ -0,0 +1,380 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.BackgroundJobConfigProperties;
+import com.africa.hr.dto.BackgroundJobDTO;
+import com.africa.hr.dto.BackgroundJobResultPageDTO;
+import com.africa.hr.dto.LeaveRequestListResponseDTO;
+import com.africa.hr.model.BackgroundJob;
+import com.africa.hr.model.BackgroundJobResult;
+import com.africa.hr.model.BackgroundJobStatus;
+import com.africa.hr.repository.BackgroundJobRepository;
+import com.africa.hr.repository.BackgroundJobResultRepository;
+import com.africa.hr.service.job.BackgroundJobContext;
+import com.africa.hr.service.job.BackgroundJobHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Persisted background jobs for long-running admin operations.
+ * Submitting a job stores it as QUEUED and hands it to a bounded worker pool
+ * once the submitting transaction has committed; callers poll the job for
+ * progress and read its results a page at a time.
+ * <p>
+ * A claimed job is leased to this instance, which renews the lease of all its
+ * running jobs on a heartbeat. Jobs whose lease expired, because the instance
+ * running them stopped, are queued again by whichever instance notices first,
+ * on startup or on its next heartbeat; jobs still running elsewhere are left
+ * alone. A job the worker pool has no room for stays QUEUED and is dispatched
+ * again on the next heartbeat.
+ */
+@Slf4j
+@Service
+public class BackgroundJobService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final BackgroundJobRepository backgroundJobRepository;
+    private final BackgroundJobResultRepository backgroundJobResultRepository;
+    private final ObjectMapper objectMapper;
+    private final BackgroundJobConfigProperties properties;
+    private final Executor backgroundJobExecutor;
+    private final TaskScheduler backgroundJobLeaseScheduler;
+    private final Map<String, BackgroundJobHandler> handlers;
+
+    // Unique per process, so a restarted instance never mistakes its predecessor's jobs for its own
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    // Set when the worker pool rejected a job, so the next heartbeat dispatches the queue again
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+
+    public BackgroundJobService(BackgroundJobRepository backgroundJobRepository,
+            BackgroundJobResultRepository backgroundJobResultRepository,
+            ObjectMapper objectMapper,
+            BackgroundJobConfigProperties properties,
+            @Qualifier("backgroundJobExecutor") Executor backgroundJobExecutor,
+            @Qualifier("backgroundJobLeaseScheduler") TaskScheduler backgroundJobLeaseScheduler,
+            List<BackgroundJobHandler> handlers) {
+        this.backgroundJobRepository = backgroundJobRepository;
+        this.backgroundJobResultRepository = backgroundJobResultRepository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.backgroundJobExecutor = backgroundJobExecutor;
+        this.backgroundJobLeaseScheduler = backgroundJobLeaseScheduler;
+        this.handlers = handlers.stream()
+                .collect(Collectors.toMap(BackgroundJobHandler::getJobType, Function.identity()));
+    }
+
+    /**
+     * Submit a job for background execution.
+     *
+     * @param jobType     the job type
+     * @param parameters  the job parameters
+     * @param submittedBy the user submitting the job
+     * @return the queued job
+     * @throws IllegalArgumentException if no handler exists for the job type
+     */
+    public BackgroundJobDTO submit(String jobType, Map<String, String> parameters, String submittedBy) {
+        if (!handlers.containsKey(jobType)) {
+            throw new IllegalArgumentException("Unknown job type: " + jobType);
+        }
+
+        BackgroundJob job = new BackgroundJob();
+        job.setJobType(jobType);
+        job.setParameters(writeParameters(parameters));
+        job.setSubmittedBy(submittedBy);
+        BackgroundJob savedJob = backgroundJobRepository.save(job);
+
+        log.info("Queued background job {} of type {} with parameters {}", savedJob.getId(), jobType, parameters);
+        dispatchAfterCommit(savedJob.getId());
+        return convertToDTO(savedJob);
+    }
+
+    /**
+     * Get the state and progress of a job.
+     *
+     * @param jobId the job id
+     * @return the job
+     * @throws EntityNotFoundException if the job doesn't exist
+     */
+    public BackgroundJobDTO getJob(Long jobId) {
+        return convertToDTO(findJob(jobId));
+    }
+
+    /**
+     * Get a page of the results of a job.
+     *
+     * @param jobId the job id
+     * @param page  the zero-based page number
+     * @param size  the page size
+     * @return the page of results
+     * @throws EntityNotFoundException if the job doesn't exist
+     */
+    public BackgroundJobResultPageDTO getResults(Long jobId, int page, int size) {
+        BackgroundJob job = findJob(jobId);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Page<BackgroundJobResult> results = backgroundJobResultRepository
+                .findByJobIdOrderBySequenceNumber(jobId, PageRequest.of(Math.max(page, 0), pageSize));
+
+        LeaveRequestListResponseDTO.PaginationDTO pagination = new LeaveRequestListResponseDTO.PaginationDTO();
+        pagination.setTotal(results.getTotalElements());
+        pagination.setPage(results.getNumber());
+        pagination.setPageSize(results.getSize());
+        pagination.setTotalPages(results.getTotalPages());
+
+        BackgroundJobResultPageDTO dto = new BackgroundJobResultPageDTO();
+        dto.setJobId(jobId);
+        dto.setStatus(job.getStatus().name());
+        dto.setResults(results.getContent().stream().map(result -> readPayload(result.getPayload())).toList());
+        dto.setPagination(pagination);
+        return dto;
+    }
+
+    /**
+     * Requeue jobs whose lease expired, dispatch everything that is queued and
+     * start renewing the leases of the jobs this instance runs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeQueuedJobs() {
+        requeueExpiredJobs();
+        backgroundJobRepository.findByStatusOrderById(BackgroundJobStatus.QUEUED)
+                .forEach(job -> dispatch(job.getId()));
+        backgroundJobLeaseScheduler.scheduleAtFixedRate(this::renewLeases, properties.getHeartbeatInterval());
+    }
+
+    /**
+     * Renew the leases of the jobs this instance runs, then requeue and
+     * dispatch the jobs of instances that stopped renewing theirs, along with
+     * any job the worker pool rejected since the last heartbeat.
+     */
+    void renewLeases() {
+        try {
+            backgroundJobRepository.heartbeat(owner, LocalDateTime.now());
+            int requeued = requeueExpiredJobs();
+            if (dispatchPending.getAndSet(false) || requeued > 0) {
+                backgroundJobRepository.findByStatusOrderById(BackgroundJobStatus.QUEUED)
+                        .forEach(job -> dispatch(job.getId()));
+            }
+        } catch (RuntimeException e) {
+            // A failed heartbeat must not cancel the schedule; the next one renews the leases
+            log.error("Renewing background job leases failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private int requeueExpiredJobs() {
+        int requeued = backgroundJobRepository.requeueExpired(
+                LocalDateTime.now().minus(properties.getLeaseTimeout()));
+        if (requeued > 0) {
+            log.info("Requeued {} background jobs whose lease expired after {}", requeued,
+                    properties.getLeaseTimeout());
+        }
+        return requeued;
+    }
+
+    private void dispatchAfterCommit(Long jobId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(jobId);
+                }
+            });
+        } else {
+            dispatch(jobId);
+        }
+    }
+
+    private void dispatch(Long jobId) {
+        try {
+            backgroundJobExecutor.execute(() -> run(jobId));
+        } catch (TaskRejectedException e) {
+            // The job is still QUEUED and unclaimed, so any later dispatch pass can pick it up
+            log.warn("Background job queue is full, job {} stays queued until the next heartbeat", jobId);
+            dispatchPending.set(true);
+        }
+    }
+
+    private void run(Long jobId) {
+        if (backgroundJobRepository.claim(jobId, owner, LocalDateTime.now()) == 0) {
+            log.debug("Background job {} was already claimed", jobId);
+            return;
+        }
+
+        BackgroundJob job = findJob(jobId);
+        BackgroundJobHandler handler = handlers.get(job.getJobType());
+        long startedAt = System.currentTimeMillis();
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No handler registered for job type: " + job.getJobType());
+            }
+            backgroundJobResultRepository.deleteByJobId(jobId);
+            handler.execute(new JobContext(jobId, readParameters(job.getParameters())));
+
+            finish(jobId, BackgroundJobStatus.COMPLETED, null);
+            log.info("Background job {} of type {} completed in {} ms",
+                    jobId, job.getJobType(), System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            log.error("Background job {} of type {} failed: {}", jobId, job.getJobType(), e.getMessage(), e);
+            finish(jobId, BackgroundJobStatus.FAILED, truncate(e.getMessage()));
+        }
+    }
+
+    private void finish(Long jobId, BackgroundJobStatus status, String errorMessage) {
+        if (backgroundJobRepository.finishOwned(jobId, owner, status, errorMessage, LocalDateTime.now()) == 0) {
+            log.warn("Background job {} lost its lease before it finished as {}; its outcome was discarded",
+                    jobId, status);
+        }
+    }
+
+    private BackgroundJob findJob(Long jobId) {
+        return backgroundJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Background job not found with ID: " + jobId));
+    }
+
+    private String writeParameters(Map<String, String> parameters) {
+        try {
+            return objectMapper.writeValueAsString(parameters != null ? parameters : Map.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid job parameters: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, String> readParameters(String parameters) {
+        if (parameters == null || parameters.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(parameters, new TypeReference<LinkedHashMap<String, String>>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored job parameters are not valid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private JsonNode readPayload(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored job result is not valid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private BackgroundJobDTO convertToDTO(BackgroundJob job) {
+        BackgroundJobDTO dto = new BackgroundJobDTO();
+        dto.setId(job.getId());
+        dto.setJobType(job.getJobType());
+        dto.setStatus(job.getStatus().name());
+        dto.setParameters(readParameters(job.getParameters()));
+        dto.setSubmittedBy(job.getSubmittedBy());
+        dto.setTotalItems(job.getTotalItems());
+        dto.setProcessedItems(job.getProcessedItems());
+        dto.setResultCount(job.getResultCount());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        return dto;
+    }
+
+    /**
+     * Context of a running job. Progress and results are written straight to
+     * the database so they are visible to pollers while the job runs.
+     */
+    private class JobContext implements BackgroundJobContext {
+
+        private final Long jobId;
+        private final Map<String, String> parameters;
+        private final AtomicInteger nextSequenceNumber = new AtomicInteger();
+
+        JobContext(Long jobId, Map<String, String> parameters) {
+            this.jobId = jobId;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Long getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public String getParameter(String name) {
+            String value = parameters.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing job parameter: " + name);
+            }
+            return value;
+        }
+
+        @Override
+        public boolean hasParameter(String name) {
+            return parameters.containsKey(name);
+        }
+
+        @Override
+        public void setTotalItems(int totalItems) {
+            backgroundJobRepository.updateTotalItems(jobId, totalItems);
+        }
+
+        @Override
+        public void addProcessedItems(int count) {
+            backgroundJobRepository.incrementProcessedItems(jobId, count);
+        }
+
+        @Override
+        public void addResults(List<?> results) {
+            if (results.isEmpty()) {
+                return;
+            }
+
+            List<BackgroundJobResult> rows = new ArrayList<>(results.size());
+            for (Object result : results) {
+                BackgroundJobResult row = new BackgroundJobResult();
+                row.setJobId(jobId);
+                row.setSequenceNumber(nextSequenceNumber.getAndIncrement());
+                try {
+                    row.setPayload(objectMapper.writeValueAsString(result));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Job result cannot be serialized: " + e.getMessage(), e);
+                }
+                rows.add(row);
+            }
+            backgroundJobResultRepository.saveAll(rows);
+            backgroundJobRepository.incrementResultCount(jobId, rows.size());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.africa.hr.service;
+
+import com.africa.hr.dto.BalanceAsOfDTO;
+import com.africa.hr.repository.BalanceMovementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Point-in-time balances from the balance movement ledger.
+ * Every change to a balance is appended to the ledger, and the balance of every
+ * employee is snapshotted at the end of each month, so a past balance is one
+ * snapshot read plus the movements of at most one month.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceLedgerService {
+
+    private final BalanceMovementRepository balanceMovementRepository;
+
+    /**
+     * Get the balances of an employee at the end of a day. Balances are exact
+     * from the day the ledger was introduced; before that, movements that were
+     * not recorded are missing.
+     *
+     * @param employeeId the employee ID
+     * @param date       the day, not in the future
+     * @return the balance of each leave type the employee had on that day
+     * @throws IllegalArgumentException if the date is in the future
+     */
+    @Transactional(readOnly = true)
+    public List<BalanceAsOfDTO> getBalancesAsOf(Long employeeId, LocalDate date) {
+        if (date.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Date cannot be in the future: " + date);
+        }
+
+        return balanceMovementRepository.findBalancesAsOf(employeeId, date).stream()
+                .map(balance -> BalanceAsOfDTO.builder()
+                        .employeeBalanceId(balance.employeeBalanceId())
+                        .leaveTypeId(balance.leaveTypeId())
+                        .leaveTypeName(balance.leaveTypeName())
+                        .date(date)
+                        .balance(balance.balance())
+                        .snapshotDate(balance.snapshotDate())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Snapshot every balance at the end of a month. Balances already
+     * snapshotted for the month are skipped, so this can safely be repeated.
+     *
+     * @param yearMonth the month, which must be over
+     * @return the number of snapshots taken
+     * @throws IllegalArgumentException if the month is not over yet
+     */
+    @Transactional
+    public int takeMonthEndSnapshots(YearMonth yearMonth) {
+        LocalDate snapshotDate = yearMonth.atEndOfMonth();
+        if (!snapshotDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("Month " + yearMonth + " is not over yet");
+        }
+
+        int snapshots = balanceMovementRepository.takeSnapshots(snapshotDate);
+        log.info("Took {} balance snapshots for {}", snapshots, yearMonth);
+        return snapshots;
+    }
+}
@@ -0,0 +1,231 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.BalanceReconciliationConfigProperties;
+import com.africa.hr.dto.BalanceDriftDTO;
+import com.africa.hr.dto.BalanceReconciliationDTO;
+import com.africa.hr.model.BalanceMovementType;
+import com.africa.hr.model.LeaveDays;
+import com.africa.hr.repository.BalanceMovementRepository;
+import com.africa.hr.repository.BalanceReconciliationRepository;
+import com.africa.hr.repository.BalanceReconciliationRepository.BalanceHistory;
+import com.africa.hr.repository.BalanceReconciliationRepository.IdRange;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel reconciliation of balances against their history.
+ * A balance is expected to equal its accruals, less the amounts carry-forwards
+ * actually took off it, as recorded in the balance ledger, and the days of its
+ * approved leave requests. Manual
+ * adjustments are deliberately not part of that history, so they are reported
+ * as drift too.
+ * <p>
+ * The balances are split into partitions of contiguous ids, each checked with
+ * one aggregate query on a bounded worker pool. When repairing, a partition is
+ * read and corrected in one transaction; a corrected balance is only written if
+ * it has not changed since it was read, and every correction is recorded in the
+ * balance ledger as an adjustment.
+ */
+@Slf4j
+@Service
+public class BalanceReconciliationService {
+
+    private static final long MAX_STORED_BALANCE = 99_999;
+
+    private final BalanceReconciliationRepository balanceReconciliationRepository;
+    private final BalanceMovementRepository balanceMovementRepository;
+    private final BalanceReconciliationConfigProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Executor balanceReconciliationExecutor;
+
+    /**
+     * Callback notified each time a partition has been reconciled.
+     */
+    @FunctionalInterface
+    public interface PartitionListener {
+        void onPartitionCompleted(int totalPartitions, List<BalanceDriftDTO> drifts);
+    }
+
+    public BalanceReconciliationService(BalanceReconciliationRepository balanceReconciliationRepository,
+            BalanceMovementRepository balanceMovementRepository,
+            BalanceReconciliationConfigProperties properties,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Qualifier("balanceReconciliationExecutor") Executor balanceReconciliationExecutor) {
+        this.balanceReconciliationRepository = balanceReconciliationRepository;
+        this.balanceMovementRepository = balanceMovementRepository;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.balanceReconciliationExecutor = balanceReconciliationExecutor;
+    }
+
+    /**
+     * Reconcile every balance, reporting each reconciled partition.
+     *
+     * @param repair   whether drifted balances should be corrected
+     * @param listener notified after each partition with the drifted balances it found
+     * @return the outcome of the reconciliation
+     */
+    public BalanceReconciliationDTO reconcile(boolean repair, PartitionListener listener) {
+        long startedAt = System.nanoTime();
+        List<IdRange> partitions = planPartitions();
+
+        AtomicInteger failedPartitions = new AtomicInteger();
+        AtomicInteger balancesChecked = new AtomicInteger();
+        AtomicInteger driftedBalances = new AtomicInteger();
+        AtomicInteger repairedBalances = new AtomicInteger();
+
+        CompletableFuture.allOf(partitions.stream()
+                .map(partition -> CompletableFuture.runAsync(() -> {
+                    List<BalanceDriftDTO> drifts;
+                    try {
+                        drifts = repair
+                                ? transactionTemplate.execute(status -> reconcilePartition(partition, true, balancesChecked))
+                                : reconcilePartition(partition, false, balancesChecked);
+                    } catch (RuntimeException e) {
+                        log.error("Balance reconciliation of balances {}-{} failed: {}",
+                                partition.firstId(), partition.lastId(), e.getMessage(), e);
+                        failedPartitions.incrementAndGet();
+                        return;
+                    }
+
+                    driftedBalances.addAndGet(drifts.size());
+                    repairedBalances.addAndGet((int) drifts.stream().filter(BalanceDriftDTO::isRepaired).count());
+                    listener.onPartitionCompleted(partitions.size(), drifts);
+                }, balanceReconciliationExecutor))
+                .toArray(CompletableFuture[]::new))
+                .join();
+
+        BalanceReconciliationDTO result = BalanceReconciliationDTO.builder()
+                .repair(repair)
+                .partitions(partitions.size())
+                .failedPartitions(failedPartitions.get())
+                .balancesChecked(balancesChecked.get())
+                .driftedBalances(driftedBalances.get())
+                .repairedBalances(repairedBalances.get())
+                .elapsedMillis((System.nanoTime() - startedAt) / 1_000_000)
+                .build();
+        log.info("Balance reconciliation finished: {} balances in {} partitions ({} failed), {} drifted, {} repaired in {} ms",
+                result.getBalancesChecked(), result.getPartitions(), result.getFailedPartitions(),
+                result.getDriftedBalances(), result.getRepairedBalances(), result.getElapsedMillis());
+        return result;
+    }
+
+    private List<IdRange> planPartitions() {
+        List<IdRange> partitions = new ArrayList<>();
+        balanceReconciliationRepository.findIdRange().ifPresent(range -> {
+            long partitionSize = Math.max(1, properties.getPartitionSize());
+            for (long first = range.firstId(); first <= range.lastId(); first += partitionSize) {
+                partitions.add(new IdRange(first, Math.min(range.lastId(), first + partitionSize - 1)));
+            }
+        });
+        return partitions;
+    }
+
+    private List<BalanceDriftDTO> reconcilePartition(IdRange partition, boolean repair, AtomicInteger balancesChecked) {
+        List<BalanceHistory> balances = balanceReconciliationRepository.findInRange(partition);
+        balancesChecked.addAndGet(balances.size());
+
+        List<BalanceHistory> drifted = balances.stream()
+                .filter(balance -> balance.currentBalance() != balance.expectedBalance())
+                .toList();
+        List<BalanceDriftDTO> drifts = new ArrayList<>(drifted.size());
+        if (drifted.isEmpty()) {
+            return drifts;
+        }
+
+        boolean[] repaired = repair ? repair(drifted) : new boolean[drifted.size()];
+        for (int i = 0; i < drifted.size(); i++) {
+            drifts.add(toDrift(drifted.get(i), repaired[i]));
+        }
+        return drifts;
+    }
+
+    /**
+     * Correct drifted balances, record the corrections in the ledger and evict
+     * them from the balance cache once the partition commits. Balances that
+     * already hold their clamped expected amount are left alone.
+     *
+     * @return per drifted balance, whether it was corrected
+     */
+    private boolean[] repair(List<BalanceHistory> drifted) {
+        int count = 0;
+        int[] indexes = new int[drifted.size()];
+        long[] balanceIds = new long[drifted.size()];
+        long[] currentBalances = new long[drifted.size()];
+        long[] targets = new long[drifted.size()];
+        for (int i = 0; i < drifted.size(); i++) {
+            BalanceHistory balance = drifted.get(i);
+            long target = repairTarget(balance);
+            if (target != balance.currentBalance()) {
+                indexes[count] = i;
+                balanceIds[count] = balance.employeeBalanceId();
+                currentBalances[count] = balance.currentBalance();
+                targets[count] = target;
+                count++;
+            }
+        }
+
+        boolean[] repaired = new boolean[drifted.size()];
+        if (count == 0) {
+            return repaired;
+        }
+        int[] updated = balanceReconciliationRepository.repair(balanceIds, currentBalances, targets, count);
+
+        // A JDBC "no info" update count is non-zero and counts as applied
+        long[] repairedIds = new long[count];
+        long[] deltas = new long[count];
+        List<Long> changedIds = new ArrayList<>();
+        int applied = 0;
+        for (int i = 0; i < count; i++) {
+            if (updated[i] != 0) {
+                repaired[indexes[i]] = true;
+                repairedIds[applied] = balanceIds[i];
+                deltas[applied] = targets[i] - currentBalances[i];
+                changedIds.add(balanceIds[i]);
+                applied++;
+            }
+        }
+        if (applied > 0) {
+            balanceMovementRepository.recordAll(repairedIds, deltas, applied, BalanceMovementType.ADJUSTMENT);
+            eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forBalances(changedIds));
+        }
+        return repaired;
+    }
+
+    /**
+     * The expected balance, clamped to what a balance may hold: never negative
+     * and never above its maximum or the largest storable amount.
+     */
+    private static long repairTarget(BalanceHistory balance) {
+        long max = balance.maxBalance() >= 0 ? Math.min(balance.maxBalance(), MAX_STORED_BALANCE) : MAX_STORED_BALANCE;
+        return Math.max(0, Math.min(balance.expectedBalance(), max));
+    }
+
+    private static BalanceDriftDTO toDrift(BalanceHistory balance, boolean repaired) {
+        BalanceDriftDTO drift = new BalanceDriftDTO();
+        drift.setEmployeeBalanceId(balance.employeeBalanceId());
+        drift.setEmployeeId(balance.employeeId());
+        drift.setLeaveTypeId(balance.leaveTypeId());
+        drift.setCurrentBalance(LeaveDays.toDays(balance.currentBalance()));
+        drift.setAccrued(LeaveDays.toDays(balance.accrued()));
+        drift.setForfeited(LeaveDays.toDays(balance.forfeited()));
+        drift.setUsed(LeaveDays.toDays(balance.used()));
+        drift.setExpectedBalance(LeaveDays.toDays(balance.expectedBalance()));
+        drift.setDrift(LeaveDays.toDays(balance.currentBalance() - balance.expectedBalance()));
+        drift.setRepaired(repaired);
+        return drift;
+    }
+}
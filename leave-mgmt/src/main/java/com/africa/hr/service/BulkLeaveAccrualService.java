@@ -0,0 +1,457 @@
+package com.africa.hr.service;
+
+import com.africa.hr.dto.LeaveAccrualCatchUpResultDTO;
+import com.africa.hr.dto.LeaveAccrualRunResultDTO;
+import com.africa.hr.model.BalanceMovementType;
+import com.africa.hr.model.EmployeeBalance;
+import com.africa.hr.model.LeaveDays;
+import com.africa.hr.repository.BalanceMovementRepository;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository.EligibleBalanceCount;
+import com.africa.hr.repository.LeaveAccrualBatchRepository;
+import com.africa.hr.repository.LeaveAccrualBatchRepository.AccrualRow;
+import com.africa.hr.repository.LeaveAccrualPeriodSummaryBatchRepository;
+import com.africa.hr.repository.LeaveAccrualPeriodSummaryBatchRepository.SummaryDelta;
+import com.africa.hr.repository.LeaveAccrualRepository;
+import com.africa.hr.repository.LeaveAccrualRepository.AccruedPeriod;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bulk accrual engine.
+ * Loads the eligible balances of a range of employees in one statement,
+ * computes accrual amounts in memory using the same rules as
+ * {@link LeaveAccrualService}, and writes the ledger rows and balance updates
+ * as JDBC batches. Ranges are planned and committed one at a time by
+ * {@link AccrualRunService}, so a run never locks every balance at once. The period summary is
+ * updated with the totals of each batch in the same transaction. A catch-up
+ * mode does the same for every missing month of a range of periods at once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkLeaveAccrualService {
+
+    private final EmployeeBalanceRepository employeeBalanceRepository;
+    private final LeaveAccrualRepository leaveAccrualRepository;
+    private final LeaveAccrualBatchRepository leaveAccrualBatchRepository;
+    private final EmployeeBalanceBatchRepository employeeBalanceBatchRepository;
+    private final BalanceMovementRepository balanceMovementRepository;
+    private final LeaveAccrualPeriodSummaryBatchRepository leaveAccrualPeriodSummaryBatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Process monthly accruals for the eligible balances of the employees within
+     * an inclusive employee id range. Joins the caller's transaction, so a
+     * chunked runner can commit the accruals together with its own checkpoint.
+     *
+     * @param yearMonth   the year and month to accrue for
+     * @param accrualDate the date the accruals are recorded on
+     * @param firstId     the first employee id of the range
+     * @param lastId      the last employee id of the range
+     * @return a summary of the processed range
+     */
+    @Transactional
+    public LeaveAccrualRunResultDTO processMonthlyAccrualsInRange(
+            YearMonth yearMonth, LocalDate accrualDate, Long firstId, Long lastId) {
+        employeeBalanceBatchRepository.lockEmployeeRange(firstId, lastId);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forEmployeeRange(firstId, lastId));
+        return accrue(
+                employeeBalanceRepository.findEligibleForAccrualInRange(accrualDate, firstId, lastId),
+                new HashSet<>(leaveAccrualRepository.findEmployeeBalanceIdsByYearMonthInRange(
+                        yearMonth, firstId, lastId)),
+                new HashSet<>(leaveAccrualRepository.findEmployeeIdsByYearMonthInRange(
+                        yearMonth, firstId, lastId)),
+                yearMonth,
+                accrualDate);
+    }
+
+    /**
+     * An inclusive range of employee ids, with the number of balances it covers.
+     *
+     * @param firstEmployeeId the first employee id of the range
+     * @param lastEmployeeId  the last employee id of the range
+     * @param balanceCount    the number of accrual-based balances in the range
+     */
+    public record EmployeeRange(Long firstEmployeeId, Long lastEmployeeId, int balanceCount) {
+
+        /**
+         * Split per-employee balance counts into contiguous id ranges of at most
+         * {@code chunkSize} balances each. An employee is never split across
+         * ranges.
+         *
+         * @param counts    the balance counts, in ascending employee id order
+         * @param chunkSize the maximum number of balances per range
+         * @return the ranges in ascending employee id order
+         */
+        public static List<EmployeeRange> split(List<EligibleBalanceCount> counts, int chunkSize) {
+            int limit = Math.max(1, chunkSize);
+            List<EmployeeRange> ranges = new ArrayList<>();
+            Long first = null;
+            Long last = null;
+            int balances = 0;
+
+            for (EligibleBalanceCount count : counts) {
+                int employeeBalances = count.getBalanceCount().intValue();
+                if (first != null && balances + employeeBalances > limit) {
+                    ranges.add(new EmployeeRange(first, last, balances));
+                    first = null;
+                    balances = 0;
+                }
+                if (first == null) {
+                    first = count.getEmployeeId();
+                }
+                last = count.getEmployeeId();
+                balances += employeeBalances;
+            }
+            if (first != null) {
+                ranges.add(new EmployeeRange(first, last, balances));
+            }
+            return ranges;
+        }
+    }
+
+    /**
+     * Split the employees with accrual-based balances into contiguous id ranges of
+     * at most {@code chunkSize} balances each. An employee is never split across
+     * ranges, so ranges can be caught up independently.
+     *
+     * @param chunkSize the maximum number of balances per range
+     * @return the ranges in ascending employee id order
+     */
+    @Transactional(readOnly = true)
+    public List<EmployeeRange> planCatchUpRanges(int chunkSize) {
+        return EmployeeRange.split(employeeBalanceRepository.countAccrualBasedByEmployee(), chunkSize);
+    }
+
+    /**
+     * Catch up every missing month between two periods for the accrual-based
+     * balances of one employee, in a single pass.
+     *
+     * @param employeeId  the employee id
+     * @param from        the first period to accrue, inclusive
+     * @param to          the last period to accrue, inclusive
+     * @param accrualDate the date the accruals are recorded on
+     * @return a summary of the catch-up
+     */
+    @Transactional
+    public LeaveAccrualCatchUpResultDTO processCatchUpAccrualsForEmployee(
+            Long employeeId, YearMonth from, YearMonth to, LocalDate accrualDate) {
+        employeeBalanceBatchRepository.lockEmployeeRange(employeeId, employeeId);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forEmployee(employeeId));
+        List<EmployeeBalance> balances = employeeBalanceRepository.findAccrualBasedInRange(employeeId, employeeId);
+        LeaveAccrualCatchUpResultDTO result = catchUp(balances, from, to, accrualDate);
+
+        // The balances were credited over JDBC; a caller sharing this persistence
+        // context must not see (or write back) their old amounts.
+        balances.stream().filter(entityManager::contains).forEach(entityManager::refresh);
+        return result;
+    }
+
+    /**
+     * Catch up every missing month between two periods for the accrual-based
+     * balances of the employees within an inclusive employee id range, in a
+     * single pass. Months the employee hadn't joined yet and months already in
+     * the ledger are skipped; the join month is prorated. All ledger rows are
+     * written in one batch and each balance is credited once with the sum of its
+     * months, capped at its maximum balance. Months that the cap leaves nothing
+     * for are not written, so a later catch-up can still credit them.
+     *
+     * @param from        the first period to accrue, inclusive
+     * @param to          the last period to accrue, inclusive
+     * @param accrualDate the date the accruals are recorded on
+     * @param firstId     the first employee id of the range
+     * @param lastId      the last employee id of the range
+     * @return a summary of the catch-up
+     * @throws IllegalArgumentException if {@code from} is after {@code to}
+     */
+    @Transactional
+    public LeaveAccrualCatchUpResultDTO processCatchUpAccrualsInRange(
+            YearMonth from, YearMonth to, LocalDate accrualDate, Long firstId, Long lastId) {
+        employeeBalanceBatchRepository.lockEmployeeRange(firstId, lastId);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forEmployeeRange(firstId, lastId));
+        return catchUp(employeeBalanceRepository.findAccrualBasedInRange(firstId, lastId), from, to, accrualDate);
+    }
+
+    /**
+     * Compute and write every missing month between two periods for a set of
+     * accrual-based balances.
+     *
+     * @param balances    the balances to catch up
+     * @param from        the first period to accrue, inclusive
+     * @param to          the last period to accrue, inclusive
+     * @param accrualDate the date the accruals are recorded on
+     * @return a summary of the catch-up
+     */
+    private LeaveAccrualCatchUpResultDTO catchUp(List<EmployeeBalance> balances, YearMonth from, YearMonth to,
+            LocalDate accrualDate) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Catch-up start " + from + " is after its end " + to);
+        }
+        long startedAt = System.currentTimeMillis();
+
+        Set<Long> employeeIds = new HashSet<>();
+        balances.forEach(balance -> employeeIds.add(balance.getEmployee().getId()));
+
+        Map<Long, Set<YearMonth>> accruedByBalance = new HashMap<>();
+        Map<YearMonth, Set<Long>> accruedEmployeesByPeriod = new HashMap<>();
+        if (!employeeIds.isEmpty()) {
+            for (AccruedPeriod accrued : leaveAccrualRepository.findAccruedPeriodsForEmployees(
+                    employeeIds, from, to.plusMonths(1))) {
+                accruedByBalance.computeIfAbsent(accrued.getEmployeeBalanceId(), id -> new HashSet<>())
+                        .add(accrued.getYearMonth());
+                accruedEmployeesByPeriod.computeIfAbsent(accrued.getYearMonth(), period -> new HashSet<>())
+                        .add(accrued.getEmployeeId());
+            }
+        }
+
+        List<AccrualRow> rows = new ArrayList<>();
+        Map<Long, Long> employeeByBalance = new HashMap<>();
+        int skippedMonths = 0;
+
+        for (EmployeeBalance balance : balances) {
+            employeeByBalance.put(balance.getId(), balance.getEmployee().getId());
+            LocalDate joinedDate = balance.getEmployee().getJoinedDate();
+            BigDecimal rate = balance.getLeaveType().getAccrualRate();
+            long rateHundredths = LeaveDays.toHundredths(rate);
+            Set<YearMonth> accrued = accruedByBalance.getOrDefault(balance.getId(), Set.of());
+            long headroom = headroom(balance);
+            long credited = 0;
+
+            YearMonth joinMonth = YearMonth.from(joinedDate);
+            for (YearMonth period = joinMonth.isAfter(from) ? joinMonth : from;
+                    !period.isAfter(to); period = period.plusMonths(1)) {
+                if (accrued.contains(period)) {
+                    skippedMonths++;
+                    continue;
+                }
+
+                long amount = rate == null ? 0
+                        : LeaveAccrualService.calculateAccrualHundredths(rateHundredths, joinedDate, period);
+                if (headroom >= 0 && amount > headroom - credited) {
+                    amount = headroom - credited;
+                    // A month capped to nothing is left open rather than marked accrued
+                    if (amount == 0) {
+                        skippedMonths++;
+                        continue;
+                    }
+                }
+                boolean prorated = LeaveAccrualService.isProratedAccrual(joinedDate, period);
+
+                rows.add(new AccrualRow(balance.getId(), period, amount, prorated));
+                credited += amount;
+            }
+        }
+
+        PeriodTotals totals = new PeriodTotals();
+        write(rows, employeeByBalance, accruedEmployeesByPeriod, accrualDate).values().forEach(totals::addAll);
+
+        LeaveAccrualCatchUpResultDTO result = new LeaveAccrualCatchUpResultDTO();
+        result.setFromPeriod(from);
+        result.setToPeriod(to);
+        result.setAccrualDate(accrualDate);
+        result.setBalancesProcessed(balances.size());
+        result.setAccrualsWritten(totals.accruals);
+        result.setSkippedMonths(skippedMonths + rows.size() - totals.accruals);
+        result.setProratedAccruals(totals.proratedCount);
+        result.setTotalDaysAccrued(LeaveDays.toDays(totals.totalDays));
+        result.setElapsedMillis(System.currentTimeMillis() - startedAt);
+
+        log.info("Catch-up accruals {} to {} wrote {} accruals for {} balances, skipped {} months in {} ms",
+                from, to, result.getAccrualsWritten(), balances.size(), result.getSkippedMonths(),
+                result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * Compute and write the accruals for a set of eligible balances.
+     *
+     * @param eligibleBalances the balances to accrue
+     * @param alreadyAccrued   ids of balances that already have an accrual for the period
+     * @param accruedEmployees ids of employees that already have an accrual for the period
+     * @param yearMonth        the year and month to accrue for
+     * @param accrualDate      the date the accruals are recorded on
+     * @return a summary of the written accruals
+     */
+    private LeaveAccrualRunResultDTO accrue(List<EmployeeBalance> eligibleBalances, Set<Long> alreadyAccrued,
+            Set<Long> accruedEmployees, YearMonth yearMonth, LocalDate accrualDate) {
+        long startedAt = System.currentTimeMillis();
+
+        List<AccrualRow> rows = new ArrayList<>(eligibleBalances.size());
+        Map<Long, Long> employeeByBalance = new HashMap<>();
+
+        for (EmployeeBalance balance : eligibleBalances) {
+            if (alreadyAccrued.contains(balance.getId())) {
+                continue;
+            }
+
+            LocalDate joinedDate = balance.getEmployee().getJoinedDate();
+            BigDecimal rate = balance.getLeaveType().getAccrualRate();
+            long amount = rate == null ? 0
+                    : LeaveAccrualService.calculateAccrualHundredths(
+                            LeaveDays.toHundredths(rate), joinedDate, yearMonth);
+            long headroom = headroom(balance);
+            if (headroom >= 0 && amount > headroom) {
+                amount = headroom;
+                // A month capped to nothing is left open rather than marked accrued
+                if (amount == 0) {
+                    continue;
+                }
+            }
+            boolean prorated = LeaveAccrualService.isProratedAccrual(joinedDate, yearMonth);
+
+            rows.add(new AccrualRow(balance.getId(), yearMonth, amount, prorated));
+            employeeByBalance.put(balance.getId(), balance.getEmployee().getId());
+        }
+
+        Map<YearMonth, Set<Long>> accruedEmployeesByPeriod = new HashMap<>();
+        accruedEmployeesByPeriod.put(yearMonth, accruedEmployees);
+        PeriodTotals totals = write(rows, employeeByBalance, accruedEmployeesByPeriod, accrualDate)
+                .getOrDefault(yearMonth, new PeriodTotals());
+
+        LeaveAccrualRunResultDTO result = new LeaveAccrualRunResultDTO();
+        result.setAccrualPeriod(yearMonth);
+        result.setAccrualDate(accrualDate);
+        result.setEligibleBalances(eligibleBalances.size());
+        result.setAccrualsWritten(totals.accruals);
+        result.setSkippedBalances(eligibleBalances.size() - totals.accruals);
+        result.setProratedAccruals(totals.proratedCount);
+        result.setTotalDaysAccrued(LeaveDays.toDays(totals.totalDays));
+        result.setElapsedMillis(System.currentTimeMillis() - startedAt);
+
+        log.info("Bulk accruals for {} wrote {} accruals ({} days), skipped {} balances in {} ms",
+                yearMonth, result.getAccrualsWritten(), result.getTotalDaysAccrued(), result.getSkippedBalances(),
+                result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * Write computed accrual rows and apply the effects of the rows that were
+     * actually inserted: one summed delta per balance and one summary delta per
+     * period. Rows whose period was already in the ledger are left out of both.
+     * The deltas are summed in primitive arrays; rows of a balance are
+     * contiguous, so each balance normally gets a single delta.
+     *
+     * @param rows                     the computed rows
+     * @param employeeByBalance        employee id of each balance that has rows
+     * @param accruedEmployeesByPeriod ids of employees already accrued, per period;
+     *                                 updated with the employees written
+     * @param accrualDate              the date the accruals are recorded on
+     * @return the totals of the inserted rows, per period
+     */
+    private Map<YearMonth, PeriodTotals> write(List<AccrualRow> rows, Map<Long, Long> employeeByBalance,
+            Map<YearMonth, Set<Long>> accruedEmployeesByPeriod, LocalDate accrualDate) {
+        List<AccrualRow> inserted = leaveAccrualBatchRepository.insertAll(rows, accrualDate);
+        long[] balanceIds = new long[inserted.size()];
+        long[] deltas = new long[inserted.size()];
+        int deltaCount = 0;
+        Map<YearMonth, PeriodTotals> totalsByPeriod = new TreeMap<>();
+
+        for (AccrualRow row : inserted) {
+            if (row.amount() > 0) {
+                if (deltaCount > 0 && balanceIds[deltaCount - 1] == row.employeeBalanceId()) {
+                    deltas[deltaCount - 1] += row.amount();
+                } else {
+                    balanceIds[deltaCount] = row.employeeBalanceId();
+                    deltas[deltaCount++] = row.amount();
+                }
+            }
+            boolean newEmployee = accruedEmployeesByPeriod
+                    .computeIfAbsent(row.yearMonth(), period -> new HashSet<>())
+                    .add(employeeByBalance.get(row.employeeBalanceId()));
+            totalsByPeriod.computeIfAbsent(row.yearMonth(), period -> new PeriodTotals())
+                    .add(row.amount(), row.prorated(), newEmployee);
+        }
+
+        employeeBalanceBatchRepository.applyAccruals(balanceIds, deltas, deltaCount, lastAccrualDate(accrualDate));
+        balanceMovementRepository.recordAll(balanceIds, deltas, deltaCount, BalanceMovementType.ACCRUAL);
+        totalsByPeriod.forEach((period, totals) ->
+                leaveAccrualPeriodSummaryBatchRepository.applyDelta(period, totals.toDelta()));
+        return totalsByPeriod;
+    }
+
+    /**
+     * Running summary totals of the accruals written for a period. Days are in
+     * hundredths of a day.
+     */
+    private static class PeriodTotals {
+        private int newEmployees;
+        private int accruals;
+        private long totalDays;
+        private int proratedCount;
+        private int zeroAmountCount;
+
+        void add(long amount, boolean prorated, boolean newEmployee) {
+            accruals++;
+            totalDays += amount;
+            if (prorated) {
+                proratedCount++;
+            }
+            if (amount == 0) {
+                zeroAmountCount++;
+            }
+            if (newEmployee) {
+                newEmployees++;
+            }
+        }
+
+        void addAll(PeriodTotals other) {
+            newEmployees += other.newEmployees;
+            accruals += other.accruals;
+            totalDays += other.totalDays;
+            proratedCount += other.proratedCount;
+            zeroAmountCount += other.zeroAmountCount;
+        }
+
+        SummaryDelta toDelta() {
+            return new SummaryDelta(newEmployees, accruals, LeaveDays.toDays(totalDays), proratedCount,
+                    zeroAmountCount);
+        }
+    }
+
+    /**
+     * The amount that can still be credited below the balance's maximum.
+     *
+     * @param balance the employee balance
+     * @return the headroom in hundredths of a day, or -1 if the balance is uncapped
+     */
+    private static long headroom(EmployeeBalance balance) {
+        if (balance.getMaxBalance() == null) {
+            return -1;
+        }
+        return Math.max(0, LeaveDays.toHundredths(balance.getMaxBalance())
+                - LeaveDays.toHundredths(balance.getCurrentBalance()));
+    }
+
+    /**
+     * The last accrual date stored on a balance may never be in the future.
+     *
+     * @param accrualDate the accrual date of the run
+     * @return the date to stamp on the balances
+     */
+    private LocalDate lastAccrualDate(LocalDate accrualDate) {
+        LocalDate today = LocalDate.now();
+        return accrualDate.isAfter(today) ? today : accrualDate;
+    }
+}
@@ -0,0 +1,203 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.BusinessCalendarConfigProperties;
+import com.africa.hr.model.LeaveDays;
+import com.africa.hr.model.LeaveRequest;
+import com.africa.hr.model.PublicHoliday;
+import com.africa.hr.service.event.PublicHolidaysChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Working-day calendar used wherever leave days are counted.
+ * Each year is precomputed once from the weekly pattern
+ * ({@code calendar.working-days}) and the public holidays, including recurring
+ * ones, into a bitset of working days and a prefix sum over it, so the
+ * working days of any range are counted with two array lookups per year.
+ * <p>
+ * Years are dropped when a transaction that published a
+ * {@link PublicHolidaysChangedEvent} commits. Like the balance cache, every
+ * invalidation moves the calendar to a new generation and a year built during
+ * an older generation is not stored.
+ */
+@Slf4j
+@Component
+public class BusinessCalendar {
+
+    private final PublicHolidayService publicHolidayService;
+    private final Set<DayOfWeek> workingDaysOfWeek;
+    private final Map<Integer, WorkingYear> years = new HashMap<>();
+
+    private long generation;
+
+    public BusinessCalendar(PublicHolidayService publicHolidayService, BusinessCalendarConfigProperties properties) {
+        this.publicHolidayService = publicHolidayService;
+        this.workingDaysOfWeek = properties.getWorkingDays().isEmpty()
+                ? EnumSet.noneOf(DayOfWeek.class)
+                : EnumSet.copyOf(properties.getWorkingDays());
+    }
+
+    /**
+     * The working days of one year: bit {@code d - 1} is set if day-of-year
+     * {@code d} is a working day, and {@code workingDaysBefore[d]} is the number
+     * of working days before day-of-year {@code d + 1}.
+     */
+    private record WorkingYear(BitSet workingDays, int[] workingDaysBefore) {
+
+        boolean isWorkingDay(int dayOfYear) {
+            return workingDays.get(dayOfYear - 1);
+        }
+
+        int countWorkingDays(int firstDayOfYear, int lastDayOfYear) {
+            return workingDaysBefore[lastDayOfYear] - workingDaysBefore[firstDayOfYear - 1];
+        }
+
+        int length() {
+            return workingDaysBefore.length - 1;
+        }
+    }
+
+    /**
+     * @param date the date
+     * @return true if the date is on a working day of the week and not a public holiday
+     */
+    public boolean isWorkingDay(LocalDate date) {
+        return year(date.getYear()).isWorkingDay(date.getDayOfYear());
+    }
+
+    /**
+     * Count the working days of an inclusive date range.
+     *
+     * @param startDate the first date
+     * @param endDate   the last date
+     * @return the number of working days, 0 if the range is empty
+     */
+    public int countWorkingDays(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return 0;
+        }
+        if (startDate.getYear() == endDate.getYear()) {
+            return year(startDate.getYear()).countWorkingDays(startDate.getDayOfYear(), endDate.getDayOfYear());
+        }
+
+        WorkingYear first = year(startDate.getYear());
+        int count = first.countWorkingDays(startDate.getDayOfYear(), first.length());
+        for (int year = startDate.getYear() + 1; year < endDate.getYear(); year++) {
+            WorkingYear full = year(year);
+            count += full.countWorkingDays(1, full.length());
+        }
+        return count + year(endDate.getYear()).countWorkingDays(1, endDate.getDayOfYear());
+    }
+
+    /**
+     * Count the leave days taken by an absence: its working days, less half a
+     * day for each half-day start or end that falls on a working day.
+     *
+     * @param startDate    the first date of the absence
+     * @param endDate      the last date of the absence
+     * @param halfDayStart whether only the second half of the first date is taken
+     * @param halfDayEnd   whether only the first half of the last date is taken
+     * @return the leave days
+     */
+    public LeaveDays countLeaveDays(LocalDate startDate, LocalDate endDate, Boolean halfDayStart,
+            Boolean halfDayEnd) {
+        long hundredths = countWorkingDays(startDate, endDate) * 100L;
+        if (Boolean.TRUE.equals(halfDayStart) && isWorkingDay(startDate)) {
+            hundredths -= 50;
+        }
+        if (Boolean.TRUE.equals(halfDayEnd) && isWorkingDay(endDate)) {
+            hundredths -= 50;
+        }
+        return LeaveDays.ofHundredths(Math.max(0, hundredths));
+    }
+
+    /**
+     * Count the leave days of a request. Requests record the working days they
+     * were charged when submitted; older requests are counted on the current
+     * calendar.
+     *
+     * @param request the leave request
+     * @return the leave days
+     */
+    public LeaveDays countLeaveDays(LeaveRequest request) {
+        if (request.getWorkingDays() != null) {
+            return LeaveDays.of(request.getWorkingDays());
+        }
+        return countLeaveDays(request.getStartDate(), request.getEndDate(), request.getHalfDayStart(),
+                request.getHalfDayEnd());
+    }
+
+    /**
+     * Drop every precomputed year once the transaction that changed the public
+     * holidays has committed, or right away when it was published outside a
+     * transaction. Runs before the listeners of views that count days on this
+     * calendar.
+     *
+     * @param event the change
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPublicHolidaysChanged(PublicHolidaysChangedEvent event) {
+        generation++;
+        years.clear();
+    }
+
+    private WorkingYear year(int year) {
+        long buildGeneration;
+        synchronized (this) {
+            WorkingYear cached = years.get(year);
+            if (cached != null) {
+                return cached;
+            }
+            buildGeneration = generation;
+        }
+
+        WorkingYear built = build(year);
+        synchronized (this) {
+            if (buildGeneration == generation) {
+                years.putIfAbsent(year, built);
+            }
+        }
+        return built;
+    }
+
+    private WorkingYear build(int year) {
+        LocalDate firstDay = LocalDate.of(year, 1, 1);
+        int length = firstDay.lengthOfYear();
+
+        BitSet workingDays = new BitSet(length);
+        DayOfWeek dayOfWeek = firstDay.getDayOfWeek();
+        for (int day = 0; day < length; day++) {
+            if (workingDaysOfWeek.contains(dayOfWeek)) {
+                workingDays.set(day);
+            }
+            dayOfWeek = dayOfWeek.plus(1);
+        }
+
+        for (PublicHoliday holiday : publicHolidayService.getHolidaysBetweenDates(firstDay,
+                LocalDate.of(year, 12, 31))) {
+            if (holiday.getDate().getYear() == year) {
+                workingDays.clear(holiday.getDate().getDayOfYear() - 1);
+            }
+        }
+
+        int[] workingDaysBefore = new int[length + 1];
+        for (int day = 0; day < length; day++) {
+            workingDaysBefore[day + 1] = workingDaysBefore[day] + (workingDays.get(day) ? 1 : 0);
+        }
+
+        log.info("Built business calendar for {}: {} working days", year, workingDaysBefore[length]);
+        return new WorkingYear(workingDays, workingDaysBefore);
+    }
+}
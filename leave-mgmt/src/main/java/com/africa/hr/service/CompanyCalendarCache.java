@@ -0,0 +1,169 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.CompanyCalendarCacheConfigProperties;
+import com.africa.hr.model.LeaveRequestStatus;
+import com.africa.hr.service.event.LeaveRequestStatusChangedEvent;
+import com.africa.hr.service.event.PublicHolidaysChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Cache of rendered company calendars, keyed by year and optional month.
+ * Each entry holds the JSON document and a strong ETag derived from its
+ * content, so clients can revalidate with {@code If-None-Match}.
+ * <p>
+ * Concurrent misses for the same key are coalesced: the first caller renders
+ * the calendar and the others wait for its result. Entries are dropped once a
+ * transaction that approved leave, or took approved leave away, commits, but
+ * only for the periods that overlap the leave; public holiday changes drop
+ * every entry. A rendering that is in progress when its entry is dropped still
+ * completes for its waiters but is never served again.
+ */
+@Slf4j
+@Component
+public class CompanyCalendarCache {
+
+    private final int maxEntries;
+    private final Map<Key, CompletableFuture<RenderedCalendar>> entries = new ConcurrentHashMap<>();
+
+    public CompanyCalendarCache(CompanyCalendarCacheConfigProperties properties) {
+        this.maxEntries = properties.getMaxEntries();
+    }
+
+    /**
+     * A rendered company calendar.
+     *
+     * @param json the JSON document
+     * @param etag the strong, quoted ETag of the document
+     */
+    public record RenderedCalendar(byte[] json, String etag) {
+    }
+
+    /**
+     * Writes a company calendar as JSON.
+     */
+    @FunctionalInterface
+    public interface Renderer {
+        void render(OutputStream out) throws IOException;
+    }
+
+    private record Key(int year, Integer month) {
+
+        LocalDate firstDay() {
+            return month != null ? LocalDate.of(year, month, 1) : LocalDate.of(year, 1, 1);
+        }
+
+        LocalDate lastDay() {
+            return month != null ? YearMonth.of(year, month).atEndOfMonth() : LocalDate.of(year, 12, 31);
+        }
+
+        boolean overlaps(LocalDate startDate, LocalDate endDate) {
+            return !firstDay().isAfter(endDate) && !lastDay().isBefore(startDate);
+        }
+    }
+
+    /**
+     * Get the calendar of a period, rendering and caching it on a miss.
+     *
+     * @param year     the year
+     * @param month    the month, or null for the whole year
+     * @param renderer renders the calendar of the period
+     * @return the rendered calendar
+     * @throws IOException if rendering fails
+     */
+    public RenderedCalendar get(int year, Integer month, Renderer renderer) throws IOException {
+        Key key = new Key(year, month);
+        CompletableFuture<RenderedCalendar> future = entries.get(key);
+        if (future == null) {
+            CompletableFuture<RenderedCalendar> rendering = new CompletableFuture<>();
+            future = entries.putIfAbsent(key, rendering);
+            if (future == null) {
+                future = rendering;
+                evictIfFull(key);
+                render(key, rendering, renderer);
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drop the periods overlapping leave that became or stopped being approved,
+     * once the publishing transaction has committed, or right away when it was
+     * published outside a transaction.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLeaveRequestStatusChanged(LeaveRequestStatusChangedEvent event) {
+        if (event.involves(LeaveRequestStatus.APPROVED)) {
+            invalidate(key -> key.overlaps(event.startDate(), event.endDate()));
+        }
+    }
+
+    /**
+     * Drop every period once a public holiday change has committed.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPublicHolidaysChanged(PublicHolidaysChangedEvent event) {
+        invalidate(key -> true);
+    }
+
+    private void render(Key key, CompletableFuture<RenderedCalendar> rendering, Renderer renderer) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            renderer.render(out);
+            byte[] json = out.toByteArray();
+            rendering.complete(new RenderedCalendar(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\""));
+        } catch (Throwable e) {
+            entries.remove(key, rendering);
+            rendering.completeExceptionally(e);
+        }
+    }
+
+    private void invalidate(Predicate<Key> affected) {
+        int before = entries.size();
+        entries.keySet().removeIf(affected);
+        log.debug("Dropped {} company calendar entries", before - entries.size());
+    }
+
+    /**
+     * Keep the cache bounded by dropping another rendered entry once it grows
+     * past its maximum size.
+     */
+    private void evictIfFull(Key added) {
+        Iterator<Map.Entry<Key, CompletableFuture<RenderedCalendar>>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            Map.Entry<Key, CompletableFuture<RenderedCalendar>> entry = iterator.next();
+            if (!entry.getKey().equals(added) && entry.getValue().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+}
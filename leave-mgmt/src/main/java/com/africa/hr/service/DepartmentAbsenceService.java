@@ -0,0 +1,143 @@
+package com.africa.hr.service;
+
+import com.africa.hr.model.Department;
+import com.africa.hr.model.LeaveRequest;
+import com.africa.hr.repository.ActiveLeaveRepository;
+import com.africa.hr.repository.DepartmentAbsenceRepository;
+import com.africa.hr.repository.DepartmentAbsenceRepository.AbsenceDay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains, for every department and working day, how many members have
+ * pending or approved leave on that day, and enforces the optional cap of each
+ * department on it. A request holds its working days from submission until it
+ * is rejected or cancelled; weekends and public holidays inside a request are
+ * not held, since nobody is expected at work on them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DepartmentAbsenceService {
+
+    private final DepartmentAbsenceRepository departmentAbsenceRepository;
+    private final ActiveLeaveRepository activeLeaveRepository;
+    private final BusinessCalendar businessCalendar;
+
+    /**
+     * Hold the working days of a new request in its employee's department.
+     * Every day is counted with one conditional update, so concurrent
+     * submissions can never push a day over the cap. Runs in the submitting
+     * transaction, which is rolled back by the exception when a day is full.
+     *
+     * @param department the department of the employee, or null
+     * @param startDate  the first date of the request
+     * @param endDate    the last date of the request
+     * @throws IllegalStateException if a day already has as many members out
+     *                               as the department allows
+     */
+    @Transactional
+    public void hold(Department department, LocalDate startDate, LocalDate endDate) {
+        if (department == null) {
+            return;
+        }
+        List<LocalDate> days = workingDays(startDate, endDate);
+        if (days.isEmpty()) {
+            return;
+        }
+        Integer maxAbsences = department.getMaxConcurrentAbsences();
+        int cap = maxAbsences != null ? maxAbsences : Integer.MAX_VALUE;
+
+        int held = departmentAbsenceRepository.hold(department.getId(), days, cap);
+        if (held < days.size()) {
+            List<LocalDate> fullDays = departmentAbsenceRepository.findFullDays(department.getId(), startDate,
+                    endDate, cap);
+            throw new IllegalStateException(String.format(
+                    "%s already has %d people out on %s",
+                    department.getName(), cap, fullDays.stream()
+                            .map(LocalDate::toString)
+                            .collect(Collectors.joining(", "))));
+        }
+    }
+
+    /**
+     * Release the working days held by a request that was rejected or
+     * cancelled. Days whose holiday status changed since the request was held
+     * are corrected by the next rebuild.
+     *
+     * @param request the request
+     */
+    @Transactional
+    public void release(LeaveRequest request) {
+        Department department = request.getEmployee().getDepartment();
+        if (department != null) {
+            List<LocalDate> days = workingDays(request.getStartDate(), request.getEndDate());
+            if (!days.isEmpty()) {
+                departmentAbsenceRepository.release(department.getId(), days);
+            }
+        }
+    }
+
+    /**
+     * Recompute every count from the pending and approved leave requests. The
+     * counts are maintained on every request transition; this is only needed
+     * after requests or departments were changed outside the application.
+     *
+     * @return the number of department days written
+     */
+    @Transactional
+    public int rebuild() {
+        // Start and end events of each department, as +1 and -1 per epoch day
+        Map<Long, TreeMap<Long, Integer>> deltas = new HashMap<>();
+        activeLeaveRepository.forEachActiveLeave(leave -> {
+            if (leave.departmentId() == null) {
+                return;
+            }
+            TreeMap<Long, Integer> events = deltas.computeIfAbsent(leave.departmentId(), id -> new TreeMap<>());
+            events.merge(leave.startDate().toEpochDay(), 1, Integer::sum);
+            events.merge(leave.endDate().toEpochDay() + 1, -1, Integer::sum);
+        });
+
+        List<AbsenceDay> days = new ArrayList<>();
+        deltas.forEach((departmentId, events) -> {
+            int running = 0;
+            Long previous = null;
+            for (Map.Entry<Long, Integer> event : events.entrySet()) {
+                if (running > 0) {
+                    for (long day = previous; day < event.getKey(); day++) {
+                        LocalDate date = LocalDate.ofEpochDay(day);
+                        if (businessCalendar.isWorkingDay(date)) {
+                            days.add(new AbsenceDay(departmentId, date, running));
+                        }
+                    }
+                }
+                running += event.getValue();
+                previous = event.getKey();
+            }
+        });
+
+        int written = departmentAbsenceRepository.replaceAll(days);
+        log.info("Rebuilt {} department absence days", written);
+        return written;
+    }
+
+    private List<LocalDate> workingDays(LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (businessCalendar.isWorkingDay(day)) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+}
@@ -0,0 +1,145 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.BalanceCacheConfigProperties;
+import com.africa.hr.dto.BalanceCacheStatsDTO;
+import com.africa.hr.dto.EmployeeBalanceSnapshotDTO;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded, least recently used cache of the balance snapshots of each
+ * employee. Entries are dropped when a transaction that published an
+ * {@link EmployeeBalancesChangedEvent} commits.
+ * <p>
+ * Every invalidation moves the cache to a new generation, and a snapshot
+ * loaded during an older generation is not stored, so a load that raced with a
+ * change can never put stale balances back into the cache.
+ */
+@Slf4j
+@Component
+public class EmployeeBalanceCache {
+
+    private final int maxEmployees;
+    private final LinkedHashMap<Long, List<EmployeeBalanceSnapshotDTO>> entries;
+    private final Map<Long, Long> employeeIdsByBalanceId = new HashMap<>();
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public EmployeeBalanceCache(BalanceCacheConfigProperties properties) {
+        this.maxEmployees = properties.getMaxEmployees();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<EmployeeBalanceSnapshotDTO>> eldest) {
+                if (size() <= maxEmployees) {
+                    return false;
+                }
+                forgetBalances(eldest.getValue());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Get the balances of an employee, loading and caching them on a miss. The
+     * loader runs outside the cache lock.
+     *
+     * @param employeeId the employee ID
+     * @param loader     loads the balances of the employee from the database
+     * @return the balances of the employee
+     */
+    public List<EmployeeBalanceSnapshotDTO> get(Long employeeId,
+            Function<Long, List<EmployeeBalanceSnapshotDTO>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            List<EmployeeBalanceSnapshotDTO> cached = entries.get(employeeId);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        List<EmployeeBalanceSnapshotDTO> balances = List.copyOf(loader.apply(employeeId));
+        synchronized (this) {
+            if (loadGeneration == generation && maxEmployees > 0) {
+                forgetBalances(entries.put(employeeId, balances));
+                balances.forEach(balance -> employeeIdsByBalanceId.put(balance.getId(), employeeId));
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Drop the employees whose balances changed, once the publishing transaction
+     * has committed, or right away when it was published outside a transaction.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBalancesChanged(EmployeeBalancesChangedEvent event) {
+        generation++;
+        int before = entries.size();
+
+        if (event.isAllEmployees()) {
+            entries.clear();
+            employeeIdsByBalanceId.clear();
+        } else {
+            if (event.firstEmployeeId() == event.lastEmployeeId()) {
+                forgetBalances(entries.remove(event.firstEmployeeId()));
+            } else if (event.firstEmployeeId() < event.lastEmployeeId()) {
+                entries.entrySet().removeIf(entry -> {
+                    boolean inRange = entry.getKey() >= event.firstEmployeeId()
+                            && entry.getKey() <= event.lastEmployeeId();
+                    if (inRange) {
+                        forgetBalances(entry.getValue());
+                    }
+                    return inRange;
+                });
+            }
+            for (Long balanceId : event.balanceIds()) {
+                Long employeeId = employeeIdsByBalanceId.get(balanceId);
+                if (employeeId != null) {
+                    forgetBalances(entries.remove(employeeId));
+                }
+            }
+        }
+
+        invalidations += before - entries.size();
+    }
+
+    /**
+     * @return the counters of the cache since startup
+     */
+    public synchronized BalanceCacheStatsDTO getStats() {
+        long lookups = hits + misses;
+        return BalanceCacheStatsDTO.builder()
+                .hits(hits)
+                .misses(misses)
+                .evictions(evictions)
+                .invalidations(invalidations)
+                .size(entries.size())
+                .maxSize(maxEmployees)
+                .hitRatio(lookups == 0 ? 0.0 : (double) hits / lookups)
+                .build();
+    }
+
+    private void forgetBalances(List<EmployeeBalanceSnapshotDTO> balances) {
+        if (balances != null) {
+            balances.forEach(balance -> employeeIdsByBalanceId.remove(balance.getId()));
+        }
+    }
+}
@@ -1,17 +1,35 @@
 package com.africa.hr.service;
 
+import com.africa.hr.dto.EmployeeBalanceSnapshotDTO;
+import com.africa.hr.exception.BalanceAdjustmentException;
+import com.africa.hr.model.BalanceAdjustmentOutcome;
+import com.africa.hr.model.BalanceMovementType;
 import com.africa.hr.model.EmployeeBalance;
+import com.africa.hr.model.LeaveDays;
+import com.africa.hr.model.LeaveRequest;
+import com.africa.hr.model.LeaveRequestStatus;
 import com.africa.hr.model.LeaveType;
 import com.africa.hr.model.User;
+import com.africa.hr.repository.BalanceMovementRepository;
+import com.africa.hr.repository.BalanceMovementRepository.UnrecordedUsage;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository;
 import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository.LeaveTypeUsage;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -24,7 +42,14 @@ import java.util.List;
 public class EmployeeBalanceService {
 
     private final EmployeeBalanceRepository employeeBalanceRepository;
+    private final EmployeeBalanceBatchRepository employeeBalanceBatchRepository;
+    private final BalanceMovementRepository balanceMovementRepository;
     private final LeaveTypeService leaveTypeService;
+    private final EmployeeBalanceCache employeeBalanceCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
      * Create a new employee balance.
@@ -54,37 +79,39 @@ public class EmployeeBalanceService {
         balance.setIsEligibleForAccrual(employee.getStatus() == User.Status.ACTIVE && leaveType.getAccrualBased());
 
         balance.validateBalance();
-        return employeeBalanceRepository.save(balance);
+        EmployeeBalance saved = employeeBalanceRepository.save(balance);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forEmployee(employee.getId()));
+        return saved;
     }
 
     /**
-     * Get an employee's balance for a specific leave type.
+     * Get an employee's balance for a specific leave type, from the balance cache.
      *
      * @param employeeId  the employee ID
      * @param leaveTypeId the leave type ID
      * @return the balance
      * @throws EntityNotFoundException if the balance is not found
      */
-    @Transactional(readOnly = true)
-    public EmployeeBalance getBalance(Long employeeId, Long leaveTypeId) {
-        User employee = new User();
-        employee.setId(employeeId);
-        LeaveType leaveType = leaveTypeService.getLeaveType(leaveTypeId);
-
-        return employeeBalanceRepository.findByEmployeeAndLeaveType(employee, leaveType)
+    public EmployeeBalanceSnapshotDTO getBalance(Long employeeId, Long leaveTypeId) {
+        return getEmployeeBalances(employeeId).stream()
+                .filter(balance -> balance.getLeaveTypeId().equals(leaveTypeId))
+                .findFirst()
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Balance not found for employee " + employeeId + " and leave type " + leaveTypeId));
     }
 
     /**
-     * Get all balances for an employee.
+     * Get all balances for an employee, from the balance cache. Not
+     * transactional, so that cache hits don't take a database connection.
      *
-     * @param employee the employee
+     * @param employeeId the employee ID
      * @return list of balances
      */
-    @Transactional(readOnly = true)
-    public List<EmployeeBalance> getEmployeeBalances(User employee) {
-        return employeeBalanceRepository.findByEmployee(employee);
+    public List<EmployeeBalanceSnapshotDTO> getEmployeeBalances(Long employeeId) {
+        return employeeBalanceCache.get(employeeId, id -> employeeBalanceRepository.findWithLeaveTypeByEmployeeId(id)
+                .stream()
+                .map(balance -> EmployeeBalanceSnapshotDTO.fromEntity(balance, id))
+                .toList());
     }
 
     /**
@@ -111,31 +138,135 @@ public class EmployeeBalanceService {
             throw new IllegalStateException("New balance exceeds maximum allowed balance");
         }
 
+        long delta = LeaveDays.toHundredths(newBalance) - LeaveDays.toHundredths(balance.getCurrentBalance());
         balance.setCurrentBalance(newBalance);
         balance.validateBalance();
-        return employeeBalanceRepository.save(balance);
+        if (delta != 0) {
+            balanceMovementRepository.record(balanceId, BalanceMovementType.ADJUSTMENT, delta, null);
+        }
+        EmployeeBalance saved = employeeBalanceRepository.save(balance);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forBalances(List.of(balanceId)));
+        return saved;
     }
 
     /**
-     * Adjust an employee's balance by a delta amount.
+     * An adjustment of one balance.
      *
      * @param balanceId the balance ID
      * @param delta     the amount to adjust by (positive for addition, negative for
      *                  subtraction)
-     * @return the updated balance
-     * @throws EntityNotFoundException if the balance is not found
-     * @throws IllegalStateException   if the adjustment would result in an invalid
-     *                                 balance
+     */
+    public record BalanceAdjustment(Long balanceId, BigDecimal delta) {
+    }
+
+    /**
+     * Adjust an employee's balance by a delta amount, recorded in the balance
+     * ledger as an administrator's adjustment.
+     *
+     * @param balanceId the balance ID
+     * @param delta     the amount to adjust by (positive for addition, negative for
+     *                  subtraction)
+     * @throws BalanceAdjustmentException if the balance is not found, or the
+     *                                    adjustment would make it negative or
+     *                                    exceed its maximum
      */
     @Transactional
-    public EmployeeBalance adjustBalance(Long balanceId, BigDecimal delta) {
-        log.info("Adjusting balance {} by {}", balanceId, delta);
+    public void adjustBalance(Long balanceId, BigDecimal delta) {
+        adjustBalance(balanceId, delta, BalanceMovementType.ADJUSTMENT, null);
+    }
 
-        EmployeeBalance balance = employeeBalanceRepository.findById(balanceId)
-                .orElseThrow(() -> new EntityNotFoundException("Balance not found with ID: " + balanceId));
+    /**
+     * Adjust an employee's balance by a delta amount and record the movement in
+     * the balance ledger.
+     * The balance is updated with a single guarded statement, without loading
+     * it, so concurrent adjustments cannot overwrite each other. A managed copy
+     * of the balance in the current persistence context is refreshed, so that a
+     * later flush doesn't write its old amount back.
+     *
+     * @param balanceId   the balance ID
+     * @param delta       the amount to adjust by (positive for addition, negative for
+     *                    subtraction)
+     * @param type        the kind of movement to record
+     * @param referenceId the leave request behind the movement, or null
+     * @throws BalanceAdjustmentException if the balance is not found, or the
+     *                                    adjustment would make it negative or
+     *                                    exceed its maximum
+     */
+    @Transactional
+    public void adjustBalance(Long balanceId, BigDecimal delta, BalanceMovementType type, Long referenceId) {
+        log.info("Adjusting balance {} by {} ({})", balanceId, delta, type);
+
+        long hundredths = LeaveDays.toHundredths(delta);
+        if (employeeBalanceBatchRepository.adjust(balanceId, hundredths) == 0) {
+            throw rejection(balanceId, delta,
+                    employeeBalanceBatchRepository.explainRejection(balanceId, hundredths));
+        }
+        if (hundredths != 0) {
+            balanceMovementRepository.record(balanceId, type, hundredths, referenceId);
+        }
+
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forBalances(List.of(balanceId)));
+
+        EmployeeBalance cached = entityManager.getReference(EmployeeBalance.class, balanceId);
+        if (Hibernate.isInitialized(cached)) {
+            entityManager.refresh(cached);
+        }
+    }
+
+    /**
+     * Adjust many balances in one round trip. Each adjustment is guarded like
+     * {@link #adjustBalance} and applied or rejected on its own, and applied
+     * adjustments are recorded in the balance ledger; callers that
+     * need all of them to apply should throw on a rejection to roll back. Managed
+     * balances are not refreshed.
+     *
+     * @param adjustments the adjustments to apply
+     * @return the outcome of each adjustment, in the same order
+     */
+    @Transactional
+    public List<BalanceAdjustmentOutcome> adjustBalances(List<BalanceAdjustment> adjustments) {
+        int count = adjustments.size();
+        long[] balanceIds = new long[count];
+        long[] deltas = new long[count];
+        for (int i = 0; i < count; i++) {
+            balanceIds[i] = adjustments.get(i).balanceId();
+            deltas[i] = LeaveDays.toHundredths(adjustments.get(i).delta());
+        }
+
+        // Rewritten batches may report SUCCESS_NO_INFO; only a count of 0 is a rejection
+        int[] updated = employeeBalanceBatchRepository.adjustAll(balanceIds, deltas, count);
+        List<BalanceAdjustmentOutcome> outcomes = new ArrayList<>(count);
+        int rejected = 0;
+        for (int i = 0; i < count; i++) {
+            if (updated[i] == 0) {
+                outcomes.add(employeeBalanceBatchRepository.explainRejection(balanceIds[i], deltas[i]));
+                deltas[i] = 0;
+                rejected++;
+            } else {
+                outcomes.add(BalanceAdjustmentOutcome.APPLIED);
+            }
+        }
+
+        if (rejected < count) {
+            balanceMovementRepository.recordAll(balanceIds, deltas, count, BalanceMovementType.ADJUSTMENT);
+            eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forBalances(Arrays.stream(balanceIds).boxed()
+                    .toList()));
+        }
+
+        log.info("Adjusted {} balances, {} rejected", count - rejected, rejected);
+        return outcomes;
+    }
 
-        BigDecimal newBalance = balance.getCurrentBalance().add(delta);
-        return updateBalance(balanceId, newBalance);
+    private static BalanceAdjustmentException rejection(Long balanceId, BigDecimal delta,
+            BalanceAdjustmentOutcome outcome) {
+        String message = switch (outcome) {
+            case NOT_FOUND -> "Balance not found with ID: " + balanceId;
+            case INSUFFICIENT_BALANCE -> "Insufficient balance to adjust balance " + balanceId + " by " + delta;
+            case EXCEEDS_MAX_BALANCE -> "Adjusting balance " + balanceId + " by " + delta
+                    + " exceeds maximum allowed balance";
+            case APPLIED -> throw new IllegalArgumentException("Adjustment of balance " + balanceId + " was applied");
+        };
+        return new BalanceAdjustmentException(balanceId, outcome, message);
     }
 
     /**
@@ -164,7 +295,9 @@ public class EmployeeBalanceService {
 
         balance.setMaxBalance(newMaxBalance);
         balance.validateBalance();
-        return employeeBalanceRepository.save(balance);
+        EmployeeBalance saved = employeeBalanceRepository.save(balance);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forBalances(List.of(balanceId)));
+        return saved;
     }
 
     /**
@@ -183,7 +316,9 @@ public class EmployeeBalanceService {
                 .orElseThrow(() -> new EntityNotFoundException("Balance not found with ID: " + balanceId));
 
         balance.setIsEligibleForAccrual(isEligible);
-        return employeeBalanceRepository.save(balance);
+        EmployeeBalance saved = employeeBalanceRepository.save(balance);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forBalances(List.of(balanceId)));
+        return saved;
     }
 
     /**
@@ -228,7 +363,7 @@ public class EmployeeBalanceService {
         log.info("Initializing balances for new employee {}", employee.getId());
 
         List<LeaveType> defaultLeaveTypes = leaveTypeService.getDefaultLeaveTypes();
-        return defaultLeaveTypes.stream()
+        List<EmployeeBalance> balances = defaultLeaveTypes.stream()
                 .map(leaveType -> {
                     EmployeeBalance balance = new EmployeeBalance();
                     balance.setEmployee(employee);
@@ -242,6 +377,115 @@ public class EmployeeBalanceService {
                     return employeeBalanceRepository.save(balance);
                 })
                 .toList();
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forEmployee(employee.getId()));
+        return balances;
+    }
+
+    /**
+     * Move the days of a leave request between the used and pending day counters
+     * of its balance after the request changed status. Approved days count as
+     * used, pending days as pending, and other statuses count as neither.
+     * Days that become used are taken off the balance, and days that stop being
+     * used are given back, as usage movements in the balance ledger.
+     *
+     * @param request        the leave request, with its new status
+     * @param previousStatus the status before the change, or null for a new request
+     * @throws BalanceAdjustmentException if the balance is too low for the approved days
+     */
+    @Transactional
+    public void moveRequestDays(LeaveRequest request, LeaveRequestStatus previousStatus) {
+        // Requests submitted before working days were recorded are counted like the rebuild counts them
+        long days = request.getWorkingDays() != null ? LeaveDays.toHundredths(request.getWorkingDays())
+                : LeaveDays.toHundredths(BigDecimal.valueOf(request.getTotalDaysRequested()));
+        LeaveRequestStatus status = request.getStatus();
+        long usedDelta = (status == LeaveRequestStatus.APPROVED ? days : 0)
+                - (previousStatus == LeaveRequestStatus.APPROVED ? days : 0);
+        long pendingDelta = (status == LeaveRequestStatus.PENDING ? days : 0)
+                - (previousStatus == LeaveRequestStatus.PENDING ? days : 0);
+        if (usedDelta == 0 && pendingDelta == 0) {
+            return;
+        }
+
+        if (employeeBalanceBatchRepository.adjustRequestDays(request.getEmployee().getId(),
+                request.getLeaveType().getId(), usedDelta, pendingDelta) == 0) {
+            log.warn("No balance of leave type {} for employee {} to record request {} on",
+                    request.getLeaveType().getId(), request.getEmployee().getId(), request.getId());
+            return;
+        }
+        if (usedDelta != 0) {
+            employeeBalanceBatchRepository.findId(request.getEmployee().getId(), request.getLeaveType().getId())
+                    .ifPresent(balanceId -> adjustBalance(balanceId, LeaveDays.toDays(-usedDelta),
+                            BalanceMovementType.USAGE, request.getId()));
+        }
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forEmployee(request.getEmployee().getId()));
+    }
+
+    /**
+     * Recompute the used and pending day counters of every balance from the leave
+     * requests. The counters are maintained on every request change; this is
+     * only needed after requests were changed outside the application.
+     *
+     * @return the number of balances updated
+     */
+    @Transactional
+    public int rebuildRequestDays() {
+        int balances = employeeBalanceBatchRepository.rebuildRequestDays();
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forAllEmployees());
+        log.info("Rebuilt the used and pending days of {} balances", balances);
+        return balances;
+    }
+
+    /**
+     * Take the days of leave requests approved before approvals were recorded in
+     * the balance ledger off their balances, and record a usage movement for
+     * each. Without this, reconciliation reports those days as drift and a
+     * repair takes them all off at once. A balance is never taken below zero;
+     * requests it cannot cover are recorded with the amount actually taken, so
+     * running the backfill again is a no-op.
+     *
+     * @return the number of leave requests recorded
+     */
+    @Transactional
+    public int backfillApprovedUsage() {
+        List<UnrecordedUsage> usages = balanceMovementRepository.findUnrecordedUsage();
+
+        // Usages are ordered by balance, so the amount left is read once per balance
+        long balanceId = -1;
+        long remaining = 0;
+        for (UnrecordedUsage usage : usages) {
+            if (usage.employeeBalanceId() != balanceId) {
+                balanceId = usage.employeeBalanceId();
+                remaining = employeeBalanceBatchRepository.findAmount(balanceId).map(LeaveDays::toHundredths)
+                        .orElse(0L);
+            }
+            long taken = Math.min(usage.days(), remaining);
+            if (taken > 0 && employeeBalanceBatchRepository.adjust(balanceId, -taken) == 0) {
+                // Changed since it was read; record nothing taken rather than overdraw it
+                log.warn("Balance {} changed during the usage backfill, request {} recorded as nothing taken",
+                        balanceId, usage.leaveRequestId());
+                taken = 0;
+            }
+            remaining -= taken;
+            balanceMovementRepository.record(balanceId, BalanceMovementType.USAGE, -taken, usage.leaveRequestId());
+        }
+
+        if (!usages.isEmpty()) {
+            eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forAllEmployees());
+        }
+        log.info("Backfilled the usage of {} approved leave requests", usages.size());
+        return usages.size();
+    }
+
+    /**
+     * Get the allowance, used days and remaining days of every balance of an
+     * employee, in one query.
+     *
+     * @param employeeId the employee ID
+     * @return the usage of each balance
+     */
+    @Transactional(readOnly = true)
+    public List<LeaveTypeUsage> getLeaveTypeUsage(Long employeeId) {
+        return employeeBalanceRepository.findLeaveTypeUsageByEmployeeId(employeeId);
     }
 
     /**
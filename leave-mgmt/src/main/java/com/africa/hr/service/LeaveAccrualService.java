@@ -1,8 +1,18 @@
 package com.africa.hr.service;
 
+import com.africa.hr.dto.LeaveAccrualHistoryPageDTO;
+import com.africa.hr.dto.LeaveAccrualResponseDTO;
 import com.africa.hr.dto.LeaveAccrualSummaryDTO;
+import com.africa.hr.model.BalanceMovementType;
 import com.africa.hr.model.EmployeeBalance;
 import com.africa.hr.model.LeaveAccrual;
+import com.africa.hr.model.LeaveAccrualPeriodSummary;
+import com.africa.hr.model.LeaveDays;
+import com.africa.hr.repository.LeaveAccrualBatchRepository;
+import com.africa.hr.repository.LeaveAccrualBatchRepository.AccrualRow;
+import com.africa.hr.repository.LeaveAccrualPeriodSummaryBatchRepository;
+import com.africa.hr.repository.LeaveAccrualPeriodSummaryBatchRepository.SummaryDelta;
+import com.africa.hr.repository.LeaveAccrualPeriodSummaryRepository;
 import com.africa.hr.repository.LeaveAccrualRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -11,13 +21,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.Base64;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Service for handling leave accrual calculations and processing.
@@ -31,16 +40,24 @@ public class LeaveAccrualService {
     private final EmployeeBalanceService employeeBalanceService;
     private final LeaveTypeService leaveTypeService;
     private final LeaveAccrualRepository leaveAccrualRepository;
+    private final LeaveAccrualPeriodSummaryRepository leaveAccrualPeriodSummaryRepository;
+    private final LeaveAccrualPeriodSummaryBatchRepository leaveAccrualPeriodSummaryBatchRepository;
+    private final LeaveAccrualBatchRepository leaveAccrualBatchRepository;
+
+    private static final int MAX_HISTORY_PAGE_SIZE = 500;
 
     /**
      * Process accrual for a specific employee's balance.
+     * The ledger row is written with insert-ignore semantics, so a period that
+     * has already been accrued for the balance is left untouched and the balance
+     * isn't credited twice, even when two requests race.
      *
      * @param balance   the employee balance to process
      * @param yearMonth the year and month to process accrual for
-     * @return the processed accrual record
+     * @return the accrual record, or empty if the period had already been accrued
      */
     @Transactional
-    public LeaveAccrual processAccrualForBalance(EmployeeBalance balance, YearMonth yearMonth) {
+    public Optional<LeaveAccrual> processAccrualForBalance(EmployeeBalance balance, YearMonth yearMonth) {
         log.info("Processing accrual for employee {} and leave type {} for {}",
                 balance.getEmployee().getId(),
                 balance.getLeaveType().getId(),
@@ -48,21 +65,31 @@ public class LeaveAccrualService {
 
         // Calculate accrual amount
         BigDecimal accrualAmount = calculateAccrualAmount(balance, yearMonth);
+        boolean prorated = isProratedAccrual(balance, yearMonth);
+        boolean newEmployee = !leaveAccrualRepository.existsByYearMonthAndEmployeeBalanceEmployeeId(
+                yearMonth, balance.getEmployee().getId());
+
+        // Write the accrual record unless the period is already in the ledger
+        LocalDate accrualDate = LocalDate.now();
+        AccrualRow row = new AccrualRow(balance.getId(), yearMonth, LeaveDays.toHundredths(accrualAmount), prorated);
+        if (!leaveAccrualBatchRepository.insert(row, accrualDate)) {
+            log.info("Accrual for balance {} for {} has already been processed", balance.getId(), yearMonth);
+            return Optional.empty();
+        }
 
-        // Create accrual record
-        LeaveAccrual accrual = new LeaveAccrual();
-        accrual.setEmployeeBalance(balance);
-        accrual.setAccrualDate(LocalDate.now());
-        accrual.setAmount(accrualAmount);
-        accrual.setYearMonth(yearMonth);
-        accrual.setIsProrated(isProratedAccrual(balance, yearMonth));
+        // Update balance; this also drops the employee's cached balances on commit
+        employeeBalanceService.adjustBalance(balance.getId(), accrualAmount, BalanceMovementType.ACCRUAL, null);
+        balance.setLastAccrualDate(accrualDate);
 
-        // Update balance
-        employeeBalanceService.adjustBalance(balance.getId(), accrualAmount);
-        balance.setLastAccrualDate(LocalDate.now());
+        // Update the period summary
+        leaveAccrualPeriodSummaryBatchRepository.applyDelta(yearMonth, new SummaryDelta(
+                newEmployee ? 1 : 0,
+                1,
+                accrualAmount,
+                prorated ? 1 : 0,
+                accrualAmount.signum() == 0 ? 1 : 0));
 
-        // Save accrual record
-        return leaveAccrualRepository.save(accrual);
+        return leaveAccrualRepository.findByEmployeeBalanceAndYearMonth(balance, yearMonth);
     }
 
     /**
@@ -78,21 +105,59 @@ public class LeaveAccrualService {
             return BigDecimal.ZERO;
         }
 
+        return calculateAccrualAmount(
+                balance.getLeaveType().getAccrualRate(),
+                balance.getEmployee().getJoinedDate(),
+                yearMonth);
+    }
+
+    /**
+     * Calculate the accrual amount for a month from plain values, without
+     * touching any entity associations. Used by the bulk accrual engine so that
+     * both paths share the same prorating rules.
+     *
+     * @param accrualRate the monthly accrual rate of the leave type
+     * @param joinedDate  the date the employee joined
+     * @param yearMonth   the year and month to calculate for
+     * @return the calculated accrual amount
+     */
+    static BigDecimal calculateAccrualAmount(BigDecimal accrualRate, LocalDate joinedDate, YearMonth yearMonth) {
+        if (accrualRate == null) {
+            return BigDecimal.ZERO;
+        }
+
+        return LeaveDays.toDays(
+                calculateAccrualHundredths(LeaveDays.toHundredths(accrualRate), joinedDate, yearMonth));
+    }
+
+    /**
+     * Calculate the accrual amount for a month in hundredths of a day. Bulk
+     * engines call this directly to avoid a {@link BigDecimal} per month.
+     *
+     * @param accrualRate the monthly accrual rate, in hundredths of a day
+     * @param joinedDate  the date the employee joined
+     * @param yearMonth   the year and month to calculate for
+     * @return the calculated accrual amount, in hundredths of a day
+     */
+    static long calculateAccrualHundredths(long accrualRate, LocalDate joinedDate, YearMonth yearMonth) {
         LocalDate monthStart = yearMonth.atDay(1);
         LocalDate monthEnd = yearMonth.atEndOfMonth();
 
         // If employee joined before the month, return full accrual
-        if (balance.getEmployee().getJoinedDate().isBefore(monthStart)) {
-            return balance.getLeaveType().getAccrualRate();
+        if (joinedDate.isBefore(monthStart)) {
+            return accrualRate;
         }
 
         // If employee joined after the month, return zero
-        if (balance.getEmployee().getJoinedDate().isAfter(monthEnd)) {
-            return BigDecimal.ZERO;
+        if (joinedDate.isAfter(monthEnd)) {
+            return 0;
         }
 
         // Calculate prorated accrual for mid-month join
-        return balance.calculateProratedAccrual(monthStart, monthEnd);
+        long totalDays = monthEnd.toEpochDay() - monthStart.toEpochDay() + 1;
+        long workedDays = monthEnd.toEpochDay() - joinedDate.toEpochDay() + 1;
+
+        return LeaveDays.prorate(accrualRate, workedDays, totalDays);
     }
 
     /**
@@ -103,9 +168,20 @@ public class LeaveAccrualService {
      * @return true if the accrual should be prorated
      */
     private boolean isProratedAccrual(EmployeeBalance balance, YearMonth yearMonth) {
-        LocalDate monthStart = yearMonth.atDay(1);
-        return balance.getEmployee().getJoinedDate().isAfter(monthStart.minusDays(1))
-                && balance.getEmployee().getJoinedDate().isBefore(yearMonth.atEndOfMonth().plusDays(1));
+        return isProratedAccrual(balance.getEmployee().getJoinedDate(), yearMonth);
+    }
+
+    /**
+     * Check if an accrual should be prorated, i.e. the employee joined during the
+     * given month.
+     *
+     * @param joinedDate the date the employee joined
+     * @param yearMonth  the year and month to check
+     * @return true if the accrual should be prorated
+     */
+    static boolean isProratedAccrual(LocalDate joinedDate, YearMonth yearMonth) {
+        return !joinedDate.isBefore(yearMonth.atDay(1))
+                && !joinedDate.isAfter(yearMonth.atEndOfMonth());
     }
 
     /**
@@ -126,21 +202,21 @@ public class LeaveAccrualService {
      * @return list of accruals
      */
     public List<LeaveAccrual> findByEmployeeBalanceAndYear(EmployeeBalance balance, Integer year) {
-        return leaveAccrualRepository.findByEmployeeBalanceAndAccrualYearOrderByAccrualMonthDesc(balance, year);
+        return leaveAccrualRepository.findByEmployeeBalanceAndPeriodRange(
+                balance, YearMonth.of(year, 1), YearMonth.of(year + 1, 1));
     }
 
     /**
-     * Find accruals for an employee balance in a specific year and month.
+     * Find the accrual of an employee balance for a specific year and month.
      *
      * @param balance the employee balance
-     * @param year    the year to find accruals for
-     * @param month   the month to find accruals for
-     * @return list of accruals
+     * @param year    the year to find the accrual for
+     * @param month   the month to find the accrual for
+     * @return the accrual, if the month has been accrued
      */
-    public List<LeaveAccrual> findByEmployeeBalanceAndYearAndMonth(
+    public Optional<LeaveAccrual> findByEmployeeBalanceAndYearAndMonth(
             EmployeeBalance balance, Integer year, Integer month) {
-        return leaveAccrualRepository.findByEmployeeBalanceAndAccrualYearAndAccrualMonth(
-                balance, year, month);
+        return leaveAccrualRepository.findByEmployeeBalanceAndYearMonth(balance, YearMonth.of(year, month));
     }
 
     /**
@@ -155,25 +231,74 @@ public class LeaveAccrualService {
             throw new IllegalArgumentException("Month must be between 1 and 12");
         }
 
-        // Check if any accruals exist for this month
-        return !leaveAccrualRepository.findByAccrualYearAndAccrualMonth(year, month).isEmpty();
+        return leaveAccrualRepository.existsByYearMonth(YearMonth.of(year, month));
     }
 
     /**
-     * Find all accrual records, ordered by accrual date descending.
+     * Get one page of accrual history, newest first.
+     * Pages are addressed by an opaque cursor that encodes the accrual date and
+     * id of the last row of the previous page, so fetching a page costs the
+     * same no matter how deep into the history it is.
      *
-     * @return list of all accrual records
+     * @param period      optional accrual period filter
+     * @param employeeId  optional employee filter
+     * @param leaveTypeId optional leave type filter
+     * @param cursor      the cursor returned with the previous page, or null for the first page
+     * @param limit       the page size
+     * @return the page of accruals and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is malformed
      */
     @Transactional(readOnly = true)
-    public List<LeaveAccrual> findAllAccruals() {
-        return leaveAccrualRepository.findAll().stream()
-                .sorted((a1, a2) -> a2.getAccrualDate().compareTo(a1.getAccrualDate()))
-                .toList();
+    public LeaveAccrualHistoryPageDTO getAccrualHistory(YearMonth period, Long employeeId, Long leaveTypeId,
+            String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE_SIZE);
+
+        LocalDate afterAccrualDate = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterAccrualDate = LocalDate.parse(parts[0]);
+            afterId = Long.valueOf(parts[1]);
+        }
+
+        // Fetch one extra row to find out whether another page follows
+        List<LeaveAccrualResponseDTO> rows = leaveAccrualRepository.findHistoryPage(
+                period, employeeId, leaveTypeId, afterAccrualDate, afterId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<LeaveAccrualResponseDTO> accruals = hasMore ? rows.subList(0, pageSize) : rows;
+
+        LeaveAccrualHistoryPageDTO page = new LeaveAccrualHistoryPageDTO();
+        page.setAccruals(accruals);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            LeaveAccrualResponseDTO last = accruals.get(accruals.size() - 1);
+            page.setNextCursor(encodeCursor(last.getAccrualDate(), last.getId()));
+        }
+        return page;
+    }
+
+    private static String encodeCursor(LocalDate accrualDate, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((accrualDate + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid history cursor: " + cursor);
+            }
+            LocalDate.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid history cursor: " + cursor, e);
+        }
     }
 
     /**
-     * Get accrual history summary grouped by accrual period.
-     * Returns a summary of accruals processed for each period.
+     * Get accrual history summary grouped by accrual period, latest period first.
+     * Served from the pre-aggregated period summaries.
      *
      * @return list of accrual summaries
      */
@@ -181,43 +306,21 @@ public class LeaveAccrualService {
     public List<LeaveAccrualSummaryDTO> getAccrualHistorySummary() {
         log.info("Fetching accrual history summary");
 
-        // Get all accruals ordered by date
-        List<LeaveAccrual> allAccruals = findAllAccruals();
-
-        // Group accruals by yearMonth
-        Map<YearMonth, List<LeaveAccrual>> accrualsByPeriod = allAccruals.stream()
-                .collect(Collectors.groupingBy(LeaveAccrual::getYearMonth));
-
-        // Convert to summary DTOs
-        return accrualsByPeriod.entrySet().stream()
-                .map(entry -> {
-                    YearMonth period = entry.getKey();
-                    List<LeaveAccrual> periodAccruals = entry.getValue();
-
+        return leaveAccrualPeriodSummaryRepository.findAllByOrderByYearMonthDesc().stream()
+                .map(periodSummary -> {
                     LeaveAccrualSummaryDTO summary = new LeaveAccrualSummaryDTO();
-                    summary.setId(periodAccruals.get(0).getId()); // Use first accrual's ID as summary ID
-                    summary.setAccrualPeriod(period.format(java.time.format.DateTimeFormatter.ofPattern("MMMM yyyy")));
-                    summary.setProcessedDate(periodAccruals.get(0).getCreatedAt());
-                    summary.setEmployeeCount((int) periodAccruals.stream()
-                            .map(accrual -> accrual.getEmployeeBalance().getEmployee().getId())
-                            .distinct()
-                            .count());
-                    summary.setTotalAccruals(periodAccruals.size());
-
-                    // Calculate total days accrued
-                    BigDecimal totalDays = periodAccruals.stream()
-                            .map(LeaveAccrual::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    summary.setTotalDaysAccrued(totalDays);
+                    summary.setId(periodSummary.getId());
+                    summary.setAccrualPeriod(periodSummary.getYearMonth()
+                            .format(java.time.format.DateTimeFormatter.ofPattern("MMMM yyyy")));
+                    summary.setProcessedDate(periodSummary.getLastProcessedAt());
+                    summary.setEmployeeCount(periodSummary.getEmployeeCount());
+                    summary.setTotalAccruals(periodSummary.getAccrualCount());
+                    summary.setTotalDaysAccrued(periodSummary.getTotalDays());
 
                     // Determine status
-                    boolean hasProrated = periodAccruals.stream().anyMatch(LeaveAccrual::getIsProrated);
-                    boolean hasFailed = periodAccruals.stream()
-                            .anyMatch(accrual -> accrual.getAmount().compareTo(BigDecimal.ZERO) == 0);
-
-                    if (hasFailed) {
+                    if (periodSummary.getZeroAmountCount() > 0) {
                         summary.setStatus("FAILED");
-                    } else if (hasProrated) {
+                    } else if (periodSummary.getProratedCount() > 0) {
                         summary.setStatus("PARTIAL");
                     } else {
                         summary.setStatus("COMPLETED");
@@ -225,28 +328,36 @@ public class LeaveAccrualService {
 
                     return summary;
                 })
-                .sorted((a, b) -> b.getProcessedDate().compareTo(a.getProcessedDate()))
                 .toList();
     }
 
+    /**
+     * Recompute all accrual period summaries from the accrual ledger.
+     *
+     * @return the number of accrual periods
+     */
+    @Transactional
+    public int rebuildAccrualHistorySummaries() {
+        log.info("Rebuilding accrual period summaries from the ledger");
+        int periods = leaveAccrualPeriodSummaryBatchRepository.rebuildAll();
+        log.info("Rebuilt {} accrual period summaries", periods);
+        return periods;
+    }
+
     /**
      * Get detailed accrual records for a specific period.
      *
-     * @param periodId the ID of the accrual period
-     * @return list of accrual details
+     * @param periodId the ID of the accrual period summary
+     * @return list of accrual details, newest first
      */
     @Transactional(readOnly = true)
-    public List<LeaveAccrual> getAccrualDetails(Long periodId) {
+    public List<LeaveAccrualResponseDTO> getAccrualDetails(Long periodId) {
         log.info("Fetching accrual details for period ID: {}", periodId);
 
-        // Get the accrual to find its period
-        LeaveAccrual referenceAccrual = leaveAccrualRepository.findById(periodId)
-                .orElseThrow(() -> new EntityNotFoundException("Accrual not found with ID: " + periodId));
+        LeaveAccrualPeriodSummary periodSummary = leaveAccrualPeriodSummaryRepository.findById(periodId)
+                .orElseThrow(() -> new EntityNotFoundException("Accrual period not found with ID: " + periodId));
 
-        // Get all accruals for the same period
-        return leaveAccrualRepository.findByYearMonth(referenceAccrual.getYearMonth())
-                .stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+        return leaveAccrualRepository.findHistoryPage(
+                periodSummary.getYearMonth(), null, null, null, null, Integer.MAX_VALUE);
     }
-}
\ No newline at end of file
+}
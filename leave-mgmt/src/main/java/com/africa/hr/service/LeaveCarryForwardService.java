@@ -1,19 +1,27 @@
 package com.africa.hr.service;
 
+import com.africa.hr.model.BalanceMovementType;
 import com.africa.hr.model.EmployeeBalance;
 import com.africa.hr.model.LeaveCarryForward;
+import com.africa.hr.model.LeaveDays;
 import com.africa.hr.model.LeaveType;
+import com.africa.hr.repository.BalanceMovementRepository;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository;
 import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.repository.LeaveCarryForwardBatchRepository;
 import com.africa.hr.repository.LeaveCarryForwardRepository;
 import com.africa.hr.repository.LeaveTypeRepository;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,10 +33,19 @@ public class LeaveCarryForwardService {
     private final LeaveCarryForwardRepository carryForwardRepository;
     private final EmployeeBalanceRepository employeeBalanceRepository;
     private final LeaveTypeRepository leaveTypeRepository;
+    private final LeaveCarryForwardBatchRepository carryForwardBatchRepository;
+    private final EmployeeBalanceBatchRepository employeeBalanceBatchRepository;
+    private final BalanceMovementRepository balanceMovementRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Process carry-forward for all eligible leave balances for a year transition.
      * This method should be called at the end of each year.
+     * <p>
+     * Each carry-forward enabled leave type is closed with set-based statements:
+     * the ledger rows are inserted from the balances, then the forfeited amounts
+     * are taken off the balances. Balances already carried forward for this
+     * transition are skipped, so the run can safely be repeated.
      *
      * @param fromYear the year to carry forward from
      * @param toYear   the year to carry forward to
@@ -38,18 +55,71 @@ public class LeaveCarryForwardService {
     public List<LeaveCarryForward> processAnnualCarryForward(Integer fromYear, Integer toYear) {
         log.info("Processing annual carry-forward from {} to {}", fromYear, toYear);
 
-        // Get all leave types that have carry-forward enabled
         List<LeaveType> carryForwardTypes = leaveTypeRepository.findByIsCarryForwardEnabledTrue();
+        if (carryForwardTypes.isEmpty()) {
+            return List.of();
+        }
+
+        carryForwardTypes.forEach(leaveType -> carryForwardBatchRepository.lockLeaveType(leaveType.getId()));
+        long lastExistingId = carryForwardBatchRepository.findMaxId();
 
-        // Get all employee balances for these leave types
-        List<EmployeeBalance> balances = employeeBalanceRepository
-                .findByLeaveTypeIn(carryForwardTypes);
+        int recorded = recordCarryForwards(carryForwardTypes, fromYear, toYear, LocalDate.now(),
+                Long.MIN_VALUE, Long.MAX_VALUE);
+        int applied = carryForwardBatchRepository.applyPending(fromYear, toYear, Long.MIN_VALUE, Long.MAX_VALUE);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forAllEmployees());
+        log.info("Carried forward {} balances from {} to {} ({} balances updated)",
+                recorded, fromYear, toYear, applied);
 
-        return balances.stream()
-                .map(balance -> processCarryForward(balance, fromYear, toYear))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .toList();
+        return carryForwardRepository.findByYearTransitionAfterId(fromYear, toYear, lastExistingId);
+    }
+
+    /**
+     * Record a pending carry-forward for every balance of a carry-forward
+     * enabled leave type, of the employees within an inclusive employee id range,
+     * without changing the balances yet. Balances that already have a
+     * carry-forward for the transition are skipped.
+     *
+     * @param fromYear         the year to carry forward from
+     * @param toYear           the year to carry forward to
+     * @param carryForwardDate the date to record on the carry-forwards
+     * @param firstId          the first employee id of the range
+     * @param lastId           the last employee id of the range
+     * @return the number of carry-forwards recorded
+     */
+    @Transactional
+    public int recordCarryForwardsInRange(Integer fromYear, Integer toYear, LocalDate carryForwardDate,
+            Long firstId, Long lastId) {
+        employeeBalanceBatchRepository.lockEmployeeRange(firstId, lastId);
+        return recordCarryForwards(leaveTypeRepository.findByIsCarryForwardEnabledTrue(), fromYear, toYear,
+                carryForwardDate, firstId, lastId);
+    }
+
+    /**
+     * Apply the pending carry-forwards of the employees within an inclusive
+     * employee id range: take the forfeited amounts off the balances and mark the
+     * carry-forwards applied.
+     *
+     * @param fromYear the year to carry forward from
+     * @param toYear   the year to carry forward to
+     * @param firstId  the first employee id of the range
+     * @param lastId   the last employee id of the range
+     * @return the number of balances updated
+     */
+    @Transactional
+    public int applyCarryForwardsInRange(Integer fromYear, Integer toYear, Long firstId, Long lastId) {
+        employeeBalanceBatchRepository.lockEmployeeRange(firstId, lastId);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forEmployeeRange(firstId, lastId));
+        return carryForwardBatchRepository.applyPending(fromYear, toYear, firstId, lastId);
+    }
+
+    private int recordCarryForwards(List<LeaveType> leaveTypes, Integer fromYear, Integer toYear,
+            LocalDate carryForwardDate, Long firstId, Long lastId) {
+        int recorded = 0;
+        for (LeaveType leaveType : leaveTypes) {
+            recorded += carryForwardBatchRepository.insertPending(leaveType.getId(), leaveType.getCarryForwardCap(),
+                    fromYear, toYear, carryForwardDate, firstId, lastId);
+        }
+        return recorded;
     }
 
     /**
@@ -83,13 +153,11 @@ public class LeaveCarryForwardService {
             return Optional.empty();
         }
 
-        // Calculate carry-forward amounts
-        BigDecimal originalBalance = employeeBalance.getCurrentBalance();
-        BigDecimal carryForwardCap = leaveType.getCarryForwardCap();
-
-        // Calculate carried forward and forfeited amounts
-        BigDecimal carriedForwardAmount = originalBalance.min(carryForwardCap);
-        BigDecimal forfeitedAmount = originalBalance.subtract(carriedForwardAmount);
+        // Calculate carried forward and forfeited amounts; a missing cap carries everything
+        LeaveDays originalBalance = LeaveDays.of(employeeBalance.getCurrentBalance());
+        LeaveDays carriedForwardAmount = leaveType.getCarryForwardCap() == null ? originalBalance
+                : originalBalance.min(LeaveDays.of(leaveType.getCarryForwardCap()));
+        LeaveDays forfeitedAmount = originalBalance.minus(carriedForwardAmount);
 
         // Create and save carry-forward record
         LeaveCarryForward carryForward = new LeaveCarryForward();
@@ -97,16 +165,24 @@ public class LeaveCarryForwardService {
         carryForward.setFromYear(fromYear);
         carryForward.setToYear(toYear);
         carryForward.setCarryForwardDate(LocalDate.now());
-        carryForward.setOriginalBalance(originalBalance);
-        carryForward.setCarriedForwardAmount(carriedForwardAmount);
-        carryForward.setForfeitedAmount(forfeitedAmount);
+        carryForward.setOriginalBalance(originalBalance.toBigDecimal());
+        carryForward.setCarriedForwardAmount(carriedForwardAmount.toBigDecimal());
+        carryForward.setForfeitedAmount(forfeitedAmount.toBigDecimal());
+        carryForward.setAppliedAt(LocalDateTime.now());
 
         // Update employee balance
-        employeeBalance.setCurrentBalance(carriedForwardAmount);
+        employeeBalance.setCurrentBalance(carriedForwardAmount.toBigDecimal());
         employeeBalanceRepository.save(employeeBalance);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forBalances(List.of(employeeBalance.getId())));
 
         // Save carry-forward record
         LeaveCarryForward savedCarryForward = carryForwardRepository.save(carryForward);
+        balanceMovementRepository.record(employeeBalance.getId(), BalanceMovementType.CARRY_FORWARD, 0,
+                savedCarryForward.getId());
+        if (forfeitedAmount.signum() > 0) {
+            balanceMovementRepository.record(employeeBalance.getId(), BalanceMovementType.FORFEIT,
+                    -forfeitedAmount.hundredths(), savedCarryForward.getId());
+        }
 
         log.info("Processed carry-forward for employee {}: carried forward {} days, forfeited {} days",
                 employeeBalance.getEmployee().getUsername(),
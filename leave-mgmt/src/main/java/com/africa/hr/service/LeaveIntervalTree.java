@@ -0,0 +1,200 @@
+package com.africa.hr.service;
+
+import com.africa.hr.repository.ActiveLeaveRepository.ActiveLeave;
+
+import java.util.function.Consumer;
+
+/**
+ * Interval tree of leave requests: a treap ordered by start date and request
+ * id, where every node also holds the latest end date of its subtree. Inserts
+ * and removals take O(log n) expected time. An overlap query skips every
+ * subtree that ends before the range or starts after it, so it visits
+ * O(log n) nodes plus a path per reported request.
+ * <p>
+ * Not thread safe.
+ */
+final class LeaveIntervalTree {
+
+    private static final class Node {
+        final ActiveLeave leave;
+        final long start;
+        final long end;
+        final int priority;
+        long maxEnd;
+        Node left;
+        Node right;
+
+        Node(ActiveLeave leave) {
+            this.leave = leave;
+            this.start = leave.startDate().toEpochDay();
+            this.end = leave.endDate().toEpochDay();
+            // Derived from the id so the shape of the tree is reproducible
+            this.priority = Long.hashCode(leave.requestId() * 0x9E3779B97F4A7C15L);
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Add a request. The request must not be in the tree already.
+     */
+    void add(ActiveLeave leave) {
+        root = insert(root, new Node(leave));
+        size++;
+    }
+
+    /**
+     * Remove a request.
+     *
+     * @return true if the request was in the tree
+     */
+    boolean remove(ActiveLeave leave) {
+        int before = size;
+        root = delete(root, leave.startDate().toEpochDay(), leave.requestId());
+        return size < before;
+    }
+
+    /**
+     * Visit the requests overlapping an inclusive range of epoch days, in start
+     * date order.
+     */
+    void forEachOverlapping(long from, long to, Consumer<ActiveLeave> action) {
+        collect(root, from, to, action);
+    }
+
+    /**
+     * @return the first request, by start date, overlapping an inclusive range
+     *         of epoch days, or null
+     */
+    ActiveLeave findFirstOverlapping(long from, long to) {
+        return first(root, from, to);
+    }
+
+    private static ActiveLeave first(Node node, long from, long to) {
+        while (node != null && node.maxEnd >= from) {
+            // Anything overlapping in the left subtree starts before this node
+            ActiveLeave found = first(node.left, from, to);
+            if (found != null) {
+                return found;
+            }
+            if (node.start > to) {
+                return null;
+            }
+            if (node.end >= from) {
+                return node.leave;
+            }
+            node = node.right;
+        }
+        return null;
+    }
+
+    private static void collect(Node node, long from, long to, Consumer<ActiveLeave> action) {
+        while (node != null && node.maxEnd >= from) {
+            collect(node.left, from, to, action);
+            if (node.start > to) {
+                return;
+            }
+            if (node.end >= from) {
+                action.accept(node.leave);
+            }
+            node = node.right;
+        }
+    }
+
+    private static int compare(long start, long requestId, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Long.compare(requestId, node.leave.requestId());
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.leave.requestId(), node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node delete(Node node, long start, long requestId) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, requestId, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, requestId);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, requestId);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+}
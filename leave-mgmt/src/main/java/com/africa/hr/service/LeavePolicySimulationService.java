@@ -0,0 +1,349 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.PolicySimulationConfigProperties;
+import com.africa.hr.dto.LeavePolicySimulationRequestDTO;
+import com.africa.hr.dto.LeavePolicySimulationRequestDTO.LeaveTypePolicyDTO;
+import com.africa.hr.dto.LeavePolicySimulationResultDTO;
+import com.africa.hr.dto.LeavePolicySimulationResultDTO.GroupDTO;
+import com.africa.hr.model.Department;
+import com.africa.hr.model.LeaveDays;
+import com.africa.hr.model.LeaveType;
+import com.africa.hr.repository.BalanceSnapshotRepository;
+import com.africa.hr.repository.BalanceSnapshotRepository.BalanceSnapshot;
+import com.africa.hr.repository.DepartmentRepository;
+import com.africa.hr.repository.LeaveTypeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Read-only what-if engine for accrual and carry-forward policy changes.
+ * Loads a primitive-array snapshot of all active balances, then replays the
+ * requested months of accrual and a closing carry-forward under both the
+ * current and the proposed policy. Partitions of the snapshot are replayed in
+ * parallel on a bounded worker pool and their per-group totals merged.
+ * Nothing is written.
+ *
+ * The replay mirrors {@link LeaveAccrualService} and
+ * {@link LeaveCarryForwardService}: the join month is prorated by calendar
+ * days, accruals are capped at the balance's maximum, and the carry-forward
+ * keeps at most the cap of leave types that have it enabled.
+ */
+@Slf4j
+@Service
+public class LeavePolicySimulationService {
+
+    /** Smallest number of balances worth replaying on a separate thread. */
+    private static final int MIN_PARTITION_SIZE = 2048;
+
+    // Metrics accumulated per group, in hundredths of a day except the count
+    private static final int BALANCES = 0;
+    private static final int CURRENT_GRANTED = 1;
+    private static final int PROPOSED_GRANTED = 2;
+    private static final int CURRENT_FORFEITED = 3;
+    private static final int PROPOSED_FORFEITED = 4;
+    private static final int CURRENT_LIABILITY = 5;
+    private static final int PROPOSED_LIABILITY = 6;
+    private static final int METRICS = 7;
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final LeaveTypeRepository leaveTypeRepository;
+    private final DepartmentRepository departmentRepository;
+    private final PolicySimulationConfigProperties properties;
+    private final Executor policySimulationExecutor;
+
+    public LeavePolicySimulationService(BalanceSnapshotRepository balanceSnapshotRepository,
+            LeaveTypeRepository leaveTypeRepository,
+            DepartmentRepository departmentRepository,
+            PolicySimulationConfigProperties properties,
+            @Qualifier("policySimulationExecutor") Executor policySimulationExecutor) {
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.leaveTypeRepository = leaveTypeRepository;
+        this.departmentRepository = departmentRepository;
+        this.properties = properties;
+        this.policySimulationExecutor = policySimulationExecutor;
+    }
+
+    /**
+     * Accrual and carry-forward policy of a leave type, in hundredths of a day.
+     *
+     * @param accrualRate  monthly accrual, or 0 if the leave type doesn't accrue
+     * @param carryForward whether unused days are carried forward
+     * @param cap          carry-forward cap, or -1 if uncapped
+     */
+    private record Policy(long accrualRate, boolean carryForward, long cap) {
+    }
+
+    /**
+     * Calendar of the simulated months, as epoch days.
+     */
+    private record Months(int[] firstDays, int[] lastDays) {
+    }
+
+    /**
+     * Simulate a proposed policy against the current balances.
+     *
+     * @param request the proposed policy and simulation horizon
+     * @return current vs proposed totals per leave type and department
+     * @throws IllegalArgumentException if a policy refers to an unknown leave type
+     */
+    @Transactional(readOnly = true)
+    public LeavePolicySimulationResultDTO simulate(LeavePolicySimulationRequestDTO request) {
+        long startedAt = System.currentTimeMillis();
+        YearMonth startPeriod = request.getStartPeriod() != null
+                ? request.getStartPeriod()
+                : YearMonth.now().plusMonths(1);
+        int monthCount = request.getMonths();
+        boolean includeCarryForward = !Boolean.FALSE.equals(request.getIncludeCarryForward());
+
+        List<LeaveType> leaveTypes = leaveTypeRepository.findAll();
+        Map<Long, Integer> leaveTypeIndex = new HashMap<>();
+        Policy[] currentPolicies = new Policy[leaveTypes.size()];
+        Policy[] proposedPolicies = new Policy[leaveTypes.size()];
+        for (int t = 0; t < leaveTypes.size(); t++) {
+            LeaveType leaveType = leaveTypes.get(t);
+            leaveTypeIndex.put(leaveType.getId(), t);
+            currentPolicies[t] = currentPolicy(leaveType);
+            proposedPolicies[t] = currentPolicies[t];
+        }
+        for (LeaveTypePolicyDTO proposal : request.getPolicies()) {
+            Integer t = leaveTypeIndex.get(proposal.getLeaveTypeId());
+            if (t == null) {
+                throw new IllegalArgumentException("Leave type not found: " + proposal.getLeaveTypeId());
+            }
+            proposedPolicies[t] = proposedPolicy(leaveTypes.get(t), proposal);
+        }
+
+        // Department index 0 holds employees without a department
+        List<Department> departments = departmentRepository.findAll();
+        Map<Long, Integer> departmentIndex = new HashMap<>();
+        for (int d = 0; d < departments.size(); d++) {
+            departmentIndex.put(departments.get(d).getId(), d + 1);
+        }
+        int departmentSlots = departments.size() + 1;
+
+        BalanceSnapshot snapshot = balanceSnapshotRepository.load();
+        int size = snapshot.size();
+        int[] groups = new int[size];
+        for (int i = 0; i < size; i++) {
+            Integer t = leaveTypeIndex.get(snapshot.leaveTypeIds()[i]);
+            int d = departmentIndex.getOrDefault(snapshot.departmentIds()[i], 0);
+            groups[i] = t == null ? -1 : t * departmentSlots + d;
+        }
+
+        Months months = months(startPeriod, monthCount);
+        int groupCount = leaveTypes.size() * departmentSlots;
+        int partitions = Math.max(1, Math.min(properties.getWorkerThreads(), size / MIN_PARTITION_SIZE));
+
+        List<CompletableFuture<long[]>> replays = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            int from = (int) ((long) size * p / partitions);
+            int to = (int) ((long) size * (p + 1) / partitions);
+            replays.add(CompletableFuture.supplyAsync(() -> replayPartition(snapshot, groups, departmentSlots,
+                    currentPolicies, proposedPolicies, months, includeCarryForward, groupCount, from, to),
+                    policySimulationExecutor));
+        }
+        long[] totals = new long[groupCount * METRICS];
+        for (CompletableFuture<long[]> replay : replays) {
+            totals = merge(totals, replay.join());
+        }
+
+        LeavePolicySimulationResultDTO result = new LeavePolicySimulationResultDTO();
+        result.setStartPeriod(startPeriod);
+        result.setEndPeriod(startPeriod.plusMonths(monthCount - 1L));
+        result.setMonths(monthCount);
+        result.setIncludeCarryForward(includeCarryForward);
+        result.setBalancesSimulated(size);
+        result.setLeaveTypeTotals(new ArrayList<>());
+        result.setGroups(new ArrayList<>());
+
+        for (int t = 0; t < leaveTypes.size(); t++) {
+            long[] typeTotals = new long[METRICS];
+            for (int d = 0; d < departmentSlots; d++) {
+                int offset = (t * departmentSlots + d) * METRICS;
+                if (totals[offset + BALANCES] == 0) {
+                    continue;
+                }
+                for (int m = 0; m < METRICS; m++) {
+                    typeTotals[m] += totals[offset + m];
+                }
+                Department department = d == 0 ? null : departments.get(d - 1);
+                result.getGroups().add(toGroup(leaveTypes.get(t), department, totals, offset));
+            }
+            if (typeTotals[BALANCES] > 0) {
+                result.getLeaveTypeTotals().add(toGroup(leaveTypes.get(t), null, typeTotals, 0));
+            }
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - startedAt);
+        log.info("Simulated {} months of leave policy from {} for {} balances in {} ms",
+                monthCount, startPeriod, size, result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * Replay a slice of the snapshot under both policies.
+     *
+     * @return the slice's totals, {@link #METRICS} values per group
+     */
+    private static long[] replayPartition(BalanceSnapshot snapshot, int[] groups, int departmentSlots,
+            Policy[] currentPolicies, Policy[] proposedPolicies, Months months, boolean includeCarryForward,
+            int groupCount, int from, int to) {
+        long[] totals = new long[groupCount * METRICS];
+        long[] outcome = new long[3];
+
+        for (int i = from; i < to; i++) {
+            int group = groups[i];
+            if (group < 0) {
+                continue;
+            }
+            int t = group / departmentSlots;
+            int offset = group * METRICS;
+            long balance = snapshot.currentBalances()[i];
+            long maxBalance = snapshot.maxBalances()[i];
+            boolean eligible = snapshot.accrualEligible()[i];
+            int joinedDay = snapshot.joinedEpochDays()[i];
+
+            totals[offset + BALANCES]++;
+
+            replay(balance, maxBalance, eligible, joinedDay, currentPolicies[t], months, includeCarryForward, outcome);
+            totals[offset + CURRENT_GRANTED] += outcome[0];
+            totals[offset + CURRENT_FORFEITED] += outcome[1];
+            totals[offset + CURRENT_LIABILITY] += outcome[2];
+
+            replay(balance, maxBalance, eligible, joinedDay, proposedPolicies[t], months, includeCarryForward, outcome);
+            totals[offset + PROPOSED_GRANTED] += outcome[0];
+            totals[offset + PROPOSED_FORFEITED] += outcome[1];
+            totals[offset + PROPOSED_LIABILITY] += outcome[2];
+        }
+        return totals;
+    }
+
+    /**
+     * Replay the simulated months and closing carry-forward for one balance.
+     * Writes the days granted, days forfeited and closing balance, in
+     * hundredths, to {@code outcome}.
+     */
+    private static void replay(long balance, long maxBalance, boolean eligible, int joinedDay, Policy policy,
+            Months months, boolean includeCarryForward, long[] outcome) {
+        long granted = 0;
+
+        if (eligible && policy.accrualRate() > 0) {
+            int[] firstDays = months.firstDays();
+            int[] lastDays = months.lastDays();
+            for (int m = 0; m < firstDays.length; m++) {
+                long amount;
+                if (joinedDay < firstDays[m]) {
+                    amount = policy.accrualRate();
+                } else if (joinedDay > lastDays[m]) {
+                    amount = 0;
+                } else {
+                    // Prorate by calendar days, like LeaveAccrualService
+                    long totalDays = lastDays[m] - firstDays[m] + 1L;
+                    long workedDays = lastDays[m] - joinedDay + 1L;
+                    amount = LeaveDays.prorate(policy.accrualRate(), workedDays, totalDays);
+                }
+                if (maxBalance >= 0) {
+                    amount = Math.min(amount, Math.max(0, maxBalance - balance));
+                }
+                balance += amount;
+                granted += amount;
+            }
+        }
+
+        long forfeited = 0;
+        if (includeCarryForward && policy.carryForward() && policy.cap() >= 0 && balance > policy.cap()) {
+            forfeited = balance - policy.cap();
+            balance = policy.cap();
+        }
+
+        outcome[0] = granted;
+        outcome[1] = forfeited;
+        outcome[2] = balance;
+    }
+
+    private static long[] merge(long[] left, long[] right) {
+        long[] merged = new long[left.length];
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] = left[i] + right[i];
+        }
+        return merged;
+    }
+
+    private static Months months(YearMonth startPeriod, int monthCount) {
+        int[] firstDays = new int[monthCount];
+        int[] lastDays = new int[monthCount];
+        for (int m = 0; m < monthCount; m++) {
+            YearMonth period = startPeriod.plusMonths(m);
+            firstDays[m] = (int) period.atDay(1).toEpochDay();
+            lastDays[m] = (int) period.atEndOfMonth().toEpochDay();
+        }
+        return new Months(firstDays, lastDays);
+    }
+
+    private static Policy currentPolicy(LeaveType leaveType) {
+        long accrualRate = Boolean.TRUE.equals(leaveType.getAccrualBased())
+                ? LeaveDays.toHundredths(leaveType.getAccrualRate())
+                : 0;
+        return new Policy(accrualRate,
+                Boolean.TRUE.equals(leaveType.getIsCarryForwardEnabled()),
+                capOf(leaveType.getCarryForwardCap()));
+    }
+
+    private static Policy proposedPolicy(LeaveType leaveType, LeaveTypePolicyDTO proposal) {
+        Policy current = currentPolicy(leaveType);
+        long accrualRate = proposal.getAccrualRate() != null
+                ? LeaveDays.toHundredths(proposal.getAccrualRate())
+                : current.accrualRate();
+        boolean carryForward = proposal.getIsCarryForwardEnabled() != null
+                ? proposal.getIsCarryForwardEnabled()
+                : current.carryForward();
+        long cap = proposal.getCarryForwardCap() != null
+                ? capOf(proposal.getCarryForwardCap())
+                : current.cap();
+        return new Policy(accrualRate, carryForward, cap);
+    }
+
+    private static long capOf(BigDecimal carryForwardCap) {
+        return carryForwardCap == null ? -1 : LeaveDays.toHundredths(carryForwardCap);
+    }
+
+    private static GroupDTO toGroup(LeaveType leaveType, Department department, long[] totals, int offset) {
+        GroupDTO group = new GroupDTO();
+        group.setLeaveTypeId(leaveType.getId());
+        group.setLeaveTypeName(leaveType.getName());
+        if (department != null) {
+            group.setDepartmentId(department.getId());
+            group.setDepartmentName(department.getName());
+        }
+        group.setBalances((int) totals[offset + BALANCES]);
+
+        group.setCurrentDaysGranted(days(totals[offset + CURRENT_GRANTED]));
+        group.setProposedDaysGranted(days(totals[offset + PROPOSED_GRANTED]));
+        group.setDaysGrantedDelta(days(totals[offset + PROPOSED_GRANTED] - totals[offset + CURRENT_GRANTED]));
+
+        group.setCurrentDaysForfeited(days(totals[offset + CURRENT_FORFEITED]));
+        group.setProposedDaysForfeited(days(totals[offset + PROPOSED_FORFEITED]));
+        group.setDaysForfeitedDelta(
+                days(totals[offset + PROPOSED_FORFEITED] - totals[offset + CURRENT_FORFEITED]));
+
+        group.setCurrentLiability(days(totals[offset + CURRENT_LIABILITY]));
+        group.setProposedLiability(days(totals[offset + PROPOSED_LIABILITY]));
+        group.setLiabilityDelta(days(totals[offset + PROPOSED_LIABILITY] - totals[offset + CURRENT_LIABILITY]));
+        return group;
+    }
+
+    private static BigDecimal days(long hundredths) {
+        return LeaveDays.toDays(hundredths);
+    }
+}
@@ -0,0 +1,205 @@
+package com.africa.hr.service;
+
+import com.africa.hr.model.LeaveRequestStatus;
+import com.africa.hr.repository.ActiveLeaveRepository;
+import com.africa.hr.repository.ActiveLeaveRepository.ActiveLeave;
+import com.africa.hr.service.event.LeaveRequestStatusChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory interval index of the pending and approved leave requests,
+ * partitioned by employee and by department, with one company-wide partition.
+ * It answers overlap checks at submission and "who is out" queries without
+ * the date range scans of the database.
+ * <p>
+ * The index is built from the database on startup, or on first use, and is
+ * then kept current by applying each {@link LeaveRequestStatusChangedEvent}
+ * once its transaction has committed. Events can arrive out of order, so the
+ * index keeps the version of every request it holds, and of every request it
+ * removed, and ignores events that are not newer. Requests closed shortly
+ * before a build are read with their versions too, so a late event of an
+ * older transaction cannot bring them back.
+ * <p>
+ * The index is a fast path and is local to each instance; submission checks
+ * overlaps again in the database under a lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LeaveRequestIndex {
+
+    /** How far back a build reads closed requests to guard against late events. */
+    static final Duration CLOSED_LOOKBACK = Duration.ofMinutes(10);
+
+    private final ActiveLeaveRepository activeLeaveRepository;
+
+    private final Map<Long, ActiveLeave> requests = new HashMap<>();
+    private final Map<Long, Long> closedVersions = new HashMap<>();
+    private final Map<Long, LeaveIntervalTree> employees = new HashMap<>();
+    private final Map<Long, LeaveIntervalTree> departments = new HashMap<>();
+    private LeaveIntervalTree company = new LeaveIntervalTree();
+    private boolean loaded;
+
+    /**
+     * Build the index when the application starts, so the first request does
+     * not pay for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Rebuild the index from the database.
+     */
+    public synchronized void reload() {
+        requests.clear();
+        closedVersions.clear();
+        employees.clear();
+        departments.clear();
+        company = new LeaveIntervalTree();
+        activeLeaveRepository.forEachActiveLeave(this::add);
+        // A request closed between both reads is dropped for its newer version
+        activeLeaveRepository.forEachClosedSince(LocalDateTime.now().minus(CLOSED_LOOKBACK),
+                (requestId, version) -> close(requestId, version));
+        loaded = true;
+        log.info("Indexed {} pending and approved leave requests", requests.size());
+    }
+
+    /**
+     * Find a pending or approved request of an employee overlapping a date
+     * range.
+     *
+     * @param employeeId the employee ID
+     * @param startDate  the first date of the range
+     * @param endDate    the last date of the range
+     * @return the first overlapping request by start date, if any
+     */
+    public synchronized Optional<ActiveLeave> findOverlapping(Long employeeId, LocalDate startDate,
+            LocalDate endDate) {
+        ensureLoaded();
+        LeaveIntervalTree tree = employees.get(employeeId);
+        if (tree == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(tree.findFirstOverlapping(startDate.toEpochDay(), endDate.toEpochDay()));
+    }
+
+    /**
+     * Find who is out during a date range.
+     *
+     * @param departmentId   the department, or null for the whole company
+     * @param startDate      the first date of the range
+     * @param endDate        the last date of the range
+     * @param includePending whether pending requests count as being out
+     * @return the overlapping requests, ordered by start date
+     */
+    public synchronized List<ActiveLeave> findOut(Long departmentId, LocalDate startDate, LocalDate endDate,
+            boolean includePending) {
+        ensureLoaded();
+        LeaveIntervalTree tree = departmentId != null ? departments.get(departmentId) : company;
+        List<ActiveLeave> out = new ArrayList<>();
+        if (tree != null) {
+            tree.forEachOverlapping(startDate.toEpochDay(), endDate.toEpochDay(), leave -> {
+                if (includePending || leave.status() == LeaveRequestStatus.APPROVED) {
+                    out.add(leave);
+                }
+            });
+        }
+        return out;
+    }
+
+    /**
+     * Apply a status change once the publishing transaction has committed, or
+     * right away when it was published outside a transaction. Changes seen
+     * before the index is built are left to the build, and changes not newer
+     * than the version the index holds are ignored.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onLeaveRequestStatusChanged(LeaveRequestStatusChangedEvent event) {
+        if (!loaded) {
+            return;
+        }
+        Long knownVersion = knownVersion(event.requestId());
+        if (knownVersion != null && event.version() <= knownVersion) {
+            log.debug("Ignored version {} of leave request {}, already at version {}", event.version(),
+                    event.requestId(), knownVersion);
+            return;
+        }
+        if (isActive(event.status())) {
+            remove(event.requestId());
+            add(new ActiveLeave(event.requestId(), event.employeeId(), event.departmentId(), event.startDate(),
+                    event.endDate(), event.status(), event.version()));
+        } else {
+            close(event.requestId(), event.version());
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    private static boolean isActive(LeaveRequestStatus status) {
+        return status == LeaveRequestStatus.PENDING || status == LeaveRequestStatus.APPROVED;
+    }
+
+    private Long knownVersion(Long requestId) {
+        ActiveLeave leave = requests.get(requestId);
+        return leave != null ? Long.valueOf(leave.version()) : closedVersions.get(requestId);
+    }
+
+    private void close(Long requestId, long version) {
+        Long knownVersion = knownVersion(requestId);
+        if (knownVersion == null || version > knownVersion) {
+            remove(requestId);
+            closedVersions.put(requestId, version);
+        }
+    }
+
+    private void add(ActiveLeave leave) {
+        closedVersions.remove(leave.requestId());
+        requests.put(leave.requestId(), leave);
+        employees.computeIfAbsent(leave.employeeId(), id -> new LeaveIntervalTree()).add(leave);
+        if (leave.departmentId() != null) {
+            departments.computeIfAbsent(leave.departmentId(), id -> new LeaveIntervalTree()).add(leave);
+        }
+        company.add(leave);
+    }
+
+    private void remove(Long requestId) {
+        ActiveLeave leave = requests.remove(requestId);
+        if (leave == null) {
+            return;
+        }
+        removeFrom(employees, leave.employeeId(), leave);
+        if (leave.departmentId() != null) {
+            removeFrom(departments, leave.departmentId(), leave);
+        }
+        company.remove(leave);
+    }
+
+    private static void removeFrom(Map<Long, LeaveIntervalTree> partitions, Long key, ActiveLeave leave) {
+        LeaveIntervalTree tree = partitions.get(key);
+        if (tree != null && tree.remove(leave) && tree.isEmpty()) {
+            partitions.remove(key);
+        }
+    }
+}
@@ -8,35 +8,50 @@ import com.africa.hr.dto.PublicHolidayDTO;
 import com.africa.hr.dto.DepartmentDTO;
 import com.africa.hr.dto.DocumentDTO;
 import com.africa.hr.dto.LeaveRequestResponseDTO;
+import com.africa.hr.exception.BalanceAdjustmentException;
+import com.africa.hr.exception.LeaveRequestConflictException;
 import com.africa.hr.model.*;
+import com.africa.hr.repository.CompanyCalendarRepository;
+import com.africa.hr.repository.CompanyCalendarRepository.ApprovedLeave;
+import com.africa.hr.repository.ActiveLeaveRepository.ActiveLeave;
 import com.africa.hr.repository.LeaveRequestRepository;
 import com.africa.hr.repository.DocumentRepository;
 import com.africa.hr.service.email.EmailService;
+import com.africa.hr.service.event.LeaveRequestStatusChangedEvent;
 import com.africa.hr.websocket.WebSocketNotificationService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LeaveRequestService {
 
+    /** Attempts at a status transition before a lost race is reported. */
+    private static final int MAX_TRANSITION_ATTEMPTS = 3;
+
     private final LeaveRequestRepository leaveRequestRepository;
     private final DocumentRepository documentRepository;
     private final LeaveTypeService leaveTypeService;
@@ -45,6 +60,14 @@ public class LeaveRequestService {
     private final PublicHolidayService publicHolidayService;
     private final DepartmentService departmentService;
     private final WebSocketNotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final BusinessCalendar businessCalendar;
+    private final CompanyCalendarRepository companyCalendarRepository;
+    private final ObjectMapper objectMapper;
+    private final CompanyCalendarCache companyCalendarCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LeaveRequestIndex leaveRequestIndex;
+    private final DepartmentAbsenceService departmentAbsenceService;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -78,16 +101,9 @@ public class LeaveRequestService {
                     "Document attachment is required for " + leaveType.getName() + " leave type");
         }
 
-        // Calculate duration in days
-        long durationInDays = ChronoUnit.DAYS.between(requestDTO.getStartDate(), requestDTO.getEndDate()) + 1;
-
-        // Adjust for half days
-        if (Boolean.TRUE.equals(requestDTO.getHalfDayStart())) {
-            durationInDays -= 0.5;
-        }
-        if (Boolean.TRUE.equals(requestDTO.getHalfDayEnd())) {
-            durationInDays -= 0.5;
-        }
+        // Count the working days of the request on the business calendar
+        LeaveDays workingDays = businessCalendar.countLeaveDays(requestDTO.getStartDate(), requestDTO.getEndDate(),
+                requestDTO.getHalfDayStart(), requestDTO.getHalfDayEnd());
 
         // Leave balance will be checked and updated during approval process
 
@@ -115,13 +131,35 @@ public class LeaveRequestService {
         // }
 
         // Validate duration against leave type's max duration
-        if (leaveType.getMaxDuration() != null && durationInDays > leaveType.getMaxDuration()) {
+        if (leaveType.getMaxDuration() != null
+                && workingDays.compareTo(LeaveDays.ofHundredths(leaveType.getMaxDuration() * 100L)) > 0) {
             throw new IllegalStateException(
                     String.format(
                             "Leave request duration (%s days) exceeds maximum allowed duration (%s days) for leave type %s",
-                            durationInDays, leaveType.getMaxDuration(), leaveType.getName()));
+                            workingDays, leaveType.getMaxDuration(), leaveType.getName()));
         }
 
+        // Reject dates already held by another pending or approved request. The
+        // in-memory index turns most overlaps away without touching the database;
+        // the check is then repeated under a lock on the employee, so concurrent
+        // submissions, on this or any other instance, are checked one at a time
+        leaveRequestIndex.findOverlapping(employee.getId(), requestDTO.getStartDate(), requestDTO.getEndDate())
+                .ifPresent(existing -> {
+                    throw overlapConflict(existing.requestId(), existing.status(), existing.startDate(),
+                            existing.endDate());
+                });
+        leaveRequestRepository.lockEmployee(employee.getId());
+        leaveRequestRepository.findHeldOverlappingForUpdate(employee.getId(), requestDTO.getStartDate(),
+                requestDTO.getEndDate()).stream()
+                .findFirst()
+                .ifPresent(existing -> {
+                    throw overlapConflict(existing.getId(), existing.getStatus(), existing.getStartDate(),
+                            existing.getEndDate());
+                });
+
+        // Hold the dates against the department's cap on concurrent absences
+        departmentAbsenceService.hold(employee.getDepartment(), requestDTO.getStartDate(), requestDTO.getEndDate());
+
         // Create leave request
         LeaveRequest leaveRequest = new LeaveRequest();
         leaveRequest.setEmployee(employee);
@@ -130,6 +168,7 @@ public class LeaveRequestService {
         leaveRequest.setEndDate(requestDTO.getEndDate());
         leaveRequest.setHalfDayStart(requestDTO.getHalfDayStart());
         leaveRequest.setHalfDayEnd(requestDTO.getHalfDayEnd());
+        leaveRequest.setWorkingDays(workingDays.toBigDecimal());
         leaveRequest.setLeaveRequestReason(requestDTO.getLeaveRequestReason());
         leaveRequest.setStatus(LeaveRequestStatus.PENDING);
 
@@ -169,6 +208,8 @@ public class LeaveRequestService {
 
         // Save leave request first to get the ID for document linkage
         leaveRequest = leaveRequestRepository.save(leaveRequest);
+        employeeBalanceService.moveRequestDays(leaveRequest, null);
+        eventPublisher.publishEvent(LeaveRequestStatusChangedEvent.of(leaveRequest, null));
 
         // Save additional documents if provided
         if (requestDTO.getDocuments() != null) {
@@ -198,42 +239,32 @@ public class LeaveRequestService {
         return leaveRequest;
     }
 
-    @Transactional
+    /**
+     * Approve or reject a pending leave request.
+     * The decision is a single conditional write that only applies while the
+     * request is still pending, so concurrent decisions and cancellations
+     * cannot overwrite each other: the first one wins and the others fail with
+     * a {@link LeaveRequestConflictException}. Notifications are sent once the
+     * decision has committed.
+     *
+     * @throws IllegalArgumentException      if the decision is neither an approval nor a rejection
+     * @throws LeaveRequestConflictException if the request is no longer pending
+     * @throws BalanceAdjustmentException    if the balance is too low for the approved days
+     */
     public LeaveRequest approveLeaveRequest(Long requestId, User approver, LeaveRequestApprovalDTO approvalDTO) {
         log.info("Processing leave request approval/rejection: {}", requestId);
 
-        // Fetch leave request with necessary associations
-        LeaveRequest leaveRequest = leaveRequestRepository.findById(requestId)
-                .orElseThrow(() -> new EntityNotFoundException("Leave request not found with ID: " + requestId));
-
-        // Initialize necessary associations
-        Hibernate.initialize(leaveRequest.getEmployee());
-        Hibernate.initialize(leaveRequest.getLeaveType());
-        Hibernate.initialize(leaveRequest.getManager());
-
-        // Check if approver is ADMIN or in the same department as the employee
-        boolean isAdmin = approver.getRole().getName().equals("ROLE_ADMIN");
-        boolean isSameDepartment = approver.getDepartment().getId()
-                .equals(leaveRequest.getEmployee().getDepartment().getId());
-
-        if (!isAdmin && !isSameDepartment) {
-            throw new IllegalStateException("You are not authorized to approve this leave request");
+        if (approvalDTO.getStatus() != LeaveRequestStatus.APPROVED
+                && approvalDTO.getStatus() != LeaveRequestStatus.REJECTED) {
+            throw new IllegalArgumentException("A leave request can only be approved or rejected");
         }
 
-        // Update leave request status
-        leaveRequest.setStatus(approvalDTO.getStatus());
-        leaveRequest.setManager(approver);
-        leaveRequest.setApprovedAt(LocalDateTime.now());
-
-        if (approvalDTO.getStatus() == LeaveRequestStatus.REJECTED) {
-            leaveRequest.setRejectionReason(approvalDTO.getRejectionReason());
-        }
-
-        LeaveRequest updatedRequest = leaveRequestRepository.save(leaveRequest);
+        LeaveRequest leaveRequest = transitionWithRetry(requestId,
+                () -> decideLeaveRequest(requestId, approver, approvalDTO));
 
         // Send email notification - handle failure gracefully
         try {
-            emailService.sendLeaveRequestStatusNotification(updatedRequest);
+            emailService.sendLeaveRequestStatusNotification(leaveRequest);
         } catch (Exception e) {
             log.error("Failed to send email notification for leave request {}: {}", requestId, e.getMessage());
             // Don't throw the exception - email failure shouldn't affect the approval
@@ -265,7 +296,50 @@ public class LeaveRequestService {
             // approval process
         }
 
-        return updatedRequest;
+        return leaveRequest;
+    }
+
+    private LeaveRequest decideLeaveRequest(Long requestId, User approver, LeaveRequestApprovalDTO approvalDTO) {
+        // Fetch leave request with necessary associations
+        LeaveRequest leaveRequest = leaveRequestRepository.findById(requestId)
+                .orElseThrow(() -> new EntityNotFoundException("Leave request not found with ID: " + requestId));
+
+        // Initialize necessary associations
+        Hibernate.initialize(leaveRequest.getEmployee());
+        Hibernate.initialize(leaveRequest.getLeaveType());
+        Hibernate.initialize(leaveRequest.getManager());
+
+        // Check if approver is ADMIN or in the same department as the employee
+        boolean isAdmin = approver.getRole().getName().equals("ROLE_ADMIN");
+        boolean isSameDepartment = approver.getDepartment().getId()
+                .equals(leaveRequest.getEmployee().getDepartment().getId());
+
+        if (!isAdmin && !isSameDepartment) {
+            throw new IllegalStateException("You are not authorized to approve this leave request");
+        }
+
+        if (leaveRequest.getStatus() != LeaveRequestStatus.PENDING) {
+            throw new LeaveRequestConflictException(requestId,
+                    "Leave request " + requestId + " is already " + leaveRequest.getStatus().name().toLowerCase());
+        }
+
+        String rejectionReason = approvalDTO.getStatus() == LeaveRequestStatus.REJECTED
+                ? approvalDTO.getRejectionReason()
+                : null;
+        if (leaveRequestRepository.decidePending(requestId, approvalDTO.getStatus(), approver, rejectionReason,
+                LocalDateTime.now()) == 0) {
+            throw new LeaveRequestConflictException(requestId,
+                    "Leave request " + requestId + " is no longer pending");
+        }
+
+        // Pick up the decision and the new version without another write
+        entityManager.refresh(leaveRequest);
+        employeeBalanceService.moveRequestDays(leaveRequest, LeaveRequestStatus.PENDING);
+        if (leaveRequest.getStatus() == LeaveRequestStatus.REJECTED) {
+            departmentAbsenceService.release(leaveRequest);
+        }
+        eventPublisher.publishEvent(LeaveRequestStatusChangedEvent.of(leaveRequest, LeaveRequestStatus.PENDING));
+        return leaveRequest;
     }
 
     @Transactional(readOnly = true)
@@ -293,33 +367,96 @@ public class LeaveRequestService {
                 .orElseThrow(() -> new EntityNotFoundException("Leave request not found with ID: " + requestId));
     }
 
-    @Transactional
+    /**
+     * Get the leave requests of the employees who are out during a date range,
+     * found through the leave request index.
+     *
+     * @param departmentId   the department, or null for the whole company
+     * @param startDate      the first date of the range
+     * @param endDate        the last date of the range
+     * @param includePending whether pending requests count as being out
+     * @return the requests, ordered by start date
+     */
+    @Transactional(readOnly = true)
+    public List<LeaveRequest> getLeaveRequestsOut(Long departmentId, LocalDate startDate, LocalDate endDate,
+            boolean includePending) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        List<Long> requestIds = leaveRequestIndex.findOut(departmentId, startDate, endDate, includePending).stream()
+                .map(ActiveLeave::requestId)
+                .toList();
+        if (requestIds.isEmpty()) {
+            return List.of();
+        }
+        return leaveRequestRepository.findWithDetailsByIdIn(requestIds);
+    }
+
+    /**
+     * Cancel a pending leave request of an employee.
+     * The cancellation is a single conditional write that only applies while
+     * the request is still pending, so it cannot overwrite a concurrent
+     * decision.
+     *
+     * @throws LeaveRequestConflictException if the request is no longer pending
+     */
     public LeaveRequestResponseDTO cancelLeaveRequest(Long requestId, User employee) {
         log.info("Cancelling leave request: {}", requestId);
 
-        // Fetch leave request with minimal associations
-        LeaveRequest leaveRequest = leaveRequestRepository.findById(requestId)
-                .orElseThrow(() -> new EntityNotFoundException("Leave request not found with ID: " + requestId));
+        return transitionWithRetry(requestId, () -> {
+            // Fetch leave request with minimal associations
+            LeaveRequest leaveRequest = leaveRequestRepository.findById(requestId)
+                    .orElseThrow(() -> new EntityNotFoundException("Leave request not found with ID: " + requestId));
 
-        // Validate employee owns the request
-        if (!leaveRequest.getEmployee().getId().equals(employee.getId())) {
-            throw new IllegalStateException("You are not authorized to cancel this leave request");
-        }
+            // Validate employee owns the request
+            if (!leaveRequest.getEmployee().getId().equals(employee.getId())) {
+                throw new IllegalStateException("You are not authorized to cancel this leave request");
+            }
 
-        // Only pending requests can be cancelled
-        if (leaveRequest.getStatus() != LeaveRequestStatus.PENDING) {
-            throw new IllegalStateException("Only pending leave requests can be cancelled");
-        }
+            // Only pending requests can be cancelled
+            if (leaveRequest.getStatus() != LeaveRequestStatus.PENDING
+                    || leaveRequestRepository.cancelPending(requestId, employee.getId(), LocalDateTime.now()) == 0) {
+                throw new LeaveRequestConflictException(requestId, "Only pending leave requests can be cancelled");
+            }
 
-        // Update status to cancelled
-        leaveRequest.setStatus(LeaveRequestStatus.CANCELLED);
-        leaveRequest = leaveRequestRepository.save(leaveRequest);
+            entityManager.refresh(leaveRequest);
+            employeeBalanceService.moveRequestDays(leaveRequest, LeaveRequestStatus.PENDING);
+            departmentAbsenceService.release(leaveRequest);
+            eventPublisher.publishEvent(LeaveRequestStatusChangedEvent.of(leaveRequest, LeaveRequestStatus.PENDING));
+
+            // Send notification to the manager about the cancellation
+            sendCancellationNotification(leaveRequest);
+
+            // Map to DTO inside the transaction
+            return LeaveRequestResponseDTO.fromEntity(leaveRequest);
+        });
+    }
 
-        // Send notification to the manager about the cancellation
-        sendCancellationNotification(leaveRequest);
+    private static LeaveRequestConflictException overlapConflict(Long requestId, LeaveRequestStatus status,
+            LocalDate startDate, LocalDate endDate) {
+        return new LeaveRequestConflictException(requestId, String.format(
+                "Leave request overlaps your %s leave request from %s to %s",
+                status.name().toLowerCase(), startDate, endDate));
+    }
 
-        // Map to DTO inside the transaction
-        return LeaveRequestResponseDTO.fromEntity(leaveRequest);
+    /**
+     * Run a status transition in its own transaction, retrying it a bounded
+     * number of times when it loses a race on a lock or a version. Each retry
+     * reads the request again, so a transition that is no longer possible
+     * fails with a conflict instead of being retried.
+     */
+    private <T> T transitionWithRetry(Long requestId, Supplier<T> transition) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> transition.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_TRANSITION_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Leave request {} transition attempt {} of {} failed, retrying: {}",
+                        requestId, attempt, MAX_TRANSITION_ATTEMPTS, e.getMessage());
+            }
+        }
     }
 
     private void sendCancellationNotification(LeaveRequest leaveRequest) {
@@ -394,16 +531,33 @@ public class LeaveRequestService {
     }
 
     /**
-     * Get company calendar data including all employee leave records and all public
-     * holidays for an entire year.
+     * Get the company calendar of a period from the calendar cache, rendering it
+     * with {@link #writeCompanyCalendar} on a miss.
      *
      * @param year  the year to get data for
      * @param month the month to get data for (optional, if provided will filter to
      *              just that month)
-     * @return a DTO containing all employee leave records and all public holidays
+     * @return the calendar as a JSON document with its ETag
+     * @throws IOException if rendering fails
      */
-    @Transactional(readOnly = true)
-    public CompanyCalendarDTO getCompanyCalendarData(int year, Integer month) {
+    public CompanyCalendarCache.RenderedCalendar getCompanyCalendar(int year, Integer month) throws IOException {
+        return companyCalendarCache.get(year, month, out -> writeCompanyCalendar(year, month, out));
+    }
+
+    /**
+     * Write the company calendar as streamed JSON, in the shape of
+     * {@link CompanyCalendarDTO}: the approved leave of all employees, the public
+     * holidays and the departments. Approved leave is read with one projection
+     * query and each absence is written as soon as it is read, so the response is
+     * never held in memory as a whole.
+     *
+     * @param year  the year to get data for
+     * @param month the month to get data for (optional, if provided will filter to
+     *              just that month)
+     * @param out   the stream to write the JSON document to; it is left open
+     * @throws IOException if writing fails
+     */
+    public void writeCompanyCalendar(int year, Integer month, OutputStream out) throws IOException {
         // Calculate date range - either for the whole year or for a specific month
         LocalDate firstDay;
         LocalDate lastDay;
@@ -422,92 +576,81 @@ public class LeaveRequestService {
                     year, firstDay, lastDay);
         }
 
-        // Get leave requests for all departments within the date range
-        List<LeaveRequest> leaveRequests = leaveRequestRepository.findByDateRange(firstDay, lastDay);
-        log.info("Fetching leave requests for ALL employees between {} and {}", firstDay, lastDay);
-
-        // Convert leave requests to employee leave DTOs - only include APPROVED
-        List<EmployeeLeaveDTO> employeeLeaves = leaveRequests.stream()
-                .filter(request -> request.getStatus() == LeaveRequestStatus.APPROVED)
-                .map(this::convertToEmployeeLeaveDTO)
-                .collect(Collectors.toList());
-
-        log.info("Found {} approved leave records for all employees in the requested period", employeeLeaves.size());
-
-        // Get ALL public holidays for the specified year
-        List<PublicHoliday> publicHolidays;
-        if (month != null) {
-            // If month is provided, get holidays for that month
-            publicHolidays = publicHolidayService.getHolidaysBetweenDates(firstDay, lastDay);
-        } else {
-            // If no month provided, get all holidays for the year
-            publicHolidays = publicHolidayService.getHolidaysByYear(year);
-        }
-
-        List<PublicHolidayDTO> publicHolidayDTOs = publicHolidays.stream()
-                .map(PublicHolidayDTO::fromEntity)
-                .collect(Collectors.toList());
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
 
-        log.info("Retrieved {} public holidays from database", publicHolidayDTOs.size());
+            // Stream the approved leave of all employees overlapping the date range
+            generator.writeArrayFieldStart("employeeLeaves");
+            int[] leaveCount = { 0 };
+            try {
+                companyCalendarRepository.forEachApprovedLeave(firstDay, lastDay, leave -> {
+                    try {
+                        generator.writeObject(toEmployeeLeaveDTO(leave));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    leaveCount[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+            log.info("Wrote {} approved leave records for all employees between {} and {}",
+                    leaveCount[0], firstDay, lastDay);
+
+            // Get ALL public holidays for the specified year
+            List<PublicHoliday> publicHolidays;
+            if (month != null) {
+                // If month is provided, get holidays for that month
+                publicHolidays = publicHolidayService.getHolidaysBetweenDates(firstDay, lastDay);
+            } else {
+                // If no month provided, get all holidays for the year
+                publicHolidays = publicHolidayService.getHolidaysByYear(year);
+            }
 
-        // Get all departments
-        List<Department> departments = departmentService.getAllDepartments();
-        List<DepartmentDTO> departmentDTOs = departments.stream()
-                .map(DepartmentDTO::fromEntity)
-                .collect(Collectors.toList());
+            generator.writeArrayFieldStart("publicHolidays");
+            for (PublicHoliday holiday : publicHolidays) {
+                generator.writeObject(PublicHolidayDTO.fromEntity(holiday));
+            }
+            generator.writeEndArray();
 
-        log.info("Retrieved {} departments from database", departmentDTOs.size());
+            // Get all departments
+            generator.writeArrayFieldStart("departments");
+            for (Department department : departmentService.getAllDepartments()) {
+                generator.writeObject(DepartmentDTO.fromEntity(department));
+            }
+            generator.writeEndArray();
 
-        // Create and return the response
-        return CompanyCalendarDTO.builder()
-                .employeeLeaves(employeeLeaves)
-                .publicHolidays(publicHolidayDTOs)
-                .departments(departmentDTOs)
-                .build();
+            generator.writeEndObject();
+        }
     }
 
     /**
-     * Convert a LeaveRequest to an EmployeeLeaveDTO.
+     * Convert an approved absence read for the company calendar to an
+     * EmployeeLeaveDTO.
      *
-     * @param leaveRequest the leave request to convert
+     * @param leave the approved absence
      * @return the employee leave DTO
      */
-    private EmployeeLeaveDTO convertToEmployeeLeaveDTO(LeaveRequest leaveRequest) {
-        User employee = leaveRequest.getEmployee();
-        Department department = employee.getDepartment();
-        User manager = leaveRequest.getManager();
-
-        // Calculate working days excluding weekends
-        LocalDate startDate = leaveRequest.getStartDate();
-        LocalDate endDate = leaveRequest.getEndDate();
-        double days = 0;
-
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            // Skip weekends (Saturday = 6, Sunday = 7 in DayOfWeek enum)
-            if (date.getDayOfWeek().getValue() < 6) {
-                days += 1.0;
-            }
-        }
-
-        // Adjust for half days
-        if (Boolean.TRUE.equals(leaveRequest.getHalfDayStart()) && startDate.getDayOfWeek().getValue() < 6) {
-            days -= 0.5;
-        }
-        if (Boolean.TRUE.equals(leaveRequest.getHalfDayEnd()) && endDate.getDayOfWeek().getValue() < 6) {
-            days -= 0.5;
-        }
+    private EmployeeLeaveDTO toEmployeeLeaveDTO(ApprovedLeave leave) {
+        // Count working days on the business calendar
+        LeaveDays days = leave.workingDays() != null
+                ? LeaveDays.of(leave.workingDays())
+                : businessCalendar.countLeaveDays(leave.startDate(), leave.endDate(), leave.halfDayStart(),
+                        leave.halfDayEnd());
 
         return EmployeeLeaveDTO.builder()
-                .employeeId(employee.getId().toString())
-                .employeeName(employee.getFullName())
-                .departmentName(department != null ? department.getName() : "")
-                .startDate(leaveRequest.getStartDate())
-                .endDate(leaveRequest.getEndDate())
-                .leaveType(leaveRequest.getLeaveType().getName())
-                .status(leaveRequest.getStatus().name())
-                .days(days)
-                .approverId(manager != null ? manager.getId().toString() : null)
-                .approverName(manager != null ? manager.getFullName() : null)
+                .employeeId(String.valueOf(leave.employeeId()))
+                .employeeName(leave.employeeName())
+                .departmentName(leave.departmentName() != null ? leave.departmentName() : "")
+                .startDate(leave.startDate())
+                .endDate(leave.endDate())
+                .leaveType(leave.leaveType())
+                .status(LeaveRequestStatus.APPROVED.name())
+                .days(days.toBigDecimal().doubleValue())
+                .approverId(leave.approverId() != null ? leave.approverId().toString() : null)
+                .approverName(leave.approverName())
                 .build();
     }
 
@@ -4,9 +4,11 @@ import com.africa.hr.model.LeaveType;
 import com.africa.hr.repository.LeaveTypeRepository;
 import com.africa.hr.dto.LeaveTypeDTO;
 import com.africa.hr.dto.LeaveTypeUpdateDTO;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +24,7 @@ import java.util.List;
 public class LeaveTypeService {
 
     private final LeaveTypeRepository leaveTypeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new leave type.
@@ -84,6 +87,7 @@ public class LeaveTypeService {
         existingLeaveType.setRequireDocument(leaveType.getRequireDocument());
 
         existingLeaveType.validateConfiguration();
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forAllEmployees());
         return leaveTypeRepository.save(existingLeaveType);
     }
 
@@ -172,6 +176,7 @@ public class LeaveTypeService {
         // This will be implemented when we have the EmployeeBalanceService
 
         leaveTypeRepository.delete(leaveType);
+        eventPublisher.publishEvent(EmployeeBalancesChangedEvent.forAllEmployees());
     }
 
     /**
@@ -2,9 +2,11 @@ package com.africa.hr.service;
 
 import com.africa.hr.model.PublicHoliday;
 import com.africa.hr.repository.PublicHolidayRepository;
+import com.africa.hr.service.event.PublicHolidaysChangedEvent;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +25,7 @@ import java.util.stream.Collectors;
 public class PublicHolidayService {
 
     private final PublicHolidayRepository publicHolidayRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Get a list of all public holidays
@@ -152,7 +155,9 @@ public class PublicHolidayService {
     @Transactional
     public PublicHoliday createHoliday(PublicHoliday holiday) {
         log.info("Creating new public holiday: {}", holiday.getName());
-        return publicHolidayRepository.save(holiday);
+        PublicHoliday savedHoliday = publicHolidayRepository.save(holiday);
+        eventPublisher.publishEvent(new PublicHolidaysChangedEvent());
+        return savedHoliday;
     }
 
     /**
@@ -175,7 +180,9 @@ public class PublicHolidayService {
         existingHoliday.setDescription(updatedHoliday.getDescription());
         existingHoliday.setIsRecurring(updatedHoliday.getIsRecurring());
 
-        return publicHolidayRepository.save(existingHoliday);
+        PublicHoliday savedHoliday = publicHolidayRepository.save(existingHoliday);
+        eventPublisher.publishEvent(new PublicHolidaysChangedEvent());
+        return savedHoliday;
     }
 
     /**
@@ -193,5 +200,6 @@ public class PublicHolidayService {
         }
 
         publicHolidayRepository.deleteById(id);
+        eventPublisher.publishEvent(new PublicHolidaysChangedEvent());
     }
 }
\ No newline at end of file
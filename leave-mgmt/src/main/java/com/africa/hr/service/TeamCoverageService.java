@@ -0,0 +1,132 @@
+package com.africa.hr.service;
+
+import com.africa.hr.dto.TeamCoverageDTO;
+import com.africa.hr.repository.ActiveLeaveRepository;
+import com.africa.hr.repository.ActiveLeaveRepository.Absence;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Consumer;
+
+/**
+ * Computes how many members of a department are absent on each day of a
+ * date range, for planning approvals.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TeamCoverageService {
+
+    /** Longest range, in days, that coverage is computed for. */
+    static final int MAX_RANGE_DAYS = 366;
+
+    private final ActiveLeaveRepository activeLeaveRepository;
+
+    /**
+     * Count the absent members of a department on each day of a range. A day
+     * counts as absent when any part of it is on leave, and an employee with
+     * overlapping requests is counted once.
+     * <p>
+     * The absences are read ordered by employee and start date, so each
+     * employee's requests are merged into disjoint intervals in one pass. Each
+     * interval adds one at its first day and removes one after its last day of
+     * a difference array, and a running sum over that array gives the count
+     * of every day.
+     *
+     * @param departmentId   the department ID
+     * @param startDate      the first date of the range
+     * @param endDate        the last date of the range
+     * @param includePending whether pending requests count as absences
+     * @return the daily coverage
+     * @throws IllegalArgumentException if the range is empty or too long
+     */
+    @Transactional(readOnly = true)
+    public TeamCoverageDTO getCoverage(Long departmentId, LocalDate startDate, LocalDate endDate,
+            boolean includePending) {
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (days < 1) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        if (days > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Coverage range cannot exceed " + MAX_RANGE_DAYS + " days");
+        }
+
+        Sweep sweep = new Sweep(startDate.toEpochDay(), (int) days);
+        activeLeaveRepository.forEachDepartmentAbsence(departmentId, startDate, endDate, includePending, sweep);
+        int[] delta = sweep.finish();
+
+        int teamSize = activeLeaveRepository.countDepartmentMembers(departmentId);
+        int[] absent = new int[(int) days];
+        int[] percentAbsent = new int[(int) days];
+        int running = 0;
+        int peak = 0;
+        for (int day = 0; day < days; day++) {
+            running += delta[day];
+            absent[day] = running;
+            percentAbsent[day] = teamSize > 0 ? (int) ((running * 200L + teamSize) / (teamSize * 2L)) : 0;
+            peak = Math.max(peak, running);
+        }
+
+        log.debug("Computed coverage of department {} from {} to {}", departmentId, startDate, endDate);
+        return TeamCoverageDTO.builder()
+                .departmentId(departmentId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .teamSize(teamSize)
+                .includesPending(includePending)
+                .absent(absent)
+                .percentAbsent(percentAbsent)
+                .peakAbsent(peak)
+                .build();
+    }
+
+    /**
+     * Merges the absences of each employee, read in employee and start date
+     * order, and records every merged interval in a difference array.
+     */
+    private static final class Sweep implements Consumer<Absence> {
+
+        private final long first;
+        private final int[] delta;
+        private long employeeId = -1;
+        private int from;
+        private int to;
+
+        Sweep(long first, int days) {
+            this.first = first;
+            this.delta = new int[days + 1];
+        }
+
+        @Override
+        public void accept(Absence absence) {
+            // Clamp to the range, as day offsets from its first day
+            int start = (int) (Math.max(absence.startDate().toEpochDay() - first, 0));
+            int end = (int) (Math.min(absence.endDate().toEpochDay() - first, delta.length - 2));
+            if (absence.employeeId() == employeeId && start <= to + 1) {
+                to = Math.max(to, end);
+                return;
+            }
+            close();
+            employeeId = absence.employeeId();
+            from = start;
+            to = end;
+        }
+
+        int[] finish() {
+            close();
+            return delta;
+        }
+
+        private void close() {
+            if (employeeId != -1) {
+                delta[from]++;
+                delta[to + 1]--;
+                employeeId = -1;
+            }
+        }
+    }
+}
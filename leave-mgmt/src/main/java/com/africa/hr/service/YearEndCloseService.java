@@ -0,0 +1,514 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.AccrualRunnerConfigProperties;
+import com.africa.hr.dto.YearEndCloseDTO;
+import com.africa.hr.dto.YearEndCloseDiffDTO;
+import com.africa.hr.model.AccrualRunStatus;
+import com.africa.hr.model.YearEndClose;
+import com.africa.hr.model.YearEndCloseCheckpoint;
+import com.africa.hr.model.YearEndCloseStage;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository.BalanceAmount;
+import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.repository.YearEndCloseCheckpointRepository;
+import com.africa.hr.repository.YearEndCloseRepository;
+import com.africa.hr.service.BulkLeaveAccrualService.EmployeeRange;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Staged, chunked year-end close.
+ * All employees are split into chunks of contiguous employee ids, which are
+ * processed on the accrual worker pool. Each chunk goes through every
+ * {@link YearEndCloseStage} in order: accrue the missing months of the year up
+ * to the close date, accrue the remaining months in advance, record the
+ * carried forward and forfeited amounts, then take the forfeits off the
+ * balances. Every stage is idempotent and is committed together with its
+ * checkpoint, so an interrupted close can be resumed and only redoes the
+ * unfinished stages.
+ * <p>
+ * A dry run executes the same stages for each chunk in a single transaction
+ * that is rolled back, and reports the change it would have made to each
+ * balance instead.
+ */
+@Slf4j
+@Service
+public class YearEndCloseService {
+
+    private static final Set<AccrualRunStatus> RESUMABLE_STATUSES = EnumSet.of(
+            AccrualRunStatus.PENDING, AccrualRunStatus.RUNNING, AccrualRunStatus.FAILED);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final YearEndCloseRepository yearEndCloseRepository;
+    private final YearEndCloseCheckpointRepository checkpointRepository;
+    private final EmployeeBalanceRepository employeeBalanceRepository;
+    private final EmployeeBalanceBatchRepository employeeBalanceBatchRepository;
+    private final BulkLeaveAccrualService bulkLeaveAccrualService;
+    private final LeaveCarryForwardService carryForwardService;
+    private final AccrualRunnerConfigProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor accrualRunnerExecutor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Callback notified each time a chunk of a close has gone through all its
+     * stages.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+        /**
+         * @param totalChunks the number of chunks of the close
+         * @param diffs       the changes to the chunk's balances, for a dry run;
+         *                    empty otherwise
+         */
+        void onChunkCompleted(int totalChunks, List<YearEndCloseDiffDTO> diffs);
+    }
+
+    /** Years with a close executing in this instance. */
+    private final Set<Integer> activeYears = ConcurrentHashMap.newKeySet();
+
+    public YearEndCloseService(YearEndCloseRepository yearEndCloseRepository,
+            YearEndCloseCheckpointRepository checkpointRepository,
+            EmployeeBalanceRepository employeeBalanceRepository,
+            EmployeeBalanceBatchRepository employeeBalanceBatchRepository,
+            BulkLeaveAccrualService bulkLeaveAccrualService,
+            LeaveCarryForwardService carryForwardService,
+            AccrualRunnerConfigProperties properties,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("accrualRunnerExecutor") Executor accrualRunnerExecutor) {
+        this.yearEndCloseRepository = yearEndCloseRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.employeeBalanceRepository = employeeBalanceRepository;
+        this.employeeBalanceBatchRepository = employeeBalanceBatchRepository;
+        this.bulkLeaveAccrualService = bulkLeaveAccrualService;
+        this.carryForwardService = carryForwardService;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.accrualRunnerExecutor = accrualRunnerExecutor;
+    }
+
+    /**
+     * Close a year for all employees.
+     * If an unfinished close of the year exists it is resumed, otherwise a new
+     * close is planned. A dry run is always planned anew.
+     *
+     * @param fromYear  the year to close
+     * @param closeDate the date the close is recorded on (used for new closes only)
+     * @param dryRun    whether to roll the changes back and report them instead
+     * @param listener  notified after each chunk has gone through all its stages
+     * @return the state of the close once all its chunks have been attempted
+     * @throws IllegalArgumentException if the year has not started on the close date
+     * @throws IllegalStateException    if a close of the year is already executing
+     */
+    public YearEndCloseDTO closeYear(int fromYear, LocalDate closeDate, boolean dryRun, ChunkListener listener) {
+        if (fromYear > closeDate.getYear()) {
+            throw new IllegalArgumentException("Cannot close " + fromYear + " before it has started");
+        }
+        if (dryRun) {
+            return execute(planClose(fromYear, closeDate, true), listener);
+        }
+
+        claimYear(fromYear);
+        try {
+            YearEndClose close = yearEndCloseRepository
+                    .findFirstByFromYearAndDryRunAndStatusInOrderByIdDesc(fromYear, false, RESUMABLE_STATUSES)
+                    .orElseGet(() -> planClose(fromYear, closeDate, false));
+            return execute(close, listener);
+        } finally {
+            activeYears.remove(fromYear);
+        }
+    }
+
+    /**
+     * Resume an unfinished close, processing only the stages that have not been
+     * completed.
+     *
+     * @param closeId  the close to resume
+     * @param listener notified after each chunk has gone through all its stages
+     * @return the state of the close once all its chunks have been attempted
+     * @throws EntityNotFoundException if the close doesn't exist
+     * @throws IllegalStateException   if the close is already completed or executing
+     */
+    public YearEndCloseDTO resumeClose(Long closeId, ChunkListener listener) {
+        YearEndClose close = findResumableClose(closeId);
+        if (close.getDryRun()) {
+            return execute(close, listener);
+        }
+
+        claimYear(close.getFromYear());
+        try {
+            return execute(close, listener);
+        } finally {
+            activeYears.remove(close.getFromYear());
+        }
+    }
+
+    /**
+     * Get the current state of a close and its checkpoints.
+     *
+     * @param closeId the close id
+     * @return the close
+     * @throws EntityNotFoundException if the close doesn't exist
+     */
+    public YearEndCloseDTO getClose(Long closeId) {
+        YearEndClose close = yearEndCloseRepository.findById(closeId)
+                .orElseThrow(() -> new EntityNotFoundException("Year-end close not found with ID: " + closeId));
+        return convertToDTO(close, checkpointRepository.findByCloseIdOrderByChunkIndex(closeId));
+    }
+
+    /**
+     * Check that a close exists and can be resumed.
+     *
+     * @param closeId the close id
+     * @return the close
+     * @throws EntityNotFoundException if the close doesn't exist
+     * @throws IllegalStateException   if the close is already completed
+     */
+    public YearEndCloseDTO getResumableClose(Long closeId) {
+        return convertToDTO(findResumableClose(closeId), List.of());
+    }
+
+    private YearEndClose findResumableClose(Long closeId) {
+        YearEndClose close = yearEndCloseRepository.findById(closeId)
+                .orElseThrow(() -> new EntityNotFoundException("Year-end close not found with ID: " + closeId));
+        if (close.getStatus() == AccrualRunStatus.COMPLETED) {
+            throw new IllegalStateException("Year-end close " + closeId + " is already completed");
+        }
+        return close;
+    }
+
+    private void claimYear(int fromYear) {
+        if (!activeYears.add(fromYear)) {
+            throw new IllegalStateException("A year-end close of " + fromYear + " is already in progress");
+        }
+    }
+
+    /**
+     * Split all balances into chunks of contiguous employee ids and persist the
+     * close together with one checkpoint per stage and chunk.
+     */
+    private YearEndClose planClose(int fromYear, LocalDate closeDate, boolean dryRun) {
+        return transactionTemplate.execute(status -> {
+            List<EmployeeRange> ranges = EmployeeRange.split(
+                    employeeBalanceRepository.countByEmployee(), properties.getChunkSize());
+
+            YearEndClose close = new YearEndClose();
+            close.setFromYear(fromYear);
+            close.setToYear(fromYear + 1);
+            close.setCloseDate(closeDate);
+            close.setDryRun(dryRun);
+            close.setTotalChunks(ranges.size());
+            YearEndClose savedClose = yearEndCloseRepository.save(close);
+
+            List<YearEndCloseCheckpoint> checkpoints = new ArrayList<>();
+            for (int chunkIndex = 0; chunkIndex < ranges.size(); chunkIndex++) {
+                EmployeeRange range = ranges.get(chunkIndex);
+                for (YearEndCloseStage stage : YearEndCloseStage.values()) {
+                    YearEndCloseCheckpoint checkpoint = new YearEndCloseCheckpoint();
+                    checkpoint.setClose(savedClose);
+                    checkpoint.setStage(stage);
+                    checkpoint.setChunkIndex(chunkIndex);
+                    checkpoint.setFirstEmployeeId(range.firstEmployeeId());
+                    checkpoint.setLastEmployeeId(range.lastEmployeeId());
+                    checkpoint.setBalanceCount(range.balanceCount());
+                    checkpoints.add(checkpoint);
+                }
+            }
+            checkpointRepository.saveAll(checkpoints);
+
+            log.info("Planned {}year-end close {} of {}: {} chunks of up to {} balances",
+                    dryRun ? "dry-run " : "", savedClose.getId(), fromYear, ranges.size(),
+                    properties.getChunkSize());
+            return savedClose;
+        });
+    }
+
+    private YearEndCloseDTO execute(YearEndClose close, ChunkListener listener) {
+        transactionTemplate.executeWithoutResult(status -> {
+            close.setStatus(AccrualRunStatus.RUNNING);
+            close.setErrorMessage(null);
+            if (close.getStartedAt() == null) {
+                close.setStartedAt(LocalDateTime.now());
+            }
+            yearEndCloseRepository.save(close);
+        });
+
+        // Stages are stored by name, so they are put back in execution order here
+        Map<Integer, List<YearEndCloseCheckpoint>> pendingChunks = checkpointRepository
+                .findByCloseIdAndStatusNotOrderByChunkIndex(close.getId(), AccrualRunStatus.COMPLETED).stream()
+                .sorted(Comparator.comparing(YearEndCloseCheckpoint::getChunkIndex)
+                        .thenComparing(YearEndCloseCheckpoint::getStage))
+                .collect(Collectors.groupingBy(YearEndCloseCheckpoint::getChunkIndex, TreeMap::new,
+                        Collectors.toList()));
+        if (pendingChunks.size() < close.getTotalChunks()) {
+            log.info("Resuming year-end close {} of {}: {} of {} chunks left",
+                    close.getId(), close.getFromYear(), pendingChunks.size(), close.getTotalChunks());
+        }
+
+        CompletableFuture.allOf(pendingChunks.values().stream()
+                .map(checkpoints -> CompletableFuture.runAsync(() -> {
+                    if (close.getDryRun()) {
+                        processDryRunChunk(close, checkpoints, listener);
+                    } else {
+                        processChunk(close, checkpoints, listener);
+                    }
+                }, accrualRunnerExecutor))
+                .toArray(CompletableFuture[]::new))
+                .join();
+
+        return finishClose(close.getId());
+    }
+
+    /**
+     * Run the pending stages of one chunk, each in its own transaction together
+     * with its checkpoint. A failed stage is marked failed in a separate
+     * transaction and the chunk's later stages are left pending.
+     */
+    private void processChunk(YearEndClose close, List<YearEndCloseCheckpoint> checkpoints, ChunkListener listener) {
+        for (YearEndCloseCheckpoint checkpoint : checkpoints) {
+            long startedAt = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int itemsWritten = runStage(close, checkpoint);
+                    complete(checkpoint, itemsWritten, startedAt);
+                    checkpointRepository.save(checkpoint);
+                });
+            } catch (RuntimeException e) {
+                fail(close, checkpoint, e, startedAt);
+                return;
+            }
+
+            log.info("Year-end close {} chunk {} (employees {}-{}) stage {}: {} items in {} ms",
+                    close.getId(), checkpoint.getChunkIndex(), checkpoint.getFirstEmployeeId(),
+                    checkpoint.getLastEmployeeId(), checkpoint.getStage(), checkpoint.getItemsWritten(),
+                    checkpoint.getElapsedMillis());
+        }
+
+        listener.onChunkCompleted(close.getTotalChunks(), List.of());
+    }
+
+    /**
+     * Run all stages of one chunk in a single transaction that is rolled back,
+     * reading the chunk's balances before the first stage and after each one.
+     * The checkpoints are then marked completed with the number of items each
+     * stage would have written.
+     */
+    private void processDryRunChunk(YearEndClose close, List<YearEndCloseCheckpoint> checkpoints,
+            ChunkListener listener) {
+        YearEndCloseCheckpoint chunk = checkpoints.get(0);
+        Map<YearEndCloseStage, Map<Long, BalanceAmount>> amountsAfter = new EnumMap<>(YearEndCloseStage.class);
+        Map<YearEndCloseStage, Integer> itemsWritten = new EnumMap<>(YearEndCloseStage.class);
+        AtomicReference<Map<Long, BalanceAmount>> amountsBefore = new AtomicReference<>(Map.of());
+        AtomicReference<YearEndCloseCheckpoint> current = new AtomicReference<>(chunk);
+        long startedAt = System.nanoTime();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                amountsBefore.set(employeeBalanceBatchRepository.findAmountsInRange(
+                        chunk.getFirstEmployeeId(), chunk.getLastEmployeeId()));
+                for (YearEndCloseCheckpoint checkpoint : checkpoints) {
+                    current.set(checkpoint);
+                    itemsWritten.put(checkpoint.getStage(), runStage(close, checkpoint));
+                    // The stages write over JDBC; later stages must not see stale entities
+                    entityManager.clear();
+                    amountsAfter.put(checkpoint.getStage(), employeeBalanceBatchRepository.findAmountsInRange(
+                            chunk.getFirstEmployeeId(), chunk.getLastEmployeeId()));
+                }
+            });
+        } catch (RuntimeException e) {
+            fail(close, current.get(), e, startedAt);
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> checkpoints.forEach(checkpoint -> {
+            complete(checkpoint, itemsWritten.getOrDefault(checkpoint.getStage(), 0), startedAt);
+            checkpointRepository.save(checkpoint);
+        }));
+
+        log.info("Dry-run year-end close {} chunk {} (employees {}-{}) computed in {} ms",
+                close.getId(), chunk.getChunkIndex(), chunk.getFirstEmployeeId(), chunk.getLastEmployeeId(),
+                chunk.getElapsedMillis());
+        listener.onChunkCompleted(close.getTotalChunks(), diff(amountsBefore.get(), amountsAfter));
+    }
+
+    /**
+     * Run one stage for one chunk.
+     *
+     * @return the number of items the stage wrote
+     */
+    private int runStage(YearEndClose close, YearEndCloseCheckpoint checkpoint) {
+        int fromYear = close.getFromYear();
+        LocalDate closeDate = close.getCloseDate();
+        YearMonth december = YearMonth.of(fromYear, 12);
+        YearMonth accruedUntil = YearMonth.from(closeDate).isBefore(december) ? YearMonth.from(closeDate) : december;
+        Long firstId = checkpoint.getFirstEmployeeId();
+        Long lastId = checkpoint.getLastEmployeeId();
+
+        return switch (checkpoint.getStage()) {
+            case ACCRUE -> bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                    YearMonth.of(fromYear, 1), accruedUntil, closeDate, firstId, lastId).getAccrualsWritten();
+            case PROJECT -> accruedUntil.equals(december) ? 0
+                    : bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                            accruedUntil.plusMonths(1), december, closeDate, firstId, lastId).getAccrualsWritten();
+            case CARRY_FORWARD -> carryForwardService.recordCarryForwardsInRange(
+                    fromYear, close.getToYear(), closeDate, firstId, lastId);
+            case OPEN_YEAR -> carryForwardService.applyCarryForwardsInRange(
+                    fromYear, close.getToYear(), firstId, lastId);
+        };
+    }
+
+    /**
+     * Build the dry-run report of a chunk: one entry per balance the close would
+     * change.
+     */
+    private List<YearEndCloseDiffDTO> diff(Map<Long, BalanceAmount> before,
+            Map<YearEndCloseStage, Map<Long, BalanceAmount>> amountsAfter) {
+        List<YearEndCloseDiffDTO> diffs = new ArrayList<>();
+        for (BalanceAmount balance : before.values()) {
+            BigDecimal balanceBefore = balance.currentBalance();
+            BigDecimal accrued = amountAfter(amountsAfter, YearEndCloseStage.ACCRUE, balance, balanceBefore);
+            BigDecimal projected = amountAfter(amountsAfter, YearEndCloseStage.PROJECT, balance, accrued);
+            BigDecimal carried = amountAfter(amountsAfter, YearEndCloseStage.CARRY_FORWARD, balance, projected);
+            BigDecimal balanceAfter = amountAfter(amountsAfter, YearEndCloseStage.OPEN_YEAR, balance, carried);
+            if (balanceAfter.compareTo(balanceBefore) == 0 && projected.compareTo(balanceBefore) == 0) {
+                continue;
+            }
+
+            YearEndCloseDiffDTO dto = new YearEndCloseDiffDTO();
+            dto.setEmployeeBalanceId(balance.employeeBalanceId());
+            dto.setEmployeeId(balance.employeeId());
+            dto.setLeaveTypeId(balance.leaveTypeId());
+            dto.setBalanceBefore(balanceBefore);
+            dto.setAccrued(accrued.subtract(balanceBefore));
+            dto.setProjected(projected.subtract(accrued));
+            dto.setForfeited(carried.subtract(balanceAfter));
+            dto.setBalanceAfter(balanceAfter);
+            diffs.add(dto);
+        }
+        return diffs;
+    }
+
+    private static BigDecimal amountAfter(Map<YearEndCloseStage, Map<Long, BalanceAmount>> amountsAfter,
+            YearEndCloseStage stage, BalanceAmount balance, BigDecimal previous) {
+        Map<Long, BalanceAmount> amounts = amountsAfter.get(stage);
+        BalanceAmount amount = amounts != null ? amounts.get(balance.employeeBalanceId()) : null;
+        return amount != null ? amount.currentBalance() : previous;
+    }
+
+    private static void complete(YearEndCloseCheckpoint checkpoint, int itemsWritten, long startedAt) {
+        checkpoint.setStatus(AccrualRunStatus.COMPLETED);
+        checkpoint.setItemsWritten(itemsWritten);
+        checkpoint.setElapsedMillis((System.nanoTime() - startedAt) / 1_000_000);
+        checkpoint.setErrorMessage(null);
+        checkpoint.setCompletedAt(LocalDateTime.now());
+    }
+
+    private void fail(YearEndClose close, YearEndCloseCheckpoint checkpoint, RuntimeException e, long startedAt) {
+        log.error("Year-end close {} chunk {} stage {} failed: {}", close.getId(), checkpoint.getChunkIndex(),
+                checkpoint.getStage(), e.getMessage(), e);
+        transactionTemplate.executeWithoutResult(status -> {
+            checkpoint.setStatus(AccrualRunStatus.FAILED);
+            checkpoint.setItemsWritten(0);
+            checkpoint.setElapsedMillis((System.nanoTime() - startedAt) / 1_000_000);
+            checkpoint.setErrorMessage(truncate(e.getMessage()));
+            checkpoint.setCompletedAt(null);
+            checkpointRepository.save(checkpoint);
+        });
+    }
+
+    private YearEndCloseDTO finishClose(Long closeId) {
+        return transactionTemplate.execute(status -> {
+            YearEndClose close = yearEndCloseRepository.findById(closeId)
+                    .orElseThrow(() -> new EntityNotFoundException("Year-end close not found with ID: " + closeId));
+            List<YearEndCloseCheckpoint> checkpoints = checkpointRepository.findByCloseIdOrderByChunkIndex(closeId);
+
+            Set<Integer> unfinishedChunks = checkpoints.stream()
+                    .filter(checkpoint -> checkpoint.getStatus() != AccrualRunStatus.COMPLETED)
+                    .map(YearEndCloseCheckpoint::getChunkIndex)
+                    .collect(Collectors.toSet());
+            close.setCompletedChunks(close.getTotalChunks() - unfinishedChunks.size());
+
+            if (unfinishedChunks.isEmpty()) {
+                close.setStatus(AccrualRunStatus.COMPLETED);
+                close.setErrorMessage(null);
+                close.setCompletedAt(LocalDateTime.now());
+            } else {
+                close.setStatus(AccrualRunStatus.FAILED);
+                close.setErrorMessage(unfinishedChunks.size() + " of " + close.getTotalChunks()
+                        + " chunks did not finish; resume the close to retry them");
+            }
+            YearEndClose savedClose = yearEndCloseRepository.save(close);
+
+            log.info("Year-end close {} of {} finished with status {}: {}/{} chunks",
+                    closeId, close.getFromYear(), close.getStatus(), close.getCompletedChunks(),
+                    close.getTotalChunks());
+            return convertToDTO(savedClose, checkpoints);
+        });
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private YearEndCloseDTO convertToDTO(YearEndClose close, List<YearEndCloseCheckpoint> checkpoints) {
+        YearEndCloseDTO dto = new YearEndCloseDTO();
+        dto.setId(close.getId());
+        dto.setFromYear(close.getFromYear());
+        dto.setToYear(close.getToYear());
+        dto.setCloseDate(close.getCloseDate());
+        dto.setDryRun(close.getDryRun());
+        dto.setStatus(close.getStatus().name());
+        dto.setTotalChunks(close.getTotalChunks());
+        dto.setCompletedChunks(close.getCompletedChunks());
+        dto.setErrorMessage(close.getErrorMessage());
+        dto.setStartedAt(close.getStartedAt());
+        dto.setCompletedAt(close.getCompletedAt());
+        dto.setCheckpoints(checkpoints.stream()
+                .sorted(Comparator.comparing(YearEndCloseCheckpoint::getChunkIndex)
+                        .thenComparing(YearEndCloseCheckpoint::getStage))
+                .map(checkpoint -> {
+                    YearEndCloseDTO.CheckpointDTO checkpointDTO = new YearEndCloseDTO.CheckpointDTO();
+                    checkpointDTO.setStage(checkpoint.getStage().name());
+                    checkpointDTO.setChunkIndex(checkpoint.getChunkIndex());
+                    checkpointDTO.setFirstEmployeeId(checkpoint.getFirstEmployeeId());
+                    checkpointDTO.setLastEmployeeId(checkpoint.getLastEmployeeId());
+                    checkpointDTO.setBalanceCount(checkpoint.getBalanceCount());
+                    checkpointDTO.setStatus(checkpoint.getStatus().name());
+                    checkpointDTO.setItemsWritten(checkpoint.getItemsWritten());
+                    checkpointDTO.setElapsedMillis(checkpoint.getElapsedMillis());
+                    checkpointDTO.setErrorMessage(checkpoint.getErrorMessage());
+                    return checkpointDTO;
+                }).toList());
+        return dto;
+    }
+}
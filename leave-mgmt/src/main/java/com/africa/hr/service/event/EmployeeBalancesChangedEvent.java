@@ -0,0 +1,35 @@
+package com.africa.hr.service.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published inside a transaction that changed employee balances. The balance
+ * cache drops the affected employees once the transaction commits.
+ *
+ * @param firstEmployeeId the first employee id of the inclusive range of changed employees
+ * @param lastEmployeeId  the last employee id of the range; before the first id if none
+ * @param balanceIds      the ids of changed balances, outside the employee range
+ */
+public record EmployeeBalancesChangedEvent(long firstEmployeeId, long lastEmployeeId, Set<Long> balanceIds) {
+
+    public static EmployeeBalancesChangedEvent forEmployee(Long employeeId) {
+        return new EmployeeBalancesChangedEvent(employeeId, employeeId, Set.of());
+    }
+
+    public static EmployeeBalancesChangedEvent forEmployeeRange(Long firstEmployeeId, Long lastEmployeeId) {
+        return new EmployeeBalancesChangedEvent(firstEmployeeId, lastEmployeeId, Set.of());
+    }
+
+    public static EmployeeBalancesChangedEvent forBalances(Collection<Long> balanceIds) {
+        return new EmployeeBalancesChangedEvent(0, -1, Set.copyOf(balanceIds));
+    }
+
+    public static EmployeeBalancesChangedEvent forAllEmployees() {
+        return forEmployeeRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public boolean isAllEmployees() {
+        return firstEmployeeId == Long.MIN_VALUE && lastEmployeeId == Long.MAX_VALUE;
+    }
+}
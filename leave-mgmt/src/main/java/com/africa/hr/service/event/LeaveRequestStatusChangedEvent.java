@@ -0,0 +1,41 @@
+package com.africa.hr.service.event;
+
+import com.africa.hr.model.Department;
+import com.africa.hr.model.LeaveRequest;
+import com.africa.hr.model.LeaveRequestStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Published inside a transaction that changed the status of a leave request,
+ * including its submission. Views derived from the requests of a period are
+ * updated once the transaction commits.
+ *
+ * @param requestId      the leave request id
+ * @param employeeId     the id of the employee taking the leave
+ * @param departmentId   the department of the employee, or null
+ * @param startDate      the first date of the request
+ * @param endDate        the last date of the request
+ * @param previousStatus the status before the change, or null for a new request
+ * @param status         the status after the change
+ * @param version        the version of the request after the change
+ */
+public record LeaveRequestStatusChangedEvent(Long requestId, Long employeeId, Long departmentId,
+        LocalDate startDate, LocalDate endDate, LeaveRequestStatus previousStatus, LeaveRequestStatus status,
+        long version) {
+
+    public static LeaveRequestStatusChangedEvent of(LeaveRequest request, LeaveRequestStatus previousStatus) {
+        Department department = request.getEmployee().getDepartment();
+        return new LeaveRequestStatusChangedEvent(request.getId(), request.getEmployee().getId(),
+                department != null ? department.getId() : null, request.getStartDate(), request.getEndDate(),
+                previousStatus, request.getStatus(), request.getVersion() != null ? request.getVersion() : 0);
+    }
+
+    /**
+     * @param status a status
+     * @return true if the request entered or left the status
+     */
+    public boolean involves(LeaveRequestStatus status) {
+        return previousStatus == status || this.status == status;
+    }
+}
@@ -0,0 +1,9 @@
+package com.africa.hr.service.event;
+
+/**
+ * Published inside a transaction that created, changed or deleted a public
+ * holiday. Calendars derived from the holidays are rebuilt once the
+ * transaction commits.
+ */
+public record PublicHolidaysChangedEvent() {
+}
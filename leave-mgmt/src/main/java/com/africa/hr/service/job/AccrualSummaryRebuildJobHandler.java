@@ -0,0 +1,33 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.service.LeaveAccrualService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Recomputes the accrual period summaries from the accrual ledger as a
+ * background job.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccrualSummaryRebuildJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "REBUILD_ACCRUAL_SUMMARIES";
+
+    private final LeaveAccrualService leaveAccrualService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        context.setTotalItems(1);
+        int periods = leaveAccrualService.rebuildAccrualHistorySummaries();
+        context.addProcessedItems(1);
+        context.addResult(Map.of("periods", periods));
+    }
+}
@@ -0,0 +1,66 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.dto.LeaveCarryForwardResponseDTO;
+import com.africa.hr.model.LeaveCarryForward;
+import com.africa.hr.service.LeaveCarryForwardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Runs the annual carry-forward for all employees as a background job. Each
+ * carry-forward record created is a job result.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnnualCarryForwardJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "ANNUAL_CARRY_FORWARD";
+    public static final String PARAM_FROM_YEAR = "fromYear";
+    public static final String PARAM_TO_YEAR = "toYear";
+
+    private final LeaveCarryForwardService carryForwardService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        int fromYear = Integer.parseInt(context.getParameter(PARAM_FROM_YEAR));
+        int toYear = Integer.parseInt(context.getParameter(PARAM_TO_YEAR));
+
+        List<LeaveCarryForwardResponseDTO> results = transactionTemplate.execute(status -> carryForwardService
+                .processAnnualCarryForward(fromYear, toYear).stream()
+                .map(this::convertToDTO)
+                .toList());
+
+        context.setTotalItems(results.size());
+        context.addResults(results);
+        context.addProcessedItems(results.size());
+    }
+
+    private LeaveCarryForwardResponseDTO convertToDTO(LeaveCarryForward carryForward) {
+        LeaveCarryForwardResponseDTO dto = new LeaveCarryForwardResponseDTO();
+        dto.setId(carryForward.getId());
+        dto.setEmployeeBalanceId(carryForward.getEmployeeBalance().getId());
+        dto.setEmployeeId(carryForward.getEmployeeBalance().getEmployee().getId());
+        dto.setEmployeeName(carryForward.getEmployeeBalance().getEmployee().getFirstName() + " "
+                + carryForward.getEmployeeBalance().getEmployee().getLastName());
+        dto.setLeaveTypeId(carryForward.getEmployeeBalance().getLeaveType().getId());
+        dto.setLeaveTypeName(carryForward.getEmployeeBalance().getLeaveType().getName());
+        dto.setFromYear(carryForward.getFromYear());
+        dto.setToYear(carryForward.getToYear());
+        dto.setOriginalBalance(carryForward.getOriginalBalance());
+        dto.setCurrentBalance(carryForward.getCarriedForwardAmount());
+        dto.setCarryForwardCap(carryForward.getEmployeeBalance().getLeaveType().getCarryForwardCap());
+        dto.setAmountToBeCarriedForward(carryForward.getCarriedForwardAmount());
+        dto.setAmountToBeForfeited(carryForward.getForfeitedAmount());
+        dto.setCreatedAt(carryForward.getCreatedAt());
+        return dto;
+    }
+}
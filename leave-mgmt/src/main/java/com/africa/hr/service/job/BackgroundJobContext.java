@@ -0,0 +1,61 @@
+package com.africa.hr.service.job;
+
+import java.util.List;
+
+/**
+ * View of a running background job handed to its {@link BackgroundJobHandler}.
+ */
+public interface BackgroundJobContext {
+
+    /**
+     * @return the id of the running job
+     */
+    Long getJobId();
+
+    /**
+     * Get a job parameter.
+     *
+     * @param name the parameter name
+     * @return the parameter value
+     * @throws IllegalArgumentException if the parameter is missing
+     */
+    String getParameter(String name);
+
+    /**
+     * Check whether an optional job parameter was supplied.
+     *
+     * @param name the parameter name
+     * @return true if the parameter is present
+     */
+    boolean hasParameter(String name);
+
+    /**
+     * Set the number of work items the job will process.
+     *
+     * @param totalItems the number of work items
+     */
+    void setTotalItems(int totalItems);
+
+    /**
+     * Record progress on the job's work items.
+     *
+     * @param count the number of items that were just processed
+     */
+    void addProcessedItems(int count);
+
+    /**
+     * Append results to the job output. Each result is stored as a JSON document.
+     *
+     * @param results the results to append
+     */
+    void addResults(List<?> results);
+
+    /**
+     * Append a single result to the job output.
+     *
+     * @param result the result to append
+     */
+    default void addResult(Object result) {
+        addResults(List.of(result));
+    }
+}
@@ -0,0 +1,22 @@
+package com.africa.hr.service.job;
+
+/**
+ * A type of work that can run as a background job.
+ * Handlers are Spring beans; {@link com.africa.hr.service.BackgroundJobService}
+ * looks them up by {@link #getJobType()}.
+ */
+public interface BackgroundJobHandler {
+
+    /**
+     * @return the unique job type handled by this handler
+     */
+    String getJobType();
+
+    /**
+     * Execute the job. Any exception marks the job as failed.
+     *
+     * @param context the job context, used to read parameters and to report
+     *                progress and results
+     */
+    void execute(BackgroundJobContext context);
+}
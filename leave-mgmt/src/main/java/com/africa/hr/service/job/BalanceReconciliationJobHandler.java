@@ -0,0 +1,44 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.service.BalanceReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reconciles every balance against its history as a background job, repairing
+ * drift when the {@code repair} parameter is true. Progress is reported per
+ * partition; the drifted balances are the job results, followed by the
+ * reconciliation summary.
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceReconciliationJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "RECONCILE_BALANCES";
+    public static final String PARAM_REPAIR = "repair";
+
+    private final BalanceReconciliationService balanceReconciliationService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        boolean repair = context.hasParameter(PARAM_REPAIR) && Boolean.parseBoolean(context.getParameter(PARAM_REPAIR));
+
+        AtomicBoolean totalReported = new AtomicBoolean();
+        context.addResult(balanceReconciliationService.reconcile(repair, (totalPartitions, drifts) -> {
+            if (totalReported.compareAndSet(false, true)) {
+                context.setTotalItems(totalPartitions);
+            }
+            if (!drifts.isEmpty()) {
+                context.addResults(drifts);
+            }
+            context.addProcessedItems(1);
+        }));
+    }
+}
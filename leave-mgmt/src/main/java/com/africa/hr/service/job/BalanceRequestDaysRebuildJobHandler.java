@@ -0,0 +1,33 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.service.EmployeeBalanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Recomputes the used and pending days of every balance from the leave
+ * requests as a background job.
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceRequestDaysRebuildJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "REBUILD_BALANCE_REQUEST_DAYS";
+
+    private final EmployeeBalanceService employeeBalanceService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        context.setTotalItems(1);
+        int balances = employeeBalanceService.rebuildRequestDays();
+        context.addProcessedItems(1);
+        context.addResult(Map.of("balances", balances));
+    }
+}
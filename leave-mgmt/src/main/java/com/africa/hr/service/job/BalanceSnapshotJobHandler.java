@@ -0,0 +1,34 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.service.BalanceLedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+/**
+ * Snapshots every balance at the end of a month as a background job.
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceSnapshotJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "TAKE_BALANCE_SNAPSHOTS";
+    public static final String PARAM_MONTH = "month";
+
+    private final BalanceLedgerService balanceLedgerService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        context.setTotalItems(1);
+        int snapshots = balanceLedgerService.takeMonthEndSnapshots(YearMonth.parse(context.getParameter(PARAM_MONTH)));
+        context.addProcessedItems(1);
+        context.addResult(Map.of("snapshots", snapshots));
+    }
+}
@@ -0,0 +1,34 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.service.EmployeeBalanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Takes the days of leave requests approved before approvals were recorded in
+ * the balance ledger off their balances as a background job. Meant to run once,
+ * before the first reconciliation; running it again records nothing.
+ */
+@Component
+@RequiredArgsConstructor
+public class BalanceUsageBackfillJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "BACKFILL_BALANCE_USAGE";
+
+    private final EmployeeBalanceService employeeBalanceService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        context.setTotalItems(1);
+        int leaveRequests = employeeBalanceService.backfillApprovedUsage();
+        context.addProcessedItems(1);
+        context.addResult(Map.of("leaveRequests", leaveRequests));
+    }
+}
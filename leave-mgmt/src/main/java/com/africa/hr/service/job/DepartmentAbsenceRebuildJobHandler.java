@@ -0,0 +1,33 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.service.DepartmentAbsenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Recomputes the per-department, per-day absence counts from the leave
+ * requests as a background job.
+ */
+@Component
+@RequiredArgsConstructor
+public class DepartmentAbsenceRebuildJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "REBUILD_DEPARTMENT_ABSENCE_DAYS";
+
+    private final DepartmentAbsenceService departmentAbsenceService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        context.setTotalItems(1);
+        int days = departmentAbsenceService.rebuild();
+        context.addProcessedItems(1);
+        context.addResult(Map.of("departmentDays", days));
+    }
+}
@@ -0,0 +1,60 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.dto.AccrualRunDTO;
+import com.africa.hr.service.AccrualRunService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the chunked monthly accrual for all employees as a background job.
+ * With a {@code runId} parameter the given unfinished run is resumed instead.
+ * Progress is reported per committed chunk; the final run state is the job
+ * result.
+ */
+@Component
+@RequiredArgsConstructor
+public class MonthlyAccrualJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "MONTHLY_ACCRUAL";
+    public static final String PARAM_ACCRUAL_PERIOD = "accrualPeriod";
+    public static final String PARAM_ACCRUAL_DATE = "accrualDate";
+    public static final String PARAM_RUN_ID = "runId";
+
+    private final AccrualRunService accrualRunService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        AtomicBoolean totalReported = new AtomicBoolean();
+        AccrualRunService.ProgressListener listener = (chunk, totalChunks) -> {
+            if (totalReported.compareAndSet(false, true)) {
+                context.setTotalItems(totalChunks);
+            }
+            context.addProcessedItems(1);
+        };
+
+        AccrualRunDTO run;
+        if (context.hasParameter(PARAM_RUN_ID)) {
+            run = accrualRunService.resumeRun(Long.valueOf(context.getParameter(PARAM_RUN_ID)), listener);
+        } else {
+            run = accrualRunService.runMonthlyAccruals(
+                    YearMonth.parse(context.getParameter(PARAM_ACCRUAL_PERIOD)),
+                    LocalDate.parse(context.getParameter(PARAM_ACCRUAL_DATE)),
+                    listener);
+        }
+        context.addResult(run);
+
+        if (!"COMPLETED".equals(run.getStatus())) {
+            throw new IllegalStateException("Accrual run " + run.getId() + " did not complete: "
+                    + run.getErrorMessage());
+        }
+    }
+}
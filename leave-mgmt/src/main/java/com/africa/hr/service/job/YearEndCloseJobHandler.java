@@ -0,0 +1,62 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.dto.YearEndCloseDTO;
+import com.africa.hr.service.YearEndCloseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs, or resumes, a company-wide year-end close as a background job.
+ * Progress is reported in chunks. For a dry run, the change the close would
+ * make to each balance is a job result; the final state of the close, with its
+ * checkpoints, is always the last result.
+ */
+@Component
+@RequiredArgsConstructor
+public class YearEndCloseJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "YEAR_END_CLOSE";
+    public static final String PARAM_FROM_YEAR = "fromYear";
+    public static final String PARAM_CLOSE_DATE = "closeDate";
+    public static final String PARAM_DRY_RUN = "dryRun";
+    public static final String PARAM_CLOSE_ID = "closeId";
+
+    private final YearEndCloseService yearEndCloseService;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        AtomicBoolean totalReported = new AtomicBoolean();
+        YearEndCloseService.ChunkListener listener = (totalChunks, diffs) -> {
+            if (totalReported.compareAndSet(false, true)) {
+                context.setTotalItems(totalChunks);
+            }
+            context.addResults(diffs);
+            context.addProcessedItems(1);
+        };
+
+        YearEndCloseDTO close;
+        if (context.hasParameter(PARAM_CLOSE_ID)) {
+            close = yearEndCloseService.resumeClose(Long.valueOf(context.getParameter(PARAM_CLOSE_ID)), listener);
+        } else {
+            close = yearEndCloseService.closeYear(
+                    Integer.parseInt(context.getParameter(PARAM_FROM_YEAR)),
+                    LocalDate.parse(context.getParameter(PARAM_CLOSE_DATE)),
+                    Boolean.parseBoolean(context.getParameter(PARAM_DRY_RUN)),
+                    listener);
+        }
+        context.addResult(close);
+
+        if (!"COMPLETED".equals(close.getStatus())) {
+            throw new IllegalStateException("Year-end close " + close.getId() + " did not complete: "
+                    + close.getErrorMessage());
+        }
+    }
+}
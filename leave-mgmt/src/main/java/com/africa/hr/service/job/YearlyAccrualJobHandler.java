@@ -0,0 +1,53 @@
+package com.africa.hr.service.job;
+
+import com.africa.hr.config.AccrualRunnerConfigProperties;
+import com.africa.hr.dto.LeaveAccrualCatchUpResultDTO;
+import com.africa.hr.service.BulkLeaveAccrualService;
+import com.africa.hr.service.BulkLeaveAccrualService.EmployeeRange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Runs the accruals for every month of a year, for all employees, as a
+ * background job. Employees are caught up in chunks of contiguous ids; each
+ * chunk computes all of its missing months in one pass and commits on its own,
+ * so a restarted job only redoes the chunks that hadn't committed. Progress is
+ * reported in balances and each chunk's summary is a job result.
+ */
+@Component
+@RequiredArgsConstructor
+public class YearlyAccrualJobHandler implements BackgroundJobHandler {
+
+    public static final String JOB_TYPE = "YEARLY_ACCRUAL";
+    public static final String PARAM_YEAR = "year";
+
+    private final BulkLeaveAccrualService bulkLeaveAccrualService;
+    private final AccrualRunnerConfigProperties properties;
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public void execute(BackgroundJobContext context) {
+        int year = Integer.parseInt(context.getParameter(PARAM_YEAR));
+        YearMonth from = YearMonth.of(year, 1);
+        YearMonth to = YearMonth.of(year, 12);
+        LocalDate accrualDate = LocalDate.now();
+
+        List<EmployeeRange> ranges = bulkLeaveAccrualService.planCatchUpRanges(properties.getChunkSize());
+        context.setTotalItems(ranges.stream().mapToInt(EmployeeRange::balanceCount).sum());
+
+        for (EmployeeRange range : ranges) {
+            LeaveAccrualCatchUpResultDTO result = bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                    from, to, accrualDate, range.firstEmployeeId(), range.lastEmployeeId());
+            context.addResult(result);
+            context.addProcessedItems(range.balanceCount());
+        }
+    }
+}
@@ -6,11 +6,12 @@ import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.africa.hr.model.LeaveDays;
+import com.africa.hr.service.BusinessCalendar;
 import com.africa.hr.service.LeaveTypeService;
 import com.africa.hr.validation.annotations.ValidLeaveRequestDates;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 public class LeaveRequestDatesValidator implements ConstraintValidator<ValidLeaveRequestDates, Object> {
     private String startDateField;
@@ -22,6 +23,9 @@ public class LeaveRequestDatesValidator implements ConstraintValidator<ValidLeav
     @Autowired
     private LeaveTypeService leaveTypeService;
 
+    @Autowired
+    private BusinessCalendar businessCalendar;
+
     @Override
     public void initialize(ValidLeaveRequestDates constraintAnnotation) {
         this.startDateField = constraintAnnotation.startDateField();
@@ -64,21 +68,14 @@ public class LeaveRequestDatesValidator implements ConstraintValidator<ValidLeav
             return false;
         }
 
-        // Calculate duration in days
-        long durationInDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-
-        // Adjust for half days
-        if (Boolean.TRUE.equals(halfDayStart)) {
-            durationInDays -= 0.5;
-        }
-        if (Boolean.TRUE.equals(halfDayEnd)) {
-            durationInDays -= 0.5;
-        }
+        // Count the working days of the request on the business calendar
+        LeaveDays durationInDays = businessCalendar.countLeaveDays(startDate, endDate, halfDayStart, halfDayEnd);
 
         // Validate duration against leave type's max duration
         if (leaveTypeId != null) {
             var leaveType = leaveTypeService.getLeaveType(leaveTypeId);
-            if (leaveType.getMaxDuration() != null && durationInDays > leaveType.getMaxDuration()) {
+            if (leaveType.getMaxDuration() != null
+                    && durationInDays.compareTo(LeaveDays.ofHundredths(leaveType.getMaxDuration() * 100L)) > 0) {
                 addConstraintViolation(context,
                         String.format(
                                 "Leave duration (%s days) exceeds maximum allowed duration (%s days) for leave type %s",
@@ -94,7 +91,7 @@ public class LeaveRequestDatesValidator implements ConstraintValidator<ValidLeav
         }
 
         // Validate minimum leave duration
-        if (durationInDays < 1) {
+        if (durationInDays.compareTo(LeaveDays.ofHundredths(100)) < 0) {
             addConstraintViolation(context, "Leave duration must be at least 1 day");
             return false;
         }
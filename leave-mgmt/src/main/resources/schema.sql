@@ -9,6 +9,7 @@ CREATE TABLE IF NOT EXISTS departments (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(255) NOT NULL UNIQUE,
     description VARCHAR(500),
+    max_concurrent_absences INT,  -- Most members with leave held on the same day; NULL for no cap
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NULL ON UPDATE CURRENT_TIMESTAMP
 );
@@ -69,6 +70,8 @@ CREATE TABLE IF NOT EXISTS employee_balance (
     max_balance DECIMAL(5,2),  -- Maximum allowed balance (can be null for unlimited)
     last_accrual_date DATE,  -- Tracks when the last accrual was calculated
     is_eligible_for_accrual BOOLEAN NOT NULL DEFAULT TRUE,  -- Tracks if employee is eligible for accrual
+    used_days DECIMAL(5,2) NOT NULL DEFAULT 0.00,  -- Days of approved requests, maintained by the request workflow
+    pending_days DECIMAL(5,2) NOT NULL DEFAULT 0.00,  -- Days of pending requests, maintained by the request workflow
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NULL ON UPDATE CURRENT_TIMESTAMP,
     -- Foreign key constraints
@@ -92,7 +95,8 @@ CREATE TABLE IF NOT EXISTS leave_accruals (
     is_prorated TINYINT(1) NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT fk_leave_accruals_employee_balance FOREIGN KEY (employee_balance_id) 
-        REFERENCES employee_balance(id) ON DELETE CASCADE
+        REFERENCES employee_balance(id) ON DELETE CASCADE,
+    CONSTRAINT uk_leave_accrual_balance_period UNIQUE (employee_balance_id, accrual_period)
 );
 
 -- Feature 3: Leave Carry Forward Tracking
@@ -105,7 +109,9 @@ CREATE TABLE IF NOT EXISTS leave_carry_forwards (
     carried_forward_amount DECIMAL(5,2) NOT NULL,
     forfeited_amount DECIMAL(5,2) NOT NULL DEFAULT 0.00,
     carry_forward_date DATE NOT NULL,
+    applied_at TIMESTAMP NULL,  -- When the forfeited amount was taken off the balance
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_leave_carry_forward_balance_years UNIQUE (employee_balance_id, from_year, to_year),
     -- Foreign key constraint
     CONSTRAINT fk_leave_carry_forwards_employee_balance FOREIGN KEY (employee_balance_id) 
         REFERENCES employee_balance(id) ON DELETE CASCADE
@@ -123,11 +129,13 @@ CREATE TABLE leave_requests (
     status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
     leave_request_reason VARCHAR(1000),
     rejection_reason VARCHAR(1000),
+    working_days DECIMAL(5,2),  -- Working days charged, counted on the business calendar at submission
     manager_id BIGINT,
     approved_at TIMESTAMP,
     primary_document_id BIGINT NULL,  -- Just define the column, no FK yet
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,  -- Optimistic lock, bumped by every status transition
     CONSTRAINT fk_leave_requests_employee FOREIGN KEY (employee_id) REFERENCES users(id) ON DELETE RESTRICT,
     CONSTRAINT fk_leave_requests_leave_type FOREIGN KEY (leave_type_id) REFERENCES leave_types(id) ON DELETE RESTRICT,
     CONSTRAINT fk_leave_requests_manager FOREIGN KEY (manager_id) REFERENCES users(id) ON DELETE SET NULL,
@@ -155,6 +163,33 @@ FOREIGN KEY (primary_document_id)
 REFERENCES documents(id)
 ON DELETE SET NULL;
 
+-- Upgrade databases created before the columns and keys above existed. CREATE TABLE IF NOT EXISTS
+-- leaves existing tables alone, so they are added here; on a database that already has them each
+-- statement fails as a duplicate and is skipped (continue-on-error). After an upgrade, rebuild the used
+-- and pending days and the department absence days, and backfill approved usage, from the admin endpoints.
+ALTER TABLE departments ADD COLUMN max_concurrent_absences INT;
+ALTER TABLE employee_balance ADD COLUMN used_days DECIMAL(5,2) NOT NULL DEFAULT 0.00;
+ALTER TABLE employee_balance ADD COLUMN pending_days DECIMAL(5,2) NOT NULL DEFAULT 0.00;
+-- Existing carry-forwards were taken off their balances when recorded, so they are filled in as
+-- applied; new ones are pending until the forfeit is applied
+ALTER TABLE leave_carry_forwards ADD COLUMN applied_at TIMESTAMP NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE leave_carry_forwards ALTER COLUMN applied_at DROP DEFAULT;
+ALTER TABLE leave_requests ADD COLUMN working_days DECIMAL(5,2);
+ALTER TABLE leave_requests ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+-- Duplicate accruals and carry-forwards written before the keys existed would block them; the
+-- first row is kept, and balance reconciliation reports what the duplicates added or took off
+DELETE FROM leave_accruals WHERE id IN (SELECT id FROM (SELECT a.id FROM leave_accruals a
+JOIN leave_accruals b ON b.employee_balance_id = a.employee_balance_id
+AND b.accrual_period = a.accrual_period AND b.id < a.id) duplicates);
+DELETE FROM leave_carry_forwards WHERE id IN (SELECT id FROM (SELECT c.id FROM leave_carry_forwards c
+JOIN leave_carry_forwards d ON d.employee_balance_id = c.employee_balance_id
+AND d.from_year = c.from_year AND d.to_year = c.to_year AND d.id < c.id) duplicates);
+ALTER TABLE leave_accruals
+ADD CONSTRAINT uk_leave_accrual_balance_period UNIQUE (employee_balance_id, accrual_period);
+ALTER TABLE leave_carry_forwards
+ADD CONSTRAINT uk_leave_carry_forward_balance_years UNIQUE (employee_balance_id, from_year, to_year);
+
 -- Feature 4: Leave Requests
 
 -- Feature 6: Public Holidays
@@ -185,17 +220,178 @@ CREATE TABLE notifications (
     FOREIGN KEY (user_id) REFERENCES users(id)
 ); 
 
+-- Create balance movements table (append-only ledger of every change to a balance)
+CREATE TABLE IF NOT EXISTS balance_movements (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    employee_balance_id BIGINT NOT NULL,
+    movement_type VARCHAR(20) NOT NULL,
+    amount DECIMAL(5,2) NOT NULL,  -- Signed change to current_balance
+    effective_date DATE NOT NULL,  -- Date the change was applied
+    reference_id BIGINT NULL,  -- Leave request or carry-forward behind the movement, if any
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_balance_movements_employee_balance FOREIGN KEY (employee_balance_id)
+        REFERENCES employee_balance(id) ON DELETE CASCADE,
+    CONSTRAINT chk_balance_movements_type CHECK (movement_type IN
+        ('ACCRUAL', 'USAGE', 'CARRY_FORWARD', 'FORFEIT', 'ADJUSTMENT'))
+);
+
+-- Create balance snapshots table (balance at the end of a month, derived from the ledger)
+CREATE TABLE IF NOT EXISTS balance_snapshots (
+    employee_balance_id BIGINT NOT NULL,
+    snapshot_date DATE NOT NULL,  -- Last day of the month
+    balance DECIMAL(5,2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (employee_balance_id, snapshot_date),
+    CONSTRAINT fk_balance_snapshots_employee_balance FOREIGN KEY (employee_balance_id)
+        REFERENCES employee_balance(id) ON DELETE CASCADE
+);
+
+-- Create accrual period summaries table (maintained by every accrual writer)
+CREATE TABLE IF NOT EXISTS leave_accrual_period_summaries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    accrual_period DATE NOT NULL,  -- First day of the accrued month
+    employee_count INT NOT NULL DEFAULT 0,
+    accrual_count INT NOT NULL DEFAULT 0,
+    total_days DECIMAL(12,2) NOT NULL DEFAULT 0.00,
+    prorated_count INT NOT NULL DEFAULT 0,
+    zero_amount_count INT NOT NULL DEFAULT 0,
+    first_processed_at TIMESTAMP NULL,
+    last_processed_at TIMESTAMP NULL,
+    CONSTRAINT uk_leave_accrual_period_summary UNIQUE (accrual_period)
+);
+
+-- Create department absence days table (members with pending or approved leave per working day,
+-- maintained on every request transition)
+CREATE TABLE IF NOT EXISTS department_absence_days (
+    department_id BIGINT NOT NULL,
+    absence_date DATE NOT NULL,
+    absent_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (department_id, absence_date),
+    CONSTRAINT fk_department_absence_days_department FOREIGN KEY (department_id)
+        REFERENCES departments(id) ON DELETE CASCADE
+);
+
+-- Create accrual runs table (one row per chunked accrual run)
+CREATE TABLE IF NOT EXISTS accrual_runs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    accrual_period DATE NOT NULL,  -- First day of the month being accrued
+    accrual_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    total_chunks INT NOT NULL DEFAULT 0,
+    completed_chunks INT NOT NULL DEFAULT 0,
+    balances_processed INT NOT NULL DEFAULT 0,
+    accruals_written INT NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000),
+    started_at TIMESTAMP NULL,
+    completed_at TIMESTAMP NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_accrual_runs_status CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED'))
+);
+
+-- Create accrual run chunks table (per-chunk checkpoints of an accrual run)
+CREATE TABLE IF NOT EXISTS accrual_run_chunks (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    run_id BIGINT NOT NULL,
+    chunk_index INT NOT NULL,
+    first_employee_id BIGINT NOT NULL,
+    last_employee_id BIGINT NOT NULL,
+    balance_count INT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    accruals_written INT NOT NULL DEFAULT 0,
+    elapsed_ms BIGINT,
+    balances_per_second DECIMAL(12,2),
+    error_message VARCHAR(1000),
+    completed_at TIMESTAMP NULL,
+    CONSTRAINT fk_accrual_run_chunks_run FOREIGN KEY (run_id)
+        REFERENCES accrual_runs(id) ON DELETE CASCADE,
+    CONSTRAINT uk_accrual_run_chunk UNIQUE (run_id, chunk_index),
+    CONSTRAINT chk_accrual_run_chunks_status CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED'))
+);
+
+-- Create year-end closes table (staged, chunked year-end close of a year)
+CREATE TABLE IF NOT EXISTS year_end_closes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    from_year INT NOT NULL,
+    to_year INT NOT NULL,
+    close_date DATE NOT NULL,
+    dry_run BOOLEAN NOT NULL DEFAULT FALSE,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    total_chunks INT NOT NULL DEFAULT 0,
+    completed_chunks INT NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000),
+    started_at TIMESTAMP NULL,
+    completed_at TIMESTAMP NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_year_end_closes_status CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED'))
+);
+
+-- Create year-end close checkpoints table (one per stage and chunk of a close)
+CREATE TABLE IF NOT EXISTS year_end_close_checkpoints (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    close_id BIGINT NOT NULL,
+    stage VARCHAR(20) NOT NULL,
+    chunk_index INT NOT NULL,
+    first_employee_id BIGINT NOT NULL,
+    last_employee_id BIGINT NOT NULL,
+    balance_count INT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    items_written INT NOT NULL DEFAULT 0,
+    elapsed_ms BIGINT,
+    error_message VARCHAR(1000),
+    completed_at TIMESTAMP NULL,
+    CONSTRAINT fk_year_end_close_checkpoints_close FOREIGN KEY (close_id)
+        REFERENCES year_end_closes(id) ON DELETE CASCADE,
+    CONSTRAINT uk_year_end_close_checkpoint UNIQUE (close_id, chunk_index, stage),
+    CONSTRAINT chk_year_end_close_checkpoints_stage CHECK (stage IN ('ACCRUE', 'PROJECT', 'CARRY_FORWARD', 'OPEN_YEAR')),
+    CONSTRAINT chk_year_end_close_checkpoints_status CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED'))
+);
+
+-- Create background jobs table (long-running admin operations)
+CREATE TABLE IF NOT EXISTS background_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_type VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    parameters VARCHAR(2000),  -- JSON object of job parameters
+    submitted_by VARCHAR(100),
+    total_items INT NOT NULL DEFAULT 0,
+    processed_items INT NOT NULL DEFAULT 0,
+    result_count INT NOT NULL DEFAULT 0,
+    error_message VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP NULL,
+    completed_at TIMESTAMP NULL,
+    owner VARCHAR(100) NULL,  -- Instance running the job
+    heartbeat_at TIMESTAMP NULL,  -- Last time the owner renewed its lease on the job
+    CONSTRAINT chk_background_jobs_status CHECK (status IN ('QUEUED', 'RUNNING', 'COMPLETED', 'FAILED'))
+);
+
+-- Create background job results table (paged output of a job)
+CREATE TABLE IF NOT EXISTS background_job_results (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_id BIGINT NOT NULL,
+    sequence_number INT NOT NULL,
+    payload TEXT NOT NULL,  -- JSON document
+    CONSTRAINT fk_background_job_results_job FOREIGN KEY (job_id)
+        REFERENCES background_jobs(id) ON DELETE CASCADE,
+    CONSTRAINT uk_background_job_result UNIQUE (job_id, sequence_number)
+);
+
 -- Create indexes for better query performance
 CREATE INDEX idx_employee_balance_employee ON employee_balance(employee_id);
 CREATE INDEX idx_employee_balance_leave_type ON employee_balance(leave_type_id);
-CREATE INDEX idx_leave_accruals_employee_balance ON leave_accruals(employee_balance_id);
 CREATE INDEX idx_leave_accruals_period ON leave_accruals(accrual_period);
-CREATE INDEX idx_leave_carry_forwards_employee_balance ON leave_carry_forwards(employee_balance_id);
+CREATE INDEX idx_leave_accruals_date_id ON leave_accruals(accrual_date, id);
 CREATE INDEX idx_leave_carry_forwards_years ON leave_carry_forwards(from_year, to_year);
+CREATE INDEX idx_balance_movements_balance_date ON balance_movements(employee_balance_id, effective_date);
 CREATE INDEX idx_departments_name ON departments(name);
 CREATE INDEX idx_leave_requests_employee ON leave_requests(employee_id);
+CREATE INDEX idx_leave_requests_employee_type_status ON leave_requests(employee_id, leave_type_id, status);
 CREATE INDEX idx_leave_requests_approved_by ON leave_requests(approved_by_id);
 CREATE INDEX idx_leave_requests_status ON leave_requests(status);
 CREATE INDEX idx_leave_requests_dates ON leave_requests(start_date, end_date);
+CREATE INDEX idx_leave_requests_status_dates ON leave_requests(status, start_date, end_date);
 CREATE INDEX idx_public_holidays_date ON public_holidays(date);
-CREATE INDEX idx_public_holidays_recurring ON public_holidays(is_recurring);
\ No newline at end of file
+CREATE INDEX idx_public_holidays_recurring ON public_holidays(is_recurring);
+CREATE INDEX idx_accrual_runs_period ON accrual_runs(accrual_period, status);
+CREATE INDEX idx_year_end_closes_year ON year_end_closes(from_year, status);
+CREATE INDEX idx_background_jobs_status ON background_jobs(status);
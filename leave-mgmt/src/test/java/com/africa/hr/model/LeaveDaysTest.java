@@ -0,0 +1,61 @@
+package com.africa.hr.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaveDaysTest {
+
+    @Test
+    void prorateMatchesBigDecimalHalfUp() {
+        for (long rate = 0; rate <= 500; rate += 7) {
+            for (long totalDays = 28; totalDays <= 31; totalDays++) {
+                for (long workedDays = 0; workedDays <= totalDays; workedDays++) {
+                    BigDecimal expected = BigDecimal.valueOf(rate, 2)
+                            .multiply(BigDecimal.valueOf(workedDays))
+                            .divide(BigDecimal.valueOf(totalDays), 2, RoundingMode.HALF_UP);
+
+                    assertEquals(expected, LeaveDays.ofHundredths(rate).prorate(workedDays, totalDays).toBigDecimal());
+                }
+            }
+        }
+    }
+
+    @Test
+    void prorateRoundsNegativeAmountsAwayFromZero() {
+        assertEquals(-75, LeaveDays.prorate(-150, 1, 2));
+        assertEquals(-1, LeaveDays.prorate(-1, 1, 2));
+    }
+
+    @Test
+    void prorateRejectsInvalidFractions() {
+        assertThrows(IllegalArgumentException.class, () -> LeaveDays.prorate(100, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> LeaveDays.prorate(100, -1, 2));
+    }
+
+    @Test
+    void convertsToAndFromBigDecimal() {
+        assertEquals(150, LeaveDays.toHundredths(new BigDecimal("1.5")));
+        assertEquals(1, LeaveDays.toHundredths(new BigDecimal("0.005")));
+        assertEquals(0, LeaveDays.toHundredths(null));
+        assertEquals(new BigDecimal("1.50"), LeaveDays.of(new BigDecimal("1.5")).toBigDecimal());
+        assertEquals("-0.25", LeaveDays.ofHundredths(-25).toString());
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        LeaveDays a = LeaveDays.of(new BigDecimal("12.34"));
+        LeaveDays b = LeaveDays.of(new BigDecimal("0.66"));
+
+        assertEquals(LeaveDays.ofHundredths(1300), a.plus(b));
+        assertEquals(LeaveDays.ofHundredths(1168), a.minus(b));
+        assertEquals(b, a.min(b));
+        assertEquals(a, a.max(b));
+        assertEquals(-1, b.minus(a).signum());
+        assertThrows(ArithmeticException.class,
+                () -> LeaveDays.ofHundredths(Long.MAX_VALUE).plus(LeaveDays.ofHundredths(1)));
+    }
+}
@@ -0,0 +1,159 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.BalanceMovementType;
+import com.africa.hr.repository.BalanceMovementRepository.BalanceAsOf;
+import com.africa.hr.repository.BalanceMovementRepository.UnrecordedUsage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BalanceMovementRepository.class)
+@TestPropertySource(properties = {
+        "spring.security.cors.allowed-origins=http://localhost",
+        "spring.security.cors.allowed-methods=GET",
+        "spring.security.cors.allowed-headers=*"
+})
+class BalanceMovementRepositoryTest {
+
+    private static final LocalDate END_OF_JANUARY = LocalDate.of(2024, 1, 31);
+    private static final LocalDate END_OF_FEBRUARY = LocalDate.of(2024, 2, 29);
+    private static final LocalDate END_OF_MARCH = LocalDate.of(2024, 3, 31);
+
+    @Autowired
+    private BalanceMovementRepository balanceMovementRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long employeeId;
+    private Long balanceId;
+
+    /**
+     * A balance opened on 1 January 2024, now at 10.00, with these movements:
+     * +1.50 on 5 March, -2.00 on 20 March and +1.50 on 2 April.
+     */
+    @BeforeEach
+    void setUp() {
+        // Rolled back after each test
+        jdbcTemplate.update("INSERT INTO users (email, first_name, last_name, joined_date, status) " +
+                "VALUES ('ledger@example.com', 'Ledger', 'Test', '2020-01-01', 'ACTIVE')");
+        jdbcTemplate.update("INSERT INTO leave_types (name, accrual_based, accrual_rate) " +
+                "VALUES ('Ledger Test', TRUE, 1.50)");
+        employeeId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = 'ledger@example.com'",
+                Long.class);
+        jdbcTemplate.update("INSERT INTO employee_balance (employee_id, leave_type_id, current_balance, created_at) " +
+                "SELECT ?, id, 10.00, '2024-01-01 09:00:00' FROM leave_types WHERE name = 'Ledger Test'", employeeId);
+        balanceId = jdbcTemplate.queryForObject("SELECT id FROM employee_balance WHERE employee_id = ?",
+                Long.class, employeeId);
+
+        movement("ACCRUAL", "1.50", LocalDate.of(2024, 3, 5));
+        movement("USAGE", "-2.00", LocalDate.of(2024, 3, 20));
+        movement("ACCRUAL", "1.50", LocalDate.of(2024, 4, 2));
+    }
+
+    private void movement(String type, String amount, LocalDate effectiveDate) {
+        jdbcTemplate.update("INSERT INTO balance_movements (employee_balance_id, movement_type, amount, effective_date) " +
+                "VALUES (?, ?, ?, ?)", balanceId, type, new BigDecimal(amount), Date.valueOf(effectiveDate));
+    }
+
+    private void snapshot(LocalDate snapshotDate, String balance) {
+        jdbcTemplate.update("INSERT INTO balance_snapshots (employee_balance_id, snapshot_date, balance) " +
+                "VALUES (?, ?, ?)", balanceId, Date.valueOf(snapshotDate), new BigDecimal(balance));
+    }
+
+    private long leaveRequest(String status, LocalDate startDate, LocalDate endDate, String workingDays) {
+        jdbcTemplate.update("INSERT INTO leave_requests (employee_id, leave_type_id, start_date, end_date, status, " +
+                "working_days) SELECT ?, leave_type_id, ?, ?, ?, ? FROM employee_balance WHERE id = ?", employeeId,
+                Date.valueOf(startDate), Date.valueOf(endDate), status,
+                workingDays != null ? new BigDecimal(workingDays) : null, balanceId);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM leave_requests WHERE employee_id = ?", Long.class,
+                employeeId);
+    }
+
+    private BalanceAsOf balanceAsOf(LocalDate date) {
+        List<BalanceAsOf> balances = balanceMovementRepository.findBalancesAsOf(employeeId, date);
+        assertEquals(1, balances.size());
+        return balances.get(0);
+    }
+
+    @Test
+    void findBalancesAsOf_RollsTheLiveBalanceBackWithoutASnapshot() {
+        // 10.00 without the April accrual
+        BalanceAsOf endOfMarch = balanceAsOf(END_OF_MARCH);
+        assertNull(endOfMarch.snapshotDate());
+        assertEquals(new BigDecimal("8.50"), endOfMarch.balance());
+
+        // 10.00 without the usage of 20 March and the April accrual
+        assertEquals(new BigDecimal("10.50"), balanceAsOf(LocalDate.of(2024, 3, 10)).balance());
+    }
+
+    @Test
+    void findBalancesAsOf_RollsTheLatestSnapshotForward() {
+        snapshot(END_OF_JANUARY, "4.00");
+        snapshot(END_OF_FEBRUARY, "9.00");
+
+        // 9.00 plus the two March movements; the April accrual is after the day
+        BalanceAsOf endOfMarch = balanceAsOf(END_OF_MARCH);
+        assertEquals(END_OF_FEBRUARY, endOfMarch.snapshotDate());
+        assertEquals(new BigDecimal("8.50"), endOfMarch.balance());
+
+        // Only the March accrual is between the snapshot and the day
+        assertEquals(new BigDecimal("10.50"), balanceAsOf(LocalDate.of(2024, 3, 10)).balance());
+
+        // The snapshot of the day itself is used as is
+        BalanceAsOf endOfFebruary = balanceAsOf(END_OF_FEBRUARY);
+        assertEquals(END_OF_FEBRUARY, endOfFebruary.snapshotDate());
+        assertEquals(new BigDecimal("9.00"), endOfFebruary.balance());
+    }
+
+    @Test
+    void findBalancesAsOf_SkipsBalancesOpenedAfterTheDay() {
+        assertTrue(balanceMovementRepository.findBalancesAsOf(employeeId, LocalDate.of(2023, 12, 31)).isEmpty());
+    }
+
+    @Test
+    void takeSnapshots_MatchesTheRolledBackBalanceAndIsRepeatable() {
+        // The balances seeded by data.sql were opened after the day
+        assertEquals(1, balanceMovementRepository.takeSnapshots(END_OF_MARCH));
+        assertEquals(0, balanceMovementRepository.takeSnapshots(END_OF_MARCH));
+
+        assertEquals(new BigDecimal("8.50"), jdbcTemplate.queryForObject("SELECT balance FROM balance_snapshots " +
+                "WHERE employee_balance_id = ? AND snapshot_date = ?", BigDecimal.class, balanceId,
+                Date.valueOf(END_OF_MARCH)));
+        BalanceAsOf endOfMarch = balanceAsOf(END_OF_MARCH);
+        assertEquals(END_OF_MARCH, endOfMarch.snapshotDate());
+        assertEquals(new BigDecimal("8.50"), endOfMarch.balance());
+    }
+
+    @Test
+    void findUnrecordedUsage_FindsApprovedRequestsWithoutAUsageMovement() {
+        long unrecorded = leaveRequest("APPROVED", LocalDate.of(2024, 2, 5), LocalDate.of(2024, 2, 8), "2.50");
+        // Submitted before working days were recorded: counted by calendar days
+        long uncounted = leaveRequest("APPROVED", LocalDate.of(2024, 2, 12), LocalDate.of(2024, 2, 14), null);
+        long recorded = leaveRequest("APPROVED", LocalDate.of(2024, 3, 18), LocalDate.of(2024, 3, 19), "2.00");
+        balanceMovementRepository.record(balanceId, BalanceMovementType.USAGE, -200, recorded);
+        leaveRequest("PENDING", LocalDate.of(2024, 5, 6), LocalDate.of(2024, 5, 6), "1.00");
+
+        assertEquals(List.of(new UnrecordedUsage(unrecorded, balanceId, 250),
+                new UnrecordedUsage(uncounted, balanceId, 300)),
+                balanceMovementRepository.findUnrecordedUsage().stream()
+                        .filter(usage -> usage.employeeBalanceId() == balanceId)
+                        .toList());
+    }
+}
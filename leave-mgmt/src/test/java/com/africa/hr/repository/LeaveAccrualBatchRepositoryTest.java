@@ -0,0 +1,111 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.repository.LeaveAccrualBatchRepository.AccrualRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LeaveAccrualBatchRepository.class)
+@TestPropertySource(properties = {
+        "spring.security.cors.allowed-origins=http://localhost",
+        "spring.security.cors.allowed-methods=GET",
+        "spring.security.cors.allowed-headers=*"
+})
+class LeaveAccrualBatchRepositoryTest {
+
+    private static final LocalDate ACCRUAL_DATE = LocalDate.of(2024, 4, 1);
+
+    @Autowired
+    private LeaveAccrualBatchRepository leaveAccrualBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long balanceId;
+
+    @BeforeEach
+    void setUp() {
+        // Rolled back after each test
+        jdbcTemplate.update("INSERT INTO users (email, first_name, last_name, joined_date, status) " +
+                "VALUES ('accrual.batch@example.com', 'Accrual', 'Batch', '2020-01-01', 'ACTIVE')");
+        jdbcTemplate.update("INSERT INTO leave_types (name, accrual_based, accrual_rate) " +
+                "VALUES ('Accrual Batch Test', TRUE, 1.50)");
+        jdbcTemplate.update("INSERT INTO employee_balance (employee_id, leave_type_id, current_balance) " +
+                "SELECT u.id, lt.id, 0.00 FROM users u, leave_types lt " +
+                "WHERE u.email = 'accrual.batch@example.com' AND lt.name = 'Accrual Batch Test'");
+        balanceId = jdbcTemplate.queryForObject("SELECT eb.id FROM employee_balance eb " +
+                "JOIN users u ON u.id = eb.employee_id WHERE u.email = 'accrual.batch@example.com'", Long.class);
+    }
+
+    private int countAccruals() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM leave_accruals WHERE employee_balance_id = ?", Integer.class, balanceId);
+        return count != null ? count : 0;
+    }
+
+    @Test
+    void insertAll_WritesNewPeriods() {
+        List<AccrualRow> rows = List.of(
+                new AccrualRow(balanceId, YearMonth.of(2024, 2), 150, false),
+                new AccrualRow(balanceId, YearMonth.of(2024, 3), 75, true));
+
+        List<AccrualRow> inserted = leaveAccrualBatchRepository.insertAll(rows, ACCRUAL_DATE);
+
+        assertEquals(rows, inserted);
+        assertEquals(2, countAccruals());
+        assertEquals(new BigDecimal("0.75"), jdbcTemplate.queryForObject(
+                "SELECT amount FROM leave_accruals WHERE employee_balance_id = ? AND accrual_period = ?",
+                BigDecimal.class, balanceId, Date.valueOf(LocalDate.of(2024, 3, 1))));
+    }
+
+    @Test
+    void insertAll_RerunOfAnAccruedPeriodWritesNothing() {
+        List<AccrualRow> rows = List.of(
+                new AccrualRow(balanceId, YearMonth.of(2024, 2), 150, false),
+                new AccrualRow(balanceId, YearMonth.of(2024, 3), 150, false));
+        leaveAccrualBatchRepository.insertAll(rows, ACCRUAL_DATE);
+
+        List<AccrualRow> inserted = leaveAccrualBatchRepository.insertAll(rows, ACCRUAL_DATE.plusDays(1));
+
+        assertTrue(inserted.isEmpty());
+        assertEquals(2, countAccruals());
+    }
+
+    @Test
+    void insertAll_ReturnsOnlyTheRowsNotYetInTheLedger() {
+        AccrualRow accrued = new AccrualRow(balanceId, YearMonth.of(2024, 2), 150, false);
+        AccrualRow missing = new AccrualRow(balanceId, YearMonth.of(2024, 3), 150, false);
+        assertTrue(leaveAccrualBatchRepository.insert(accrued, ACCRUAL_DATE));
+
+        List<AccrualRow> inserted = leaveAccrualBatchRepository.insertAll(List.of(accrued, missing), ACCRUAL_DATE);
+
+        assertEquals(List.of(missing), inserted);
+        assertEquals(2, countAccruals());
+    }
+
+    @Test
+    void insert_SkipsAnAccruedPeriod() {
+        AccrualRow row = new AccrualRow(balanceId, YearMonth.of(2024, 2), 150, false);
+
+        assertTrue(leaveAccrualBatchRepository.insert(row, ACCRUAL_DATE));
+        assertFalse(leaveAccrualBatchRepository.insert(row, ACCRUAL_DATE));
+        assertEquals(1, countAccruals());
+    }
+}
@@ -0,0 +1,121 @@
+package com.africa.hr.repository;
+
+import com.africa.hr.model.EmployeeBalance;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.africa.hr.repository.LeaveAccrualRepositoryQueryPlanTest$CapturingInspector",
+        "spring.security.cors.allowed-origins=http://localhost",
+        "spring.security.cors.allowed-methods=GET",
+        "spring.security.cors.allowed-headers=*"
+})
+class LeaveAccrualRepositoryQueryPlanTest {
+
+    @Autowired
+    private LeaveAccrualRepository leaveAccrualRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private EmployeeBalance balance;
+
+    @BeforeEach
+    void setUp() {
+        CapturingInspector.STATEMENTS.clear();
+        balance = new EmployeeBalance();
+        balance.setId(1L);
+    }
+
+    @Test
+    void existsByYearMonth_SeeksPeriodIndex() {
+        leaveAccrualRepository.existsByYearMonth(YearMonth.of(2024, 3));
+
+        assertUsesIndex("IDX_LEAVE_ACCRUALS_PERIOD");
+    }
+
+    @Test
+    void existsByYearMonthAndEmployee_SeeksPeriodIndex() {
+        leaveAccrualRepository.existsByYearMonthAndEmployeeBalanceEmployeeId(YearMonth.of(2024, 3), 1L);
+
+        assertUsesIndex("IDX_LEAVE_ACCRUALS_PERIOD");
+    }
+
+    @Test
+    void findByEmployeeBalanceAndYearMonth_SeeksBalancePeriodIndex() {
+        leaveAccrualRepository.findByEmployeeBalanceAndYearMonth(balance, YearMonth.of(2024, 3));
+
+        assertUsesIndex("UK_LEAVE_ACCRUAL_BALANCE_PERIOD");
+    }
+
+    @Test
+    void findByEmployeeBalanceAndPeriodRange_SeeksBalancePeriodIndex() {
+        leaveAccrualRepository.findByEmployeeBalanceAndPeriodRange(
+                balance, YearMonth.of(2024, 1), YearMonth.of(2025, 1));
+
+        assertUsesIndex("UK_LEAVE_ACCRUAL_BALANCE_PERIOD");
+    }
+
+    @Test
+    void getTotalAccruedForPeriodRange_SeeksBalancePeriodIndex() {
+        leaveAccrualRepository.getTotalAccruedForPeriodRange(
+                balance, YearMonth.of(2024, 1), YearMonth.of(2025, 1));
+
+        assertUsesIndex("UK_LEAVE_ACCRUAL_BALANCE_PERIOD");
+    }
+
+    @Test
+    void findEmployeeBalanceIdsByYearMonth_SeeksPeriodIndex() {
+        leaveAccrualRepository.findEmployeeBalanceIdsByYearMonth(YearMonth.of(2024, 3));
+
+        assertUsesIndex("IDX_LEAVE_ACCRUALS_PERIOD");
+    }
+
+    private void assertUsesIndex(String indexName) {
+        List<String> statements = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase().contains("leave_accruals"))
+                .toList();
+        assertEquals(1, statements.size(), "Expected a single leave_accruals statement");
+
+        String sql = statements.get(0);
+        assertFalse(sql.toLowerCase().matches("(?s).*(year|month)\\s*\\(.*"),
+                "Accrual period predicate must not wrap the column in a function: " + sql);
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+                new Object[countParameters(sql)]).toUpperCase();
+        assertTrue(plan.contains(indexName), "Expected " + indexName + " in plan: " + plan);
+        assertFalse(plan.contains("LEAVE_ACCRUALS.TABLESCAN"), "Unexpected full scan: " + plan);
+    }
+
+    private static int countParameters(String sql) {
+        return (int) sql.chars().filter(c -> c == '?').count();
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
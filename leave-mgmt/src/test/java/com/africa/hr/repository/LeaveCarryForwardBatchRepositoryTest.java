@@ -0,0 +1,132 @@
+package com.africa.hr.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LeaveCarryForwardBatchRepository.class)
+@TestPropertySource(properties = {
+        "spring.security.cors.allowed-origins=http://localhost",
+        "spring.security.cors.allowed-methods=GET",
+        "spring.security.cors.allowed-headers=*"
+})
+class LeaveCarryForwardBatchRepositoryTest {
+
+    private static final BigDecimal CAP = new BigDecimal("10.00");
+    private static final LocalDate CARRY_FORWARD_DATE = LocalDate.of(2024, 12, 31);
+
+    @Autowired
+    private LeaveCarryForwardBatchRepository carryForwardBatchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long employeeId;
+    private Long leaveTypeId;
+    private Long balanceId;
+
+    @BeforeEach
+    void setUp() {
+        // Rolled back after each test
+        jdbcTemplate.update("INSERT INTO users (email, first_name, last_name, joined_date, status) " +
+                "VALUES ('carry.forward@example.com', 'Carry', 'Forward', '2020-01-01', 'ACTIVE')");
+        jdbcTemplate.update("INSERT INTO leave_types (name, accrual_based, accrual_rate, " +
+                "is_carry_forward_enabled, carry_forward_cap) VALUES ('Carry Forward Test', TRUE, 1.50, TRUE, 10.00)");
+        employeeId = jdbcTemplate.queryForObject(
+                "SELECT id FROM users WHERE email = 'carry.forward@example.com'", Long.class);
+        leaveTypeId = jdbcTemplate.queryForObject(
+                "SELECT id FROM leave_types WHERE name = 'Carry Forward Test'", Long.class);
+        jdbcTemplate.update("INSERT INTO employee_balance (employee_id, leave_type_id, current_balance) " +
+                "VALUES (?, ?, 15.00)", employeeId, leaveTypeId);
+        balanceId = jdbcTemplate.queryForObject("SELECT id FROM employee_balance WHERE employee_id = ?",
+                Long.class, employeeId);
+    }
+
+    private BigDecimal currentBalance() {
+        return jdbcTemplate.queryForObject("SELECT current_balance FROM employee_balance WHERE id = ?",
+                BigDecimal.class, balanceId);
+    }
+
+    private int countMovements(String movementType) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM balance_movements " +
+                "WHERE employee_balance_id = ? AND movement_type = ?", Integer.class, balanceId, movementType);
+        return count != null ? count : 0;
+    }
+
+    private boolean isApplied() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT applied_at IS NOT NULL " +
+                "FROM leave_carry_forwards WHERE employee_balance_id = ?", Boolean.class, balanceId));
+    }
+
+    @Test
+    void insertPending_RecordsTheForfeitWithoutTouchingTheBalance() {
+        int inserted = carryForwardBatchRepository.insertPending(leaveTypeId, CAP, 2024, 2025,
+                CARRY_FORWARD_DATE, employeeId, employeeId);
+
+        assertEquals(1, inserted);
+        assertEquals(new BigDecimal("15.00"), currentBalance());
+        assertEquals(new BigDecimal("5.00"), jdbcTemplate.queryForObject(
+                "SELECT forfeited_amount FROM leave_carry_forwards WHERE employee_balance_id = ?",
+                BigDecimal.class, balanceId));
+        assertFalse(isApplied());
+        assertEquals(0, countMovements("FORFEIT"));
+    }
+
+    @Test
+    void applyPending_TakesTheForfeitOffAndMarksItApplied() {
+        carryForwardBatchRepository.insertPending(leaveTypeId, CAP, 2024, 2025,
+                CARRY_FORWARD_DATE, employeeId, employeeId);
+
+        int updated = carryForwardBatchRepository.applyPending(2024, 2025, employeeId, employeeId);
+
+        assertEquals(1, updated);
+        assertEquals(new BigDecimal("10.00"), currentBalance());
+        assertTrue(isApplied());
+        assertEquals(1, countMovements("CARRY_FORWARD"));
+        assertEquals(new BigDecimal("-5.00"), jdbcTemplate.queryForObject("SELECT amount FROM balance_movements " +
+                "WHERE employee_balance_id = ? AND movement_type = 'FORFEIT'", BigDecimal.class, balanceId));
+    }
+
+    @Test
+    void applyPending_KeepsChangesMadeAfterTheForfeitWasRecorded() {
+        carryForwardBatchRepository.insertPending(leaveTypeId, CAP, 2024, 2025,
+                CARRY_FORWARD_DATE, employeeId, employeeId);
+        // Three days taken between the two stages
+        jdbcTemplate.update("UPDATE employee_balance SET current_balance = 12.00 WHERE id = ?", balanceId);
+
+        carryForwardBatchRepository.applyPending(2024, 2025, employeeId, employeeId);
+
+        assertEquals(new BigDecimal("7.00"), currentBalance());
+    }
+
+    @Test
+    void repeatedCarryForward_IsANoOp() {
+        carryForwardBatchRepository.insertPending(leaveTypeId, CAP, 2024, 2025,
+                CARRY_FORWARD_DATE, employeeId, employeeId);
+        carryForwardBatchRepository.applyPending(2024, 2025, employeeId, employeeId);
+
+        int inserted = carryForwardBatchRepository.insertPending(leaveTypeId, CAP, 2024, 2025,
+                CARRY_FORWARD_DATE, employeeId, employeeId);
+        int updated = carryForwardBatchRepository.applyPending(2024, 2025, employeeId, employeeId);
+
+        assertEquals(0, inserted);
+        assertEquals(0, updated);
+        assertEquals(new BigDecimal("10.00"), currentBalance());
+        assertEquals(1, countMovements("CARRY_FORWARD"));
+        assertEquals(1, countMovements("FORFEIT"));
+    }
+}
@@ -0,0 +1,180 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.AccrualRunnerConfigProperties;
+import com.africa.hr.dto.AccrualRunDTO;
+import com.africa.hr.dto.LeaveAccrualRunResultDTO;
+import com.africa.hr.model.AccrualRun;
+import com.africa.hr.model.AccrualRunChunk;
+import com.africa.hr.model.AccrualRunStatus;
+import com.africa.hr.repository.AccrualRunChunkRepository;
+import com.africa.hr.repository.AccrualRunRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository.EligibleBalanceCount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccrualRunServiceTest {
+
+    private static final YearMonth PERIOD = YearMonth.of(2024, 3);
+    private static final LocalDate ACCRUAL_DATE = LocalDate.of(2024, 4, 1);
+
+    @Mock
+    private AccrualRunRepository accrualRunRepository;
+
+    @Mock
+    private AccrualRunChunkRepository accrualRunChunkRepository;
+
+    @Mock
+    private EmployeeBalanceRepository employeeBalanceRepository;
+
+    @Mock
+    private BulkLeaveAccrualService bulkLeaveAccrualService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AccrualRunService accrualRunService;
+
+    // The persisted run and its chunks
+    private AccrualRun storedRun;
+    private final List<AccrualRunChunk> storedChunks = new ArrayList<>();
+
+    private record Count(Long getEmployeeId, Long getBalanceCount) implements EligibleBalanceCount {
+    }
+
+    @BeforeEach
+    void setUp() {
+        AccrualRunnerConfigProperties properties = new AccrualRunnerConfigProperties();
+        properties.setChunkSize(4);
+        // Chunks run on the calling thread, in a template whose transactions do nothing
+        accrualRunService = new AccrualRunService(accrualRunRepository, accrualRunChunkRepository,
+                employeeBalanceRepository, bulkLeaveAccrualService, properties,
+                new TransactionTemplate(transactionManager), Runnable::run);
+
+        lenient().when(accrualRunRepository.save(any(AccrualRun.class))).thenAnswer(invocation -> {
+            AccrualRun run = invocation.getArgument(0);
+            if (run.getId() == null) {
+                run.setId(1L);
+            }
+            storedRun = run;
+            return run;
+        });
+        lenient().when(accrualRunRepository.findById(1L)).thenAnswer(invocation -> Optional.ofNullable(storedRun));
+        lenient().when(accrualRunRepository.findFirstByYearMonthAndStatusInOrderByIdDesc(eq(PERIOD), anyCollection()))
+                .thenAnswer(invocation -> {
+                    Collection<AccrualRunStatus> statuses = invocation.getArgument(1);
+                    return Optional.ofNullable(storedRun).filter(run -> statuses.contains(run.getStatus()));
+                });
+        lenient().when(accrualRunChunkRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            storedChunks.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        lenient().when(accrualRunChunkRepository.findByRunIdOrderByChunkIndex(1L))
+                .thenAnswer(invocation -> List.copyOf(storedChunks));
+        lenient().when(accrualRunChunkRepository.findByRunIdAndStatusNotOrderByChunkIndex(1L, AccrualRunStatus.COMPLETED))
+                .thenAnswer(invocation -> storedChunks.stream()
+                        .filter(chunk -> chunk.getStatus() != AccrualRunStatus.COMPLETED)
+                        .toList());
+
+        // Employees 1 and 2 fill the first chunk of 4 balances, employee 3 starts the second
+        lenient().when(employeeBalanceRepository.countEligibleForAccrualByEmployee(ACCRUAL_DATE))
+                .thenReturn(List.of(new Count(1L, 2L), new Count(2L, 2L), new Count(3L, 2L)));
+    }
+
+    private static LeaveAccrualRunResultDTO written(int accruals) {
+        LeaveAccrualRunResultDTO result = new LeaveAccrualRunResultDTO();
+        result.setAccrualsWritten(accruals);
+        return result;
+    }
+
+    @Test
+    void runMonthlyAccruals_CommitsEveryChunk() {
+        when(bulkLeaveAccrualService.processMonthlyAccrualsInRange(PERIOD, ACCRUAL_DATE, 1L, 2L))
+                .thenReturn(written(4));
+        when(bulkLeaveAccrualService.processMonthlyAccrualsInRange(PERIOD, ACCRUAL_DATE, 3L, 3L))
+                .thenReturn(written(2));
+
+        AccrualRunDTO run = accrualRunService.runMonthlyAccruals(PERIOD, ACCRUAL_DATE);
+
+        assertEquals("COMPLETED", run.getStatus());
+        assertEquals(2, run.getTotalChunks());
+        assertEquals(2, run.getCompletedChunks());
+        assertEquals(6, run.getBalancesProcessed());
+        assertEquals(6, run.getAccrualsWritten());
+    }
+
+    @Test
+    void runMonthlyAccruals_ResumesOnlyTheFailedChunk() {
+        when(bulkLeaveAccrualService.processMonthlyAccrualsInRange(PERIOD, ACCRUAL_DATE, 1L, 2L))
+                .thenReturn(written(4));
+        when(bulkLeaveAccrualService.processMonthlyAccrualsInRange(PERIOD, ACCRUAL_DATE, 3L, 3L))
+                .thenThrow(new IllegalStateException("Deadlock found"))
+                .thenReturn(written(2));
+
+        AccrualRunDTO failed = accrualRunService.runMonthlyAccruals(PERIOD, ACCRUAL_DATE);
+
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals(1, failed.getCompletedChunks());
+        assertEquals("FAILED", failed.getChunks().get(1).getStatus());
+        assertEquals("Deadlock found", failed.getChunks().get(1).getErrorMessage());
+
+        AccrualRunDTO resumed = accrualRunService.runMonthlyAccruals(PERIOD, ACCRUAL_DATE);
+
+        assertEquals("COMPLETED", resumed.getStatus());
+        assertEquals(2, resumed.getCompletedChunks());
+        assertEquals(6, resumed.getAccrualsWritten());
+        // The run was planned once, and the committed chunk was not accrued again
+        verify(employeeBalanceRepository, times(1)).countEligibleForAccrualByEmployee(any());
+        verify(bulkLeaveAccrualService, times(1)).processMonthlyAccrualsInRange(PERIOD, ACCRUAL_DATE, 1L, 2L);
+        verify(bulkLeaveAccrualService, times(2)).processMonthlyAccrualsInRange(PERIOD, ACCRUAL_DATE, 3L, 3L);
+    }
+
+    @Test
+    void runMonthlyAccruals_RerunOfAnAccruedPeriodWritesNothing() {
+        // Every balance already has its accrual, so the batch inserts skip every row
+        when(bulkLeaveAccrualService.processMonthlyAccrualsInRange(eq(PERIOD), eq(ACCRUAL_DATE), anyLong(), anyLong()))
+                .thenReturn(written(0));
+        storedRun = new AccrualRun();
+        storedRun.setId(1L);
+        storedRun.setYearMonth(PERIOD);
+        storedRun.setStatus(AccrualRunStatus.COMPLETED);
+
+        AccrualRunDTO run = accrualRunService.runMonthlyAccruals(PERIOD, ACCRUAL_DATE);
+
+        assertEquals("COMPLETED", run.getStatus());
+        assertEquals(6, run.getBalancesProcessed());
+        assertEquals(0, run.getAccrualsWritten());
+    }
+
+    @Test
+    void resumeRun_RejectsCompletedRuns() {
+        storedRun = new AccrualRun();
+        storedRun.setId(1L);
+        storedRun.setStatus(AccrualRunStatus.COMPLETED);
+
+        assertThrows(IllegalStateException.class,
+                () -> accrualRunService.resumeRun(1L, (chunk, totalChunks) -> {
+                }));
+        verifyNoInteractions(bulkLeaveAccrualService);
+    }
+}
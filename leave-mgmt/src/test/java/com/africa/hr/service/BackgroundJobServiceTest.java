@@ -0,0 +1,152 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.BackgroundJobConfigProperties;
+import com.africa.hr.model.BackgroundJob;
+import com.africa.hr.model.BackgroundJobStatus;
+import com.africa.hr.repository.BackgroundJobRepository;
+import com.africa.hr.repository.BackgroundJobResultRepository;
+import com.africa.hr.service.job.BackgroundJobHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BackgroundJobServiceTest {
+
+    @Mock
+    private BackgroundJobRepository backgroundJobRepository;
+
+    @Mock
+    private BackgroundJobResultRepository backgroundJobResultRepository;
+
+    @Mock
+    private TaskScheduler backgroundJobLeaseScheduler;
+
+    @Mock
+    private BackgroundJobHandler handler;
+
+    private BackgroundJobService backgroundJobService;
+
+    private BackgroundJobConfigProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BackgroundJobConfigProperties();
+        properties.setHeartbeatInterval(Duration.ofSeconds(30));
+        properties.setLeaseTimeout(Duration.ofMinutes(5));
+        when(handler.getJobType()).thenReturn("TEST");
+        // Jobs run on the calling thread
+        backgroundJobService = new BackgroundJobService(backgroundJobRepository, backgroundJobResultRepository,
+                new ObjectMapper(), properties, Runnable::run, backgroundJobLeaseScheduler, List.of(handler));
+    }
+
+    private BackgroundJob queuedJob() {
+        BackgroundJob job = new BackgroundJob();
+        job.setId(1L);
+        job.setJobType("TEST");
+        job.setParameters("{}");
+        return job;
+    }
+
+    @Test
+    void resumeQueuedJobs_RequeuesOnlyExpiredLeases() {
+        LocalDateTime before = LocalDateTime.now();
+
+        backgroundJobService.resumeQueuedJobs();
+
+        ArgumentCaptor<LocalDateTime> expiredBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(backgroundJobRepository).requeueExpired(expiredBefore.capture());
+        assertFalse(expiredBefore.getValue().isBefore(before.minusMinutes(5)));
+        assertTrue(expiredBefore.getValue().isBefore(before.minusMinutes(4)));
+        verify(backgroundJobLeaseScheduler).scheduleAtFixedRate(any(Runnable.class), eq(Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void renewLeases_RenewsOwnJobsAndDispatchesRequeuedOnes() {
+        BackgroundJob job = queuedJob();
+        when(backgroundJobRepository.requeueExpired(any())).thenReturn(1);
+        when(backgroundJobRepository.findByStatusOrderById(BackgroundJobStatus.QUEUED)).thenReturn(List.of(job));
+        when(backgroundJobRepository.claim(eq(1L), anyString(), any())).thenReturn(1);
+        when(backgroundJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(backgroundJobRepository.finishOwned(eq(1L), anyString(), any(), any(), any())).thenReturn(1);
+
+        backgroundJobService.renewLeases();
+
+        ArgumentCaptor<String> heartbeatOwner = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> claimOwner = ArgumentCaptor.forClass(String.class);
+        verify(backgroundJobRepository).heartbeat(heartbeatOwner.capture(), any());
+        verify(backgroundJobRepository).claim(eq(1L), claimOwner.capture(), any());
+        assertEquals(heartbeatOwner.getValue(), claimOwner.getValue());
+        verify(handler).execute(any());
+        verify(backgroundJobRepository).finishOwned(eq(1L), eq(claimOwner.getValue()),
+                eq(BackgroundJobStatus.COMPLETED), isNull(), any());
+    }
+
+    @Test
+    void renewLeases_DispatchesNothingWhenNoLeaseExpired() {
+        backgroundJobService.renewLeases();
+
+        verify(backgroundJobRepository).heartbeat(anyString(), any());
+        verify(backgroundJobRepository, never()).findByStatusOrderById(any());
+        verify(backgroundJobRepository, never()).claim(anyLong(), anyString(), any());
+    }
+
+    @Test
+    void renewLeases_SurvivesDatabaseFailures() {
+        when(backgroundJobRepository.heartbeat(anyString(), any()))
+                .thenThrow(new IllegalStateException("connection lost"));
+
+        assertDoesNotThrow(() -> backgroundJobService.renewLeases());
+    }
+
+    @Test
+    void submit_LeavesARejectedJobQueuedForTheNextHeartbeat() {
+        // The pool is full for the first dispatch only
+        AtomicBoolean full = new AtomicBoolean(true);
+        backgroundJobService = new BackgroundJobService(backgroundJobRepository, backgroundJobResultRepository,
+                new ObjectMapper(), properties, task -> {
+                    if (full.getAndSet(false)) {
+                        throw new TaskRejectedException("queue full");
+                    }
+                    task.run();
+                }, backgroundJobLeaseScheduler, List.of(handler));
+        BackgroundJob job = queuedJob();
+        when(backgroundJobRepository.save(any(BackgroundJob.class))).thenReturn(job);
+
+        assertEquals("QUEUED", backgroundJobService.submit("TEST", Map.of(), "admin").getStatus());
+        verify(backgroundJobRepository, never()).claim(anyLong(), anyString(), any());
+        verify(backgroundJobRepository, never()).finishOwned(anyLong(), anyString(), any(), any(), any());
+
+        when(backgroundJobRepository.findByStatusOrderById(BackgroundJobStatus.QUEUED)).thenReturn(List.of(job));
+        when(backgroundJobRepository.claim(eq(1L), anyString(), any())).thenReturn(1);
+        when(backgroundJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(backgroundJobRepository.finishOwned(eq(1L), anyString(), any(), any(), any())).thenReturn(1);
+
+        backgroundJobService.renewLeases();
+
+        verify(handler).execute(any());
+        verify(backgroundJobRepository).finishOwned(eq(1L), anyString(), eq(BackgroundJobStatus.COMPLETED),
+                isNull(), any());
+    }
+}
@@ -0,0 +1,67 @@
+package com.africa.hr.service;
+
+import com.africa.hr.dto.BalanceAsOfDTO;
+import com.africa.hr.repository.BalanceMovementRepository;
+import com.africa.hr.repository.BalanceMovementRepository.BalanceAsOf;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceLedgerServiceTest {
+
+    @Mock
+    private BalanceMovementRepository balanceMovementRepository;
+
+    @InjectMocks
+    private BalanceLedgerService balanceLedgerService;
+
+    @Test
+    void getBalancesAsOf_ReturnsTheBalanceAtTheEndOfTheDay() {
+        LocalDate date = LocalDate.of(2024, 3, 31);
+        when(balanceMovementRepository.findBalancesAsOf(7L, date)).thenReturn(List.of(
+                new BalanceAsOf(70L, 1L, "Annual", LocalDate.of(2024, 2, 29), new BigDecimal("8.50"))));
+
+        List<BalanceAsOfDTO> balances = balanceLedgerService.getBalancesAsOf(7L, date);
+
+        assertEquals(1, balances.size());
+        BalanceAsOfDTO balance = balances.get(0);
+        assertEquals(70L, balance.getEmployeeBalanceId());
+        assertEquals("Annual", balance.getLeaveTypeName());
+        assertEquals(date, balance.getDate());
+        assertEquals(new BigDecimal("8.50"), balance.getBalance());
+        assertEquals(LocalDate.of(2024, 2, 29), balance.getSnapshotDate());
+    }
+
+    @Test
+    void getBalancesAsOf_RejectsFutureDates() {
+        assertThrows(IllegalArgumentException.class,
+                () -> balanceLedgerService.getBalancesAsOf(7L, LocalDate.now().plusDays(1)));
+        verifyNoInteractions(balanceMovementRepository);
+    }
+
+    @Test
+    void takeMonthEndSnapshots_SnapshotsTheLastDayOfTheMonth() {
+        when(balanceMovementRepository.takeSnapshots(LocalDate.of(2024, 2, 29))).thenReturn(3);
+
+        assertEquals(3, balanceLedgerService.takeMonthEndSnapshots(YearMonth.of(2024, 2)));
+    }
+
+    @Test
+    void takeMonthEndSnapshots_RejectsAMonthThatIsNotOver() {
+        assertThrows(IllegalArgumentException.class,
+                () -> balanceLedgerService.takeMonthEndSnapshots(YearMonth.now()));
+        verify(balanceMovementRepository, never()).takeSnapshots(any());
+    }
+}
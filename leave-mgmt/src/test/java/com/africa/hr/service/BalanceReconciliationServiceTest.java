@@ -0,0 +1,186 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.BalanceReconciliationConfigProperties;
+import com.africa.hr.dto.BalanceDriftDTO;
+import com.africa.hr.dto.BalanceReconciliationDTO;
+import com.africa.hr.model.BalanceMovementType;
+import com.africa.hr.repository.BalanceMovementRepository;
+import com.africa.hr.repository.BalanceReconciliationRepository;
+import com.africa.hr.repository.BalanceReconciliationRepository.BalanceHistory;
+import com.africa.hr.repository.BalanceReconciliationRepository.IdRange;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceReconciliationServiceTest {
+
+    @Mock
+    private BalanceReconciliationRepository balanceReconciliationRepository;
+
+    @Mock
+    private BalanceMovementRepository balanceMovementRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BalanceReconciliationService balanceReconciliationService;
+
+    private final List<BalanceHistory> balances = new ArrayList<>();
+    private final List<BalanceDriftDTO> reportedDrifts = new ArrayList<>();
+
+    // Balance id to the amount it was repaired to, and to the adjustment recorded
+    private final Map<Long, Long> repairTargets = new TreeMap<>();
+    private final Map<Long, Long> adjustments = new TreeMap<>();
+
+    @BeforeEach
+    void setUp() {
+        BalanceReconciliationConfigProperties properties = new BalanceReconciliationConfigProperties();
+        properties.setPartitionSize(2);
+        // Partitions run on the calling thread
+        balanceReconciliationService = new BalanceReconciliationService(balanceReconciliationRepository,
+                balanceMovementRepository, properties, new TransactionTemplate(transactionManager),
+                eventPublisher, Runnable::run);
+
+        // Amounts are in hundredths of a day
+        balances.add(history(1, 1000, -1, 1000, 0, 0));
+        balances.add(history(2, 500, -1, 1000, 0, 200));
+        balances.add(history(3, 100, -1, 300, 0, 500));
+        balances.add(history(4, 1000, 1000, 1500, 0, 0));
+        balances.add(history(5, 50000, -1, 120000, 0, 0));
+
+        lenient().when(balanceReconciliationRepository.findIdRange()).thenReturn(Optional.of(new IdRange(1, 5)));
+        lenient().when(balanceReconciliationRepository.findInRange(any())).thenAnswer(invocation -> {
+            IdRange range = invocation.getArgument(0);
+            return balances.stream()
+                    .filter(balance -> balance.employeeBalanceId() >= range.firstId()
+                            && balance.employeeBalanceId() <= range.lastId())
+                    .toList();
+        });
+        lenient().when(balanceReconciliationRepository.repair(any(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            long[] balanceIds = invocation.getArgument(0);
+            long[] targets = invocation.getArgument(2);
+            int count = invocation.getArgument(3);
+            for (int i = 0; i < count; i++) {
+                repairTargets.put(balanceIds[i], targets[i]);
+            }
+            int[] updated = new int[count];
+            Arrays.fill(updated, 1);
+            return updated;
+        });
+        lenient().when(balanceMovementRepository.recordAll(any(), any(), anyInt(), eq(BalanceMovementType.ADJUSTMENT)))
+                .thenAnswer(invocation -> {
+                    long[] balanceIds = invocation.getArgument(0);
+                    long[] amounts = invocation.getArgument(1);
+                    int count = invocation.getArgument(2);
+                    for (int i = 0; i < count; i++) {
+                        adjustments.put(balanceIds[i], amounts[i]);
+                    }
+                    return count;
+                });
+    }
+
+    private static BalanceHistory history(long id, long currentBalance, long maxBalance, long accrued,
+            long forfeited, long used) {
+        return new BalanceHistory(id, id * 10, 1L, currentBalance, maxBalance, accrued, forfeited, used);
+    }
+
+    private BalanceDriftDTO reportedDrift(long balanceId) {
+        return reportedDrifts.stream()
+                .filter(drift -> drift.getEmployeeBalanceId() == balanceId)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void reconcile_ReportsDriftWithoutRepairing() {
+        BalanceReconciliationDTO result = balanceReconciliationService.reconcile(false,
+                (totalPartitions, drifts) -> reportedDrifts.addAll(drifts));
+
+        assertEquals(3, result.getPartitions());
+        assertEquals(5, result.getBalancesChecked());
+        assertEquals(4, result.getDriftedBalances());
+        assertEquals(0, result.getRepairedBalances());
+        assertEquals(List.of(2L, 3L, 4L, 5L),
+                reportedDrifts.stream().map(BalanceDriftDTO::getEmployeeBalanceId).sorted().toList());
+
+        BalanceDriftDTO drift = reportedDrift(2);
+        assertEquals(new BigDecimal("5.00"), drift.getCurrentBalance());
+        assertEquals(new BigDecimal("8.00"), drift.getExpectedBalance());
+        assertEquals(new BigDecimal("-3.00"), drift.getDrift());
+        assertFalse(drift.isRepaired());
+        assertEquals(new BigDecimal("-2.00"), reportedDrift(3).getExpectedBalance());
+
+        verify(balanceReconciliationRepository, never()).repair(any(), any(), any(), anyInt());
+        verifyNoInteractions(balanceMovementRepository, transactionManager);
+    }
+
+    @Test
+    void reconcile_RepairsToTheClampedExpectedBalance() {
+        BalanceReconciliationDTO result = balanceReconciliationService.reconcile(true,
+                (totalPartitions, drifts) -> reportedDrifts.addAll(drifts));
+
+        // Never negative, never above the maximum, never above what the column can store
+        assertEquals(Map.of(2L, 800L, 3L, 0L, 5L, 99_999L), repairTargets);
+        assertEquals(Map.of(2L, 300L, 3L, -100L, 5L, 49_999L), adjustments);
+
+        // Balance 4 already holds its maximum, so it drifted but is left alone
+        assertEquals(4, result.getDriftedBalances());
+        assertEquals(3, result.getRepairedBalances());
+        assertFalse(reportedDrift(4).isRepaired());
+        assertTrue(reportedDrift(5).isRepaired());
+        verify(eventPublisher, times(3)).publishEvent(any(EmployeeBalancesChangedEvent.class));
+    }
+
+    @Test
+    void reconcile_SkipsBalancesChangedSinceTheyWereRead() {
+        when(balanceReconciliationRepository.findIdRange()).thenReturn(Optional.of(new IdRange(2, 2)));
+        doReturn(new int[]{0}).when(balanceReconciliationRepository).repair(any(), any(), any(), anyInt());
+
+        BalanceReconciliationDTO result = balanceReconciliationService.reconcile(true,
+                (totalPartitions, drifts) -> reportedDrifts.addAll(drifts));
+
+        assertEquals(1, result.getDriftedBalances());
+        assertEquals(0, result.getRepairedBalances());
+        assertFalse(reportedDrift(2).isRepaired());
+        verify(balanceMovementRepository, never()).recordAll(any(), any(), anyInt(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void reconcile_CountsFailedPartitionsAndCarriesOn() {
+        when(balanceReconciliationRepository.findInRange(new IdRange(3, 4)))
+                .thenThrow(new IllegalStateException("Query timeout"));
+
+        BalanceReconciliationDTO result = balanceReconciliationService.reconcile(false,
+                (totalPartitions, drifts) -> reportedDrifts.addAll(drifts));
+
+        assertEquals(1, result.getFailedPartitions());
+        assertEquals(3, result.getBalancesChecked());
+        assertEquals(List.of(2L, 5L),
+                reportedDrifts.stream().map(BalanceDriftDTO::getEmployeeBalanceId).sorted().toList());
+    }
+}
@@ -0,0 +1,178 @@
+package com.africa.hr.service;
+
+import com.africa.hr.dto.LeaveAccrualCatchUpResultDTO;
+import com.africa.hr.dto.LeaveAccrualRunResultDTO;
+import com.africa.hr.model.BalanceMovementType;
+import com.africa.hr.model.EmployeeBalance;
+import com.africa.hr.model.LeaveType;
+import com.africa.hr.model.User;
+import com.africa.hr.repository.BalanceMovementRepository;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.repository.LeaveAccrualBatchRepository;
+import com.africa.hr.repository.LeaveAccrualBatchRepository.AccrualRow;
+import com.africa.hr.repository.LeaveAccrualPeriodSummaryBatchRepository;
+import com.africa.hr.repository.LeaveAccrualRepository;
+import com.africa.hr.repository.LeaveAccrualRepository.AccruedPeriod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkLeaveAccrualServiceTest {
+
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+    private static final YearMonth MARCH = YearMonth.of(2024, 3);
+    private static final LocalDate ACCRUAL_DATE = LocalDate.of(2024, 4, 1);
+
+    @Mock
+    private EmployeeBalanceRepository employeeBalanceRepository;
+
+    @Mock
+    private LeaveAccrualRepository leaveAccrualRepository;
+
+    @Mock
+    private LeaveAccrualBatchRepository leaveAccrualBatchRepository;
+
+    @Mock
+    private EmployeeBalanceBatchRepository employeeBalanceBatchRepository;
+
+    @Mock
+    private BalanceMovementRepository balanceMovementRepository;
+
+    @Mock
+    private LeaveAccrualPeriodSummaryBatchRepository leaveAccrualPeriodSummaryBatchRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private BulkLeaveAccrualService bulkLeaveAccrualService;
+
+    private EmployeeBalance balance;
+
+    private record Accrued(Long getEmployeeBalanceId, Long getEmployeeId, YearMonth getYearMonth)
+            implements AccruedPeriod {
+    }
+
+    @BeforeEach
+    void setUp() {
+        User employee = new User();
+        employee.setId(7L);
+        employee.setJoinedDate(LocalDate.of(2020, 1, 1));
+
+        LeaveType annual = new LeaveType();
+        annual.setId(1L);
+        annual.setAccrualRate(new BigDecimal("1.50"));
+
+        balance = new EmployeeBalance();
+        balance.setId(70L);
+        balance.setEmployee(employee);
+        balance.setLeaveType(annual);
+        balance.setCurrentBalance(new BigDecimal("8.00"));
+
+        lenient().when(employeeBalanceRepository.findAccrualBasedInRange(7L, 7L)).thenReturn(List.of(balance));
+        lenient().when(leaveAccrualBatchRepository.insertAll(anyList(), eq(ACCRUAL_DATE)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AccrualRow> writtenRows() {
+        ArgumentCaptor<List<AccrualRow>> rows = ArgumentCaptor.forClass(List.class);
+        verify(leaveAccrualBatchRepository).insertAll(rows.capture(), eq(ACCRUAL_DATE));
+        return rows.getValue();
+    }
+
+    @Test
+    void catchUp_CapsMonthsAtTheHeadroomLeft() {
+        balance.setMaxBalance(new BigDecimal("10.00"));
+
+        LeaveAccrualCatchUpResultDTO result = bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                JANUARY, MARCH, ACCRUAL_DATE, 7L, 7L);
+
+        // 2.00 days of headroom: a full month, then the rest; March is left open
+        assertEquals(List.of(
+                new AccrualRow(70L, JANUARY, 150, false),
+                new AccrualRow(70L, YearMonth.of(2024, 2), 50, false)), writtenRows());
+        assertEquals(2, result.getAccrualsWritten());
+        assertEquals(1, result.getSkippedMonths());
+        assertEquals(new BigDecimal("2.00"), result.getTotalDaysAccrued());
+        verify(employeeBalanceBatchRepository).applyAccruals(
+                aryEq(new long[]{70L, 0L}), aryEq(new long[]{200L, 0L}), eq(1), any());
+    }
+
+    @Test
+    void monthly_LeavesABalanceAtItsMaximumOpen() {
+        balance.setMaxBalance(new BigDecimal("8.00"));
+        when(employeeBalanceRepository.findEligibleForAccrualInRange(ACCRUAL_DATE, 7L, 7L))
+                .thenReturn(List.of(balance));
+
+        LeaveAccrualRunResultDTO result = bulkLeaveAccrualService.processMonthlyAccrualsInRange(
+                MARCH, ACCRUAL_DATE, 7L, 7L);
+
+        assertEquals(List.of(), writtenRows());
+        assertEquals(0, result.getAccrualsWritten());
+        assertEquals(1, result.getSkippedBalances());
+        verify(leaveAccrualPeriodSummaryBatchRepository, never()).applyDelta(any(), any());
+    }
+
+    @Test
+    void catchUp_SkipsMonthsAlreadyInTheLedger() {
+        when(leaveAccrualRepository.findAccruedPeriodsForEmployees(anyCollection(), eq(JANUARY), eq(MARCH.plusMonths(1))))
+                .thenReturn(List.of(new Accrued(70L, 7L, YearMonth.of(2024, 2))));
+
+        LeaveAccrualCatchUpResultDTO result = bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                JANUARY, MARCH, ACCRUAL_DATE, 7L, 7L);
+
+        assertEquals(List.of(
+                new AccrualRow(70L, JANUARY, 150, false),
+                new AccrualRow(70L, MARCH, 150, false)), writtenRows());
+        assertEquals(2, result.getAccrualsWritten());
+        assertEquals(1, result.getSkippedMonths());
+        verify(employeeBalanceBatchRepository).applyAccruals(
+                aryEq(new long[]{70L, 0L}), aryEq(new long[]{300L, 0L}), eq(1), any());
+        verify(balanceMovementRepository).recordAll(
+                aryEq(new long[]{70L, 0L}), aryEq(new long[]{300L, 0L}), eq(1), eq(BalanceMovementType.ACCRUAL));
+    }
+
+    @Test
+    void catchUp_CreditsNothingForRowsTheLedgerAlreadyHad() {
+        // Another writer accrued the periods between the read and the insert
+        when(leaveAccrualBatchRepository.insertAll(anyList(), eq(ACCRUAL_DATE))).thenReturn(List.of());
+
+        LeaveAccrualCatchUpResultDTO result = bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                JANUARY, MARCH, ACCRUAL_DATE, 7L, 7L);
+
+        assertEquals(0, result.getAccrualsWritten());
+        assertEquals(3, result.getSkippedMonths());
+        verify(employeeBalanceBatchRepository).applyAccruals(any(), any(), eq(0), any());
+        verify(leaveAccrualPeriodSummaryBatchRepository, never()).applyDelta(any(), any());
+    }
+
+    @Test
+    void catchUp_RejectsAnInvertedRange() {
+        assertThrows(IllegalArgumentException.class, () -> bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                MARCH, JANUARY, ACCRUAL_DATE, 7L, 7L));
+        verify(leaveAccrualBatchRepository, never()).insertAll(anyList(), any());
+        verify(employeeBalanceBatchRepository, never()).applyAccruals(any(), any(), anyInt(), any());
+    }
+}
@@ -0,0 +1,118 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.BusinessCalendarConfigProperties;
+import com.africa.hr.model.LeaveDays;
+import com.africa.hr.model.LeaveRequest;
+import com.africa.hr.model.PublicHoliday;
+import com.africa.hr.service.event.PublicHolidaysChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BusinessCalendarTest {
+
+    private PublicHolidayService publicHolidayService;
+    private List<LocalDate> holidays;
+    private BusinessCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        holidays = new ArrayList<>();
+        publicHolidayService = mock(PublicHolidayService.class);
+        when(publicHolidayService.getHolidaysBetweenDates(any(), any())).thenAnswer(invocation -> {
+            LocalDate start = invocation.getArgument(0);
+            LocalDate end = invocation.getArgument(1);
+            return holidays.stream()
+                    .filter(date -> !date.isBefore(start) && !date.isAfter(end))
+                    .map(date -> {
+                        PublicHoliday holiday = new PublicHoliday();
+                        holiday.setDate(date);
+                        return holiday;
+                    })
+                    .toList();
+        });
+        calendar = new BusinessCalendar(publicHolidayService, new BusinessCalendarConfigProperties());
+    }
+
+    @Test
+    void countsMatchDayByDayIteration() {
+        holidays.add(LocalDate.of(2024, 1, 1));
+        holidays.add(LocalDate.of(2024, 12, 25));
+        holidays.add(LocalDate.of(2025, 5, 1));
+
+        LocalDate first = LocalDate.of(2023, 12, 1);
+        for (int offset = 0; offset < 500; offset += 13) {
+            for (int length = 0; length < 60; length += 7) {
+                LocalDate start = first.plusDays(offset);
+                LocalDate end = start.plusDays(length);
+
+                int expected = 0;
+                for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                    if (date.getDayOfWeek().getValue() < 6 && !holidays.contains(date)) {
+                        expected++;
+                    }
+                }
+
+                assertEquals(expected, calendar.countWorkingDays(start, end), start + " to " + end);
+            }
+        }
+    }
+
+    @Test
+    void excludesWeekendsAndHolidays() {
+        holidays.add(LocalDate.of(2024, 3, 29));
+
+        // Monday 2024-03-25 to Monday 2024-04-01, with Good Friday off
+        assertEquals(5, calendar.countWorkingDays(LocalDate.of(2024, 3, 25), LocalDate.of(2024, 4, 1)));
+        assertFalse(calendar.isWorkingDay(LocalDate.of(2024, 3, 29)));
+        assertFalse(calendar.isWorkingDay(LocalDate.of(2024, 3, 30)));
+        assertTrue(calendar.isWorkingDay(LocalDate.of(2024, 3, 28)));
+        assertEquals(0, calendar.countWorkingDays(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 3, 31)));
+    }
+
+    @Test
+    void halfDaysOnlyCountOnWorkingDays() {
+        // Friday 2024-06-07 to Monday 2024-06-10
+        LocalDate friday = LocalDate.of(2024, 6, 7);
+        LocalDate saturday = LocalDate.of(2024, 6, 8);
+        LocalDate monday = LocalDate.of(2024, 6, 10);
+
+        assertEquals(LeaveDays.ofHundredths(100), calendar.countLeaveDays(friday, monday, true, true));
+        assertEquals(LeaveDays.ofHundredths(50), calendar.countLeaveDays(saturday, monday, true, true));
+        assertEquals(LeaveDays.ZERO, calendar.countLeaveDays(friday, friday, true, true));
+    }
+
+    @Test
+    void prefersWorkingDaysRecordedOnTheRequest() {
+        LeaveRequest request = new LeaveRequest();
+        request.setStartDate(LocalDate.of(2024, 6, 3));
+        request.setEndDate(LocalDate.of(2024, 6, 7));
+
+        assertEquals(LeaveDays.ofHundredths(500), calendar.countLeaveDays(request));
+
+        request.setWorkingDays(new BigDecimal("4.00"));
+        assertEquals(LeaveDays.ofHundredths(400), calendar.countLeaveDays(request));
+    }
+
+    @Test
+    void rebuildsYearsWhenHolidaysChange() {
+        LocalDate date = LocalDate.of(2024, 7, 1);
+        assertTrue(calendar.isWorkingDay(date));
+        calendar.isWorkingDay(date.plusDays(1));
+        verify(publicHolidayService, times(1)).getHolidaysBetweenDates(any(), any());
+
+        holidays.add(date);
+        calendar.onPublicHolidaysChanged(new PublicHolidaysChangedEvent());
+
+        assertFalse(calendar.isWorkingDay(date));
+        verify(publicHolidayService, times(2)).getHolidaysBetweenDates(any(), any());
+    }
+}
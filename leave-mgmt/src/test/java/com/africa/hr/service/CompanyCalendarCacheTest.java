@@ -0,0 +1,89 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.CompanyCalendarCacheConfigProperties;
+import com.africa.hr.model.LeaveRequestStatus;
+import com.africa.hr.service.event.LeaveRequestStatusChangedEvent;
+import com.africa.hr.service.event.PublicHolidaysChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompanyCalendarCacheTest {
+
+    private CompanyCalendarCache cache;
+    private AtomicInteger renders;
+    private CompanyCalendarCache.Renderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        CompanyCalendarCacheConfigProperties properties = new CompanyCalendarCacheConfigProperties();
+        properties.setMaxEntries(2);
+        cache = new CompanyCalendarCache(properties);
+        renders = new AtomicInteger();
+        renderer = out -> out.write(("{\"render\":" + renders.incrementAndGet() + "}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void servesRepeatedReadsFromCacheWithStableEtag() throws IOException {
+        CompanyCalendarCache.RenderedCalendar first = cache.get(2024, 3, renderer);
+        CompanyCalendarCache.RenderedCalendar second = cache.get(2024, 3, renderer);
+
+        assertEquals(1, renders.get());
+        assertSame(first, second);
+        assertTrue(first.etag().startsWith("\"") && first.etag().endsWith("\""));
+    }
+
+    @Test
+    void approvalDropsOnlyOverlappingPeriods() throws IOException {
+        String march = cache.get(2024, 3, renderer).etag();
+        cache.get(2024, 5, renderer);
+
+        cache.onLeaveRequestStatusChanged(new LeaveRequestStatusChangedEvent(1L, 2L, 3L,
+                LocalDate.of(2024, 3, 28), LocalDate.of(2024, 4, 2),
+                LeaveRequestStatus.PENDING, LeaveRequestStatus.APPROVED, 1L));
+
+        assertNotEquals(march, cache.get(2024, 3, renderer).etag());
+        cache.get(2024, 5, renderer);
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    void ignoresChangesThatDoNotInvolveApprovedLeave() throws IOException {
+        cache.get(2024, null, renderer);
+
+        cache.onLeaveRequestStatusChanged(new LeaveRequestStatusChangedEvent(1L, 2L, 3L,
+                LocalDate.of(2024, 3, 28), LocalDate.of(2024, 4, 2),
+                LeaveRequestStatus.PENDING, LeaveRequestStatus.REJECTED, 1L));
+        cache.get(2024, null, renderer);
+
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void publicHolidayChangesDropEveryPeriod() throws IOException {
+        cache.get(2024, 3, renderer);
+        cache.get(2025, null, renderer);
+
+        cache.onPublicHolidaysChanged(new PublicHolidaysChangedEvent());
+        cache.get(2024, 3, renderer);
+        cache.get(2025, null, renderer);
+
+        assertEquals(4, renders.get());
+    }
+
+    @Test
+    void failedRenderIsNotCached() throws IOException {
+        assertThrows(IOException.class, () -> cache.get(2024, 3, out -> {
+            throw new IOException("boom");
+        }));
+
+        cache.get(2024, 3, renderer);
+        assertEquals(1, renders.get());
+    }
+}
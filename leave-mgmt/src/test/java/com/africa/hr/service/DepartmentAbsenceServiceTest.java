@@ -0,0 +1,138 @@
+package com.africa.hr.service;
+
+import com.africa.hr.model.Department;
+import com.africa.hr.model.LeaveRequest;
+import com.africa.hr.model.LeaveRequestStatus;
+import com.africa.hr.model.User;
+import com.africa.hr.repository.ActiveLeaveRepository;
+import com.africa.hr.repository.ActiveLeaveRepository.ActiveLeave;
+import com.africa.hr.repository.DepartmentAbsenceRepository;
+import com.africa.hr.repository.DepartmentAbsenceRepository.AbsenceDay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DepartmentAbsenceServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 12, 23);
+    private static final LocalDate END = LocalDate.of(2024, 12, 27);
+    private static final LocalDate CHRISTMAS = LocalDate.of(2024, 12, 25);
+
+    // The working days from START to END
+    private static final List<LocalDate> WORKING_DAYS = List.of(START, START.plusDays(1), START.plusDays(3), END);
+
+    @Mock
+    private DepartmentAbsenceRepository departmentAbsenceRepository;
+
+    @Mock
+    private ActiveLeaveRepository activeLeaveRepository;
+
+    @Mock
+    private BusinessCalendar businessCalendar;
+
+    @InjectMocks
+    private DepartmentAbsenceService departmentAbsenceService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(businessCalendar.isWorkingDay(any()))
+                .thenAnswer(invocation -> !CHRISTMAS.equals(invocation.getArgument(0)));
+    }
+
+    private Department department(Integer maxConcurrentAbsences) {
+        Department department = new Department();
+        department.setId(1L);
+        department.setName("Finance");
+        department.setMaxConcurrentAbsences(maxConcurrentAbsences);
+        return department;
+    }
+
+    @Test
+    void holdsEveryWorkingDayWithoutCap() {
+        when(departmentAbsenceRepository.hold(1L, WORKING_DAYS, Integer.MAX_VALUE)).thenReturn(4);
+
+        departmentAbsenceService.hold(department(null), START, END);
+
+        verify(departmentAbsenceRepository, never()).findFullDays(anyLong(), any(), any(), anyInt());
+    }
+
+    @Test
+    void rejectsRequestWhenADayIsFull() {
+        when(departmentAbsenceRepository.hold(1L, WORKING_DAYS, 2)).thenReturn(3);
+        when(departmentAbsenceRepository.findFullDays(1L, START, END, 2)).thenReturn(List.of(END));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> departmentAbsenceService.hold(department(2), START, END));
+
+        assertEquals("Finance already has 2 people out on 2024-12-27", e.getMessage());
+    }
+
+    @Test
+    void holdsNothingForARequestOnAHoliday() {
+        departmentAbsenceService.hold(department(2), CHRISTMAS, CHRISTMAS);
+
+        verifyNoInteractions(departmentAbsenceRepository);
+    }
+
+    @Test
+    void releasesTheWorkingDaysItHeld() {
+        User employee = new User();
+        employee.setDepartment(department(2));
+        LeaveRequest request = new LeaveRequest();
+        request.setEmployee(employee);
+        request.setStartDate(START);
+        request.setEndDate(END);
+
+        departmentAbsenceService.release(request);
+
+        verify(departmentAbsenceRepository).release(1L, WORKING_DAYS);
+    }
+
+    @Test
+    void skipsEmployeesWithoutDepartment() {
+        departmentAbsenceService.hold(null, START, END);
+
+        verifyNoInteractions(departmentAbsenceRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildsCountsFromActiveLeave() {
+        doAnswer(invocation -> {
+            Consumer<ActiveLeave> action = invocation.getArgument(0);
+            action.accept(new ActiveLeave(1L, 10L, 1L, START, START.plusDays(2), LeaveRequestStatus.APPROVED, 0L));
+            action.accept(new ActiveLeave(2L, 11L, 1L, START.plusDays(1), START.plusDays(1),
+                    LeaveRequestStatus.PENDING, 0L));
+            action.accept(new ActiveLeave(3L, 12L, 1L, START.plusDays(4), START.plusDays(4),
+                    LeaveRequestStatus.APPROVED, 0L));
+            action.accept(new ActiveLeave(4L, 13L, null, START, END, LeaveRequestStatus.APPROVED, 0L));
+            return null;
+        }).when(activeLeaveRepository).forEachActiveLeave(any());
+        ArgumentCaptor<List<AbsenceDay>> days = ArgumentCaptor.forClass(List.class);
+        when(departmentAbsenceRepository.replaceAll(days.capture())).thenAnswer(
+                invocation -> invocation.<List<AbsenceDay>>getArgument(0).size());
+
+        assertEquals(3, departmentAbsenceService.rebuild());
+
+        // Christmas is not counted
+        assertEquals(List.of(
+                new AbsenceDay(1L, START, 1),
+                new AbsenceDay(1L, START.plusDays(1), 2),
+                new AbsenceDay(1L, START.plusDays(4), 1)), days.getValue());
+    }
+}
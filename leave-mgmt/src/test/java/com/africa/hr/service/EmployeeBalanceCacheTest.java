@@ -0,0 +1,85 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.BalanceCacheConfigProperties;
+import com.africa.hr.dto.BalanceCacheStatsDTO;
+import com.africa.hr.dto.EmployeeBalanceSnapshotDTO;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeBalanceCacheTest {
+
+    private EmployeeBalanceCache cache;
+    private AtomicInteger loads;
+    private Function<Long, List<EmployeeBalanceSnapshotDTO>> loader;
+
+    @BeforeEach
+    void setUp() {
+        BalanceCacheConfigProperties properties = new BalanceCacheConfigProperties();
+        properties.setMaxEmployees(2);
+        cache = new EmployeeBalanceCache(properties);
+        loads = new AtomicInteger();
+        // Balance ids are the employee id times ten
+        loader = employeeId -> {
+            loads.incrementAndGet();
+            return List.of(EmployeeBalanceSnapshotDTO.builder().id(employeeId * 10).employeeId(employeeId).build());
+        };
+    }
+
+    @Test
+    void servesRepeatedReadsFromCache() {
+        cache.get(1L, loader);
+        cache.get(1L, loader);
+
+        assertEquals(1, loads.get());
+        BalanceCacheStatsDTO stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEmployee() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(1L, loader);
+        cache.get(3L, loader);
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void invalidatesByEmployeeRangeAndBalance() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        cache.onBalancesChanged(EmployeeBalancesChangedEvent.forBalances(Set.of(20L)));
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        assertEquals(3, loads.get());
+
+        cache.onBalancesChanged(EmployeeBalancesChangedEvent.forEmployeeRange(1L, 5L));
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(3, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void doesNotCacheLoadThatRacedWithChange() {
+        cache.get(1L, employeeId -> {
+            cache.onBalancesChanged(EmployeeBalancesChangedEvent.forEmployee(employeeId));
+            return loader.apply(employeeId);
+        });
+        cache.get(1L, loader);
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,128 @@
+package com.africa.hr.service;
+
+import com.africa.hr.model.BalanceMovementType;
+import com.africa.hr.model.EmployeeBalance;
+import com.africa.hr.model.LeaveType;
+import com.africa.hr.model.User;
+import com.africa.hr.repository.BalanceMovementRepository;
+import com.africa.hr.repository.BalanceMovementRepository.UnrecordedUsage;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.service.event.EmployeeBalancesChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeBalanceServiceTest {
+
+    @Mock
+    private EmployeeBalanceRepository employeeBalanceRepository;
+
+    @Mock
+    private EmployeeBalanceBatchRepository employeeBalanceBatchRepository;
+
+    @Mock
+    private BalanceMovementRepository balanceMovementRepository;
+
+    @Mock
+    private LeaveTypeService leaveTypeService;
+
+    @Mock
+    private EmployeeBalanceCache employeeBalanceCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private EmployeeBalanceService employeeBalanceService;
+
+    @Test
+    void backfillApprovedUsage_TakesTheDaysOffWithoutOverdrawing() {
+        // Amounts are in hundredths of a day
+        when(balanceMovementRepository.findUnrecordedUsage()).thenReturn(List.of(
+                new UnrecordedUsage(1L, 70L, 200),
+                new UnrecordedUsage(2L, 70L, 200),
+                new UnrecordedUsage(3L, 80L, 100)));
+        when(employeeBalanceBatchRepository.findAmount(70L)).thenReturn(Optional.of(new BigDecimal("3.00")));
+        when(employeeBalanceBatchRepository.findAmount(80L)).thenReturn(Optional.of(BigDecimal.ZERO));
+        when(employeeBalanceBatchRepository.adjust(anyLong(), anyLong())).thenReturn(1);
+
+        assertEquals(3, employeeBalanceService.backfillApprovedUsage());
+
+        // The second request only gets what was left; the empty balance records a zero marker
+        verify(employeeBalanceBatchRepository).adjust(70L, -200);
+        verify(employeeBalanceBatchRepository).adjust(70L, -100);
+        verify(employeeBalanceBatchRepository, never()).adjust(eq(80L), anyLong());
+        verify(balanceMovementRepository).record(70L, BalanceMovementType.USAGE, -200, 1L);
+        verify(balanceMovementRepository).record(70L, BalanceMovementType.USAGE, -100, 2L);
+        verify(balanceMovementRepository).record(80L, BalanceMovementType.USAGE, 0, 3L);
+        verify(eventPublisher).publishEvent(any(EmployeeBalancesChangedEvent.class));
+    }
+
+    @Test
+    void backfillApprovedUsage_RecordsNothingTakenWhenTheBalanceChanged() {
+        when(balanceMovementRepository.findUnrecordedUsage()).thenReturn(List.of(new UnrecordedUsage(1L, 70L, 200)));
+        when(employeeBalanceBatchRepository.findAmount(70L)).thenReturn(Optional.of(new BigDecimal("3.00")));
+        when(employeeBalanceBatchRepository.adjust(70L, -200)).thenReturn(0);
+
+        assertEquals(1, employeeBalanceService.backfillApprovedUsage());
+
+        verify(balanceMovementRepository).record(70L, BalanceMovementType.USAGE, 0, 1L);
+    }
+
+    @Test
+    void backfillApprovedUsage_IsANoOpOnceEverythingIsRecorded() {
+        when(balanceMovementRepository.findUnrecordedUsage()).thenReturn(List.of());
+
+        assertEquals(0, employeeBalanceService.backfillApprovedUsage());
+
+        verifyNoInteractions(employeeBalanceBatchRepository, eventPublisher);
+    }
+
+    @Test
+    void createBalance_PublishesTheChangeAfterTheSave() {
+        User employee = new User();
+        employee.setId(7L);
+        LeaveType annual = new LeaveType();
+        annual.setId(1L);
+        when(leaveTypeService.getLeaveType(1L)).thenReturn(annual);
+        when(employeeBalanceRepository.save(any(EmployeeBalance.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        employeeBalanceService.createBalance(employee, 1L);
+
+        // Listeners reload the balance, so it has to be in the session before they run
+        InOrder inOrder = inOrder(employeeBalanceRepository, eventPublisher);
+        inOrder.verify(employeeBalanceRepository).save(any(EmployeeBalance.class));
+        inOrder.verify(eventPublisher).publishEvent(any(EmployeeBalancesChangedEvent.class));
+    }
+
+    @Test
+    void initializeBalancesForNewEmployee_PublishesOnceAfterEverySave() {
+        User employee = new User();
+        employee.setId(7L);
+        LeaveType annual = new LeaveType();
+        LeaveType sick = new LeaveType();
+        when(leaveTypeService.getDefaultLeaveTypes()).thenReturn(List.of(annual, sick));
+        when(employeeBalanceRepository.save(any(EmployeeBalance.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(2, employeeBalanceService.initializeBalancesForNewEmployee(employee).size());
+
+        InOrder inOrder = inOrder(employeeBalanceRepository, eventPublisher);
+        inOrder.verify(employeeBalanceRepository, times(2)).save(any(EmployeeBalance.class));
+        inOrder.verify(eventPublisher).publishEvent(any(EmployeeBalancesChangedEvent.class));
+    }
+}
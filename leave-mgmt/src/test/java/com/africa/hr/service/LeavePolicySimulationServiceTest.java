@@ -0,0 +1,165 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.PolicySimulationConfigProperties;
+import com.africa.hr.dto.LeavePolicySimulationRequestDTO;
+import com.africa.hr.dto.LeavePolicySimulationRequestDTO.LeaveTypePolicyDTO;
+import com.africa.hr.dto.LeavePolicySimulationResultDTO;
+import com.africa.hr.dto.LeavePolicySimulationResultDTO.GroupDTO;
+import com.africa.hr.model.LeaveType;
+import com.africa.hr.repository.BalanceSnapshotRepository;
+import com.africa.hr.repository.DepartmentRepository;
+import com.africa.hr.repository.LeaveTypeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeavePolicySimulationServiceTest {
+
+    private static final int BALANCES = 20_000;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private LeaveTypeRepository leaveTypeRepository;
+
+    @Mock
+    private DepartmentRepository departmentRepository;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final AtomicInteger partitionsSubmitted = new AtomicInteger();
+    private LeavePolicySimulationService leavePolicySimulationService;
+
+    @BeforeEach
+    void setUp() {
+        PolicySimulationConfigProperties properties = new PolicySimulationConfigProperties();
+        properties.setWorkerThreads(4);
+        leavePolicySimulationService = new LeavePolicySimulationService(
+                new BalanceSnapshotRepository(jdbcTemplate), leaveTypeRepository, departmentRepository,
+                properties, task -> {
+                    partitionsSubmitted.incrementAndGet();
+                    pool.execute(task);
+                });
+
+        LeaveType annual = new LeaveType();
+        annual.setId(1L);
+        annual.setName("Annual");
+        annual.setAccrualBased(true);
+        annual.setAccrualRate(new BigDecimal("1.50"));
+        annual.setIsCarryForwardEnabled(true);
+        annual.setCarryForwardCap(new BigDecimal("10.00"));
+        lenient().when(leaveTypeRepository.findAll()).thenReturn(List.of(annual));
+        lenient().when(departmentRepository.findAll()).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Every balance: 5 days, uncapped, eligible, joined long before the
+     * simulated months, in no department. The row is a plain proxy rather than
+     * a mock, so that reading it doesn't dominate the timings.
+     */
+    private void givenUniformBalances(int balances) {
+        BigDecimal currentBalance = new BigDecimal("5.00");
+        Date joinedDate = Date.valueOf(LocalDate.of(2020, 1, 1));
+        ResultSet row = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getLong" -> (int) args[0] == 1 ? 1L : 0L;
+                    case "getBigDecimal" -> (int) args[0] == 3 ? currentBalance : null;
+                    case "getBoolean" -> true;
+                    case "getDate" -> joinedDate;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < balances; i++) {
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    private static LeavePolicySimulationRequestDTO request(String proposedRate) {
+        LeaveTypePolicyDTO policy = new LeaveTypePolicyDTO();
+        policy.setLeaveTypeId(1L);
+        policy.setAccrualRate(new BigDecimal(proposedRate));
+
+        LeavePolicySimulationRequestDTO request = new LeavePolicySimulationRequestDTO();
+        request.setMonths(12);
+        request.setStartPeriod(YearMonth.of(2025, 1));
+        request.setPolicies(List.of(policy));
+        return request;
+    }
+
+    @Test
+    void mergesPartitionsReplayedOnTheSimulationExecutor() {
+        givenUniformBalances(BALANCES);
+
+        LeavePolicySimulationResultDTO result = leavePolicySimulationService.simulate(request("2.00"));
+
+        // 20,000 balances split over the 4 workers
+        assertEquals(4, partitionsSubmitted.get());
+        assertEquals(BALANCES, result.getBalancesSimulated());
+        assertEquals(YearMonth.of(2025, 12), result.getEndPeriod());
+
+        // Per balance: 12 x 1.50 (or 2.00) granted, then everything over the cap of 10 forfeited
+        GroupDTO totals = result.getLeaveTypeTotals().get(0);
+        assertEquals(BALANCES, totals.getBalances());
+        assertEquals(new BigDecimal("360000.00"), totals.getCurrentDaysGranted());
+        assertEquals(new BigDecimal("480000.00"), totals.getProposedDaysGranted());
+        assertEquals(new BigDecimal("260000.00"), totals.getCurrentDaysForfeited());
+        assertEquals(new BigDecimal("380000.00"), totals.getProposedDaysForfeited());
+        assertEquals(new BigDecimal("200000.00"), totals.getCurrentLiability());
+        assertEquals(new BigDecimal("0.00"), totals.getLiabilityDelta());
+        assertNull(result.getGroups().get(0).getDepartmentId());
+    }
+
+    @Test
+    void simulatesFiftyThousandBalancesWellUnderASecond() {
+        givenUniformBalances(50_000);
+        // Warm up the replay before timing it
+        leavePolicySimulationService.simulate(request("2.00"));
+
+        long startedAt = System.nanoTime();
+        LeavePolicySimulationResultDTO result = leavePolicySimulationService.simulate(request("2.00"));
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        assertEquals(50_000, result.getBalancesSimulated());
+        assertTrue(elapsedMillis < 1000, "12 months of 50,000 balances took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void rejectsUnknownLeaveTypesBeforeLoadingBalances() {
+        LeavePolicySimulationRequestDTO request = request("2.00");
+        request.getPolicies().get(0).setLeaveTypeId(99L);
+
+        assertThrows(IllegalArgumentException.class, () -> leavePolicySimulationService.simulate(request));
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(0, partitionsSubmitted.get());
+    }
+}
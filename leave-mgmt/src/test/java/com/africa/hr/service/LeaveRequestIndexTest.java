@@ -0,0 +1,146 @@
+package com.africa.hr.service;
+
+import com.africa.hr.model.LeaveRequestStatus;
+import com.africa.hr.repository.ActiveLeaveRepository;
+import com.africa.hr.repository.ActiveLeaveRepository.ActiveLeave;
+import com.africa.hr.service.event.LeaveRequestStatusChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LeaveRequestIndexTest {
+
+    private static final LocalDate BASE = LocalDate.of(2024, 1, 1);
+
+    private List<ActiveLeave> stored;
+    private ActiveLeaveRepository repository;
+    private LeaveRequestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        stored = new ArrayList<>();
+        repository = mock(ActiveLeaveRepository.class);
+        doAnswer(invocation -> {
+            stored.forEach(invocation.<Consumer<ActiveLeave>>getArgument(0));
+            return null;
+        }).when(repository).forEachActiveLeave(any());
+        index = new LeaveRequestIndex(repository);
+    }
+
+    @Test
+    void matchesBruteForceOverlapQueries() {
+        Random random = new Random(42);
+        for (long id = 1; id <= 500; id++) {
+            LocalDate start = BASE.plusDays(random.nextInt(365));
+            stored.add(new ActiveLeave(id, random.nextInt(50), (long) random.nextInt(5), start,
+                    start.plusDays(random.nextInt(20)),
+                    random.nextBoolean() ? LeaveRequestStatus.APPROVED : LeaveRequestStatus.PENDING, 0L));
+        }
+
+        for (int query = 0; query < 200; query++) {
+            LocalDate from = BASE.plusDays(random.nextInt(380));
+            LocalDate to = from.plusDays(random.nextInt(10));
+            Long departmentId = query % 3 == 0 ? null : (long) random.nextInt(5);
+            boolean includePending = query % 2 == 0;
+
+            List<ActiveLeave> expected = stored.stream()
+                    .filter(leave -> departmentId == null || departmentId.equals(leave.departmentId()))
+                    .filter(leave -> includePending || leave.status() == LeaveRequestStatus.APPROVED)
+                    .filter(leave -> !leave.startDate().isAfter(to) && !leave.endDate().isBefore(from))
+                    .sorted(Comparator.comparing(ActiveLeave::startDate).thenComparing(ActiveLeave::requestId))
+                    .toList();
+
+            assertEquals(expected, index.findOut(departmentId, from, to, includePending));
+        }
+    }
+
+    @Test
+    void findsOverlappingRequestOfEmployee() {
+        stored.add(new ActiveLeave(1L, 10L, 1L, BASE, BASE.plusDays(4), LeaveRequestStatus.APPROVED, 1L));
+        stored.add(new ActiveLeave(2L, 10L, 1L, BASE.plusDays(10), BASE.plusDays(12), LeaveRequestStatus.PENDING,
+                0L));
+
+        assertEquals(2L, index.findOverlapping(10L, BASE.plusDays(8), BASE.plusDays(10)).orElseThrow().requestId());
+        assertTrue(index.findOverlapping(10L, BASE.plusDays(5), BASE.plusDays(9)).isEmpty());
+        assertTrue(index.findOverlapping(11L, BASE, BASE.plusDays(20)).isEmpty());
+    }
+
+    @Test
+    void appliesStatusChanges() {
+        index.reload();
+
+        index.onLeaveRequestStatusChanged(event(1L, BASE, BASE.plusDays(2), null, LeaveRequestStatus.PENDING, 0L));
+        assertEquals(1, index.findOut(1L, BASE, BASE, true).size());
+        assertTrue(index.findOut(1L, BASE, BASE, false).isEmpty());
+
+        index.onLeaveRequestStatusChanged(event(1L, BASE, BASE.plusDays(2), LeaveRequestStatus.PENDING,
+                LeaveRequestStatus.APPROVED, 1L));
+        assertEquals(LeaveRequestStatus.APPROVED, index.findOut(null, BASE, BASE, false).get(0).status());
+
+        index.onLeaveRequestStatusChanged(event(2L, BASE, BASE, null, LeaveRequestStatus.PENDING, 0L));
+        index.onLeaveRequestStatusChanged(event(2L, BASE, BASE, LeaveRequestStatus.PENDING,
+                LeaveRequestStatus.CANCELLED, 1L));
+        assertEquals(1, index.findOut(1L, BASE, BASE, true).size());
+        assertTrue(index.findOverlapping(10L, BASE.plusDays(3), BASE.plusDays(5)).isEmpty());
+    }
+
+    @Test
+    void ignoresEventsOlderThanTheIndexedVersion() {
+        index.reload();
+
+        // The cancellation is applied before the submission that preceded it
+        index.onLeaveRequestStatusChanged(event(1L, BASE, BASE, LeaveRequestStatus.PENDING,
+                LeaveRequestStatus.CANCELLED, 1L));
+        index.onLeaveRequestStatusChanged(event(1L, BASE, BASE, null, LeaveRequestStatus.PENDING, 0L));
+        assertTrue(index.findOut(null, BASE, BASE, true).isEmpty());
+
+        // The approval is applied before the submission that preceded it
+        index.onLeaveRequestStatusChanged(event(2L, BASE, BASE, LeaveRequestStatus.PENDING,
+                LeaveRequestStatus.APPROVED, 1L));
+        index.onLeaveRequestStatusChanged(event(2L, BASE, BASE, null, LeaveRequestStatus.PENDING, 0L));
+        assertEquals(LeaveRequestStatus.APPROVED, index.findOut(null, BASE, BASE, true).get(0).status());
+    }
+
+    @Test
+    void buildRemembersRecentlyClosedRequests() {
+        stored.add(new ActiveLeave(1L, 10L, 1L, BASE, BASE, LeaveRequestStatus.PENDING, 0L));
+        // Request 1 was cancelled between both reads, request 2 shortly before
+        doAnswer(invocation -> {
+            BiConsumer<Long, Long> action = invocation.getArgument(1);
+            action.accept(1L, 1L);
+            action.accept(2L, 1L);
+            return null;
+        }).when(repository).forEachClosedSince(any(), any());
+
+        index.reload();
+        index.onLeaveRequestStatusChanged(event(2L, BASE, BASE, null, LeaveRequestStatus.PENDING, 0L));
+
+        assertTrue(index.findOut(null, BASE, BASE, true).isEmpty());
+    }
+
+    @Test
+    void leavesChangesBeforeFirstUseToTheBuild() {
+        index.onLeaveRequestStatusChanged(event(1L, BASE, BASE, null, LeaveRequestStatus.PENDING, 0L));
+        stored.add(new ActiveLeave(1L, 10L, 1L, BASE, BASE, LeaveRequestStatus.PENDING, 0L));
+
+        assertEquals(1, index.findOut(null, BASE, BASE, true).size());
+        verify(repository, times(1)).forEachActiveLeave(any());
+    }
+
+    private static LeaveRequestStatusChangedEvent event(long requestId, LocalDate startDate, LocalDate endDate,
+            LeaveRequestStatus previousStatus, LeaveRequestStatus status, long version) {
+        return new LeaveRequestStatusChangedEvent(requestId, 10L, 1L, startDate, endDate, previousStatus, status,
+                version);
+    }
+}
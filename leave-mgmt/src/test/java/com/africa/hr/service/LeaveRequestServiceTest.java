@@ -2,16 +2,25 @@ package com.africa.hr.service;
 
 import com.africa.hr.dto.LeaveRequestDTO;
 import com.africa.hr.dto.LeaveRequestApprovalDTO;
+import com.africa.hr.exception.LeaveRequestConflictException;
 import com.africa.hr.model.*;
+import com.africa.hr.repository.ActiveLeaveRepository.ActiveLeave;
 import com.africa.hr.repository.LeaveRequestRepository;
 import com.africa.hr.service.email.EmailService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,6 +28,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +47,24 @@ class LeaveRequestServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private BusinessCalendar businessCalendar;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LeaveRequestIndex leaveRequestIndex;
+
+    @Mock
+    private DepartmentAbsenceService departmentAbsenceService;
+
     @InjectMocks
     private LeaveRequestService leaveRequestService;
 
@@ -49,6 +78,10 @@ class LeaveRequestServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(leaveRequestService, "entityManager", entityManager);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         department = new Department();
         department.setId(1L);
         department.setName("IT Department");
@@ -102,6 +135,7 @@ class LeaveRequestServiceTest {
     @Test
     void submitLeaveRequest_Success() {
         when(leaveTypeService.getLeaveType(anyLong())).thenReturn(leaveType);
+        when(businessCalendar.countLeaveDays(any(), any(), any(), any())).thenReturn(LeaveDays.ofHundredths(500));
         when(leaveRequestRepository.save(any(LeaveRequest.class))).thenReturn(leaveRequest);
 
         LeaveRequest result = leaveRequestService.submitLeaveRequest(employee, requestDTO);
@@ -111,18 +145,141 @@ class LeaveRequestServiceTest {
         verify(emailService).sendLeaveRequestNotification(any(LeaveRequest.class));
     }
 
+    @Test
+    void submitLeaveRequest_OverlapsExistingRequest() {
+        when(leaveRequestRepository.findEmployeeWithManager(employee.getId())).thenReturn(Optional.of(employee));
+        when(leaveTypeService.getLeaveType(anyLong())).thenReturn(leaveType);
+        when(businessCalendar.countLeaveDays(any(), any(), any(), any())).thenReturn(LeaveDays.ofHundredths(500));
+        when(leaveRequestIndex.findOverlapping(employee.getId(), requestDTO.getStartDate(), requestDTO.getEndDate()))
+                .thenReturn(Optional.of(new ActiveLeave(7L, employee.getId(), department.getId(),
+                        requestDTO.getStartDate(), requestDTO.getStartDate(), LeaveRequestStatus.APPROVED, 1L)));
+
+        LeaveRequestConflictException e = assertThrows(LeaveRequestConflictException.class,
+                () -> leaveRequestService.submitLeaveRequest(employee, requestDTO));
+
+        assertEquals(7L, e.getRequestId());
+        verify(leaveRequestRepository, never()).save(any(LeaveRequest.class));
+    }
+
+    @Test
+    void submitLeaveRequest_OverlapFoundUnderLock() {
+        LeaveRequest concurrent = new LeaveRequest();
+        concurrent.setId(8L);
+        concurrent.setStatus(LeaveRequestStatus.PENDING);
+        concurrent.setStartDate(requestDTO.getStartDate());
+        concurrent.setEndDate(requestDTO.getEndDate());
+        when(leaveRequestRepository.findEmployeeWithManager(employee.getId())).thenReturn(Optional.of(employee));
+        when(leaveTypeService.getLeaveType(anyLong())).thenReturn(leaveType);
+        when(businessCalendar.countLeaveDays(any(), any(), any(), any())).thenReturn(LeaveDays.ofHundredths(500));
+        // Submitted on another instance, or not yet applied to the index
+        when(leaveRequestRepository.findHeldOverlappingForUpdate(employee.getId(), requestDTO.getStartDate(),
+                requestDTO.getEndDate())).thenReturn(List.of(concurrent));
+
+        LeaveRequestConflictException e = assertThrows(LeaveRequestConflictException.class,
+                () -> leaveRequestService.submitLeaveRequest(employee, requestDTO));
+
+        assertEquals(8L, e.getRequestId());
+        InOrder inOrder = inOrder(leaveRequestRepository);
+        inOrder.verify(leaveRequestRepository).lockEmployee(employee.getId());
+        inOrder.verify(leaveRequestRepository).findHeldOverlappingForUpdate(any(), any(), any());
+        verify(leaveRequestRepository, never()).save(any(LeaveRequest.class));
+        verify(departmentAbsenceService, never()).hold(any(), any(), any());
+    }
+
+    @Test
+    void submitLeaveRequest_DepartmentAbsenceCapReached() {
+        when(leaveRequestRepository.findEmployeeWithManager(employee.getId())).thenReturn(Optional.of(employee));
+        when(leaveTypeService.getLeaveType(anyLong())).thenReturn(leaveType);
+        when(businessCalendar.countLeaveDays(any(), any(), any(), any())).thenReturn(LeaveDays.ofHundredths(500));
+        doThrow(new IllegalStateException("IT Department already has 2 people out"))
+                .when(departmentAbsenceService)
+                .hold(department, requestDTO.getStartDate(), requestDTO.getEndDate());
+
+        assertThrows(IllegalStateException.class, () -> leaveRequestService.submitLeaveRequest(employee, requestDTO));
+
+        verify(leaveRequestRepository, never()).save(any(LeaveRequest.class));
+        verify(employeeBalanceService, never()).moveRequestDays(any(), any());
+    }
+
+    @Test
+    void rejectLeaveRequest_ReleasesDepartmentAbsenceDays() {
+        approvalDTO.setStatus(LeaveRequestStatus.REJECTED);
+        approvalDTO.setRejectionReason("Team is short-staffed");
+        when(leaveRequestRepository.findById(anyLong())).thenReturn(Optional.of(leaveRequest));
+        when(leaveRequestRepository.decidePending(eq(1L), eq(LeaveRequestStatus.REJECTED), eq(manager),
+                eq("Team is short-staffed"), any())).thenReturn(1);
+        doAnswer(invocation -> {
+            leaveRequest.setStatus(LeaveRequestStatus.REJECTED);
+            return null;
+        }).when(entityManager).refresh(leaveRequest);
+
+        leaveRequestService.approveLeaveRequest(1L, manager, approvalDTO);
+
+        verify(departmentAbsenceService).release(leaveRequest);
+    }
+
     @Test
     void approveLeaveRequest_Success() {
         when(leaveRequestRepository.findById(anyLong())).thenReturn(Optional.of(leaveRequest));
-        when(leaveRequestRepository.save(any(LeaveRequest.class))).thenReturn(leaveRequest);
+        when(leaveRequestRepository.decidePending(eq(1L), eq(LeaveRequestStatus.APPROVED), eq(manager), isNull(),
+                any())).thenReturn(1);
+        doAnswer(invocation -> {
+            leaveRequest.setStatus(LeaveRequestStatus.APPROVED);
+            return null;
+        }).when(entityManager).refresh(leaveRequest);
 
         LeaveRequest result = leaveRequestService.approveLeaveRequest(1L, manager, approvalDTO);
 
         assertNotNull(result);
         assertEquals(LeaveRequestStatus.APPROVED, result.getStatus());
+        verify(leaveRequestRepository, never()).save(any(LeaveRequest.class));
+        verify(employeeBalanceService).moveRequestDays(leaveRequest, LeaveRequestStatus.PENDING);
         verify(emailService).sendLeaveRequestStatusNotification(any(LeaveRequest.class));
     }
 
+    @Test
+    void approveLeaveRequest_ConcurrentlyDecided() {
+        when(leaveRequestRepository.findById(anyLong())).thenReturn(Optional.of(leaveRequest));
+        when(leaveRequestRepository.decidePending(anyLong(), any(), any(), any(), any())).thenReturn(0);
+
+        assertThrows(LeaveRequestConflictException.class,
+                () -> leaveRequestService.approveLeaveRequest(1L, manager, approvalDTO));
+        verify(transactionTemplate, times(1)).execute(any());
+        verifyNoInteractions(employeeBalanceService, emailService);
+    }
+
+    @Test
+    void approveLeaveRequest_AlreadyDecided() {
+        leaveRequest.setStatus(LeaveRequestStatus.REJECTED);
+        when(leaveRequestRepository.findById(anyLong())).thenReturn(Optional.of(leaveRequest));
+
+        assertThrows(LeaveRequestConflictException.class,
+                () -> leaveRequestService.approveLeaveRequest(1L, manager, approvalDTO));
+        verify(leaveRequestRepository, never()).decidePending(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void approveLeaveRequest_RetriesConcurrencyFailures() {
+        doThrow(new OptimisticLockingFailureException("stale"))
+                .doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        when(leaveRequestRepository.findById(anyLong())).thenReturn(Optional.of(leaveRequest));
+        when(leaveRequestRepository.decidePending(anyLong(), any(), any(), any(), any())).thenReturn(1);
+
+        assertNotNull(leaveRequestService.approveLeaveRequest(1L, manager, approvalDTO));
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void approveLeaveRequest_GivesUpAfterBoundedRetries() {
+        doThrow(new OptimisticLockingFailureException("stale")).when(transactionTemplate).execute(any());
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> leaveRequestService.approveLeaveRequest(1L, manager, approvalDTO));
+        verify(transactionTemplate, times(3)).execute(any());
+        verifyNoInteractions(emailService);
+    }
+
     @Test
     void approveLeaveRequest_UnauthorizedManager() {
         User unauthorizedManager = new User();
@@ -145,11 +302,21 @@ class LeaveRequestServiceTest {
     @Test
     void cancelLeaveRequest_Success() {
         when(leaveRequestRepository.findById(anyLong())).thenReturn(Optional.of(leaveRequest));
-        when(leaveRequestRepository.save(any(LeaveRequest.class))).thenReturn(leaveRequest);
+        when(leaveRequestRepository.cancelPending(eq(1L), eq(1L), any())).thenReturn(1);
 
         leaveRequestService.cancelLeaveRequest(1L, employee);
 
-        verify(leaveRequestRepository).save(any(LeaveRequest.class));
+        verify(leaveRequestRepository, never()).save(any(LeaveRequest.class));
+        verify(employeeBalanceService).moveRequestDays(leaveRequest, LeaveRequestStatus.PENDING);
+    }
+
+    @Test
+    void cancelLeaveRequest_ConcurrentlyDecided() {
+        when(leaveRequestRepository.findById(anyLong())).thenReturn(Optional.of(leaveRequest));
+        when(leaveRequestRepository.cancelPending(anyLong(), anyLong(), any())).thenReturn(0);
+
+        assertThrows(LeaveRequestConflictException.class, () -> leaveRequestService.cancelLeaveRequest(1L, employee));
+        verifyNoInteractions(employeeBalanceService);
     }
 
     @Test
@@ -0,0 +1,83 @@
+package com.africa.hr.service;
+
+import com.africa.hr.dto.TeamCoverageDTO;
+import com.africa.hr.repository.ActiveLeaveRepository;
+import com.africa.hr.repository.ActiveLeaveRepository.Absence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TeamCoverageServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 4, 1);
+    private static final LocalDate END = LocalDate.of(2024, 4, 10);
+
+    @Mock
+    private ActiveLeaveRepository activeLeaveRepository;
+
+    @InjectMocks
+    private TeamCoverageService teamCoverageService;
+
+    private void givenAbsences(Absence... absences) {
+        doAnswer(invocation -> {
+            List.of(absences).forEach(invocation.<Consumer<Absence>>getArgument(4));
+            return null;
+        }).when(activeLeaveRepository).forEachDepartmentAbsence(eq(1L), eq(START), eq(END), eq(false), any());
+    }
+
+    @Test
+    void countsAbsentEmployeesPerDay() {
+        givenAbsences(
+                // Starts before the range
+                new Absence(1L, START.minusDays(3), START.plusDays(1)),
+                // Overlapping requests of one employee count once
+                new Absence(2L, START.plusDays(2), START.plusDays(4)),
+                new Absence(2L, START.plusDays(3), START.plusDays(5)),
+                // Ends after the range
+                new Absence(3L, START.plusDays(4), END.plusDays(7)));
+        when(activeLeaveRepository.countDepartmentMembers(1L)).thenReturn(3);
+
+        TeamCoverageDTO coverage = teamCoverageService.getCoverage(1L, START, END, false);
+
+        assertArrayEquals(new int[] { 1, 1, 1, 1, 2, 2, 1, 1, 1, 1 }, coverage.getAbsent());
+        assertArrayEquals(new int[] { 33, 33, 33, 33, 67, 67, 33, 33, 33, 33 }, coverage.getPercentAbsent());
+        assertEquals(2, coverage.getPeakAbsent());
+        assertEquals(3, coverage.getTeamSize());
+    }
+
+    @Test
+    void mergesAdjacentRequestsOfAnEmployee() {
+        givenAbsences(
+                new Absence(1L, START, START.plusDays(1)),
+                new Absence(1L, START.plusDays(2), START.plusDays(2)),
+                new Absence(1L, START.plusDays(5), START.plusDays(5)));
+        when(activeLeaveRepository.countDepartmentMembers(1L)).thenReturn(0);
+
+        TeamCoverageDTO coverage = teamCoverageService.getCoverage(1L, START, END, false);
+
+        assertArrayEquals(new int[] { 1, 1, 1, 0, 0, 1, 0, 0, 0, 0 }, coverage.getAbsent());
+        assertArrayEquals(new int[10], coverage.getPercentAbsent());
+    }
+
+    @Test
+    void rejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class,
+                () -> teamCoverageService.getCoverage(1L, END, START, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> teamCoverageService.getCoverage(1L, START, START.plusDays(TeamCoverageService.MAX_RANGE_DAYS),
+                        false));
+        verifyNoInteractions(activeLeaveRepository);
+    }
+}
@@ -0,0 +1,238 @@
+package com.africa.hr.service;
+
+import com.africa.hr.config.AccrualRunnerConfigProperties;
+import com.africa.hr.dto.LeaveAccrualCatchUpResultDTO;
+import com.africa.hr.dto.YearEndCloseDTO;
+import com.africa.hr.dto.YearEndCloseDiffDTO;
+import com.africa.hr.model.AccrualRunStatus;
+import com.africa.hr.model.YearEndClose;
+import com.africa.hr.model.YearEndCloseCheckpoint;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository;
+import com.africa.hr.repository.EmployeeBalanceBatchRepository.BalanceAmount;
+import com.africa.hr.repository.EmployeeBalanceRepository;
+import com.africa.hr.repository.EmployeeBalanceRepository.EligibleBalanceCount;
+import com.africa.hr.repository.YearEndCloseCheckpointRepository;
+import com.africa.hr.repository.YearEndCloseRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class YearEndCloseServiceTest {
+
+    private static final LocalDate CLOSE_DATE = LocalDate.of(2024, 6, 30);
+
+    @Mock
+    private YearEndCloseRepository yearEndCloseRepository;
+
+    @Mock
+    private YearEndCloseCheckpointRepository checkpointRepository;
+
+    @Mock
+    private EmployeeBalanceRepository employeeBalanceRepository;
+
+    @Mock
+    private EmployeeBalanceBatchRepository employeeBalanceBatchRepository;
+
+    @Mock
+    private BulkLeaveAccrualService bulkLeaveAccrualService;
+
+    @Mock
+    private LeaveCarryForwardService carryForwardService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private YearEndCloseService yearEndCloseService;
+
+    // The persisted close and its checkpoints, and every transaction begun
+    private YearEndClose storedClose;
+    private final List<YearEndCloseCheckpoint> storedCheckpoints = new ArrayList<>();
+    private final List<SimpleTransactionStatus> transactions = new ArrayList<>();
+    private final List<List<YearEndCloseDiffDTO>> reportedDiffs = new ArrayList<>();
+
+    private record Count(Long getEmployeeId, Long getBalanceCount) implements EligibleBalanceCount {
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Stages run on the calling thread; transactions are only recorded
+        yearEndCloseService = new YearEndCloseService(yearEndCloseRepository, checkpointRepository,
+                employeeBalanceRepository, employeeBalanceBatchRepository, bulkLeaveAccrualService,
+                carryForwardService, new AccrualRunnerConfigProperties(),
+                new TransactionTemplate(transactionManager), Runnable::run);
+        ReflectionTestUtils.setField(yearEndCloseService, "entityManager", entityManager);
+
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            SimpleTransactionStatus status = new SimpleTransactionStatus();
+            transactions.add(status);
+            return status;
+        });
+        lenient().when(yearEndCloseRepository.save(any(YearEndClose.class))).thenAnswer(invocation -> {
+            YearEndClose close = invocation.getArgument(0);
+            if (close.getId() == null) {
+                close.setId(1L);
+            }
+            storedClose = close;
+            return close;
+        });
+        lenient().when(yearEndCloseRepository.findById(1L)).thenAnswer(invocation -> Optional.ofNullable(storedClose));
+        lenient().when(yearEndCloseRepository.findFirstByFromYearAndDryRunAndStatusInOrderByIdDesc(
+                eq(2024), eq(false), anyCollection())).thenAnswer(invocation -> {
+                    Collection<AccrualRunStatus> statuses = invocation.getArgument(2);
+                    return Optional.ofNullable(storedClose)
+                            .filter(close -> !close.getDryRun() && statuses.contains(close.getStatus()));
+                });
+        lenient().when(checkpointRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            storedCheckpoints.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        lenient().when(checkpointRepository.findByCloseIdOrderByChunkIndex(1L))
+                .thenAnswer(invocation -> List.copyOf(storedCheckpoints));
+        lenient().when(checkpointRepository.findByCloseIdAndStatusNotOrderByChunkIndex(1L, AccrualRunStatus.COMPLETED))
+                .thenAnswer(invocation -> storedCheckpoints.stream()
+                        .filter(checkpoint -> checkpoint.getStatus() != AccrualRunStatus.COMPLETED)
+                        .toList());
+
+        // One chunk covering employees 1 and 2
+        lenient().when(employeeBalanceRepository.countByEmployee())
+                .thenReturn(List.of(new Count(1L, 1L), new Count(2L, 1L)));
+    }
+
+    private static LeaveAccrualCatchUpResultDTO written(int accruals) {
+        LeaveAccrualCatchUpResultDTO result = new LeaveAccrualCatchUpResultDTO();
+        result.setAccrualsWritten(accruals);
+        return result;
+    }
+
+    private SimpleTransactionStatus currentTransaction() {
+        return transactions.get(transactions.size() - 1);
+    }
+
+    @Test
+    void closeYear_ResumesFromTheFailedStage() {
+        when(bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                YearMonth.of(2024, 1), YearMonth.of(2024, 6), CLOSE_DATE, 1L, 2L)).thenReturn(written(12));
+        when(bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                YearMonth.of(2024, 7), YearMonth.of(2024, 12), CLOSE_DATE, 1L, 2L)).thenReturn(written(12));
+        when(carryForwardService.recordCarryForwardsInRange(2024, 2025, CLOSE_DATE, 1L, 2L))
+                .thenThrow(new IllegalStateException("Lock wait timeout exceeded"))
+                .thenReturn(2);
+        when(carryForwardService.applyCarryForwardsInRange(2024, 2025, 1L, 2L)).thenReturn(2);
+
+        YearEndCloseDTO failed = yearEndCloseService.closeYear(2024, CLOSE_DATE, false,
+                (totalChunks, diffs) -> reportedDiffs.add(diffs));
+
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals(0, failed.getCompletedChunks());
+        assertEquals(List.of("COMPLETED", "COMPLETED", "FAILED", "PENDING"),
+                failed.getCheckpoints().stream().map(YearEndCloseDTO.CheckpointDTO::getStatus).toList());
+        assertEquals("Lock wait timeout exceeded", failed.getCheckpoints().get(2).getErrorMessage());
+        verify(carryForwardService, never()).applyCarryForwardsInRange(any(), any(), any(), any());
+        assertTrue(reportedDiffs.isEmpty());
+
+        YearEndCloseDTO resumed = yearEndCloseService.closeYear(2024, CLOSE_DATE, false,
+                (totalChunks, diffs) -> reportedDiffs.add(diffs));
+
+        assertEquals("COMPLETED", resumed.getStatus());
+        assertEquals(1, resumed.getCompletedChunks());
+        assertEquals(List.of(12, 12, 2, 2),
+                resumed.getCheckpoints().stream().map(YearEndCloseDTO.CheckpointDTO::getItemsWritten).toList());
+        assertEquals(1, reportedDiffs.size());
+        // Planned once; the committed accrual stages were not run again
+        verify(employeeBalanceRepository, times(1)).countByEmployee();
+        verify(bulkLeaveAccrualService, times(2)).processCatchUpAccrualsInRange(any(), any(), any(), any(), any());
+        verify(carryForwardService, times(2)).recordCarryForwardsInRange(2024, 2025, CLOSE_DATE, 1L, 2L);
+        verify(carryForwardService, times(1)).applyCarryForwardsInRange(2024, 2025, 1L, 2L);
+    }
+
+    @Test
+    void closeYear_DryRunRollsBackAndReportsTheChanges() {
+        // Working copy of the balances, as seen inside the dry-run transaction
+        Map<Long, BigDecimal> working = new LinkedHashMap<>();
+        working.put(10L, new BigDecimal("5.00"));
+        working.put(20L, new BigDecimal("0.00"));
+        List<Boolean> stagesRolledBack = new ArrayList<>();
+
+        when(employeeBalanceBatchRepository.findAmountsInRange(1L, 2L)).thenAnswer(invocation -> {
+            Map<Long, BalanceAmount> amounts = new LinkedHashMap<>();
+            working.forEach((id, amount) -> amounts.put(id, new BalanceAmount(id, id / 10, 1L, amount)));
+            return amounts;
+        });
+        when(bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                YearMonth.of(2024, 1), YearMonth.of(2024, 6), CLOSE_DATE, 1L, 2L)).thenAnswer(invocation -> {
+                    stagesRolledBack.add(currentTransaction().isRollbackOnly());
+                    working.put(10L, new BigDecimal("11.00"));
+                    return written(6);
+                });
+        when(bulkLeaveAccrualService.processCatchUpAccrualsInRange(
+                YearMonth.of(2024, 7), YearMonth.of(2024, 12), CLOSE_DATE, 1L, 2L)).thenAnswer(invocation -> {
+                    stagesRolledBack.add(currentTransaction().isRollbackOnly());
+                    working.put(10L, new BigDecimal("17.00"));
+                    return written(6);
+                });
+        when(carryForwardService.recordCarryForwardsInRange(2024, 2025, CLOSE_DATE, 1L, 2L)).thenAnswer(invocation -> {
+            stagesRolledBack.add(currentTransaction().isRollbackOnly());
+            return 2;
+        });
+        when(carryForwardService.applyCarryForwardsInRange(2024, 2025, 1L, 2L)).thenAnswer(invocation -> {
+            stagesRolledBack.add(currentTransaction().isRollbackOnly());
+            working.put(10L, new BigDecimal("10.00"));
+            return 1;
+        });
+
+        YearEndCloseDTO close = yearEndCloseService.closeYear(2024, CLOSE_DATE, true,
+                (totalChunks, diffs) -> reportedDiffs.add(diffs));
+
+        assertEquals("COMPLETED", close.getStatus());
+        assertTrue(close.getDryRun());
+        assertEquals(List.of(true, true, true, true), stagesRolledBack);
+        assertEquals(List.of(6, 6, 2, 1),
+                close.getCheckpoints().stream().map(YearEndCloseDTO.CheckpointDTO::getItemsWritten).toList());
+
+        // Only the balance the close changes is reported
+        assertEquals(1, reportedDiffs.size());
+        assertEquals(1, reportedDiffs.get(0).size());
+        YearEndCloseDiffDTO diff = reportedDiffs.get(0).get(0);
+        assertEquals(10L, diff.getEmployeeBalanceId());
+        assertEquals(new BigDecimal("5.00"), diff.getBalanceBefore());
+        assertEquals(new BigDecimal("6.00"), diff.getAccrued());
+        assertEquals(new BigDecimal("6.00"), diff.getProjected());
+        assertEquals(new BigDecimal("7.00"), diff.getForfeited());
+        assertEquals(new BigDecimal("10.00"), diff.getBalanceAfter());
+    }
+
+    @Test
+    void closeYear_RejectsAYearThatHasNotStarted() {
+        assertThrows(IllegalArgumentException.class,
+                () -> yearEndCloseService.closeYear(2025, CLOSE_DATE, false, (totalChunks, diffs) -> {
+                }));
+        verifyNoInteractions(yearEndCloseRepository, bulkLeaveAccrualService, carryForwardService);
+    }
+}